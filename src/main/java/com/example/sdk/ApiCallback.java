@@ -0,0 +1,26 @@
+package com.example.sdk;
+
+/**
+ * The callback notified when an {@link ApiFuture} completes.
+ * Callbacks run on the thread completing the future, so they should not block.
+ *
+ * @param <V> the type of the result
+ * @author Feng Zheng
+ * @version 1.0
+ * @since 1.0
+ */
+public interface ApiCallback<V> {
+  /**
+   * Invoked when the future completes successfully.
+   *
+   * @param result the result
+   */
+  void onSuccess(V result);
+
+  /**
+   * Invoked when the future fails or is cancelled.
+   *
+   * @param error the failure, usually an {@link ApiException}
+   */
+  void onFailure(Throwable error);
+}
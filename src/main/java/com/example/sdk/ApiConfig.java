@@ -31,8 +31,160 @@ public final class ApiConfig {
   /**
    * Time delay between the attempts to refresh
    * the access token (in milliseconds).
+   *
+   * @deprecated the requests are replayed as soon as the access token is refreshed
    */
+  @Deprecated
   public static final int RETRY_TOKEN_DELAY_MS = 1000;
+  /**
+   * Default maximum number of retries of a failed idempotent request.
+   */
+  public static final int DEFAULT_RETRY_MAX = 3;
+  /**
+   * Default upper bound of the delay before the first retry (in milliseconds).
+   */
+  public static final long DEFAULT_RETRY_BASE_DELAY_MS = 100;
+  /**
+   * Default upper bound of the delay before any retry (in milliseconds).
+   */
+  public static final long DEFAULT_RETRY_MAX_DELAY_MS = 10000;
+  /**
+   * Default number of retries earned by a request in the retry budget of an API context.
+   */
+  public static final double DEFAULT_RETRY_BUDGET_RATIO = 0.2;
+  /**
+   * Default maximum number of retries saved in the retry budget of an API context.
+   */
+  public static final int DEFAULT_RETRY_BUDGET_MAX = 20;
+  /**
+   * Default number of last calls recorded by the circuit breaker of an endpoint.
+   */
+  public static final int DEFAULT_CIRCUIT_WINDOW_SIZE = 100;
+  /**
+   * Default number of calls recorded before the circuit breaker of an endpoint may open.
+   */
+  public static final int DEFAULT_CIRCUIT_MINIMUM_CALLS = 20;
+  /**
+   * Default fraction of failed calls opening the circuit breaker of an endpoint.
+   */
+  public static final double DEFAULT_CIRCUIT_FAILURE_RATE = 0.5;
+  /**
+   * Default duration from which a call is slow for the circuit breaker (in milliseconds).
+   */
+  public static final long DEFAULT_CIRCUIT_SLOW_CALL_MS = 10000;
+  /**
+   * Default fraction of slow calls opening the circuit breaker of an endpoint.
+   */
+  public static final double DEFAULT_CIRCUIT_SLOW_CALL_RATE = 0.8;
+  /**
+   * Default time an open circuit breaker waits before the trial calls (in milliseconds).
+   */
+  public static final long DEFAULT_CIRCUIT_OPEN_MS = 30000;
+  /**
+   * Default number of trial calls closing a half-open circuit breaker.
+   */
+  public static final int DEFAULT_CIRCUIT_HALF_OPEN_CALLS = 5;
+  /**
+   * Default limit of requests in flight to an endpoint before any round trip is measured.
+   */
+  public static final int DEFAULT_CONCURRENCY_INITIAL_LIMIT = 20;
+  /**
+   * Default lowest limit of requests in flight to an endpoint.
+   */
+  public static final int DEFAULT_CONCURRENCY_MIN_LIMIT = 1;
+  /**
+   * Default highest limit of requests in flight to an endpoint.
+   */
+  public static final int DEFAULT_CONCURRENCY_MAX_LIMIT = 200;
+  /**
+   * Default maximum number of requests waiting for the concurrency limit of an endpoint.
+   */
+  public static final int DEFAULT_CONCURRENCY_MAX_QUEUE = 100;
+  /**
+   * Default percentile of the latency of an endpoint after which a hedged request is sent.
+   */
+  public static final double DEFAULT_HEDGE_PERCENTILE = 0.95;
+  /**
+   * Default maximum number of hedged requests per request of an endpoint.
+   */
+  public static final double DEFAULT_HEDGE_MAX_RATIO = 0.05;
+  /**
+   * Default shortest delay before a hedged request is sent (in milliseconds).
+   */
+  public static final long DEFAULT_HEDGE_MIN_DELAY_MS = 5;
+  /**
+   * Default number of latencies of an endpoint measured before the requests are hedged.
+   */
+  public static final int DEFAULT_HEDGE_MINIMUM_SAMPLES = 100;
+  /**
+   * Default maximum number of entities fetched by a batch of lookups by ID.
+   */
+  public static final int DEFAULT_BATCH_MAX_SIZE = 50;
+  /**
+   * Default time the first lookup by ID waits for others to join its batch (in milliseconds).
+   */
+  public static final long DEFAULT_BATCH_WINDOW_MS = 2;
+  /**
+   * Default maximum number of writes sent in a single request to the batch endpoint.
+   */
+  public static final int DEFAULT_BULK_CHUNK_SIZE = 100;
+  /**
+   * Default maximum number of bulk write requests in flight.
+   */
+  public static final int DEFAULT_BULK_PARALLELISM = 8;
+  /**
+   * Default maximum estimated size of the responses stored by the HTTP cache (in bytes).
+   */
+  public static final long DEFAULT_HTTP_CACHE_MAX_BYTES = 16L * 1024 * 1024;
+  /**
+   * Default maximum number of entities in the entity cache.
+   */
+  public static final int DEFAULT_ENTITY_CACHE_MAX_ENTRIES = 10000;
+  /**
+   * Default time an entity is fresh in the entity cache after it is written (in milliseconds).
+   */
+  public static final long DEFAULT_ENTITY_CACHE_TTL_MS = 60000;
+  /**
+   * Default time a stale cached response is still served while it is refreshed (in milliseconds).
+   */
+  public static final long DEFAULT_STALE_WHILE_REVALIDATE_MS = 30000;
+  /**
+   * Default time before its expiry a cached response is refreshed when served (in milliseconds).
+   */
+  public static final long DEFAULT_REFRESH_AHEAD_MS = 1000;
+  /**
+   * Default maximum number of IDs in the negative cache.
+   */
+  public static final int DEFAULT_NEGATIVE_CACHE_MAX_ENTRIES = 10000;
+  /**
+   * Default time an ID answered with a 404 is known absent (in milliseconds).
+   */
+  public static final long DEFAULT_NEGATIVE_CACHE_TTL_MS = 5000;
+  /**
+   * The fraction of the access token lifetime after which
+   * the token is renewed in the background, when enabled.
+   */
+  public static final double TOKEN_RENEWAL_THRESHOLD = 0.8;
+  /**
+   * Default maximum number of open connections per host in the connection pool.
+   */
+  public static final int DEFAULT_MAX_CONNECTIONS_PER_HOST = 20;
+  /**
+   * Default time an idle connection is kept in the connection pool (in milliseconds).
+   */
+  public static final long DEFAULT_CONNECTION_IDLE_TIMEOUT_MS = 30000;
+  /**
+   * Default time allowed to open a connection (in milliseconds).
+   */
+  public static final long DEFAULT_CONNECT_TIMEOUT_MS = 10000;
+  /**
+   * Default time allowed to an API call, retries and token refresh included (in milliseconds).
+   */
+  public static final long DEFAULT_REQUEST_TIMEOUT_MS = 60000;
+  /**
+   * Default number of threads shared by the asynchronous API requests.
+   */
+  public static final int DEFAULT_ASYNC_THREADS = Math.max(4, Runtime.getRuntime().availableProcessors());
   /**
    * Default number of items per page in response.
    */
@@ -57,6 +209,10 @@ public final class ApiConfig {
    * The key of pagination information.
    */
   public static final String PAGINATION_KEY = "pagination";
+  /**
+   * The query parameter filtering a list of entities by their comma-separated IDs.
+   */
+  public static final String ID_FILTER_KEY = "ids";
   /**
    * The format of date time.
    */
@@ -1,5 +1,13 @@
 package com.example.sdk;
 
+import com.example.sdk.transport.HttpTransport;
+import com.example.sdk.transport.PooledHttpTransport;
+import com.example.sdk.types.HttpMethod;
+import com.example.sdk.types.RawResponseRetention;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * The context class to hold API request base url and version,
@@ -10,6 +18,10 @@ package com.example.sdk;
  * @since 1.0
  */
 public class ApiContext {
+  /**
+   * The transport shared by the contexts without their own.
+   */
+  private static HttpTransport defaultTransport = null;
   /**
    * The base URL of public API.
    */
@@ -27,9 +39,102 @@ public class ApiContext {
    */
   private final String appSecret;
   /**
-   * The app assess token.
+   * The app assess token and its version.
+   */
+  private final AtomicReference<TokenState> tokenState;
+  /**
+   * The HTTP transport to send API requests.
+   */
+  private volatile HttpTransport transport = null;
+  /**
+   * The time allowed to open a connection (in milliseconds), or 0 for no limit.
+   */
+  private volatile long connectTimeoutMs = ApiConfig.DEFAULT_CONNECT_TIMEOUT_MS;
+  /**
+   * The time allowed to the API calls without their own deadline (in milliseconds), or 0 for no limit.
+   */
+  private volatile long requestTimeoutMs = ApiConfig.DEFAULT_REQUEST_TIMEOUT_MS;
+  /**
+   * The retry policy of the endpoints without their own.
+   */
+  private volatile RetryPolicy retryPolicy = RetryPolicy.DEFAULT;
+  /**
+   * The retry policies of the endpoints with their own, keyed by {@link ApiEndPoints.ApiEndPoint#getKey()}.
+   */
+  private final ConcurrentMap<String, RetryPolicy> endpointRetryPolicies = new ConcurrentHashMap<>();
+  /**
+   * The budget shared by the retries of all API requests.
+   */
+  private volatile RetryBudget retryBudget =
+      new RetryBudget(ApiConfig.DEFAULT_RETRY_BUDGET_RATIO, ApiConfig.DEFAULT_RETRY_BUDGET_MAX);
+  /**
+   * The rate limiter of all API requests, or null if they are not limited.
+   */
+  private volatile RateLimiter rateLimiter = null;
+  /**
+   * The rate limiters of the endpoints with their own, keyed by {@link ApiEndPoints.ApiEndPoint#getKey()}.
+   */
+  private final ConcurrentMap<String, RateLimiter> endpointRateLimiters = new ConcurrentHashMap<>();
+  /**
+   * The coalescer of the identical GET requests in flight, or null if every request is sent.
+   */
+  private volatile RequestCoalescer requestCoalescer = null;
+  /**
+   * The cache of the GET responses, or null if every response is requested.
+   */
+  private volatile HttpCache httpCache = null;
+  /**
+   * The cache of the parsed entities by ID, or null if they are not cached.
+   */
+  private volatile EntityCache entityCache = null;
+  /**
+   * The revalidation policy of the endpoints without their own, or null if the cached responses are only served fresh.
+   */
+  private volatile RevalidationPolicy revalidationPolicy = null;
+  /**
+   * The revalidation policies of the endpoints with their own, keyed by {@link ApiEndPoints.ApiEndPoint#getKey()}.
+   */
+  private final ConcurrentMap<String, RevalidationPolicy> endpointRevalidationPolicies = new ConcurrentHashMap<>();
+  /**
+   * The cache of the entities known not to exist, or null if every lookup is sent.
+   */
+  private volatile NegativeCache negativeCache = null;
+  /**
+   * The retention of the raw responses of the requests without their own.
+   */
+  private volatile RawResponseRetention rawResponseRetention = RawResponseRetention.FULL;
+  /**
+   * Whether the entities of the parsed lists are bound on demand.
+   */
+  private volatile boolean lazyListParsing = false;
+  /**
+   * The policy of the circuit breakers, or null if the endpoints are not guarded.
    */
-  private String appToken;
+  private volatile CircuitBreakerPolicy circuitBreakerPolicy = null;
+  /**
+   * The circuit breakers of the endpoints, keyed by {@link ApiEndPoints.ApiEndPoint#getKey()}.
+   */
+  private final ConcurrentMap<String, CircuitBreaker> circuitBreakers = new ConcurrentHashMap<>();
+  /**
+   * The policy of the concurrency limits, or null if the requests in flight are not limited.
+   */
+  private volatile ConcurrencyLimitPolicy concurrencyLimitPolicy = null;
+  /**
+   * The concurrency limiters of the endpoints, keyed by {@link ApiEndPoints.ApiEndPoint#getKey()}.
+   */
+  private final ConcurrentMap<String, ConcurrencyLimiter> concurrencyLimiters = new ConcurrentHashMap<>();
+  /**
+   * The policy of the hedged requests, or null if the requests are not hedged.
+   */
+  private volatile HedgingPolicy hedgingPolicy = null;
+  /**
+   * The hedgers of the GET endpoints, keyed by {@link ApiEndPoints.ApiEndPoint#getKey()}.
+   */
+  private final ConcurrentMap<String, Hedger> hedgers = new ConcurrentHashMap<>();
+  /**
+   * The single-flight refresher of the app access token.
+   */
+  private final TokenRefresher tokenRefresher = new TokenRefresher(this);
 
   /**
    * Instantiates a new API context with specific API base url,
@@ -47,7 +152,7 @@ public class ApiContext {
     this.version = version;
     this.appId = appId;
     this.appSecret = appSecret;
-    this.appToken = appToken;
+    this.tokenState = new AtomicReference<>(new TokenState(appToken, 0));
   }
 
   /**
@@ -118,7 +223,7 @@ public class ApiContext {
    * @return the app access token
    */
   public String getAppToken() {
-    return appToken;
+    return tokenState.get().getToken();
   }
 
   /**
@@ -127,14 +232,14 @@ public class ApiContext {
    * @param appToken the new app assess token
    */
   public void setAppToken(String appToken) {
-    this.appToken = appToken;
+    swapAppToken(appToken);
   }
 
   /**
    * Clear the app access token.
    */
   public void clearAppToken() {
-    this.appToken = null;
+    swapAppToken(null);
   }
 
   /**
@@ -143,6 +248,593 @@ public class ApiContext {
    * @return whether the API context has the app access token.
    */
   public boolean hasAppToken() {
-    return appToken != null;
+    return getAppToken() != null;
+  }
+
+  /**
+   * Gets the app access token together with its version.
+   *
+   * @return the current token state
+   */
+  TokenState getTokenState() {
+    return tokenState.get();
+  }
+
+  /**
+   * Clears the app access token rejected by the server, unless it has been replaced since.
+   *
+   * @param failed the token state the rejected request was sent with
+   * @return whether the token was cleared
+   */
+  boolean clearAppToken(TokenState failed) {
+    return tokenState.compareAndSet(failed, new TokenState(null, failed.getVersion() + 1));
+  }
+
+  /**
+   * Renews the app access token in the background before it expires, so the requests are not
+   * rejected with an expired token. A token is renewed after {@link ApiConfig#TOKEN_RENEWAL_THRESHOLD}
+   * of its lifetime, which is the expiry of the token response if any, or the given lifetime otherwise.
+   * The renewal keeps the API context reachable until {@link #disableTokenRenewal()} is called.
+   *
+   * @param tokenLifetimeMs the lifetime of the tokens whose response has no expiry (in milliseconds)
+   */
+  public void enableTokenRenewal(long tokenLifetimeMs) {
+    tokenRefresher.enableRenewal(tokenLifetimeMs);
+  }
+
+  /**
+   * Stops renewing the app access token in the background.
+   */
+  public void disableTokenRenewal() {
+    tokenRefresher.disableRenewal();
+  }
+
+  /**
+   * Gets the HTTP transport to send API requests.
+   * Unless set otherwise, it is the {@link PooledHttpTransport} shared by all API contexts.
+   *
+   * @return the HTTP transport
+   */
+  public HttpTransport getTransport() {
+    HttpTransport current = transport;
+    return (current != null) ? current : getDefaultTransport();
+  }
+
+  /**
+   * Sets the HTTP transport to send API requests, e.g. a {@link com.example.sdk.transport.NioHttpTransport}
+   * or, for an API base speaking cleartext HTTP/2, a {@link com.example.sdk.transport.Http2Transport}.
+   *
+   * @param transport the HTTP transport, or null to use the shared one
+   */
+  public void setTransport(HttpTransport transport) {
+    this.transport = transport;
+  }
+
+  /**
+   * Gets the time allowed to open a connection, within the deadline of the call.
+   * Unless set otherwise, it is {@link ApiConfig#DEFAULT_CONNECT_TIMEOUT_MS}.
+   *
+   * @return the connect timeout (in milliseconds), or 0 for no limit
+   */
+  public long getConnectTimeoutMs() {
+    return connectTimeoutMs;
+  }
+
+  /**
+   * Sets the time allowed to open a connection, within the deadline of the call.
+   *
+   * @param connectTimeoutMs the connect timeout (in milliseconds), or 0 for no limit
+   */
+  public void setConnectTimeoutMs(long connectTimeoutMs) {
+    if (connectTimeoutMs < 0) {
+      throw new IllegalArgumentException("Connect timeout must not be negative");
+    }
+    this.connectTimeoutMs = connectTimeoutMs;
+  }
+
+  /**
+   * Gets the time allowed to the API calls without their own deadline, retries, backoff and
+   * token refresh included. Unless set otherwise, it is {@link ApiConfig#DEFAULT_REQUEST_TIMEOUT_MS}.
+   *
+   * @return the request timeout (in milliseconds), or 0 for no limit
+   */
+  public long getRequestTimeoutMs() {
+    return requestTimeoutMs;
+  }
+
+  /**
+   * Sets the time allowed to the API calls without their own deadline, retries, backoff and
+   * token refresh included.
+   *
+   * @param requestTimeoutMs the request timeout (in milliseconds), or 0 for no limit
+   * @see ApiRequest#setTimeout(long)
+   */
+  public void setRequestTimeoutMs(long requestTimeoutMs) {
+    if (requestTimeoutMs < 0) {
+      throw new IllegalArgumentException("Request timeout must not be negative");
+    }
+    this.requestTimeoutMs = requestTimeoutMs;
+  }
+
+  /**
+   * Gets the retry policy of the API requests.
+   * Unless set otherwise, it is {@link RetryPolicy#DEFAULT}.
+   *
+   * @return the retry policy
+   */
+  public RetryPolicy getRetryPolicy() {
+    return retryPolicy;
+  }
+
+  /**
+   * Sets the retry policy of the API requests, e.g. {@link RetryPolicy#NO_RETRY}.
+   *
+   * @param retryPolicy the retry policy
+   */
+  public void setRetryPolicy(RetryPolicy retryPolicy) {
+    if (retryPolicy == null) {
+      throw new IllegalArgumentException("Retry policy must not be null");
+    }
+    this.retryPolicy = retryPolicy;
+  }
+
+  /**
+   * Gets the retry policy of the requests to an endpoint.
+   *
+   * @param method      the HTTP method of the endpoint
+   * @param uriTemplate the URI template of the endpoint, relative to the API version, e.g. {@code entities/%1s}
+   * @return the retry policy of the endpoint, or the retry policy of the context if it has none
+   */
+  public RetryPolicy getRetryPolicy(HttpMethod method, String uriTemplate) {
+    RetryPolicy policy = endpointRetryPolicies.get(ApiEndPoints.ApiEndPoint.key(method, uriTemplate));
+    return (policy != null) ? policy : retryPolicy;
+  }
+
+  /**
+   * Sets the retry policy of the requests to an endpoint, instead of the retry policy of the context.
+   * The endpoints resolved for every ID share it, e.g. {@code GET entities/%1s}.
+   *
+   * @param method      the HTTP method of the endpoint
+   * @param uriTemplate the URI template of the endpoint, relative to the API version, e.g. {@code entities/%1s}
+   * @param retryPolicy the retry policy, or null for the retry policy of the context
+   */
+  public void setRetryPolicy(HttpMethod method, String uriTemplate, RetryPolicy retryPolicy) {
+    if (method == null || uriTemplate == null) {
+      throw new IllegalArgumentException("Endpoint method and URI template must not be null");
+    }
+    String key = ApiEndPoints.ApiEndPoint.key(method, uriTemplate);
+    if (retryPolicy == null) {
+      endpointRetryPolicies.remove(key);
+    } else {
+      endpointRetryPolicies.put(key, retryPolicy);
+    }
+  }
+
+  /**
+   * Gets the budget shared by the retries of all API requests.
+   *
+   * @return the retry budget
+   */
+  public RetryBudget getRetryBudget() {
+    return retryBudget;
+  }
+
+  /**
+   * Sets the budget shared by the retries of all API requests.
+   *
+   * @param retryBudget the retry budget
+   */
+  public void setRetryBudget(RetryBudget retryBudget) {
+    if (retryBudget == null) {
+      throw new IllegalArgumentException("Retry budget must not be null");
+    }
+    this.retryBudget = retryBudget;
+  }
+
+  /**
+   * Gets the rate limiter of all API requests.
+   *
+   * @return the rate limiter, or null if the requests are not limited
+   */
+  public RateLimiter getRateLimiter() {
+    return rateLimiter;
+  }
+
+  /**
+   * Sets the rate limiter of all API requests.
+   *
+   * @param rateLimiter the rate limiter, or null not to limit the requests
+   */
+  public void setRateLimiter(RateLimiter rateLimiter) {
+    this.rateLimiter = rateLimiter;
+  }
+
+  /**
+   * Gets the rate limiter of the requests to an endpoint, on top of the rate limiter of all API requests.
+   *
+   * @param method      the HTTP method of the endpoint
+   * @param uriTemplate the URI template of the endpoint, relative to the API version, e.g. {@code entities/%1s}
+   * @return the rate limiter of the endpoint, or null if it has none
+   */
+  public RateLimiter getRateLimiter(HttpMethod method, String uriTemplate) {
+    return endpointRateLimiters.get(ApiEndPoints.ApiEndPoint.key(method, uriTemplate));
+  }
+
+  /**
+   * Sets the rate limiter of the requests to an endpoint, on top of the rate limiter of all API requests.
+   * The endpoints resolved for every ID share it, e.g. {@code GET entities/%1s}.
+   *
+   * @param method      the HTTP method of the endpoint
+   * @param uriTemplate the URI template of the endpoint, relative to the API version, e.g. {@code entities/%1s}
+   * @param rateLimiter the rate limiter, or null to only limit the requests by the rate limiter of all API requests
+   */
+  public void setRateLimiter(HttpMethod method, String uriTemplate, RateLimiter rateLimiter) {
+    if (method == null || uriTemplate == null) {
+      throw new IllegalArgumentException("Endpoint method and URI template must not be null");
+    }
+    String key = ApiEndPoints.ApiEndPoint.key(method, uriTemplate);
+    if (rateLimiter == null) {
+      endpointRateLimiters.remove(key);
+    } else {
+      endpointRateLimiters.put(key, rateLimiter);
+    }
+  }
+
+  /**
+   * Gets the coalescer of the identical GET requests in flight.
+   *
+   * @return the request coalescer, or null if every request is sent
+   */
+  public RequestCoalescer getRequestCoalescer() {
+    return requestCoalescer;
+  }
+
+  /**
+   * Sets the coalescer of the identical GET requests in flight.
+   *
+   * @param requestCoalescer the request coalescer, or null to send every request
+   */
+  public void setRequestCoalescer(RequestCoalescer requestCoalescer) {
+    this.requestCoalescer = requestCoalescer;
+  }
+
+  /**
+   * Gets the cache of the GET responses.
+   *
+   * @return the HTTP cache, or null if every response is requested
+   */
+  public HttpCache getHttpCache() {
+    return httpCache;
+  }
+
+  /**
+   * Sets the cache of the GET responses.
+   *
+   * @param httpCache the HTTP cache, or null to request every response
+   */
+  public void setHttpCache(HttpCache httpCache) {
+    this.httpCache = httpCache;
+  }
+
+  /**
+   * Gets the cache of the parsed entities by ID.
+   *
+   * @return the entity cache, or null if the entities are not cached
+   */
+  public EntityCache getEntityCache() {
+    return entityCache;
+  }
+
+  /**
+   * Sets the cache of the parsed entities by ID.
+   *
+   * @param entityCache the entity cache, or null not to cache the entities
+   */
+  public void setEntityCache(EntityCache entityCache) {
+    this.entityCache = entityCache;
+  }
+
+  /**
+   * Gets the policy refreshing the cached GET responses in the background.
+   *
+   * @return the revalidation policy, or null if the cached responses are only served fresh
+   */
+  public RevalidationPolicy getRevalidationPolicy() {
+    return revalidationPolicy;
+  }
+
+  /**
+   * Sets the policy refreshing the cached GET responses in the background, e.g. {@link RevalidationPolicy#DEFAULT}.
+   *
+   * @param revalidationPolicy the revalidation policy, or null to only serve the fresh cached responses
+   */
+  public void setRevalidationPolicy(RevalidationPolicy revalidationPolicy) {
+    this.revalidationPolicy = revalidationPolicy;
+  }
+
+  /**
+   * Gets the policy refreshing the cached responses of a GET endpoint in the background.
+   *
+   * @param method      the HTTP method of the endpoint
+   * @param uriTemplate the URI template of the endpoint, relative to the API version, e.g. {@code entities/%1s}
+   * @return the revalidation policy of the endpoint, or the revalidation policy of the context if it has none
+   */
+  public RevalidationPolicy getRevalidationPolicy(HttpMethod method, String uriTemplate) {
+    RevalidationPolicy policy = endpointRevalidationPolicies.get(ApiEndPoints.ApiEndPoint.key(method, uriTemplate));
+    return (policy != null) ? policy : revalidationPolicy;
+  }
+
+  /**
+   * Sets the policy refreshing the cached responses of a GET endpoint in the background, with its own
+   * staleness bound and executor, instead of the revalidation policy of the context.
+   * The endpoints resolved for every ID share it, e.g. {@code GET entities/%1s}.
+   *
+   * @param method             the HTTP method of the endpoint
+   * @param uriTemplate        the URI template of the endpoint, relative to the API version, e.g. {@code entities/%1s}
+   * @param revalidationPolicy the revalidation policy, or null for the revalidation policy of the context
+   */
+  public void setRevalidationPolicy(HttpMethod method, String uriTemplate, RevalidationPolicy revalidationPolicy) {
+    if (method == null || uriTemplate == null) {
+      throw new IllegalArgumentException("Endpoint method and URI template must not be null");
+    }
+    String key = ApiEndPoints.ApiEndPoint.key(method, uriTemplate);
+    if (revalidationPolicy == null) {
+      endpointRevalidationPolicies.remove(key);
+    } else {
+      endpointRevalidationPolicies.put(key, revalidationPolicy);
+    }
+  }
+
+  /**
+   * Gets the cache of the entities known not to exist.
+   *
+   * @return the negative cache, or null if every lookup is sent
+   */
+  public NegativeCache getNegativeCache() {
+    return negativeCache;
+  }
+
+  /**
+   * Sets the cache of the entities known not to exist.
+   *
+   * @param negativeCache the negative cache, or null to send every lookup
+   */
+  public void setNegativeCache(NegativeCache negativeCache) {
+    this.negativeCache = negativeCache;
+  }
+
+  /**
+   * Gets how the parsed entities and lists keep their raw responses.
+   * Unless set otherwise, it is {@link RawResponseRetention#FULL}.
+   *
+   * @return the raw response retention
+   */
+  public RawResponseRetention getRawResponseRetention() {
+    return rawResponseRetention;
+  }
+
+  /**
+   * Sets how the parsed entities and lists keep their raw responses, for the requests without their own.
+   *
+   * @param rawResponseRetention the raw response retention
+   */
+  public void setRawResponseRetention(RawResponseRetention rawResponseRetention) {
+    if (rawResponseRetention == null) {
+      throw new IllegalArgumentException("Raw response retention must not be null");
+    }
+    this.rawResponseRetention = rawResponseRetention;
+  }
+
+  /**
+   * Whether the entities of the parsed lists are bound on demand, by {@link LazyApiNodeList}.
+   *
+   * @return the boolean
+   */
+  public boolean isLazyListParsing() {
+    return lazyListParsing;
+  }
+
+  /**
+   * Sets whether the entities of the parsed lists are bound on demand, by {@link LazyApiNodeList}.
+   * The lists are still bound at once with a {@link NegativeCache}, which needs the IDs of the listed entities.
+   *
+   * @param lazyListParsing whether the entities are bound on demand
+   */
+  public void setLazyListParsing(boolean lazyListParsing) {
+    this.lazyListParsing = lazyListParsing;
+  }
+
+  /**
+   * Gets the policy of the circuit breakers guarding the endpoints.
+   *
+   * @return the circuit breaker policy, or null if the endpoints are not guarded
+   */
+  public CircuitBreakerPolicy getCircuitBreakerPolicy() {
+    return circuitBreakerPolicy;
+  }
+
+  /**
+   * Sets the policy of the circuit breakers guarding the endpoints, e.g. {@link CircuitBreakerPolicy#DEFAULT}.
+   * The breakers start over closed.
+   *
+   * @param circuitBreakerPolicy the circuit breaker policy, or null not to guard the endpoints
+   */
+  public void setCircuitBreakerPolicy(CircuitBreakerPolicy circuitBreakerPolicy) {
+    this.circuitBreakerPolicy = circuitBreakerPolicy;
+    circuitBreakers.clear();
+  }
+
+  /**
+   * Gets the circuit breaker of the endpoint.
+   *
+   * @param apiEndPoint the API endpoint
+   * @return the circuit breaker, or null if the endpoints are not guarded
+   */
+  CircuitBreaker getCircuitBreaker(ApiEndPoints.ApiEndPoint apiEndPoint) {
+    CircuitBreakerPolicy policy = circuitBreakerPolicy;
+    if (policy == null) {
+      return null;
+    }
+    String key = apiEndPoint.getKey();
+    CircuitBreaker breaker = circuitBreakers.get(key);
+    if (breaker == null) {
+      CircuitBreaker created = new CircuitBreaker(key, policy);
+      breaker = circuitBreakers.putIfAbsent(key, created);
+      if (breaker == null) {
+        breaker = created;
+      }
+    }
+    return breaker;
+  }
+
+  /**
+   * Gets the policy of the adaptive limits of requests in flight to the endpoints.
+   *
+   * @return the concurrency limit policy, or null if the requests in flight are not limited
+   */
+  public ConcurrencyLimitPolicy getConcurrencyLimitPolicy() {
+    return concurrencyLimitPolicy;
+  }
+
+  /**
+   * Sets the policy of the adaptive limits of requests in flight to the endpoints,
+   * e.g. {@link ConcurrencyLimitPolicy#DEFAULT}. The limits start over from the initial limit.
+   *
+   * @param concurrencyLimitPolicy the concurrency limit policy, or null not to limit the requests in flight
+   */
+  public void setConcurrencyLimitPolicy(ConcurrencyLimitPolicy concurrencyLimitPolicy) {
+    this.concurrencyLimitPolicy = concurrencyLimitPolicy;
+    concurrencyLimiters.clear();
+  }
+
+  /**
+   * Gets the concurrency limiter of the endpoint.
+   *
+   * @param apiEndPoint the API endpoint
+   * @return the concurrency limiter, or null if the requests in flight are not limited
+   */
+  ConcurrencyLimiter getConcurrencyLimiter(ApiEndPoints.ApiEndPoint apiEndPoint) {
+    ConcurrencyLimitPolicy policy = concurrencyLimitPolicy;
+    if (policy == null) {
+      return null;
+    }
+    String key = apiEndPoint.getKey();
+    ConcurrencyLimiter limiter = concurrencyLimiters.get(key);
+    if (limiter == null) {
+      ConcurrencyLimiter created = new ConcurrencyLimiter(key, policy);
+      limiter = concurrencyLimiters.putIfAbsent(key, created);
+      if (limiter == null) {
+        limiter = created;
+      }
+    }
+    return limiter;
+  }
+
+  /**
+   * Gets the policy of the hedged requests of the GET endpoints.
+   *
+   * @return the hedging policy, or null if the requests are not hedged
+   */
+  public HedgingPolicy getHedgingPolicy() {
+    return hedgingPolicy;
+  }
+
+  /**
+   * Sets the policy of the hedged requests of the GET endpoints, e.g. {@link HedgingPolicy#DEFAULT}.
+   * The latencies are measured again from scratch.
+   *
+   * @param hedgingPolicy the hedging policy, or null not to hedge the requests
+   */
+  public void setHedgingPolicy(HedgingPolicy hedgingPolicy) {
+    this.hedgingPolicy = hedgingPolicy;
+    hedgers.clear();
+  }
+
+  /**
+   * Gets the hedger of the endpoint.
+   *
+   * @param apiEndPoint the API endpoint
+   * @return the hedger, or null if the requests are not hedged or the endpoint is not idempotent
+   */
+  Hedger getHedger(ApiEndPoints.ApiEndPoint apiEndPoint) {
+    HedgingPolicy policy = hedgingPolicy;
+    if (policy == null || apiEndPoint.getMethod() != HttpMethod.GET) {
+      return null;
+    }
+    String key = apiEndPoint.getKey();
+    Hedger hedger = hedgers.get(key);
+    if (hedger == null) {
+      Hedger created = new Hedger(policy);
+      hedger = hedgers.putIfAbsent(key, created);
+      if (hedger == null) {
+        hedger = created;
+      }
+    }
+    return hedger;
+  }
+
+  /**
+   * Gets the refresher of the app access token.
+   *
+   * @return the token refresher
+   */
+  TokenRefresher getTokenRefresher() {
+    return tokenRefresher;
+  }
+
+  /**
+   * Gets the transport shared by the contexts without their own.
+   *
+   * @return the shared transport
+   */
+  private static synchronized HttpTransport getDefaultTransport() {
+    if (defaultTransport == null) {
+      defaultTransport = new PooledHttpTransport();
+    }
+    return defaultTransport;
+  }
+
+  private void swapAppToken(String appToken) {
+    TokenState current;
+    do {
+      current = tokenState.get();
+    } while (!tokenState.compareAndSet(current, new TokenState(appToken, current.getVersion() + 1)));
+  }
+
+  /**
+   * An immutable snapshot of the app access token, versioned by every change of the token.
+   */
+  static final class TokenState {
+    private final String token;
+    private final long version;
+
+    /**
+     * Constructs a new token state.
+     *
+     * @param token   the app access token
+     * @param version the version
+     */
+    TokenState(String token, long version) {
+      this.token = token;
+      this.version = version;
+    }
+
+    /**
+     * Gets the app access token.
+     *
+     * @return the app access token, or null if absent
+     */
+    String getToken() {
+      return token;
+    }
+
+    /**
+     * Gets the version of the token.
+     *
+     * @return the version
+     */
+    long getVersion() {
+      return version;
+    }
   }
 }
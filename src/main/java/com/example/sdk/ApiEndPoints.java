@@ -24,10 +24,18 @@ public final class ApiEndPoints {
      * Public API endpoint URI.
      */
     private final String uri;
+    /**
+     * Public API endpoint URI before its params are resolved.
+     */
+    private final String template;
     /**
      * Public API endpoint HTTP method.
      */
     private final HttpMethod method;
+    /**
+     * Whether the requests carry the app access token.
+     */
+    private final boolean authenticated;
 
     /**
      * Instantiates a new API endpoint.
@@ -36,8 +44,14 @@ public final class ApiEndPoints {
      * @param method HTTP method
      */
     private ApiEndPoint(String uri, HttpMethod method) {
+      this(uri, uri, method, true);
+    }
+
+    private ApiEndPoint(String uri, String template, HttpMethod method, boolean authenticated) {
       this.uri = uri;
+      this.template = template;
       this.method = method;
+      this.authenticated = authenticated;
     }
 
     /**
@@ -48,7 +62,16 @@ public final class ApiEndPoints {
      */
     ApiEndPoint resolveUriParams(String... urlParams) {
       String resolvedUri = String.format(uri, (Object[]) urlParams);
-      return new ApiEndPoint(resolvedUri, method);
+      return new ApiEndPoint(resolvedUri, template, method, authenticated);
+    }
+
+    /**
+     * Gets a copy of the endpoint whose requests do not carry the app access token.
+     *
+     * @return the anonymous API endpoint
+     */
+    ApiEndPoint anonymous() {
+      return new ApiEndPoint(uri, template, method, false);
     }
 
     /**
@@ -60,6 +83,39 @@ public final class ApiEndPoints {
       return uri;
     }
 
+    /**
+     * Gets the key shared by the endpoints of the same URI template and method.
+     *
+     * @return the endpoint key
+     */
+    String getKey() {
+      return key(method, template);
+    }
+
+    /**
+     * Gets the key shared by the endpoints of the given URI template and method.
+     *
+     * @param method   the HTTP method
+     * @param template the URI template, e.g. {@code entities/%1s}
+     * @return the endpoint key
+     */
+    static String key(HttpMethod method, String template) {
+      return method + " " + template;
+    }
+
+    /**
+     * Gets the ID of the entity the endpoint is resolved for, when the URI ends with it.
+     *
+     * @return the ID of the entity, or null if the URI does not end with a parameter
+     */
+    String getEntityId() {
+      if (!template.endsWith("/%1s") || uri.equals(template)) {
+        return null;
+      }
+      String prefix = template.substring(0, template.length() - "%1s".length());
+      return uri.startsWith(prefix) ? uri.substring(prefix.length()) : null;
+    }
+
     /**
      * Resolves and gets the API URL.
      *
@@ -78,13 +134,52 @@ public final class ApiEndPoints {
     HttpMethod getMethod() {
       return method;
     }
+
+    /**
+     * Returns whether the requests carry the app access token.
+     *
+     * @return whether the requests carry the app access token
+     */
+    boolean isAuthenticated() {
+      return authenticated;
+    }
+
+    /**
+     * Gets the retry policy of the requests.
+     *
+     * @param context {@link ApiContext}
+     * @return the retry policy of the endpoint, or the policy of the API context by default
+     */
+    RetryPolicy getRetryPolicy(ApiContext context) {
+      return context.getRetryPolicy(method, template);
+    }
+
+    /**
+     * Gets the rate limiter of the requests, on top of the one of the API context.
+     *
+     * @param context {@link ApiContext}
+     * @return the rate limiter, or null if none
+     */
+    RateLimiter getRateLimiter(ApiContext context) {
+      return context.getRateLimiter(method, template);
+    }
+
+    /**
+     * Gets the revalidation policy of the cached responses.
+     *
+     * @param context {@link ApiContext}
+     * @return the revalidation policy of the endpoint, or the policy of the API context by default
+     */
+    RevalidationPolicy getRevalidationPolicy(ApiContext context) {
+      return context.getRevalidationPolicy(method, template);
+    }
   }
 
   /**
-   * The endpoint to regenerate the app access token.
+   * The endpoint to regenerate the app access token, authenticated by the app secret.
    */
   static final ApiEndPoint CREATE_ACCESS_TOKEN =
-      new ApiEndPoint("apps/%1s/token", HttpMethod.POST);
+      new ApiEndPoint("apps/%1s/token", HttpMethod.POST).anonymous();
 
   /**
    * The endpoint to list the user's entities.
@@ -110,6 +205,12 @@ public final class ApiEndPoints {
   static final ApiEndPoint UPDATE_ENTITY =
       new ApiEndPoint("entities/%1s", HttpMethod.PUT);
 
+  /**
+   * The endpoint to create, update and delete entities in bulk, where the server supports it.
+   */
+  static final ApiEndPoint BATCH_ENTITIES =
+      new ApiEndPoint("entities/batch", HttpMethod.POST);
+
   /**
    * The endpoint to delete the entity from user's account.
    */
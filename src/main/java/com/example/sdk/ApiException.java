@@ -241,4 +241,209 @@ public class ApiException extends Exception implements ApiResponse {
       super(message, e);
     }
   }
+
+  /**
+   * The class to handle rate limit exceeded exception.
+   */
+  public static class RateLimitExceededException extends ApiException {
+    /**
+     * Instantiates a new rate limit exceeded exception by default.
+     */
+    public RateLimitExceededException() {
+      super();
+    }
+
+    /**
+     * Instantiates a new rate limit exceeded exception with the object of {@link Throwable}.
+     *
+     * @param e the object of {@link Throwable}
+     */
+    public RateLimitExceededException(Throwable e) {
+      super(e);
+    }
+
+    /**
+     * Instantiates a new rate limit exceeded exception with the error message.
+     *
+     * @param message the error message
+     */
+    public RateLimitExceededException(String message) {
+      super(message);
+    }
+
+    /**
+     * Instantiates a new rate limit exceeded exception with
+     * both the object of {@link Throwable} and the error message.
+     *
+     * @param message the error message
+     * @param e       the object of {@link Throwable}
+     */
+    public RateLimitExceededException(String message, Throwable e) {
+      super(message, e);
+    }
+  }
+
+  /**
+   * The class to handle circuit open exception.
+   */
+  public static class CircuitOpenException extends ApiException {
+    /**
+     * Instantiates a new circuit open exception by default.
+     */
+    public CircuitOpenException() {
+      super();
+    }
+
+    /**
+     * Instantiates a new circuit open exception with the object of {@link Throwable}.
+     *
+     * @param e the object of {@link Throwable}
+     */
+    public CircuitOpenException(Throwable e) {
+      super(e);
+    }
+
+    /**
+     * Instantiates a new circuit open exception with the error message.
+     *
+     * @param message the error message
+     */
+    public CircuitOpenException(String message) {
+      super(message);
+    }
+
+    /**
+     * Instantiates a new circuit open exception with
+     * both the object of {@link Throwable} and the error message.
+     *
+     * @param message the error message
+     * @param e       the object of {@link Throwable}
+     */
+    public CircuitOpenException(String message, Throwable e) {
+      super(message, e);
+    }
+  }
+
+  /**
+   * The class to handle concurrency limit exceeded exception.
+   */
+  public static class ConcurrencyLimitExceededException extends ApiException {
+    /**
+     * Instantiates a new concurrency limit exceeded exception by default.
+     */
+    public ConcurrencyLimitExceededException() {
+      super();
+    }
+
+    /**
+     * Instantiates a new concurrency limit exceeded exception with the object of {@link Throwable}.
+     *
+     * @param e the object of {@link Throwable}
+     */
+    public ConcurrencyLimitExceededException(Throwable e) {
+      super(e);
+    }
+
+    /**
+     * Instantiates a new concurrency limit exceeded exception with the error message.
+     *
+     * @param message the error message
+     */
+    public ConcurrencyLimitExceededException(String message) {
+      super(message);
+    }
+
+    /**
+     * Instantiates a new concurrency limit exceeded exception with
+     * both the object of {@link Throwable} and the error message.
+     *
+     * @param message the error message
+     * @param e       the object of {@link Throwable}
+     */
+    public ConcurrencyLimitExceededException(String message, Throwable e) {
+      super(message, e);
+    }
+  }
+
+  /**
+   * The class to handle deadline exceeded exception.
+   */
+  public static class DeadlineExceededException extends ApiException {
+    /**
+     * Instantiates a new deadline exceeded exception by default.
+     */
+    public DeadlineExceededException() {
+      super();
+    }
+
+    /**
+     * Instantiates a new deadline exceeded exception with the object of {@link Throwable}.
+     *
+     * @param e the object of {@link Throwable}
+     */
+    public DeadlineExceededException(Throwable e) {
+      super(e);
+    }
+
+    /**
+     * Instantiates a new deadline exceeded exception with the error message.
+     *
+     * @param message the error message
+     */
+    public DeadlineExceededException(String message) {
+      super(message);
+    }
+
+    /**
+     * Instantiates a new deadline exceeded exception with
+     * both the object of {@link Throwable} and the error message.
+     *
+     * @param message the error message
+     * @param e       the object of {@link Throwable}
+     */
+    public DeadlineExceededException(String message, Throwable e) {
+      super(message, e);
+    }
+  }
+
+  /**
+   * The class to handle entity not found exception, for the 404 responses of the lookups by ID.
+   */
+  public static class EntityNotFoundException extends FailedRequestException {
+    /**
+     * Instantiates a new entity not found exception by default.
+     */
+    public EntityNotFoundException() {
+      super();
+    }
+
+    /**
+     * Instantiates a new entity not found exception with the object of {@link Throwable}.
+     *
+     * @param e the object of {@link Throwable}
+     */
+    public EntityNotFoundException(Throwable e) {
+      super(e);
+    }
+
+    /**
+     * Instantiates a new entity not found exception with the error message.
+     *
+     * @param message the error message
+     */
+    public EntityNotFoundException(String message) {
+      super(message);
+    }
+
+    /**
+     * Instantiates a new entity not found exception with
+     * both the object of {@link Throwable} and the error message.
+     *
+     * @param message the error message
+     * @param e       the object of {@link Throwable}
+     */
+    public EntityNotFoundException(String message, Throwable e) {
+      super(message, e);
+    }
+  }
 }
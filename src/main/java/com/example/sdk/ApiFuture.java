@@ -0,0 +1,21 @@
+package com.example.sdk;
+
+import java.util.concurrent.Future;
+
+/**
+ * The pending result of an asynchronous API request.
+ *
+ * @param <V> the type of the result
+ * @author Feng Zheng
+ * @version 1.0
+ * @since 1.0
+ */
+public interface ApiFuture<V> extends Future<V> {
+  /**
+   * Registers a callback notified when the future completes.
+   * If the future is already complete, the callback is notified immediately.
+   *
+   * @param callback the callback
+   */
+  void addCallback(ApiCallback<? super V> callback);
+}
@@ -1,14 +1,23 @@
 package com.example.sdk;
 
 import com.example.sdk.ApiException.MalformedResponseException;
+import com.example.sdk.types.RawResponseRetention;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
 import com.google.gson.JsonParser;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
 import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
 import java.util.Date;
 
 /**
@@ -31,9 +40,29 @@ public abstract class ApiNode implements ApiResponse {
   private transient ApiContext context = null;
 
   /**
-   * The raw value of the API response.
+   * The raw value of the API response, or null if it is a slice of the response.
    */
   private transient String rawValue = null;
+  /**
+   * The whole API response the raw value is a slice of, shared by the entities of the response.
+   */
+  private transient String rawSource = null;
+  /**
+   * The start position of the raw value in the whole API response.
+   */
+  private transient int rawStart = 0;
+  /**
+   * The end position of the raw value in the whole API response.
+   */
+  private transient int rawEnd = 0;
+  /**
+   * The raw value encoded in UTF-8, kept instead of the string with {@link RawResponseRetention#COMPACT}.
+   */
+  private transient byte[] rawBytes = null;
+  /**
+   * Whether the raw value was dropped with {@link RawResponseRetention#NONE}.
+   */
+  private transient boolean rawDropped = false;
 
   /**
    * Gets the entity id.
@@ -51,14 +80,40 @@ public abstract class ApiNode implements ApiResponse {
     return this.context;
   }
 
+  /**
+   * {@inheritDoc}
+   * <p>The raw value of an entity parsed from a list is copied out of the whole response on demand,
+   * so the entity keeps the whole response for as long as it lives, unless the raw responses are
+   * retained otherwise (see {@link RawResponseRetention}).</p>
+   */
   @Override
   public String getRawResponse() {
-    return rawValue;
+    String source = rawSource;
+    if (source != null) {
+      return source.substring(rawStart, rawEnd);
+    }
+    byte[] bytes = rawBytes;
+    if (bytes != null) {
+      return new String(bytes, StandardCharsets.UTF_8);
+    }
+    return rawDropped ? toString() : rawValue;
   }
 
   @Override
   public JsonObject getRawResponseAsJsonObject() {
     JsonParser parser = new JsonParser();
+    String source = rawSource;
+    if (source != null) {
+      return parser.parse(new JsonReader(JsonScanner.reader(source, rawStart, rawEnd))).getAsJsonObject();
+    }
+    byte[] bytes = rawBytes;
+    if (bytes != null) {
+      return parser.parse(new JsonReader(new InputStreamReader(new ByteArrayInputStream(bytes),
+          StandardCharsets.UTF_8))).getAsJsonObject();
+    }
+    if (rawDropped) {
+      return getGson().toJsonTree(this).getAsJsonObject();
+    }
     return parser.parse(rawValue).getAsJsonObject();
   }
 
@@ -83,6 +138,44 @@ public abstract class ApiNode implements ApiResponse {
    */
   public void setRawValue(String value) {
     this.rawValue = value;
+    this.rawSource = null;
+    this.rawBytes = null;
+    this.rawDropped = false;
+  }
+
+  /**
+   * Sets the raw value for the {@link ApiNode} as a slice of the whole API response, which is not copied.
+   *
+   * @param source the whole API response
+   * @param start  the start position of the raw value
+   * @param end    the end position of the raw value
+   */
+  void setRawSlice(String source, int start, int end) {
+    this.rawValue = null;
+    this.rawBytes = null;
+    this.rawDropped = false;
+    this.rawStart = start;
+    this.rawEnd = end;
+    this.rawSource = source;
+  }
+
+  /**
+   * Keeps the raw value as the retention requires, once the entity is parsed.
+   *
+   * @param retention the retention of the raw value
+   */
+  void retainRaw(RawResponseRetention retention) {
+    if (retention == RawResponseRetention.COMPACT) {
+      String raw = getRawResponse();
+      rawBytes = (raw != null) ? raw.getBytes(StandardCharsets.UTF_8) : null;
+      rawValue = null;
+      rawSource = null;
+    } else if (retention == RawResponseRetention.NONE) {
+      rawValue = null;
+      rawSource = null;
+      rawBytes = null;
+      rawDropped = true;
+    }
   }
 
   /**
@@ -117,13 +210,221 @@ public abstract class ApiNode implements ApiResponse {
    * @throws MalformedResponseException the malformed response exception throws
    *                                    if the response is not a valid JSON
    */
-  @SuppressWarnings("unchecked")
   protected static <T extends ApiNode> ApiNodeList<T> parseResponse(Class<T> cls,
                                                                     String secondaryKey,
                                                                     String json,
                                                                     ApiContext context,
                                                                     ApiRequest request)
       throws MalformedResponseException {
+    HttpCache cache = (context != null) ? context.getHttpCache() : null;
+    if (cache != null) {
+      ApiNodeList<T> cached = cache.getParsed(cls, secondaryKey, json, request);
+      if (cached != null) {
+        return cached;
+      }
+    }
+    ApiNodeList<T> nodes = parseJson(cls, secondaryKey, json, context, request);
+    RawResponseRetention retention = (request != null) ? request.getRawResponseRetention() : null;
+    if (retention == null) {
+      retention = (context != null) ? context.getRawResponseRetention() : RawResponseRetention.FULL;
+    }
+    if (retention != RawResponseRetention.FULL) {
+      nodes.retainRaw(retention);
+    }
+    if (cache != null) {
+      cache.putParsed(cls, secondaryKey, json, nodes);
+    }
+    NegativeCache negativeCache = (context != null) ? context.getNegativeCache() : null;
+    if (negativeCache != null) {
+      for (T node : nodes) {
+        if (node.getId() != null) {
+          negativeCache.putExisting(context, node.getId());
+        }
+      }
+    }
+    return nodes;
+  }
+
+  private static <T extends ApiNode> ApiNodeList<T> parseJson(Class<T> cls,
+                                                              String secondaryKey,
+                                                              String json,
+                                                              ApiContext context,
+                                                              ApiRequest request)
+      throws MalformedResponseException {
+    // the IDs of a lazy list would only be known once its entities are decoded
+    boolean lazy = context != null && context.isLazyListParsing() && context.getNegativeCache() == null
+        && (request == null || request.allowsLazyList());
+    ApiNodeList<T> nodes;
+    try {
+      nodes = bindJson(cls, secondaryKey, json, context, request, lazy);
+    } catch (IOException | JsonParseException e) {
+      throw new MalformedResponseException("Invalid response string: " + json, e);
+    }
+    // the responses which are not strict JSON are left to the lenient parse, as they always were
+    return (nodes != null) ? nodes : parseTree(cls, secondaryKey, json, context, request);
+  }
+
+  /**
+   * Binds the API response into a list of API entities straight from the JSON string.
+   * The {@link JsonScanner} first walks the response and the values to bind to find them, then
+   * a {@link JsonReader} binds the entities from their slices of the response, without building
+   * a tree of the response nor copying the entities to parse them again. The raw values of the
+   * entities are slices of the response. A lazy list only indexes the elements of the data array,
+   * which are bound on demand.
+   *
+   * @param <T>          the type of {@link ApiNode} or its subclass
+   * @param cls          the class of {@link ApiNode} or its subclass
+   * @param secondaryKey the secondary data key in response JSON
+   * @param json         the response JSON string
+   * @param context      the API context from API request
+   * @param request      the API request
+   * @param lazy         whether the entities of the data array are bound on demand
+   * @return the list of API entities, or null if the response is not strict JSON of an object or an array
+   * @throws IOException the I/O exception if an entity is not a valid JSON
+   */
+  private static <T extends ApiNode> ApiNodeList<T> bindJson(Class<T> cls,
+                                                             String secondaryKey,
+                                                             String json,
+                                                             ApiContext context,
+                                                             ApiRequest request,
+                                                             boolean lazy)
+      throws IOException {
+    JsonScanner scanner = new JsonScanner(json);
+    int start = scanner.skipWhitespace(0);
+    if (start == json.length() || (json.charAt(start) != '{' && json.charAt(start) != '[')) {
+      return null;
+    }
+    // the scan: the values to bind, found without binding any
+    int page = -1;
+    int pageEnd = -1;
+    int data = -1;
+    int dataEnd = -1;
+    int[] bounds = null;
+    boolean whole = false;
+    try {
+      if (json.charAt(start) == '[') {
+        // 1. a pure JSON Array
+        bounds = scanner.elements(start);
+        if (scanner.skipWhitespace(scanner.end()) != json.length()) {
+          return null;
+        }
+      } else {
+        int[] members = scanner.members(start, ApiConfig.PRIMARY_META_KEY, ApiConfig.PRIMARY_DATA_KEY);
+        if (scanner.skipWhitespace(scanner.end()) != json.length()) {
+          return null;
+        }
+        // 2. the pagination of the meta key
+        if (members[0] >= 0) {
+          page = scanner.members(members[0], ApiConfig.PAGINATION_KEY)[0];
+          if (page >= 0) {
+            pageEnd = scanner.skipValue(page);
+          }
+        }
+        // 3. the primary data key, and the secondary data key in it
+        data = members[1];
+        if (data >= 0 && secondaryKey != null) {
+          data = scanner.members(data, secondaryKey)[0];
+        } else if (data < 0) {
+          // 4. the whole response is the entity if there is no primary data key
+          whole = true;
+        }
+        if (data >= 0 && json.charAt(data) == '[') {
+          bounds = scanner.elements(data);
+        } else if (data >= 0 && json.charAt(data) == '{') {
+          dataEnd = scanner.skipValue(data);
+        }
+      }
+    } catch (IllegalArgumentException e) {
+      return null;
+    }
+    // the bind
+    Gson gson = getGson();
+    ApiNodeList<T> nodes = lazy ? new LazyApiNodeList<T>(request, json, gson.getAdapter(cls), context)
+        : new ApiNodeList<T>(request, json);
+    if (page >= 0) {
+      nodes.setPagination(bindObject(gson.getAdapter(Pagination.class), json, page, pageEnd, context));
+    }
+    if (bounds != null) {
+      bindArray(gson.getAdapter(cls), scanner, (data >= 0) ? data : start, bounds, json, context, nodes);
+    } else if (dataEnd >= 0) {
+      nodes.add(bindObject(gson.getAdapter(cls), json, data, dataEnd, context));
+    } else if (whole) {
+      JsonReader reader = new JsonReader(scanner.reader(start, json.length()));
+      reader.setLenient(true);
+      nodes.add(init(gson.getAdapter(cls).read(reader), json, context));
+    }
+    return nodes;
+  }
+
+  private static <T extends ApiNode> void bindArray(TypeAdapter<T> adapter,
+                                                    JsonScanner scanner,
+                                                    int start,
+                                                    int[] bounds,
+                                                    String json,
+                                                    ApiContext context,
+                                                    ApiNodeList<T> nodes) throws IOException {
+    for (int i = 0; i < bounds.length; i += 2) {
+      if (json.charAt(bounds[i]) != '{') {
+        throw new JsonSyntaxException("Expected an entity at " + bounds[i]);
+      }
+    }
+    if (nodes instanceof LazyApiNodeList) {
+      ((LazyApiNodeList<T>) nodes).index(json, bounds);
+      return;
+    }
+    JsonReader reader = new JsonReader(scanner.reader(start, json.length()));
+    reader.setLenient(true);
+    reader.beginArray();
+    for (int i = 0; i < bounds.length; i += 2) {
+      T node = init(adapter.read(reader), null, context);
+      node.setRawSlice(json, bounds[i], bounds[i + 1]);
+      nodes.add(node);
+    }
+    reader.endArray();
+  }
+
+  private static <T extends ApiNode> T bindObject(TypeAdapter<T> adapter,
+                                                  String json,
+                                                  int start,
+                                                  int end,
+                                                  ApiContext context) throws IOException {
+    if (json.charAt(start) != '{') {
+      throw new JsonSyntaxException("Expected an entity at " + start);
+    }
+    return bindSlice(adapter, json, start, end, context);
+  }
+
+  /**
+   * Binds an entity from its slice of the API response, which it keeps as raw value.
+   *
+   * @param <T>     the type of {@link ApiNode} or its subclass
+   * @param adapter the type adapter of the entity
+   * @param json    the response JSON string
+   * @param start   the start position of the entity in the response
+   * @param end     the end position of the entity in the response
+   * @param context the API context from API request
+   * @return the entity
+   * @throws IOException the I/O exception if the entity is not a valid JSON
+   */
+  static <T extends ApiNode> T bindSlice(TypeAdapter<T> adapter,
+                                         String json,
+                                         int start,
+                                         int end,
+                                         ApiContext context) throws IOException {
+    JsonReader reader = new JsonReader(JsonScanner.reader(json, start, end));
+    reader.setLenient(true);
+    T node = init(adapter.read(reader), null, context);
+    node.setRawSlice(json, start, end);
+    return node;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T extends ApiNode> ApiNodeList<T> parseTree(Class<T> cls,
+                                                              String secondaryKey,
+                                                              String json,
+                                                              ApiContext context,
+                                                              ApiRequest request)
+      throws MalformedResponseException {
     ApiNodeList<T> nodes = new ApiNodeList<>(request, json);
     JsonArray array;
     JsonObject object;
@@ -212,7 +513,10 @@ public abstract class ApiNode implements ApiResponse {
   private static <T extends ApiNode> ApiNode loadJson(Class<T> cls,
                                                       String json,
                                                       ApiContext context) {
-    T node = getGson().fromJson(json, cls);
+    return init(getGson().fromJson(json, cls), json, context);
+  }
+
+  private static <T extends ApiNode> T init(T node, String json, ApiContext context) {
     node.setContext(context);
     node.setRawValue(json);
     if (node instanceof App) {
@@ -227,10 +531,12 @@ public abstract class ApiNode implements ApiResponse {
    * Gson is a Java library that can be used to convert a Java object into its JSON representation.
    * It can also be used to convert a JSON string into an equivalent Java object.
    * <p>See the <a href="https://sites.google.com/site/gson/gson-user-guide" target="_blank">Gson User Guide</a> for more examples</p>
+   * <p>The entities are bound by the type adapters generated at compile time where there are ones,
+   * see {@link ApiNodeTypeAdapter}.</p>
    *
    * @return the gson instance
    */
-  private static synchronized Gson getGson() {
+  static synchronized Gson getGson() {
     if (gson == null) {
       gson = new GsonBuilder()
           .excludeFieldsWithModifiers(
@@ -242,6 +548,7 @@ public abstract class ApiNode implements ApiResponse {
           .serializeNulls()
           .disableHtmlEscaping()
           .setDateFormat(ApiConfig.DATE_FORMAT)
+          .registerTypeAdapterFactory(ApiNodeTypeAdapter.FACTORY)
           .create();
     }
     return gson;
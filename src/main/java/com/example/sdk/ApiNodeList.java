@@ -1,8 +1,14 @@
 package com.example.sdk;
 
+import com.example.sdk.types.RawResponseRetention;
+import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Map;
@@ -24,7 +30,15 @@ public class ApiNodeList<T extends ApiNode> extends ArrayList<T> implements ApiR
   /**
    * Raw response value in string.
    */
-  private final String rawValue;
+  private String rawValue;
+  /**
+   * The raw value encoded in UTF-8, kept instead of the string with {@link RawResponseRetention#COMPACT}.
+   */
+  private transient byte[] rawBytes = null;
+  /**
+   * Whether the raw value was dropped with {@link RawResponseRetention#NONE}.
+   */
+  private transient boolean rawDropped = false;
   /**
    * The pagination info of the response.
    */
@@ -33,6 +47,10 @@ public class ApiNodeList<T extends ApiNode> extends ArrayList<T> implements ApiR
    * The API request sent to public API.
    */
   private final transient ApiRequest request;
+  /**
+   * The deadline the caller set on the request, shared by the next pages.
+   */
+  private final transient Deadline deadline;
 
   /**
    * Constructs a new {@link ApiNodeList} with a {@link ApiRequest} and raw response JSON string.
@@ -43,10 +61,69 @@ public class ApiNodeList<T extends ApiNode> extends ArrayList<T> implements ApiR
   public ApiNodeList(ApiRequest request, String rawValue) {
     this.request = request;
     this.rawValue = rawValue;
+    this.deadline = (request != null) ? request.getCallerDeadline() : null;
+  }
+
+  /**
+   * Constructs a new {@link ApiNodeList} of the same entities and pagination for another request.
+   *
+   * @param request the other request
+   * @return the new list
+   */
+  ApiNodeList<T> reuse(ApiRequest request) {
+    ApiNodeList<T> nodes = new ApiNodeList<>(request, rawValue);
+    nodes.addAll(this);
+    return share(nodes);
+  }
+
+  /**
+   * Gives another list of the same entities the raw value and the pagination of this one.
+   *
+   * @param <L>   the type of the other list
+   * @param nodes the other list
+   * @return the other list
+   */
+  <L extends ApiNodeList<T>> L share(L nodes) {
+    ApiNodeList<T> shared = nodes;
+    shared.rawValue = rawValue;
+    shared.rawBytes = rawBytes;
+    shared.rawDropped = rawDropped;
+    shared.pagination = pagination;
+    return nodes;
+  }
+
+  /**
+   * Keeps the raw values of the list and its entities as the retention requires, once they are parsed.
+   *
+   * @param retention the retention of the raw values
+   */
+  void retainRaw(RawResponseRetention retention) {
+    for (T node : this) {
+      node.retainRaw(retention);
+    }
+    retainOwnRaw(retention);
+  }
+
+  /**
+   * Keeps the raw value of the list itself as the retention requires.
+   *
+   * @param retention the retention of the raw value
+   */
+  void retainOwnRaw(RawResponseRetention retention) {
+    if (retention == RawResponseRetention.COMPACT) {
+      rawBytes = (rawValue != null) ? rawValue.getBytes(StandardCharsets.UTF_8) : null;
+      rawValue = null;
+    } else if (retention == RawResponseRetention.NONE) {
+      rawValue = null;
+      rawBytes = null;
+      rawDropped = true;
+    }
   }
 
   /**
    * Next page of the {@link ApiNodeList}, and each page has {@code itemsPerPage} elements.
+   * The page is requested within the deadline the caller set on the request of this one, if any,
+   * or else gets the timeout of the request on its own.
    *
    * @param itemsPerPage the items per page
    * @return the list of {@link ApiNode}
@@ -58,7 +135,7 @@ public class ApiNodeList<T extends ApiNode> extends ArrayList<T> implements ApiR
     extraParams.put("limit", itemsPerPage);
     extraParams.put("offset", getOffset() + this.size());
     @SuppressWarnings("unchecked")
-    ApiNodeList<T> response = (ApiNodeList<T>) request.execute(extraParams);
+    ApiNodeList<T> response = (ApiNodeList<T>) request.execute(extraParams, deadline);
     return response;
   }
 
@@ -74,6 +151,15 @@ public class ApiNodeList<T extends ApiNode> extends ArrayList<T> implements ApiR
     return nextPage(ApiConfig.DEFAULT_ITEMS_PER_PAGE);
   }
 
+  /**
+   * Gets the deadline the caller set on the request, shared by the next pages.
+   *
+   * @return the deadline, or null if the caller set none
+   */
+  public Deadline getDeadline() {
+    return deadline;
+  }
+
   /**
    * Sets pagination.
    *
@@ -101,15 +187,49 @@ public class ApiNodeList<T extends ApiNode> extends ArrayList<T> implements ApiR
     return pagination != null && pagination.hasNextPage();
   }
 
+  /**
+   * {@inheritDoc}
+   * <p>With {@link RawResponseRetention#NONE}, the response is serialized again from the pagination
+   * and the entities of the list.</p>
+   */
   @Override
   public String getRawResponse() {
-    return rawValue;
+    byte[] bytes = rawBytes;
+    if (bytes != null) {
+      return new String(bytes, StandardCharsets.UTF_8);
+    }
+    return rawDropped ? toJsonObject().toString() : rawValue;
   }
 
   @Override
   public JsonObject getRawResponseAsJsonObject() {
     JsonParser parser = new JsonParser();
-    return parser.parse(rawValue).getAsJsonObject();
+    byte[] bytes = rawBytes;
+    if (bytes != null) {
+      return parser.parse(new JsonReader(new InputStreamReader(new ByteArrayInputStream(bytes),
+          StandardCharsets.UTF_8))).getAsJsonObject();
+    }
+    return rawDropped ? toJsonObject() : parser.parse(rawValue).getAsJsonObject();
+  }
+
+  /**
+   * Serializes the pagination and the entities of the list in the shape of an API response.
+   *
+   * @return the JSON object of the list
+   */
+  private JsonObject toJsonObject() {
+    JsonObject json = new JsonObject();
+    if (pagination != null) {
+      JsonObject meta = new JsonObject();
+      meta.add(ApiConfig.PAGINATION_KEY, ApiNode.getGson().toJsonTree(pagination));
+      json.add(ApiConfig.PRIMARY_META_KEY, meta);
+    }
+    JsonArray data = new JsonArray();
+    for (T node : this) {
+      data.add(ApiNode.getGson().toJsonTree(node));
+    }
+    json.add(ApiConfig.PRIMARY_DATA_KEY, data);
+    return json;
   }
 
   /**
@@ -0,0 +1,242 @@
+package com.example.sdk;
+
+import com.google.gson.Gson;
+import com.google.gson.InstanceCreator;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.internal.ConstructorConstructor;
+import com.google.gson.internal.ObjectConstructor;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Type;
+import java.util.Collections;
+
+/**
+ * The base class of the type adapters generated for the subclasses of {@link ApiNode} at compile time,
+ * by {@link com.example.sdk.processor.ApiNodeProcessor}.
+ * <p>A generated adapter is named after its entity, e.g. {@code AppTypeAdapter} for {@link App}, and
+ * reads and writes the JSON members of the entity itself, without the bound fields of the reflective
+ * adapter. The fields of the entity stay private: the adapter resolves them once, when it is loaded,
+ * and creates the entities as the reflective adapter does. The shared Gson of {@link ApiNode} finds
+ * the generated adapters by their names, and binds the entities without one reflectively.</p>
+ *
+ * @param <T> the type of {@link ApiNode} or its subclass
+ * @author Feng Zheng
+ * @version 1.0
+ * @since 1.0
+ */
+public abstract class ApiNodeTypeAdapter<T extends ApiNode> extends TypeAdapter<T> {
+  /**
+   * The suffix of the names of the generated adapters.
+   */
+  public static final String SUFFIX = "TypeAdapter";
+
+  /**
+   * The factory of the generated adapters, registered in the shared Gson.
+   */
+  static final TypeAdapterFactory FACTORY = new TypeAdapterFactory() {
+    @Override
+    @SuppressWarnings("unchecked")
+    public <E> TypeAdapter<E> create(Gson gson, TypeToken<E> type) {
+      Class<? super E> raw = type.getRawType();
+      if (!ApiNode.class.isAssignableFrom(raw) || raw.getEnclosingClass() != null) {
+        return null;
+      }
+      Class<?> adapter;
+      try {
+        adapter = Class.forName(raw.getName() + SUFFIX, true, raw.getClassLoader());
+      } catch (ClassNotFoundException e) {
+        return null;
+      }
+      if (!ApiNodeTypeAdapter.class.isAssignableFrom(adapter)) {
+        return null;
+      }
+      try {
+        Constructor<?> constructor = adapter.getDeclaredConstructor(Gson.class);
+        constructor.setAccessible(true);
+        return (TypeAdapter<E>) constructor.newInstance(gson);
+      } catch (ReflectiveOperationException e) {
+        throw new IllegalStateException("Unable to create " + adapter.getName(), e);
+      }
+    }
+  };
+
+  private final ObjectConstructor<T> constructor;
+
+  /**
+   * Constructs a new adapter of an entity.
+   *
+   * @param type the class of the entity
+   */
+  protected ApiNodeTypeAdapter(Class<T> type) {
+    this.constructor = new ConstructorConstructor(Collections.<Type, InstanceCreator<?>>emptyMap())
+        .get(TypeToken.get(type));
+  }
+
+  /**
+   * Creates an entity as the reflective adapter does: by its constructor without parameters
+   * whatever its visibility, or else without calling any constructor.
+   *
+   * @return the new entity
+   */
+  protected T newInstance() {
+    return constructor.construct();
+  }
+
+  /**
+   * Gets a field of an entity, declared by its class or a superclass, and makes it accessible.
+   *
+   * @param type the class of the entity
+   * @param name the name of the field
+   * @return the field
+   */
+  protected static Field field(Class<?> type, String name) {
+    for (Class<?> declaring = type; declaring != null; declaring = declaring.getSuperclass()) {
+      try {
+        Field field = declaring.getDeclaredField(name);
+        field.setAccessible(true);
+        return field;
+      } catch (NoSuchFieldException e) {
+        // declared by a superclass
+      }
+    }
+    throw new IllegalStateException("No field " + name + " in " + type.getName());
+  }
+
+  /**
+   * Gets the value of a field of an entity.
+   *
+   * @param field  the field
+   * @param entity the entity
+   * @return the value, boxed if the field is primitive
+   */
+  protected static Object get(Field field, Object entity) {
+    try {
+      return field.get(entity);
+    } catch (IllegalAccessException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Sets the value of a field of an entity.
+   *
+   * @param field  the field
+   * @param entity the entity
+   * @param value  the value, boxed if the field is primitive
+   */
+  protected static void set(Field field, Object entity, Object value) {
+    try {
+      field.set(entity, value);
+    } catch (IllegalAccessException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Reads a string as Gson does, from a string, a number or a boolean.
+   *
+   * @param in the JSON reader
+   * @return the string, or null
+   * @throws IOException the I/O exception
+   */
+  protected static String readString(JsonReader in) throws IOException {
+    JsonToken token = in.peek();
+    if (token == JsonToken.NULL) {
+      in.nextNull();
+      return null;
+    }
+    return (token == JsonToken.BOOLEAN) ? Boolean.toString(in.nextBoolean()) : in.nextString();
+  }
+
+  /**
+   * Reads an integer.
+   *
+   * @param in the JSON reader
+   * @return the integer, or null
+   * @throws IOException the I/O exception
+   */
+  protected static Integer readInteger(JsonReader in) throws IOException {
+    if (in.peek() == JsonToken.NULL) {
+      in.nextNull();
+      return null;
+    }
+    try {
+      return in.nextInt();
+    } catch (NumberFormatException e) {
+      throw new JsonSyntaxException(e);
+    }
+  }
+
+  /**
+   * Reads a long.
+   *
+   * @param in the JSON reader
+   * @return the long, or null
+   * @throws IOException the I/O exception
+   */
+  protected static Long readLong(JsonReader in) throws IOException {
+    if (in.peek() == JsonToken.NULL) {
+      in.nextNull();
+      return null;
+    }
+    try {
+      return in.nextLong();
+    } catch (NumberFormatException e) {
+      throw new JsonSyntaxException(e);
+    }
+  }
+
+  /**
+   * Reads a double.
+   *
+   * @param in the JSON reader
+   * @return the double, or null
+   * @throws IOException the I/O exception
+   */
+  protected static Double readDouble(JsonReader in) throws IOException {
+    if (in.peek() == JsonToken.NULL) {
+      in.nextNull();
+      return null;
+    }
+    return in.nextDouble();
+  }
+
+  /**
+   * Reads a boolean as Gson does, from a boolean or a string.
+   *
+   * @param in the JSON reader
+   * @return the boolean, or null
+   * @throws IOException the I/O exception
+   */
+  protected static Boolean readBoolean(JsonReader in) throws IOException {
+    JsonToken token = in.peek();
+    if (token == JsonToken.NULL) {
+      in.nextNull();
+      return null;
+    }
+    return (token == JsonToken.STRING) ? Boolean.parseBoolean(in.nextString()) : in.nextBoolean();
+  }
+
+  /**
+   * Writes a boolean.
+   *
+   * @param out   the JSON writer
+   * @param value the boolean, or null
+   * @throws IOException the I/O exception
+   */
+  protected static void writeBoolean(JsonWriter out, Boolean value) throws IOException {
+    if (value == null) {
+      out.nullValue();
+    } else {
+      out.value(value.booleanValue());
+    }
+  }
+}
@@ -1,22 +1,43 @@
 package com.example.sdk;
 
 import com.example.sdk.ApiEndPoints.ApiEndPoint;
+import com.example.sdk.ApiException.CircuitOpenException;
+import com.example.sdk.ApiException.ConcurrencyLimitExceededException;
+import com.example.sdk.ApiException.DeadlineExceededException;
+import com.example.sdk.ApiException.EntityNotFoundException;
 import com.example.sdk.ApiException.FailedAccessTokenException;
 import com.example.sdk.ApiException.FailedRequestException;
+import com.example.sdk.ApiException.NotImplementedException;
+import com.example.sdk.ApiException.RateLimitExceededException;
+import com.example.sdk.transport.AsyncHttpTransport;
+import com.example.sdk.transport.HttpTransport;
 import com.example.sdk.types.HttpMethod;
+import com.example.sdk.types.RateLimitMode;
+import com.example.sdk.types.RawResponseRetention;
 import com.google.gson.Gson;
 
-import java.io.BufferedReader;
-import java.io.DataOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.net.HttpURLConnection;
 import java.net.URL;
 import java.net.URLEncoder;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * The class to handle all API requests from entities.
@@ -32,8 +53,31 @@ public abstract class ApiRequest {
   private ApiContext context;
 
   private static final RequestExecutor executor = new RequestExecutor();
+  private static final String AUTHORIZATION_HEADER = "Authorization";
+  private static final String RETRY_AFTER_HEADER = "Retry-After";
+  private static final int HTTP_TOO_MANY_REQUESTS = 429;
+  /**
+   * The serializer of the parameters, shared since it is thread-safe.
+   */
+  private static final Gson GSON = new Gson();
   private final ApiEndPoint apiEndPoint;
   private Map<String, Object> params = new HashMap<>();
+  /**
+   * The deadline of the executions, or null to give every execution the timeout.
+   */
+  private volatile Deadline deadline = null;
+  /**
+   * The time allowed to an execution (in milliseconds), or -1 for the request timeout of the context.
+   */
+  private volatile long timeoutMs = -1;
+  /**
+   * The deadline carried to the executions of the current thread, e.g. from the page before.
+   */
+  private final ThreadLocal<Deadline> carriedDeadline = new ThreadLocal<>();
+  /**
+   * The retention of the raw responses, or null for the retention of the context.
+   */
+  private volatile RawResponseRetention rawResponseRetention = null;
 
   /**
    * Constructs a new API request with an instance of {@link ApiContext},
@@ -57,6 +101,105 @@ public abstract class ApiRequest {
     return this.context;
   }
 
+  /**
+   * Sets the time allowed to every execution of the request, retries, backoff and token refresh
+   * included, instead of the request timeout of the {@link ApiContext}.
+   *
+   * @param timeoutMs the timeout (in milliseconds), or 0 for no limit
+   */
+  public void setTimeout(long timeoutMs) {
+    if (timeoutMs < 0) {
+      throw new IllegalArgumentException("Timeout must not be negative");
+    }
+    this.timeoutMs = timeoutMs;
+  }
+
+  /**
+   * Gets the deadline shared by the executions of the request.
+   *
+   * @return the deadline, or null if every execution gets the timeout
+   */
+  public Deadline getDeadline() {
+    return deadline;
+  }
+
+  /**
+   * Sets the deadline shared by the executions of the request, which takes precedence over the timeout.
+   *
+   * @param deadline the deadline, or null to give every execution the timeout
+   */
+  public void setDeadline(Deadline deadline) {
+    this.deadline = deadline;
+  }
+
+  /**
+   * Gets how the entities and lists parsed from the responses keep their raw responses.
+   *
+   * @return the raw response retention, or null for the retention of the context
+   */
+  public RawResponseRetention getRawResponseRetention() {
+    return rawResponseRetention;
+  }
+
+  /**
+   * Sets how the entities and lists parsed from the responses keep their raw responses,
+   * instead of the retention of the {@link ApiContext}.
+   *
+   * @param rawResponseRetention the raw response retention, or null for the retention of the context
+   */
+  public void setRawResponseRetention(RawResponseRetention rawResponseRetention) {
+    this.rawResponseRetention = rawResponseRetention;
+  }
+
+  /**
+   * Whether the lists parsed from the responses may bind their entities on demand, when the context
+   * allows it. The requests whose entities are all read at once by the SDK bind them eagerly, so a
+   * malformed entity fails the request rather than its reader.
+   *
+   * @return the boolean
+   */
+  boolean allowsLazyList() {
+    return true;
+  }
+
+  /**
+   * Gets the deadline the caller set on the current execution, carried over to the next pages of its
+   * response. The timeouts are not carried, so every page gets its own.
+   *
+   * @return the deadline, or null if the caller set none
+   */
+  Deadline getCallerDeadline() {
+    Deadline carried = carriedDeadline.get();
+    return (carried != null) ? carried : deadline;
+  }
+
+  /**
+   * Executes the request within the given deadline, e.g. for the next page of a response.
+   *
+   * @param extraParams the extra params
+   * @param deadline    the deadline, or null to give the execution the deadline or the timeout of the request
+   * @return the instance of {@link ApiResponse}
+   * @throws ApiException         the api exception
+   * @throws InterruptedException the interrupted exception
+   */
+  ApiResponse execute(Map<String, Object> extraParams, Deadline deadline)
+      throws ApiException, InterruptedException {
+    if (deadline == null) {
+      return execute(extraParams);
+    }
+    Deadline previous = carriedDeadline.get();
+    carriedDeadline.set(deadline);
+    try {
+      return execute(extraParams);
+    } finally {
+      if (previous != null) {
+        carriedDeadline.set(previous);
+      } else {
+        carriedDeadline.remove();
+      }
+    }
+  }
+
   /**
    * Gets the last response.
    *
@@ -84,6 +227,56 @@ public abstract class ApiRequest {
   public abstract ApiResponse execute(Map<String, Object> extraParams)
       throws ApiException, InterruptedException;
 
+  /**
+   * Execute the API request asynchronously without additional parameters.
+   *
+   * @return the pending {@link ApiResponse}
+   */
+  public ApiFuture<? extends ApiResponse> executeAsync() {
+    return executeAsync(null);
+  }
+
+  /**
+   * Execute the API request asynchronously with additional parameters.
+   * The calling thread is not blocked: the request is sent through the transport of the
+   * {@link ApiContext}, and the response is handled by {@link #handleResponse(String)}
+   * on a thread shared by all asynchronous requests.
+   *
+   * @param extraParams the extra params
+   * @return the pending {@link ApiResponse}
+   */
+  public ApiFuture<? extends ApiResponse> executeAsync(Map<String, Object> extraParams) {
+    final SettableApiFuture<ApiResponse> result = new SettableApiFuture<>();
+    executeInternalAsync(extraParams).addCallback(new ApiCallback<String>() {
+      @Override
+      public void onSuccess(String response) {
+        try {
+          result.set(handleResponse(response));
+        } catch (ApiException | RuntimeException e) {
+          result.setException(e);
+        }
+      }
+
+      @Override
+      public void onFailure(Throwable error) {
+        result.setException(error);
+      }
+    });
+    return result;
+  }
+
+  /**
+   * Handles the raw API response of an asynchronous execution.
+   * Requests supporting {@link #executeAsync(Map)} override it to parse the response.
+   *
+   * @param response the API response in string
+   * @return the instance of {@link ApiResponse}
+   * @throws ApiException the api exception
+   */
+  protected ApiResponse handleResponse(String response) throws ApiException {
+    throw new NotImplementedException(getClass().getName() + " does not support asynchronous execution");
+  }
+
   /**
    * Sets parameters for the API request.
    *
@@ -118,12 +311,153 @@ public abstract class ApiRequest {
       if (extraParams != null) {
         allParams.putAll(extraParams);
       }
-      return executor.execute(apiEndPoint, allParams, context);
+      checkNotAbsent();
+      String fresh = getFreshResponse(allParams);
+      if (fresh != null) {
+        return fresh;
+      }
+      RequestCoalescer coalescer = getRequestCoalescer();
+      if (coalescer != null) {
+        return executor.executeCoalesced(coalescer, apiEndPoint, allParams, context, newDeadline());
+      }
+      return executor.execute(apiEndPoint, allParams, context, newDeadline());
     } catch (IOException e) {
       throw new FailedRequestException(e);
     }
   }
 
+  /**
+   * Internal method to execute API request asynchronously.
+   *
+   * @param extraParams extra API request parameters
+   * @return the pending API response in string
+   */
+  protected ApiFuture<String> executeInternalAsync(Map<String, Object> extraParams) {
+    Map<String, Object> allParams = new HashMap<>(params);
+    if (extraParams != null) {
+      allParams.putAll(extraParams);
+    }
+    try {
+      checkNotAbsent();
+      String fresh = getFreshResponse(allParams);
+      if (fresh != null) {
+        SettableApiFuture<String> result = new SettableApiFuture<>();
+        result.set(fresh);
+        return result;
+      }
+    } catch (EntityNotFoundException e) {
+      SettableApiFuture<String> result = new SettableApiFuture<>();
+      result.setException(e);
+      return result;
+    } catch (IOException e) {
+      SettableApiFuture<String> result = new SettableApiFuture<>();
+      result.setException(new FailedRequestException(e));
+      return result;
+    }
+    RequestCoalescer coalescer = getRequestCoalescer();
+    if (coalescer != null) {
+      return executor.executeCoalescedAsync(coalescer, apiEndPoint, allParams, context, newDeadline());
+    }
+    return executor.executeAsync(apiEndPoint, allParams, context, newDeadline());
+  }
+
+  private RequestCoalescer getRequestCoalescer() {
+    return (apiEndPoint.getMethod() == HttpMethod.GET) ? context.getRequestCoalescer() : null;
+  }
+
+  /**
+   * Fails a lookup by ID without a request if the entity is known not to exist.
+   *
+   * @throws EntityNotFoundException the entity not found exception
+   */
+  private void checkNotAbsent() throws EntityNotFoundException {
+    NegativeCache cache = context.getNegativeCache();
+    if (cache == null || apiEndPoint.getMethod() != HttpMethod.GET) {
+      return;
+    }
+    String id = apiEndPoint.getEntityId();
+    if (id != null && cache.isAbsent(context, id)) {
+      throw new EntityNotFoundException("Entity not found: " + id);
+    }
+  }
+
+  private String getFreshResponse(Map<String, Object> allParams) throws IOException {
+    HttpCache cache = getHttpCache(apiEndPoint, context);
+    if (cache == null) {
+      return null;
+    }
+    String url = getUrl(apiEndPoint.getApiUrl(context), allParams);
+    RevalidationPolicy policy = apiEndPoint.getRevalidationPolicy(context);
+    String cached = cache.get(url, policy);
+    if (cached != null && policy != null && cache.startRefresh(url, policy)) {
+      refreshInBackground(cache, url, allParams, policy);
+    }
+    return cached;
+  }
+
+  /**
+   * Sends the request again in the background, to revalidate the cached response the caller is served.
+   *
+   * @param cache     the HTTP cache
+   * @param url       the resolved URL of the cached response
+   * @param allParams all the API request parameters
+   * @param policy    the revalidation policy
+   */
+  private void refreshInBackground(final HttpCache cache,
+                                   final String url,
+                                   final Map<String, Object> allParams,
+                                   RevalidationPolicy policy) {
+    long timeout = context.getRequestTimeoutMs();
+    final Deadline refreshDeadline = (timeout > 0) ? Deadline.after(timeout) : null;
+    Executor refresher = policy.getExecutor();
+    if (refresher == null) {
+      executor.executeAsync(apiEndPoint, allParams, context, refreshDeadline).addCallback(new ApiCallback<String>() {
+        @Override
+        public void onSuccess(String response) {
+          cache.endRefresh(url);
+        }
+
+        @Override
+        public void onFailure(Throwable error) {
+          // the cached response is served until its staleness bound, then requested again
+          cache.endRefresh(url);
+        }
+      });
+      return;
+    }
+    try {
+      refresher.execute(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            executor.execute(apiEndPoint, allParams, context, refreshDeadline);
+          } catch (ApiException | IOException e) {
+            // the cached response is served until its staleness bound, then requested again
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          } finally {
+            cache.endRefresh(url);
+          }
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      cache.endRefresh(url);
+    }
+  }
+
+  private static HttpCache getHttpCache(ApiEndPoint apiEndPoint, ApiContext context) {
+    return (apiEndPoint.getMethod() == HttpMethod.GET) ? context.getHttpCache() : null;
+  }
+
+  private Deadline newDeadline() {
+    Deadline current = getCallerDeadline();
+    if (current == null) {
+      long timeout = (timeoutMs >= 0) ? timeoutMs : context.getRequestTimeoutMs();
+      current = (timeout > 0) ? Deadline.after(timeout) : null;
+    }
+    return current;
+  }
+
   private void setParamInternal(String param, Object value) {
     params.put(param, value);
   }
@@ -133,140 +467,1021 @@ public abstract class ApiRequest {
   }
 
   private static class RequestExecutor {
+    /**
+     * The threads running the blocking transports and the response handlers of asynchronous requests.
+     */
+    private static final ExecutorService ASYNC_EXECUTOR =
+        Executors.newFixedThreadPool(ApiConfig.DEFAULT_ASYNC_THREADS, daemonThreads("api-async"));
+    /**
+     * The timer delaying the retries and the rate limited attempts of asynchronous requests,
+     * and failing them at their deadline.
+     */
+    private static final ScheduledExecutorService TIMER = newTimer("api-timer");
+
     private String execute(ApiEndPoint apiEndPoint,
                            Map<String, Object> allParams,
-                           ApiContext context)
+                           ApiContext context,
+                           Deadline deadline)
         throws ApiException, IOException, InterruptedException {
+      RetryPolicy policy = apiEndPoint.getRetryPolicy(context);
+      CircuitBreaker breaker = context.getCircuitBreaker(apiEndPoint);
+      ConcurrencyLimiter concurrencyLimiter = context.getConcurrencyLimiter(apiEndPoint);
+      Hedger hedger = context.getHedger(apiEndPoint);
+      context.getRetryBudget().onRequest();
+      int tokenRetry = 0;
       int retry = 0;
-      HttpMethod method = apiEndPoint.getMethod();
-      String apiUrl = apiEndPoint.getApiUrl(context);
-      do {
-        if (retry > 0) {
-          Thread.sleep(ApiConfig.RETRY_TOKEN_DELAY_MS);
+      while (true) {
+        checkDeadline(apiEndPoint, deadline, 0);
+        CircuitBreaker.Phase permit = (breaker != null) ? breaker.acquire() : null;
+        ApiContext.TokenState sent;
+        HttpTransport.Request request;
+        int admittedInFlight;
+        boolean admitted = false;
+        try {
+          long waitMs = reservePermits(apiEndPoint, context);
+          if (waitMs > 0) {
+            checkDeadline(apiEndPoint, deadline, waitMs);
+            Thread.sleep(waitMs);
+          }
+          sent = context.getTokenState();
+          request = newRequest(apiEndPoint, allParams, context, sent, deadline);
+          admittedInFlight = (concurrencyLimiter != null) ? concurrencyLimiter.acquire(deadline) : 0;
+          admitted = true;
+        } finally {
+          if (!admitted && permit != null) {
+            // the call is not sent, a trial call of a half-open breaker must not be lost
+            breaker.release(permit);
+          }
         }
+        Call call = new Call(breaker, permit, concurrencyLimiter, admittedInFlight);
+        HttpTransport.Response response = null;
+        IOException failure = null;
         try {
-          switch (method) {
-            case GET:
-              return get(apiUrl, allParams, context);
-            case POST:
-              return post(apiUrl, allParams, context);
-            case PUT:
-              return put(apiUrl, allParams, context);
-            case DELETE:
-              return delete(apiUrl, allParams, context);
-            default:
-              throw new IllegalArgumentException("Unsupported http request method");
+          response = (hedger != null)
+              ? executeHedged(context, hedger, request)
+              : context.getTransport().execute(request);
+        } catch (IOException e) {
+          failure = e;
+        } finally {
+          call.finish(response);
+        }
+        if (failure != null) {
+          if (deadline != null && deadline.isExpired()) {
+            throw new DeadlineExceededException("Deadline exceeded for " + apiEndPoint.getKey(), failure);
           }
-        } catch (FailedAccessTokenException tokenError) {
+          long delayMs = retryDelayMs(policy, context, request, retry, deadline, failure);
+          if (delayMs < 0) {
+            throw failure;
+          }
+          Thread.sleep(delayMs);
           retry++;
-          App app = new App(context);
-          app.createToken().execute();
-        }
-      } while (retry <= ApiConfig.RETRY_TOKEN_MAX);
-      throw new FailedRequestException("Retry timeout exceeded");
-    }
-
-    private String get(String apiUrl,
-                       Map<String, Object> allParams,
-                       ApiContext context) throws ApiException, IOException {
-      StringBuilder urlString = new StringBuilder(apiUrl);
-      boolean firstEntry = true;
-      for (Map.Entry entry : allParams.entrySet()) {
-        urlString.append(firstEntry ? "?" : "&")
-            .append(URLEncoder.encode(entry.getKey().toString(), "UTF-8"))
-            .append("=")
-            .append(URLEncoder.encode(convertToString(entry.getValue()), "UTF-8"));
-        firstEntry = false;
-      }
-      URL url = new URL(urlString.toString());
-      HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-      connection.setRequestMethod(HttpMethod.GET.toString());
-      connection.setRequestProperty("Content-Type", "application/json");
-      if (context.hasAppToken()) {
-        connection.setRequestProperty("Authorization", context.getAppToken());
-      }
-      return readResponse(connection, context);
-    }
-
-    private String post(String apiUrl,
-                        Map<String, Object> allParams,
-                        ApiContext context) throws ApiException, IOException {
-      return sendRequest(HttpMethod.POST, apiUrl, allParams, context);
-    }
-
-    private String put(String apiUrl,
-                       Map<String, Object> allParams,
-                       ApiContext context) throws ApiException, IOException {
-      return sendRequest(HttpMethod.PUT, apiUrl, allParams, context);
-    }
-
-    private String delete(String apiUrl,
-                          Map<String, Object> allParams,
-                          ApiContext context) throws ApiException, IOException {
-      return sendRequest(HttpMethod.DELETE, apiUrl, allParams, context);
-    }
-
-    private String sendRequest(HttpMethod method,
-                               String apiUrl,
-                               Map<String, Object> allParams,
-                               ApiContext context) throws ApiException, IOException {
-      URL url = new URL(apiUrl);
-      HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-      connection.setRequestMethod(method.toString());
-      connection.setRequestProperty("Content-Type", "application/json");
-      if (context.hasAppToken()) {
-        connection.setRequestProperty("Authorization", context.getAppToken());
-      }
-      connection.setDoOutput(true);
-      DataOutputStream stream = new DataOutputStream(connection.getOutputStream());
-      stream.write(convertToString(allParams).getBytes("UTF-8"));
-      stream.flush();
-      stream.close();
-      return readResponse(connection, context);
+          continue;
+        }
+        adaptRateLimits(apiEndPoint, context, response);
+        long delayMs = retryDelayMs(policy, context, request, retry, deadline, response);
+        if (delayMs >= 0) {
+          Thread.sleep(delayMs);
+          retry++;
+          continue;
+        }
+        try {
+          return readResponse(apiEndPoint, context, request, response);
+        } catch (FailedAccessTokenException tokenError) {
+          if (tokenRetry++ >= ApiConfig.RETRY_TOKEN_MAX) {
+            throw new FailedRequestException("Retry timeout exceeded");
+          }
+          context.clearAppToken(sent);
+          context.getTokenRefresher().refresh(sent, deadline);
+        }
+      }
+    }
+
+    private String executeCoalesced(RequestCoalescer coalescer,
+                                    ApiEndPoint apiEndPoint,
+                                    Map<String, Object> allParams,
+                                    ApiContext context,
+                                    Deadline deadline)
+        throws ApiException, IOException, InterruptedException {
+      String key = coalescingKey(apiEndPoint, allParams, context);
+      SettableApiFuture<String> flight = new SettableApiFuture<>();
+      SettableApiFuture<String> shared = coalescer.join(key, flight);
+      if (shared != null) {
+        return await(apiEndPoint, shared, deadline);
+      }
+      String response;
+      try {
+        response = execute(apiEndPoint, allParams, context, deadline);
+      } catch (ApiException | IOException | RuntimeException e) {
+        coalescer.complete(key, flight, null, e);
+        throw e;
+      } catch (InterruptedException e) {
+        coalescer.complete(key, flight, null, new FailedRequestException(e));
+        throw e;
+      }
+      coalescer.complete(key, flight, response, null);
+      return response;
+    }
+
+    private ApiFuture<String> executeCoalescedAsync(final RequestCoalescer coalescer,
+                                                    ApiEndPoint apiEndPoint,
+                                                    Map<String, Object> allParams,
+                                                    ApiContext context,
+                                                    Deadline deadline) {
+      final String key = coalescingKey(apiEndPoint, allParams, context);
+      final SettableApiFuture<String> flight = new SettableApiFuture<>();
+      SettableApiFuture<String> shared = coalescer.join(key, flight);
+      if (shared != null) {
+        return follow(apiEndPoint, shared, deadline);
+      }
+      executeAsync(apiEndPoint, allParams, context, deadline).addCallback(new ApiCallback<String>() {
+        @Override
+        public void onSuccess(String response) {
+          coalescer.complete(key, flight, response, null);
+        }
+
+        @Override
+        public void onFailure(Throwable error) {
+          coalescer.complete(key, flight, null, error);
+        }
+      });
+      // the request itself fails at its deadline
+      return follow(apiEndPoint, flight, null);
+    }
+
+    private ApiFuture<String> executeAsync(final ApiEndPoint apiEndPoint,
+                                           Map<String, Object> allParams,
+                                           ApiContext context,
+                                           Deadline deadline) {
+      final SettableApiFuture<String> result = new SettableApiFuture<>();
+      // the stages check the deadline too, this fails the request while one of them is waiting
+      failAtDeadline(apiEndPoint, deadline, result);
+      context.getRetryBudget().onRequest();
+      attemptAsync(apiEndPoint, allParams, context, deadline, 0, 0, true, result);
+      return result;
+    }
+
+    private void attemptAsync(final ApiEndPoint apiEndPoint,
+                              final Map<String, Object> allParams,
+                              final ApiContext context,
+                              final Deadline deadline,
+                              final int tokenRetry,
+                              final int retry,
+                              boolean onCaller,
+                              final SettableApiFuture<String> result) {
+      if (result.isDone()) {
+        // timed out
+        return;
+      }
+      final CircuitBreaker breaker = context.getCircuitBreaker(apiEndPoint);
+      final CircuitBreaker.Phase permit;
+      try {
+        checkDeadline(apiEndPoint, deadline, 0);
+        permit = (breaker != null) ? breaker.acquire() : null;
+      } catch (CircuitOpenException | DeadlineExceededException e) {
+        result.setException(e);
+        return;
+      }
+      long waitMs;
+      try {
+        waitMs = reservePermits(apiEndPoint, context);
+        checkDeadline(apiEndPoint, deadline, waitMs);
+      } catch (RateLimitExceededException | DeadlineExceededException e) {
+        release(breaker, permit);
+        result.setException(e);
+        return;
+      }
+      if (waitMs > 0 && onCaller && blocksCaller(apiEndPoint, context)) {
+        try {
+          Thread.sleep(waitMs);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          release(breaker, permit);
+          result.setException(new FailedRequestException(e));
+          return;
+        }
+      } else if (waitMs > 0) {
+        TIMER.schedule(new Runnable() {
+          @Override
+          public void run() {
+            sendAsync(apiEndPoint, allParams, context, deadline, breaker, permit, tokenRetry, retry, result);
+          }
+        }, waitMs, TimeUnit.MILLISECONDS);
+        return;
+      }
+      sendAsync(apiEndPoint, allParams, context, deadline, breaker, permit, tokenRetry, retry, result);
+    }
+
+    private void sendAsync(final ApiEndPoint apiEndPoint,
+                           final Map<String, Object> allParams,
+                           final ApiContext context,
+                           final Deadline deadline,
+                           final CircuitBreaker breaker,
+                           final CircuitBreaker.Phase permit,
+                           final int tokenRetry,
+                           final int retry,
+                           final SettableApiFuture<String> result) {
+      final ConcurrencyLimiter concurrencyLimiter = context.getConcurrencyLimiter(apiEndPoint);
+      if (concurrencyLimiter == null) {
+        sendAsync(apiEndPoint, allParams, context, deadline, new Call(breaker, permit, null, 0),
+            tokenRetry, retry, result);
+        return;
+      }
+      try {
+        concurrencyLimiter.acquireAsync(new ConcurrencyLimiter.Waiter() {
+          @Override
+          void admit(int inFlight) {
+            Call call = new Call(breaker, permit, concurrencyLimiter, inFlight);
+            sendAsync(apiEndPoint, allParams, context, deadline, call, tokenRetry, retry, result);
+          }
+        });
+      } catch (ConcurrencyLimitExceededException e) {
+        release(breaker, permit);
+        result.setException(e);
+      }
+    }
+
+    /**
+     * Gives back the circuit breaker permit of a call which is not sent.
+     *
+     * @param breaker the circuit breaker, or null if there is none
+     * @param permit  the phase the call was let through in
+     */
+    private void release(CircuitBreaker breaker, CircuitBreaker.Phase permit) {
+      if (breaker != null) {
+        breaker.release(permit);
+      }
+    }
+
+    private void sendAsync(ApiEndPoint apiEndPoint,
+                           Map<String, Object> allParams,
+                           ApiContext context,
+                           Deadline deadline,
+                           final Call call,
+                           int tokenRetry,
+                           int retry,
+                           SettableApiFuture<String> result) {
+      if (result.isDone()) {
+        // timed out while waiting for the concurrency limit
+        call.cancel();
+        return;
+      }
+      final ApiContext.TokenState sent = context.getTokenState();
+      final HttpTransport.Request request;
+      try {
+        request = newRequest(apiEndPoint, allParams, context, sent, deadline);
+      } catch (IOException e) {
+        call.cancel();
+        result.setException(new FailedRequestException(e));
+        return;
+      } catch (RuntimeException e) {
+        call.cancel();
+        result.setException(e);
+        return;
+      }
+      final Attempt attempt = new Attempt(apiEndPoint, allParams, context, deadline, sent, call,
+          tokenRetry, retry, result);
+      final HttpTransport transport = context.getTransport();
+      Hedger hedger = context.getHedger(apiEndPoint);
+      if (transport instanceof AsyncHttpTransport || hedger != null) {
+        AsyncHttpTransport.Callback callback = new AsyncHttpTransport.Callback() {
+          @Override
+          public void onResponse(final HttpTransport.Response response) {
+            call.received();
+            // leave the I/O thread of the transport
+            ASYNC_EXECUTOR.execute(new Runnable() {
+              @Override
+              public void run() {
+                attempt.complete(request, response);
+              }
+            });
+          }
+
+          @Override
+          public void onFailure(IOException e) {
+            attempt.fail(request, e);
+          }
+        };
+        if (hedger != null) {
+          new HedgedExchange(context, hedger, request, callback).start(true);
+        } else {
+          ((AsyncHttpTransport) transport).executeAsync(request, callback);
+        }
+      } else {
+        ASYNC_EXECUTOR.execute(new Runnable() {
+          @Override
+          public void run() {
+            HttpTransport.Response response;
+            try {
+              response = transport.execute(request);
+            } catch (IOException e) {
+              attempt.fail(request, e);
+              return;
+            }
+            attempt.complete(request, response);
+          }
+        });
+      }
+    }
+
+    /**
+     * Waits for the response of an identical request in flight, no longer than the deadline.
+     *
+     * @param apiEndPoint the API endpoint
+     * @param shared      the response of the identical request
+     * @param deadline    the deadline, or null if there is none
+     * @return the response
+     * @throws ApiException         the api exception of the identical request, or if the deadline is passed
+     * @throws IOException          the I/O exception of the identical request
+     * @throws InterruptedException the interrupted exception
+     */
+    private static String await(ApiEndPoint apiEndPoint, SettableApiFuture<String> shared, Deadline deadline)
+        throws ApiException, IOException, InterruptedException {
+      try {
+        return (deadline == null) ? shared.get() : shared.get(deadline.getRemainingNanos(), TimeUnit.NANOSECONDS);
+      } catch (TimeoutException e) {
+        throw new DeadlineExceededException("Deadline exceeded for " + apiEndPoint.getKey());
+      } catch (ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof ApiException) {
+          throw (ApiException) cause;
+        } else if (cause instanceof IOException) {
+          throw (IOException) cause;
+        } else if (cause instanceof RuntimeException) {
+          throw (RuntimeException) cause;
+        }
+        throw new FailedRequestException(cause);
+      }
+    }
+
+    /**
+     * Follows the response of a request in flight with a future of its own, which fails at the deadline.
+     *
+     * @param apiEndPoint the API endpoint
+     * @param shared      the response of the request
+     * @param deadline    the deadline, or null if there is none
+     * @return the pending response
+     */
+    private static ApiFuture<String> follow(ApiEndPoint apiEndPoint, SettableApiFuture<String> shared, Deadline deadline) {
+      final SettableApiFuture<String> result = new SettableApiFuture<>();
+      failAtDeadline(apiEndPoint, deadline, result);
+      shared.addCallback(new ApiCallback<String>() {
+        @Override
+        public void onSuccess(String response) {
+          result.set(response);
+        }
+
+        @Override
+        public void onFailure(Throwable error) {
+          result.setException(error);
+        }
+      });
+      return result;
+    }
+
+    /**
+     * Fails the pending response at the deadline, unless it completes before.
+     *
+     * @param apiEndPoint the API endpoint
+     * @param deadline    the deadline, or null if there is none
+     * @param result      the pending response
+     */
+    private static void failAtDeadline(final ApiEndPoint apiEndPoint,
+                                       Deadline deadline,
+                                       final SettableApiFuture<String> result) {
+      if (deadline == null) {
+        return;
+      }
+      final ScheduledFuture<?> timeout = TIMER.schedule(new Runnable() {
+        @Override
+        public void run() {
+          result.setException(new DeadlineExceededException("Deadline exceeded for " + apiEndPoint.getKey()));
+        }
+      }, deadline.getRemainingNanos(), TimeUnit.NANOSECONDS);
+      result.addCallback(new ApiCallback<String>() {
+        @Override
+        public void onSuccess(String response) {
+          timeout.cancel(false);
+        }
+
+        @Override
+        public void onFailure(Throwable error) {
+          timeout.cancel(false);
+        }
+      });
+    }
+
+    /**
+     * Gets the identity of a GET request: its resolved URL, its sorted parameters and its access token.
+     * The lengths delimit the parameters, so no two requests get the same identity.
+     *
+     * @param apiEndPoint the API endpoint
+     * @param allParams   the request parameters
+     * @param context     the API context
+     * @return the identity of the request
+     */
+    private static String coalescingKey(ApiEndPoint apiEndPoint, Map<String, Object> allParams, ApiContext context) {
+      StringBuilder key = new StringBuilder(apiEndPoint.getApiUrl(context));
+      for (Map.Entry<String, Object> param : new TreeMap<>(allParams).entrySet()) {
+        String value = convertToString(param.getValue());
+        key.append(' ').append(param.getKey().length()).append(':').append(param.getKey())
+            .append(value.length()).append(':').append(value);
+      }
+      String token = context.getTokenState().getToken();
+      if (apiEndPoint.isAuthenticated() && token != null) {
+        key.append(' ').append(token);
+      }
+      return key.toString();
+    }
+
+    /**
+     * Sends a GET request with a hedged request if it is late, and waits for the first response.
+     *
+     * @param context the API context
+     * @param hedger  the hedger of the endpoint
+     * @param request the HTTP request
+     * @return the first response
+     * @throws IOException          if both requests fail
+     * @throws InterruptedException the interrupted exception
+     */
+    private static HttpTransport.Response executeHedged(ApiContext context,
+                                                        Hedger hedger,
+                                                        HttpTransport.Request request)
+        throws IOException, InterruptedException {
+      final SettableApiFuture<HttpTransport.Response> response = new SettableApiFuture<>();
+      HedgedExchange exchange = new HedgedExchange(context, hedger, request, new AsyncHttpTransport.Callback() {
+        @Override
+        public void onResponse(HttpTransport.Response received) {
+          response.set(received);
+        }
+
+        @Override
+        public void onFailure(IOException e) {
+          response.setException(e);
+        }
+      });
+      exchange.start(false);
+      try {
+        return response.get();
+      } catch (ExecutionException e) {
+        throw (IOException) e.getCause();
+      } catch (InterruptedException e) {
+        exchange.cancel();
+        throw e;
+      }
+    }
+
+    /**
+     * Sends a request without blocking, on the shared executor unless the transport is asynchronous.
+     *
+     * @param transport the HTTP transport
+     * @param request   the HTTP request
+     * @param callback  the callback notified with the response or the failure
+     */
+    private static void dispatch(final HttpTransport transport,
+                                 final HttpTransport.Request request,
+                                 final AsyncHttpTransport.Callback callback) {
+      if (transport instanceof AsyncHttpTransport) {
+        ((AsyncHttpTransport) transport).executeAsync(request, callback);
+        return;
+      }
+      ASYNC_EXECUTOR.execute(new Runnable() {
+        @Override
+        public void run() {
+          HttpTransport.Response response;
+          try {
+            response = transport.execute(request);
+          } catch (IOException e) {
+            callback.onFailure(e);
+            return;
+          }
+          callback.onResponse(response);
+        }
+      });
+    }
+
+    /**
+     * Checks the deadline leaves more than the given wait.
+     *
+     * @param apiEndPoint the API endpoint
+     * @param deadline    the deadline, or null if there is none
+     * @param waitMs      the time to wait before the next stage (in milliseconds)
+     * @throws DeadlineExceededException if the deadline is passed, or would be after the wait
+     */
+    private static void checkDeadline(ApiEndPoint apiEndPoint, Deadline deadline, long waitMs)
+        throws DeadlineExceededException {
+      if (deadline != null && TimeUnit.MILLISECONDS.toNanos(waitMs) >= deadline.getRemainingNanos()) {
+        throw new DeadlineExceededException("Deadline exceeded for " + apiEndPoint.getKey());
+      }
+    }
+
+    private static long reservePermits(ApiEndPoint apiEndPoint, ApiContext context)
+        throws RateLimitExceededException {
+      long waitMs = 0;
+      RateLimiter endpointLimiter = apiEndPoint.getRateLimiter(context);
+      if (endpointLimiter != null) {
+        waitMs = endpointLimiter.reserve();
+      }
+      RateLimiter contextLimiter = context.getRateLimiter();
+      if (contextLimiter != null) {
+        waitMs = Math.max(waitMs, contextLimiter.reserve());
+      }
+      return waitMs;
+    }
+
+    private static boolean blocksCaller(ApiEndPoint apiEndPoint, ApiContext context) {
+      RateLimiter endpointLimiter = apiEndPoint.getRateLimiter(context);
+      RateLimiter contextLimiter = context.getRateLimiter();
+      return (endpointLimiter != null && endpointLimiter.getMode() == RateLimitMode.BLOCK)
+          || (contextLimiter != null && contextLimiter.getMode() == RateLimitMode.BLOCK);
+    }
+
+    private static void adaptRateLimits(ApiEndPoint apiEndPoint, ApiContext context, HttpTransport.Response response) {
+      RateLimiter endpointLimiter = apiEndPoint.getRateLimiter(context);
+      if (endpointLimiter != null) {
+        endpointLimiter.onResponse(response);
+      }
+      RateLimiter contextLimiter = context.getRateLimiter();
+      if (contextLimiter != null) {
+        contextLimiter.onResponse(response);
+      }
+    }
+
+    private static long retryDelayMs(RetryPolicy policy,
+                                     ApiContext context,
+                                     HttpTransport.Request request,
+                                     int retry,
+                                     Deadline deadline,
+                                     IOException error) {
+      if (retry >= policy.getMaxRetries() || !policy.isRetryable(request.getMethod(), error)) {
+        return -1;
+      }
+      return retryWithin(context, deadline, policy.getBackoffMs(retry));
+    }
+
+    private static long retryDelayMs(RetryPolicy policy,
+                                     ApiContext context,
+                                     HttpTransport.Request request,
+                                     int retry,
+                                     Deadline deadline,
+                                     HttpTransport.Response response) {
+      if (retry >= policy.getMaxRetries() || !policy.isRetryable(request.getMethod(), response.getStatusCode())) {
+        return -1;
+      }
+      long retryAfterMs = RetryPolicy.parseRetryAfterMs(response.getHeader(RETRY_AFTER_HEADER),
+          System.currentTimeMillis());
+      if (retryAfterMs > policy.getMaxDelayMs()) {
+        // the server will not recover in time
+        return -1;
+      }
+      return retryWithin(context, deadline, Math.max(policy.getBackoffMs(retry), retryAfterMs));
+    }
+
+    private static long retryWithin(ApiContext context, Deadline deadline, long delayMs) {
+      if (deadline != null && TimeUnit.MILLISECONDS.toNanos(delayMs) >= deadline.getRemainingNanos()) {
+        // the retry would not be answered in time, the last outcome is final
+        return -1;
+      }
+      return context.getRetryBudget().tryRetry() ? delayMs : -1;
+    }
+
+    /**
+     * An HTTP call through the circuit breaker and the concurrency limiter of its endpoint.
+     */
+    private static final class Call {
+      private final CircuitBreaker breaker;
+      private final CircuitBreaker.Phase permit;
+      private final ConcurrencyLimiter concurrencyLimiter;
+      private final int admittedInFlight;
+      private final long startNanos = System.nanoTime();
+      private volatile long endNanos = 0;
+
+      private Call(CircuitBreaker breaker,
+                   CircuitBreaker.Phase permit,
+                   ConcurrencyLimiter concurrencyLimiter,
+                   int admittedInFlight) {
+        this.breaker = breaker;
+        this.permit = permit;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.admittedInFlight = admittedInFlight;
+      }
+
+      /**
+       * Marks the end of the round trip, before the response is handed over to another thread.
+       */
+      private void received() {
+        endNanos = System.nanoTime();
+      }
+
+      /**
+       * Records the outcome of the call.
+       *
+       * @param response the response, or null if the call failed
+       */
+      private void finish(HttpTransport.Response response) {
+        long now = (endNanos != 0) ? endNanos : System.nanoTime();
+        int statusCode = (response != null) ? response.getStatusCode() : 0;
+        boolean failed = response == null || statusCode >= HttpURLConnection.HTTP_INTERNAL_ERROR;
+        if (breaker != null) {
+          breaker.onResult(permit, failed, now - startNanos, now);
+        }
+        if (concurrencyLimiter != null) {
+          concurrencyLimiter.release(admittedInFlight, now - startNanos, failed || statusCode == HTTP_TOO_MANY_REQUESTS);
+        }
+      }
+
+      /**
+       * Gives up the call before sending it.
+       */
+      private void cancel() {
+        if (breaker != null) {
+          breaker.release(permit);
+        }
+        if (concurrencyLimiter != null) {
+          concurrencyLimiter.release(0, 0, false);
+        }
+      }
+    }
+
+    /**
+     * A GET request raced against an identical hedged request, sent once the first one is later than
+     * the hedge delay of the endpoint. The first response wins and the other request is cancelled.
+     * A failure only counts once both requests have failed.
+     */
+    private static final class HedgedExchange {
+      private final ApiContext context;
+      private final HttpTransport transport;
+      private final Hedger hedger;
+      private final HttpTransport.Request primary;
+      private final AsyncHttpTransport.Callback callback;
+      private final long startNanos = System.nanoTime();
+      /**
+       * Whether the callback is notified.
+       */
+      private final AtomicBoolean done = new AtomicBoolean();
+      /**
+       * The number of requests sent and not failed.
+       */
+      private final AtomicInteger pending = new AtomicInteger(1);
+      private volatile HttpTransport.Request hedge = null;
+      private volatile ScheduledFuture<?> timer = null;
+
+      private HedgedExchange(ApiContext context,
+                             Hedger hedger,
+                             HttpTransport.Request primary,
+                             AsyncHttpTransport.Callback callback) {
+        this.context = context;
+        this.transport = context.getTransport();
+        this.hedger = hedger;
+        this.primary = primary;
+        this.callback = callback;
+      }
+
+      /**
+       * Sends the first request and schedules the hedged one.
+       *
+       * @param async whether to send the first request without blocking the calling thread
+       */
+      private void start(boolean async) {
+        hedger.onRequest();
+        long delayNanos = hedger.getDelayNanos();
+        if (delayNanos >= 0) {
+          timer = TIMER.schedule(new Runnable() {
+            @Override
+            public void run() {
+              sendHedge();
+            }
+          }, delayNanos, TimeUnit.NANOSECONDS);
+        }
+        AsyncHttpTransport.Callback outcome = outcome(primary, startNanos);
+        if (async) {
+          dispatch(transport, primary, outcome);
+          return;
+        }
+        HttpTransport.Response response;
+        try {
+          response = transport.execute(primary);
+        } catch (IOException e) {
+          outcome.onFailure(e);
+          return;
+        }
+        outcome.onResponse(response);
+      }
+
+      /**
+       * Cancels both requests without notifying the callback.
+       */
+      private void cancel() {
+        if (done.compareAndSet(false, true)) {
+          finish(null, System.nanoTime());
+        }
+      }
+
+      private void sendHedge() {
+        Deadline deadline = primary.getDeadline();
+        if (done.get() || (deadline != null && deadline.isExpired()) || !hedger.tryHedge()) {
+          return;
+        }
+        HttpTransport.Request request = new HttpTransport.Request(primary.getMethod(), primary.getUrl(),
+            primary.getHeaders(), primary.getBody(), context.getConnectTimeoutMs(), deadline);
+        pending.incrementAndGet();
+        hedge = request;
+        dispatch(transport, request, outcome(request, System.nanoTime()));
+        if (done.get()) {
+          // answered meanwhile
+          request.cancel();
+        }
+      }
+
+      private AsyncHttpTransport.Callback outcome(final HttpTransport.Request request, final long sentNanos) {
+        return new AsyncHttpTransport.Callback() {
+          @Override
+          public void onResponse(HttpTransport.Response response) {
+            if (!done.compareAndSet(false, true)) {
+              // the other request won
+              return;
+            }
+            long now = System.nanoTime();
+            hedger.record(now - sentNanos);
+            finish(request, now);
+            callback.onResponse(response);
+          }
+
+          @Override
+          public void onFailure(IOException e) {
+            if (pending.decrementAndGet() > 0 || !done.compareAndSet(false, true)) {
+              // the other request may still answer
+              return;
+            }
+            finish(request, System.nanoTime());
+            callback.onFailure(e);
+          }
+        };
+      }
+
+      /**
+       * Cancels the hedge timer and the requests other than the winner.
+       *
+       * @param winner the request which completed the exchange, or null if none did
+       * @param now    the current time (in nanoseconds)
+       */
+      private void finish(HttpTransport.Request winner, long now) {
+        ScheduledFuture<?> scheduled = timer;
+        if (scheduled != null) {
+          scheduled.cancel(false);
+        }
+        HttpTransport.Request hedged = hedge;
+        if (winner != null && winner == hedged) {
+          // the first request took at least this long, keep it in the latencies
+          hedger.record(now - startNanos);
+        }
+        if (primary != winner) {
+          primary.cancel();
+        }
+        if (hedged != null && hedged != winner) {
+          hedged.cancel();
+        }
+      }
+    }
+
+    /**
+     * An attempt of an asynchronous request, completing the request or scheduling the next attempt.
+     */
+    private final class Attempt {
+      private final ApiEndPoint apiEndPoint;
+      private final Map<String, Object> allParams;
+      private final ApiContext context;
+      private final Deadline deadline;
+      private final ApiContext.TokenState sent;
+      private final Call call;
+      private final int tokenRetry;
+      private final int retry;
+      private final SettableApiFuture<String> result;
+
+      private Attempt(ApiEndPoint apiEndPoint,
+                      Map<String, Object> allParams,
+                      ApiContext context,
+                      Deadline deadline,
+                      ApiContext.TokenState sent,
+                      Call call,
+                      int tokenRetry,
+                      int retry,
+                      SettableApiFuture<String> result) {
+        this.apiEndPoint = apiEndPoint;
+        this.allParams = allParams;
+        this.context = context;
+        this.deadline = deadline;
+        this.sent = sent;
+        this.call = call;
+        this.tokenRetry = tokenRetry;
+        this.retry = retry;
+        this.result = result;
+      }
+
+      private void fail(HttpTransport.Request request, IOException error) {
+        call.finish(null);
+        if (deadline != null && deadline.isExpired()) {
+          result.setException(new DeadlineExceededException("Deadline exceeded for " + apiEndPoint.getKey(), error));
+          return;
+        }
+        long delayMs = retryDelayMs(apiEndPoint.getRetryPolicy(context), context, request, retry, deadline, error);
+        if (delayMs < 0) {
+          result.setException(new FailedRequestException(error));
+        } else {
+          retryAfter(delayMs);
+        }
+      }
+
+      private void complete(HttpTransport.Request request, HttpTransport.Response response) {
+        call.finish(response);
+        adaptRateLimits(apiEndPoint, context, response);
+        long delayMs = retryDelayMs(apiEndPoint.getRetryPolicy(context), context, request, retry, deadline, response);
+        if (delayMs >= 0) {
+          retryAfter(delayMs);
+          return;
+        }
+        try {
+          result.set(readResponse(apiEndPoint, context, request, response));
+        } catch (FailedAccessTokenException tokenError) {
+          if (tokenRetry >= ApiConfig.RETRY_TOKEN_MAX) {
+            result.setException(new FailedRequestException("Retry timeout exceeded"));
+            return;
+          }
+          context.clearAppToken(sent);
+          context.getTokenRefresher().refreshAsync(sent, deadline).addCallback(new ApiCallback<String>() {
+            @Override
+            public void onSuccess(String token) {
+              attemptAsync(apiEndPoint, allParams, context, deadline, tokenRetry + 1, retry, false, result);
+            }
+
+            @Override
+            public void onFailure(Throwable error) {
+              result.setException(error);
+            }
+          });
+        } catch (ApiException | RuntimeException e) {
+          result.setException(e);
+        }
+      }
+
+      private void retryAfter(long delayMs) {
+        TIMER.schedule(new Runnable() {
+          @Override
+          public void run() {
+            attemptAsync(apiEndPoint, allParams, context, deadline, tokenRetry, retry + 1, false, result);
+          }
+        }, delayMs, TimeUnit.MILLISECONDS);
+      }
+    }
+
+    private HttpTransport.Request newRequest(ApiEndPoint apiEndPoint,
+                                             Map<String, Object> allParams,
+                                             ApiContext context,
+                                             ApiContext.TokenState token,
+                                             Deadline deadline) throws IOException {
+      HttpMethod method = apiEndPoint.getMethod();
+      String apiUrl = apiEndPoint.getApiUrl(context);
+      switch (method) {
+        case GET:
+          return get(apiEndPoint, apiUrl, allParams, token, getHttpCache(apiEndPoint, context),
+              context.getConnectTimeoutMs(), deadline);
+        case POST:
+        case PUT:
+        case DELETE:
+          return sendRequest(apiEndPoint, apiUrl, allParams, token, context.getConnectTimeoutMs(), deadline);
+        default:
+          throw new IllegalArgumentException("Unsupported http request method");
+      }
+    }
+
+    private HttpTransport.Request get(ApiEndPoint apiEndPoint,
+                                      String apiUrl,
+                                      Map<String, Object> allParams,
+                                      ApiContext.TokenState token,
+                                      HttpCache cache,
+                                      long connectTimeoutMs,
+                                      Deadline deadline) throws IOException {
+      String url = getUrl(apiUrl, allParams);
+      Map<String, String> headers = headers(apiEndPoint, token);
+      if (cache != null) {
+        cache.addValidators(url, headers);
+      }
+      return new HttpTransport.Request(HttpMethod.GET, new URL(url), headers, null, connectTimeoutMs, deadline);
+    }
+
+    private HttpTransport.Request sendRequest(ApiEndPoint apiEndPoint,
+                                              String apiUrl,
+                                              Map<String, Object> allParams,
+                                              ApiContext.TokenState token,
+                                              long connectTimeoutMs,
+                                              Deadline deadline) throws IOException {
+      byte[] body = convertToString(allParams).getBytes("UTF-8");
+      return new HttpTransport.Request(apiEndPoint.getMethod(), new URL(apiUrl),
+          headers(apiEndPoint, token), body, connectTimeoutMs, deadline);
+    }
+
+    private Map<String, String> headers(ApiEndPoint apiEndPoint, ApiContext.TokenState token) {
+      Map<String, String> headers = new LinkedHashMap<>();
+      headers.put("Content-Type", "application/json");
+      if (token.getToken() != null && apiEndPoint.isAuthenticated()) {
+        headers.put(AUTHORIZATION_HEADER, token.getToken());
+      }
+      return headers;
+    }
+
+    private static ScheduledExecutorService newTimer(String name) {
+      ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1, daemonThreads(name));
+      // most deadlines are cancelled long before they are due
+      timer.setRemoveOnCancelPolicy(true);
+      return timer;
+    }
+
+    private static ThreadFactory daemonThreads(final String name) {
+      final AtomicInteger count = new AtomicInteger();
+      return new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable runnable) {
+          Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        }
+      };
     }
   }
 
-  private static String readResponse(HttpURLConnection connection, ApiContext context)
-      throws ApiException, IOException {
-    try {
-      int responseCode = connection.getResponseCode();
-      if (responseCode == HttpURLConnection.HTTP_UNAUTHORIZED && context.hasAppToken()) {
-        context.clearAppToken();
-        throw new FailedAccessTokenException();
-      }
-      InputStreamReader reader = new InputStreamReader(connection.getInputStream(), "UTF-8");
-      BufferedReader in = new BufferedReader(reader);
-      String inputLine;
-      StringBuilder response = new StringBuilder();
-      while ((inputLine = in.readLine()) != null) {
-        response.append(inputLine);
-      }
-      in.close();
-      return response.toString();
-    } catch (FailedAccessTokenException tokenError) {
-      // Error 401
-      throw tokenError;
-    } catch (Exception e) {
-      InputStream inputStream = connection.getErrorStream();
-      if (inputStream == null) {
-        throw new FailedRequestException(e);
-      }
-      InputStreamReader inputStreamReader = new InputStreamReader(inputStream, "UTF-8");
-      BufferedReader in = new BufferedReader(inputStreamReader);
-      String inputLine;
-      StringBuilder response = new StringBuilder();
-      while ((inputLine = in.readLine()) != null) {
-        response.append(inputLine);
-      }
-      in.close();
-      throw new FailedRequestException(response.toString(), e);
+  private static String getUrl(String apiUrl, Map<String, Object> allParams) throws IOException {
+    StringBuilder urlString = new StringBuilder(apiUrl);
+    boolean firstEntry = true;
+    for (Map.Entry entry : allParams.entrySet()) {
+      urlString.append(firstEntry ? "?" : "&")
+          .append(URLEncoder.encode(entry.getKey().toString(), "UTF-8"))
+          .append("=")
+          .append(URLEncoder.encode(convertToString(entry.getValue()), "UTF-8"));
+      firstEntry = false;
+    }
+    return urlString.toString();
+  }
+
+  private static String readResponse(ApiEndPoint apiEndPoint,
+                                     ApiContext context,
+                                     HttpTransport.Request request,
+                                     HttpTransport.Response response) throws ApiException {
+    int responseCode = response.getStatusCode();
+    if (responseCode == HttpURLConnection.HTTP_UNAUTHORIZED && apiEndPoint.isAuthenticated()) {
+      // Error 401, the token is refreshed by the executor
+      throw new FailedAccessTokenException();
+    }
+    HttpMethod method = apiEndPoint.getMethod();
+    NegativeCache negativeCache = context.getNegativeCache();
+    if (responseCode >= HttpURLConnection.HTTP_BAD_REQUEST) {
+      IOException error = new IOException("Server returned HTTP response code: "
+          + responseCode + " for URL: " + request.getUrl());
+      String body = (response.getBody().length == 0) ? null : response.getBodyAsString();
+      String id = apiEndPoint.getEntityId();
+      if (responseCode == HttpURLConnection.HTTP_NOT_FOUND && method == HttpMethod.GET && id != null) {
+        if (negativeCache != null) {
+          negativeCache.putAbsent(context, id);
+        }
+        throw (body == null) ? new EntityNotFoundException(error) : new EntityNotFoundException(body, error);
+      }
+      if (body == null) {
+        throw new FailedRequestException(error);
+      }
+      throw new FailedRequestException(body, error);
+    }
+    EntityCache entityCache = context.getEntityCache();
+    if (entityCache != null && (method == HttpMethod.PUT || method == HttpMethod.DELETE)) {
+      String id = apiEndPoint.getEntityId();
+      if (id != null) {
+        entityCache.invalidate(context, id);
+      }
+    }
+    if (negativeCache != null && method == HttpMethod.DELETE && apiEndPoint.getEntityId() != null) {
+      negativeCache.putAbsent(context, apiEndPoint.getEntityId());
+    } else if (negativeCache != null && method == HttpMethod.POST && response.getBody().length > 0) {
+      negativeCache.putCreated(context, response.getBodyAsString());
+    }
+    HttpCache cache = getHttpCache(apiEndPoint, context);
+    if (cache == null) {
+      return response.getBodyAsString();
+    }
+    String url = request.getUrl().toString();
+    if (responseCode == HttpURLConnection.HTTP_NOT_MODIFIED) {
+      String cached = cache.revalidate(url, response);
+      if (cached == null) {
+        throw new FailedRequestException("Not modified, but the cached response was evicted: " + url);
+      }
+      return cached;
+    }
+    String body = response.getBodyAsString();
+    if (responseCode == HttpURLConnection.HTTP_OK) {
+      cache.store(url, response, body);
     }
+    return body;
   }
 
   private static String convertToString(Object input) {
     if (input instanceof Map || input instanceof List) {
-      Gson gson = new Gson();
-      return gson.toJson(input);
+      return GSON.toJson(input);
     } else {
       return String.valueOf(input);
     }
@@ -18,6 +18,9 @@ public class App extends ApiNode {
   @SerializedName("token")
   private String token = null;
 
+  @SerializedName(value = "expiresIn", alternate = "expires_in")
+  private Long expiresIn = null;
+
   /**
    * Constructs a new App with an instance of {@link ApiContext}.
    *
@@ -60,6 +63,15 @@ public class App extends ApiNode {
     return token;
   }
 
+  /**
+   * Gets the lifetime of the app access token.
+   *
+   * @return the lifetime in seconds, or null if the response has no expiry
+   */
+  public Long getExpiresIn() {
+    return expiresIn;
+  }
+
   /**
    * Class defining a public API request to generate a new app access token.
    */
@@ -91,8 +103,24 @@ public class App extends ApiNode {
 
     @Override
     public App execute(Map<String, Object> extraParams) throws ApiException, InterruptedException {
-      lastResponse = App.parseResponse(App.class,
-          executeInternal(extraParams), getContext(), this).head();
+      return handleResponse(executeInternal(extraParams));
+    }
+
+    @Override
+    public ApiFuture<App> executeAsync() {
+      return executeAsync(null);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public ApiFuture<App> executeAsync(Map<String, Object> extraParams) {
+      return (ApiFuture<App>) super.executeAsync(extraParams);
+    }
+
+    @Override
+    protected App handleResponse(String response) throws ApiException {
+      lastResponse = App.parseResponse(App.class, response, getContext(), this).head();
+      getContext().getTokenRefresher().onTokenCreated(lastResponse);
       return lastResponse;
     }
   }
@@ -0,0 +1,373 @@
+package com.example.sdk;
+
+import com.example.sdk.ApiEndPoints.ApiEndPoint;
+import com.example.sdk.ApiException.FailedRequestException;
+import com.example.sdk.ApiException.MalformedResponseException;
+import com.example.sdk.types.HttpMethod;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Creates, updates and deletes entities in bulk.
+ * <p>The writes are sent in parallel, with at most a given number of requests in flight. Where the
+ * server supports the {@link ApiEndPoints#BATCH_ENTITIES} endpoint, the writes are sent to it in
+ * chunks, as <code>{"operations": [{"method": "PUT", "id": "...", "data": {...}}, ...]}</code>,
+ * and it answers with <code>{"data": [{"status": 201, "data": {...}}, ...]}</code>, one result per
+ * operation in order. Otherwise every write is a request of its own.</p>
+ * <p>A failed write does not abort the others: the writer returns the result of every write,
+ * in the order of the writes.</p>
+ *
+ * @author Feng Zheng
+ * @version 1.0
+ * @since 1.0
+ */
+public class BulkWriter {
+  private static final String OPERATIONS_KEY = "operations";
+  private static final String METHOD_KEY = "method";
+  private static final String ID_KEY = "id";
+  private static final String STATUS_KEY = "status";
+
+  private final ApiContext context;
+  private final ApiEndPoint createEndPoint;
+  private final ApiEndPoint updateEndPoint;
+  private final ApiEndPoint deleteEndPoint;
+  /**
+   * The batch endpoint, or null if the server does not support it.
+   */
+  private final ApiEndPoint batchEndPoint;
+  private final int chunkSize;
+  private final int parallelism;
+
+  /**
+   * Constructs a new bulk writer with the defaults of {@link ApiConfig}, sending a request per write.
+   *
+   * @param context the instance of {@link ApiContext}
+   */
+  public BulkWriter(ApiContext context) {
+    this(context, false, ApiConfig.DEFAULT_BULK_CHUNK_SIZE, ApiConfig.DEFAULT_BULK_PARALLELISM);
+  }
+
+  /**
+   * Constructs a new bulk writer.
+   *
+   * @param context     the instance of {@link ApiContext}
+   * @param batch       whether the server supports the batch endpoint
+   * @param chunkSize   the maximum number of writes in a request to the batch endpoint
+   * @param parallelism the maximum number of requests in flight
+   */
+  public BulkWriter(ApiContext context, boolean batch, int chunkSize, int parallelism) {
+    this(context, ApiEndPoints.CREATE_ENTITY, ApiEndPoints.UPDATE_ENTITY, ApiEndPoints.DELETE_USER_FROM_PROJECT,
+        batch ? ApiEndPoints.BATCH_ENTITIES : null, chunkSize, parallelism);
+  }
+
+  /**
+   * Constructs a new bulk writer of the given endpoints.
+   *
+   * @param context        the instance of {@link ApiContext}
+   * @param createEndPoint the endpoint creating an entity
+   * @param updateEndPoint the endpoint updating an entity by ID
+   * @param deleteEndPoint the endpoint deleting an entity by ID
+   * @param batchEndPoint  the batch endpoint, or null if the server does not support it
+   * @param chunkSize      the maximum number of writes in a request to the batch endpoint
+   * @param parallelism    the maximum number of requests in flight
+   */
+  BulkWriter(ApiContext context, ApiEndPoint createEndPoint, ApiEndPoint updateEndPoint,
+             ApiEndPoint deleteEndPoint, ApiEndPoint batchEndPoint, int chunkSize, int parallelism) {
+    if (chunkSize < 1 || parallelism < 1) {
+      throw new IllegalArgumentException("Invalid bulk write settings");
+    }
+    this.context = context;
+    this.createEndPoint = createEndPoint;
+    this.updateEndPoint = updateEndPoint;
+    this.deleteEndPoint = deleteEndPoint;
+    this.batchEndPoint = batchEndPoint;
+    this.chunkSize = chunkSize;
+    this.parallelism = parallelism;
+  }
+
+  /**
+   * Creates the entities.
+   *
+   * @param payloads the parameters of the entities
+   * @return the result of every creation, in order
+   * @throws InterruptedException the interrupted exception
+   */
+  public List<Result> create(List<? extends Map<String, Object>> payloads) throws InterruptedException {
+    List<Write> writes = new ArrayList<>(payloads.size());
+    for (Map<String, Object> payload : payloads) {
+      writes.add(new Write(writes.size(), createEndPoint, null, payload));
+    }
+    return write(writes);
+  }
+
+  /**
+   * Updates the entities by ID.
+   *
+   * @param payloads the parameters of the entities by ID
+   * @return the result of every update, in the iteration order of the IDs
+   * @throws InterruptedException the interrupted exception
+   */
+  public List<Result> update(Map<String, ? extends Map<String, Object>> payloads) throws InterruptedException {
+    List<Write> writes = new ArrayList<>(payloads.size());
+    for (Map.Entry<String, ? extends Map<String, Object>> entry : payloads.entrySet()) {
+      writes.add(new Write(writes.size(), updateEndPoint, entry.getKey(), entry.getValue()));
+    }
+    return write(writes);
+  }
+
+  /**
+   * Deletes the entities by ID.
+   *
+   * @param ids the IDs of the entities
+   * @return the result of every deletion, in the iteration order of the IDs
+   * @throws InterruptedException the interrupted exception
+   */
+  public List<Result> delete(Collection<String> ids) throws InterruptedException {
+    List<Write> writes = new ArrayList<>(ids.size());
+    for (String id : ids) {
+      writes.add(new Write(writes.size(), deleteEndPoint, id, null));
+    }
+    return write(writes);
+  }
+
+  private List<Result> write(List<Write> writes) throws InterruptedException {
+    Result[] results = new Result[writes.size()];
+    Semaphore inFlight = new Semaphore(parallelism);
+    if (batchEndPoint == null) {
+      for (Write write : writes) {
+        inFlight.acquire();
+        sendSingle(write, results, inFlight);
+      }
+    } else {
+      for (int start = 0; start < writes.size(); start += chunkSize) {
+        inFlight.acquire();
+        sendChunk(writes.subList(start, Math.min(start + chunkSize, writes.size())), results, inFlight);
+      }
+    }
+    // every request gives its permit back once its results are set
+    inFlight.acquire(parallelism);
+    return Arrays.asList(results);
+  }
+
+  private void sendSingle(final Write write, final Result[] results, final Semaphore inFlight) {
+    RequestWrite request = (write.id == null)
+        ? new RequestWrite(context, write.endPoint) : new RequestWrite(context, write.endPoint, write.id);
+    if (write.payload != null) {
+      request.setParams(write.payload);
+    }
+    request.executeInternalAsync(null).addCallback(new ApiCallback<String>() {
+      @Override
+      public void onSuccess(String response) {
+        results[write.index] = new Result(write.index, write.id, response, null);
+        inFlight.release();
+      }
+
+      @Override
+      public void onFailure(Throwable error) {
+        results[write.index] = new Result(write.index, write.id, null, toApiException(error));
+        inFlight.release();
+      }
+    });
+  }
+
+  private void sendChunk(final List<Write> chunk, final Result[] results, final Semaphore inFlight) {
+    List<Map<String, Object>> operations = new ArrayList<>(chunk.size());
+    for (Write write : chunk) {
+      Map<String, Object> operation = new LinkedHashMap<>();
+      operation.put(METHOD_KEY, write.endPoint.getMethod().toString());
+      operation.put(ID_KEY, write.id);
+      operation.put(ApiConfig.PRIMARY_DATA_KEY, write.payload);
+      operations.add(operation);
+    }
+    RequestWrite request = new RequestWrite(context, batchEndPoint);
+    request.setParam(OPERATIONS_KEY, operations);
+    request.executeInternalAsync(null).addCallback(new ApiCallback<String>() {
+      @Override
+      public void onSuccess(String response) {
+        try {
+          demultiplex(chunk, response, results);
+        } catch (RuntimeException e) {
+          fail(chunk, new MalformedResponseException(response, e), results);
+        }
+        inFlight.release();
+      }
+
+      @Override
+      public void onFailure(Throwable error) {
+        fail(chunk, toApiException(error), results);
+        inFlight.release();
+      }
+    });
+  }
+
+  private void demultiplex(List<Write> chunk, String response, Result[] results) {
+    EntityCache cache = context.getEntityCache();
+    NegativeCache negativeCache = context.getNegativeCache();
+    JsonArray items = new JsonParser().parse(response).getAsJsonObject()
+        .getAsJsonArray(ApiConfig.PRIMARY_DATA_KEY);
+    for (int i = 0; i < chunk.size(); ++i) {
+      Write write = chunk.get(i);
+      if (i >= items.size()) {
+        results[write.index] = new Result(write.index, write.id, null,
+            new MalformedResponseException("Missing from the batch response"));
+        continue;
+      }
+      if (cache != null && write.id != null) {
+        // the single updates and deletions are invalidated by the executor
+        cache.invalidate(context, write.id);
+      }
+      JsonObject item = items.get(i).getAsJsonObject();
+      JsonElement status = item.get(STATUS_KEY);
+      if (status != null && status.getAsInt() >= 400) {
+        results[write.index] = new Result(write.index, write.id, null, new FailedRequestException(item.toString()));
+      } else {
+        JsonElement data = item.get(ApiConfig.PRIMARY_DATA_KEY);
+        results[write.index] = new Result(write.index, write.id, (data == null) ? null : data.toString(), null);
+        if (negativeCache != null && write.endPoint.getMethod() == HttpMethod.DELETE && write.id != null) {
+          negativeCache.putAbsent(context, write.id);
+        } else if (negativeCache != null && write.id == null && data != null) {
+          negativeCache.putCreated(context, data.toString());
+        }
+      }
+    }
+  }
+
+  private static void fail(List<Write> chunk, ApiException error, Result[] results) {
+    for (Write write : chunk) {
+      results[write.index] = new Result(write.index, write.id, null, error);
+    }
+  }
+
+  private static ApiException toApiException(Throwable error) {
+    return (error instanceof ApiException) ? (ApiException) error : new FailedRequestException(error);
+  }
+
+  /**
+   * The result of a write.
+   */
+  public static final class Result {
+    private final int index;
+    private final String id;
+    private final String response;
+    private final ApiException error;
+
+    /**
+     * Constructs a new result of a write.
+     *
+     * @param index    the position of the write
+     * @param id       the ID of the entity, or null for a creation
+     * @param response the response of the write, or null if it failed
+     * @param error    the failure of the write, or null if it succeeded
+     */
+    Result(int index, String id, String response, ApiException error) {
+      this.index = index;
+      this.id = id;
+      this.response = response;
+      this.error = error;
+    }
+
+    /**
+     * Gets the position of the write among the writes.
+     *
+     * @return the index of the write
+     */
+    public int getIndex() {
+      return index;
+    }
+
+    /**
+     * Gets the ID of the entity written.
+     *
+     * @return the ID of the entity, or null for a creation
+     */
+    public String getId() {
+      return id;
+    }
+
+    /**
+     * Gets the raw response of the write.
+     *
+     * @return the response, or null if the write failed
+     */
+    public String getResponse() {
+      return response;
+    }
+
+    /**
+     * Gets the failure of the write.
+     *
+     * @return the failure, or null if the write succeeded
+     */
+    public ApiException getError() {
+      return error;
+    }
+
+    /**
+     * Checks whether the write succeeded.
+     *
+     * @return whether the write succeeded
+     */
+    public boolean isSuccess() {
+      return error == null;
+    }
+  }
+
+  /**
+   * A write of the bulk.
+   */
+  private static final class Write {
+    private final int index;
+    private final ApiEndPoint endPoint;
+    private final String id;
+    private final Map<String, Object> payload;
+
+    Write(int index, ApiEndPoint endPoint, String id, Map<String, Object> payload) {
+      this.index = index;
+      this.endPoint = endPoint;
+      this.id = id;
+      this.payload = payload;
+    }
+  }
+
+  /**
+   * The {@link ApiRequest} sending a write, or a chunk of writes.
+   */
+  private static final class RequestWrite extends ApiRequest {
+    /**
+     * Constructs a new {@link ApiRequest} to send a write.
+     *
+     * @param context     the instance of {@link ApiContext}
+     * @param apiEndPoint the endpoint of the write
+     * @param uriParams   the ID of the entity, if any
+     */
+    RequestWrite(ApiContext context, ApiEndPoint apiEndPoint, String... uriParams) {
+      super(context, apiEndPoint, uriParams);
+    }
+
+    @Override
+    public ApiResponse getLastResponse() {
+      return null;
+    }
+
+    @Override
+    public ApiResponse execute() throws ApiException, InterruptedException {
+      return execute(null);
+    }
+
+    @Override
+    public ApiResponse execute(Map<String, Object> extraParams) throws ApiException, InterruptedException {
+      executeInternal(extraParams);
+      return null;
+    }
+  }
+}
@@ -0,0 +1,221 @@
+package com.example.sdk;
+
+import com.example.sdk.ApiException.CircuitOpenException;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The circuit breaker of an endpoint, following a {@link CircuitBreakerPolicy}.
+ * <p>The state is an immutable phase swapped by compare-and-set, and the closed phase records
+ * the outcomes in a ring of atomic slots, so the calls through a closed breaker take no lock.</p>
+ *
+ * @author Feng Zheng
+ * @version 1.0
+ * @since 1.0
+ */
+final class CircuitBreaker {
+  /**
+   * The states of a circuit breaker.
+   */
+  enum State {
+    /**
+     * The calls go through and their outcomes are recorded.
+     */
+    CLOSED,
+    /**
+     * The calls fail right away.
+     */
+    OPEN,
+    /**
+     * A few trial calls go through to decide whether to close the breaker.
+     */
+    HALF_OPEN
+  }
+
+  private final String name;
+  private final CircuitBreakerPolicy policy;
+  private final AtomicReference<Phase> phase;
+
+  /**
+   * Constructs a new closed circuit breaker.
+   *
+   * @param name   the name of the guarded endpoint
+   * @param policy the circuit breaker policy
+   */
+  CircuitBreaker(String name, CircuitBreakerPolicy policy) {
+    this.name = name;
+    this.policy = policy;
+    this.phase = new AtomicReference<>(Phase.closed(policy, System.nanoTime()));
+  }
+
+  /**
+   * Gets the current state.
+   *
+   * @return the state
+   */
+  State getState() {
+    return phase.get().state;
+  }
+
+  /**
+   * Lets a call through the breaker.
+   *
+   * @return the phase to report the outcome of the call to
+   * @throws CircuitOpenException if the breaker is open
+   */
+  Phase acquire() throws CircuitOpenException {
+    Phase permit = tryAcquire(System.nanoTime());
+    if (permit == null) {
+      throw new CircuitOpenException("Circuit breaker of " + name + " is open");
+    }
+    return permit;
+  }
+
+  /**
+   * Lets a call through the breaker at the given time.
+   *
+   * @param now the current time (in nanoseconds)
+   * @return the phase to report the outcome of the call to, or null if the breaker is open
+   */
+  Phase tryAcquire(long now) {
+    while (true) {
+      Phase current = phase.get();
+      switch (current.state) {
+        case CLOSED:
+          return current;
+        case OPEN:
+          if (now - current.sinceNanos < TimeUnit.MILLISECONDS.toNanos(policy.getOpenDurationMs())) {
+            return null;
+          }
+          phase.compareAndSet(current, Phase.halfOpen(policy, now));
+          break;
+        default:
+          int permits = current.trialPermits.get();
+          if (permits > 0) {
+            if (current.trialPermits.compareAndSet(permits, permits - 1)) {
+              return current;
+            }
+            break;
+          }
+          if (now - current.sinceNanos < TimeUnit.MILLISECONDS.toNanos(policy.getOpenDurationMs())) {
+            return null;
+          }
+          // the trial calls never reported, let new ones through
+          phase.compareAndSet(current, Phase.halfOpen(policy, now));
+          break;
+      }
+    }
+  }
+
+  /**
+   * Gives back the permit of a call which was not sent, e.g. rejected by a rate limiter, so the trial
+   * calls of a half-open breaker are not lost.
+   *
+   * @param permit the phase the call was let through in
+   */
+  void release(Phase permit) {
+    if (permit.state == State.HALF_OPEN) {
+      permit.trialPermits.incrementAndGet();
+    }
+  }
+
+  /**
+   * Records the outcome of a call.
+   *
+   * @param permit        the phase the call was let through in
+   * @param failed        whether the call failed
+   * @param durationNanos the duration of the call (in nanoseconds)
+   * @param now           the current time (in nanoseconds)
+   */
+  void onResult(Phase permit, boolean failed, long durationNanos, long now) {
+    boolean slow = durationNanos >= TimeUnit.MILLISECONDS.toNanos(policy.getSlowCallThresholdMs());
+    if (permit.state == State.CLOSED) {
+      if (permit.window.record(failed, slow)) {
+        phase.compareAndSet(permit, Phase.open(now));
+      }
+    } else if (failed || slow) {
+      phase.compareAndSet(permit, Phase.open(now));
+    } else if (permit.trialSuccesses.incrementAndGet() == policy.getHalfOpenCalls()) {
+      phase.compareAndSet(permit, Phase.closed(policy, now));
+    }
+  }
+
+  /**
+   * An immutable phase of the breaker, with the counters of its calls.
+   */
+  static final class Phase {
+    private final State state;
+    private final long sinceNanos;
+    private final Window window;
+    private final AtomicInteger trialPermits;
+    private final AtomicInteger trialSuccesses;
+
+    private Phase(State state, long sinceNanos, Window window, int trialPermits) {
+      this.state = state;
+      this.sinceNanos = sinceNanos;
+      this.window = window;
+      this.trialPermits = new AtomicInteger(trialPermits);
+      this.trialSuccesses = new AtomicInteger();
+    }
+
+    private static Phase closed(CircuitBreakerPolicy policy, long now) {
+      return new Phase(State.CLOSED, now, new Window(policy), 0);
+    }
+
+    private static Phase open(long now) {
+      return new Phase(State.OPEN, now, null, 0);
+    }
+
+    private static Phase halfOpen(CircuitBreakerPolicy policy, long now) {
+      return new Phase(State.HALF_OPEN, now, null, policy.getHalfOpenCalls());
+    }
+  }
+
+  /**
+   * The sliding window of the last call outcomes, with running counts of the failed and slow ones.
+   */
+  private static final class Window {
+    private static final int RECORDED = 1;
+    private static final int FAILED = 2;
+    private static final int SLOW = 4;
+
+    private final CircuitBreakerPolicy policy;
+    private final AtomicIntegerArray outcomes;
+    private final AtomicLong cursor = new AtomicLong();
+    private final AtomicInteger calls = new AtomicInteger();
+    private final AtomicInteger failedCalls = new AtomicInteger();
+    private final AtomicInteger slowCalls = new AtomicInteger();
+
+    private Window(CircuitBreakerPolicy policy) {
+      this.policy = policy;
+      this.outcomes = new AtomicIntegerArray(policy.getWindowSize());
+    }
+
+    /**
+     * Records an outcome, replacing the oldest one once the window is full.
+     *
+     * @param failed whether the call failed
+     * @param slow   whether the call was slow
+     * @return whether a threshold is reached
+     */
+    private boolean record(boolean failed, boolean slow) {
+      int outcome = RECORDED | (failed ? FAILED : 0) | (slow ? SLOW : 0);
+      int slot = (int) (cursor.getAndIncrement() % outcomes.length());
+      int replaced = outcomes.getAndSet(slot, outcome);
+      int total = (replaced == 0) ? calls.incrementAndGet() : calls.get();
+      int failures = failedCalls.addAndGet(count(outcome, FAILED) - count(replaced, FAILED));
+      int slows = slowCalls.addAndGet(count(outcome, SLOW) - count(replaced, SLOW));
+      return total >= policy.getMinimumCalls()
+          && (failures >= policy.getFailureRateThreshold() * total
+          || slows >= policy.getSlowCallRateThreshold() * total);
+    }
+
+    private static int count(int outcome, int flag) {
+      return (outcome & flag) != 0 ? 1 : 0;
+    }
+  }
+}
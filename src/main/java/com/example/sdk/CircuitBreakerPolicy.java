@@ -0,0 +1,125 @@
+package com.example.sdk;
+
+/**
+ * The settings of the circuit breakers guarding the endpoints of an {@link ApiContext}.
+ * <p>Every endpoint, identified by its URI template and HTTP method, has its own breaker recording
+ * the outcome of its last calls. A call fails when it gets no response or a 5xx response, and it is
+ * slow when it takes longer than the slow call threshold. Once enough calls are recorded and either
+ * rate reaches its threshold, the breaker opens: the requests of the endpoint fail right away with
+ * {@link ApiException.CircuitOpenException}. After the open duration, a few trial calls are let
+ * through, closing the breaker if they all succeed in time, or opening it again otherwise.</p>
+ *
+ * @author Feng Zheng
+ * @version 1.0
+ * @since 1.0
+ */
+public class CircuitBreakerPolicy {
+  /**
+   * The policy with the defaults of {@link ApiConfig}.
+   */
+  public static final CircuitBreakerPolicy DEFAULT = new CircuitBreakerPolicy(
+      ApiConfig.DEFAULT_CIRCUIT_WINDOW_SIZE, ApiConfig.DEFAULT_CIRCUIT_MINIMUM_CALLS,
+      ApiConfig.DEFAULT_CIRCUIT_FAILURE_RATE, ApiConfig.DEFAULT_CIRCUIT_SLOW_CALL_MS,
+      ApiConfig.DEFAULT_CIRCUIT_SLOW_CALL_RATE, ApiConfig.DEFAULT_CIRCUIT_OPEN_MS,
+      ApiConfig.DEFAULT_CIRCUIT_HALF_OPEN_CALLS);
+
+  private final int windowSize;
+  private final int minimumCalls;
+  private final double failureRateThreshold;
+  private final long slowCallThresholdMs;
+  private final double slowCallRateThreshold;
+  private final long openDurationMs;
+  private final int halfOpenCalls;
+
+  /**
+   * Constructs a new circuit breaker policy.
+   *
+   * @param windowSize            the number of last calls recorded
+   * @param minimumCalls          the number of calls recorded before the breaker may open
+   * @param failureRateThreshold  the fraction of failed calls opening the breaker
+   * @param slowCallThresholdMs   the duration from which a call is slow (in milliseconds)
+   * @param slowCallRateThreshold the fraction of slow calls opening the breaker
+   * @param openDurationMs        the time the breaker stays open before the trial calls (in milliseconds)
+   * @param halfOpenCalls         the number of trial calls closing the breaker
+   */
+  public CircuitBreakerPolicy(int windowSize, int minimumCalls, double failureRateThreshold,
+                              long slowCallThresholdMs, double slowCallRateThreshold,
+                              long openDurationMs, int halfOpenCalls) {
+    if (windowSize < 1 || minimumCalls < 1 || minimumCalls > windowSize
+        || !(failureRateThreshold > 0 && failureRateThreshold <= 1)
+        || slowCallThresholdMs < 1 || !(slowCallRateThreshold > 0 && slowCallRateThreshold <= 1)
+        || openDurationMs < 0 || halfOpenCalls < 1) {
+      throw new IllegalArgumentException("Invalid circuit breaker policy");
+    }
+    this.windowSize = windowSize;
+    this.minimumCalls = minimumCalls;
+    this.failureRateThreshold = failureRateThreshold;
+    this.slowCallThresholdMs = slowCallThresholdMs;
+    this.slowCallRateThreshold = slowCallRateThreshold;
+    this.openDurationMs = openDurationMs;
+    this.halfOpenCalls = halfOpenCalls;
+  }
+
+  /**
+   * Gets the number of last calls recorded.
+   *
+   * @return the window size
+   */
+  public int getWindowSize() {
+    return windowSize;
+  }
+
+  /**
+   * Gets the number of calls recorded before the breaker may open.
+   *
+   * @return the minimum number of calls
+   */
+  public int getMinimumCalls() {
+    return minimumCalls;
+  }
+
+  /**
+   * Gets the fraction of failed calls opening the breaker.
+   *
+   * @return the failure rate threshold
+   */
+  public double getFailureRateThreshold() {
+    return failureRateThreshold;
+  }
+
+  /**
+   * Gets the duration from which a call is slow.
+   *
+   * @return the slow call threshold (in milliseconds)
+   */
+  public long getSlowCallThresholdMs() {
+    return slowCallThresholdMs;
+  }
+
+  /**
+   * Gets the fraction of slow calls opening the breaker.
+   *
+   * @return the slow call rate threshold
+   */
+  public double getSlowCallRateThreshold() {
+    return slowCallRateThreshold;
+  }
+
+  /**
+   * Gets the time the breaker stays open before the trial calls.
+   *
+   * @return the open duration (in milliseconds)
+   */
+  public long getOpenDurationMs() {
+    return openDurationMs;
+  }
+
+  /**
+   * Gets the number of trial calls closing the breaker.
+   *
+   * @return the number of half-open calls
+   */
+  public int getHalfOpenCalls() {
+    return halfOpenCalls;
+  }
+}
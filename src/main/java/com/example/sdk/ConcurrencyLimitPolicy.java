@@ -0,0 +1,82 @@
+package com.example.sdk;
+
+/**
+ * The settings of the adaptive concurrency limits of the endpoints of an {@link ApiContext}.
+ * <p>Every endpoint, identified by its URI template and HTTP method, has its own limit of requests
+ * in flight, adjusted from the round-trip times like the congestion window of TCP Vegas: the limit
+ * grows while the latency stays close to the lowest one seen, shrinks as the latency builds up
+ * queueing, and is cut by a fraction on failures, 429 and 5xx responses. The requests beyond the
+ * limit wait in a bounded queue, and are shed with {@link ApiException.ConcurrencyLimitExceededException}
+ * when the queue is full.</p>
+ *
+ * @author Feng Zheng
+ * @version 1.0
+ * @since 1.0
+ */
+public class ConcurrencyLimitPolicy {
+  /**
+   * The policy with the defaults of {@link ApiConfig}.
+   */
+  public static final ConcurrencyLimitPolicy DEFAULT = new ConcurrencyLimitPolicy(
+      ApiConfig.DEFAULT_CONCURRENCY_INITIAL_LIMIT, ApiConfig.DEFAULT_CONCURRENCY_MIN_LIMIT,
+      ApiConfig.DEFAULT_CONCURRENCY_MAX_LIMIT, ApiConfig.DEFAULT_CONCURRENCY_MAX_QUEUE);
+
+  private final int initialLimit;
+  private final int minLimit;
+  private final int maxLimit;
+  private final int maxQueue;
+
+  /**
+   * Constructs a new concurrency limit policy.
+   *
+   * @param initialLimit the limit of requests in flight before any round trip is measured
+   * @param minLimit     the lowest limit
+   * @param maxLimit     the highest limit
+   * @param maxQueue     the maximum number of requests waiting for the limit
+   */
+  public ConcurrencyLimitPolicy(int initialLimit, int minLimit, int maxLimit, int maxQueue) {
+    if (minLimit < 1 || initialLimit < minLimit || maxLimit < initialLimit || maxQueue < 0) {
+      throw new IllegalArgumentException("Invalid concurrency limit policy");
+    }
+    this.initialLimit = initialLimit;
+    this.minLimit = minLimit;
+    this.maxLimit = maxLimit;
+    this.maxQueue = maxQueue;
+  }
+
+  /**
+   * Gets the limit of requests in flight before any round trip is measured.
+   *
+   * @return the initial limit
+   */
+  public int getInitialLimit() {
+    return initialLimit;
+  }
+
+  /**
+   * Gets the lowest limit of requests in flight.
+   *
+   * @return the minimum limit
+   */
+  public int getMinLimit() {
+    return minLimit;
+  }
+
+  /**
+   * Gets the highest limit of requests in flight.
+   *
+   * @return the maximum limit
+   */
+  public int getMaxLimit() {
+    return maxLimit;
+  }
+
+  /**
+   * Gets the maximum number of requests waiting for the limit.
+   *
+   * @return the maximum queue size
+   */
+  public int getMaxQueue() {
+    return maxQueue;
+  }
+}
@@ -0,0 +1,236 @@
+package com.example.sdk;
+
+import com.example.sdk.ApiException.ConcurrencyLimitExceededException;
+import com.example.sdk.ApiException.DeadlineExceededException;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The adaptive limit of the requests in flight to an endpoint, following a {@link ConcurrencyLimitPolicy}.
+ * <p>Every round trip estimates the requests queued at the server from the ratio of the lowest
+ * round-trip time to the measured one. The limit grows by about its order of magnitude while fewer
+ * than {@link #ALPHA} requests are queued, shrinks as much above {@link #BETA} of them, and is cut
+ * by {@link #BACKOFF_RATIO} on a failure. The lowest round-trip time is measured again every
+ * {@link #PROBE_SAMPLES} round trips, so the limit follows the changes of the server.</p>
+ *
+ * @author Feng Zheng
+ * @version 1.0
+ * @since 1.0
+ */
+final class ConcurrencyLimiter {
+  /**
+   * The number of queued requests below which the limit grows, scaled by its order of magnitude.
+   */
+  private static final double ALPHA = 3;
+  /**
+   * The number of queued requests above which the limit shrinks, scaled by its order of magnitude.
+   */
+  private static final double BETA = 6;
+  /**
+   * The fraction of the limit kept after a failure.
+   */
+  private static final double BACKOFF_RATIO = 0.9;
+  /**
+   * The number of round trips after which the lowest round-trip time is measured again.
+   */
+  private static final int PROBE_SAMPLES = 1000;
+
+  private final String name;
+  private final ConcurrencyLimitPolicy policy;
+  /**
+   * The requests waiting for the limit, guarded by this.
+   */
+  private final Deque<Waiter> waiters = new ArrayDeque<>();
+  /**
+   * The current limit, guarded by this.
+   */
+  private double limit;
+  /**
+   * The number of requests in flight, guarded by this.
+   */
+  private int inFlight = 0;
+  /**
+   * The lowest round-trip time (in nanoseconds), guarded by this.
+   */
+  private long minRttNanos = Long.MAX_VALUE;
+  /**
+   * The number of round trips measured, guarded by this.
+   */
+  private long samples = 0;
+
+  /**
+   * Constructs a new concurrency limiter.
+   *
+   * @param name   the name of the limited endpoint
+   * @param policy the concurrency limit policy
+   */
+  ConcurrencyLimiter(String name, ConcurrencyLimitPolicy policy) {
+    this.name = name;
+    this.policy = policy;
+    this.limit = policy.getInitialLimit();
+  }
+
+  /**
+   * Gets the current limit of requests in flight.
+   *
+   * @return the limit
+   */
+  synchronized int getLimit() {
+    return (int) limit;
+  }
+
+  /**
+   * Gets the number of requests in flight.
+   *
+   * @return the number of requests in flight
+   */
+  synchronized int getInFlight() {
+    return inFlight;
+  }
+
+  /**
+   * Gets the number of requests waiting for the limit.
+   *
+   * @return the number of waiting requests
+   */
+  synchronized int getQueued() {
+    return waiters.size();
+  }
+
+  /**
+   * Waits on the calling thread until the request may be sent, or until the deadline.
+   *
+   * @param deadline the deadline of the request, or null to wait as long as needed
+   * @return the number of requests in flight including this one, to pass to {@link #release(int, long, boolean)}
+   * @throws ConcurrencyLimitExceededException if the queue is full
+   * @throws DeadlineExceededException         if the request is still waiting at the deadline
+   * @throws InterruptedException              the interrupted exception
+   */
+  int acquire(Deadline deadline)
+      throws ConcurrencyLimitExceededException, DeadlineExceededException, InterruptedException {
+    final CountDownLatch admitted = new CountDownLatch(1);
+    final int[] admittedInFlight = new int[1];
+    Waiter waiter = new Waiter() {
+      @Override
+      void admit(int inFlight) {
+        admittedInFlight[0] = inFlight;
+        admitted.countDown();
+      }
+    };
+    Integer now = enqueue(waiter);
+    if (now != null) {
+      return now;
+    }
+    try {
+      if (deadline == null) {
+        admitted.await();
+      } else if (!admitted.await(deadline.getRemainingNanos(), TimeUnit.NANOSECONDS)) {
+        synchronized (this) {
+          if (waiters.remove(waiter)) {
+            throw new DeadlineExceededException("Deadline exceeded waiting for the concurrency limit of " + name);
+          }
+        }
+        // admitted meanwhile
+      }
+    } catch (InterruptedException e) {
+      synchronized (this) {
+        if (waiters.remove(waiter)) {
+          throw e;
+        }
+      }
+      // admitted meanwhile
+      release(0, 0, false);
+      throw e;
+    }
+    return admittedInFlight[0];
+  }
+
+  /**
+   * Admits the request right away, or once the requests in flight drop below the limit.
+   *
+   * @param waiter the waiter admitted on the thread releasing a request, or on the calling thread
+   * @throws ConcurrencyLimitExceededException if the queue is full
+   */
+  void acquireAsync(Waiter waiter) throws ConcurrencyLimitExceededException {
+    Integer now = enqueue(waiter);
+    if (now != null) {
+      waiter.admit(now);
+    }
+  }
+
+  /**
+   * Releases a request and adapts the limit to its round trip.
+   *
+   * @param admittedInFlight the number of requests in flight when it was admitted, or 0 if not measured
+   * @param rttNanos         the round-trip time (in nanoseconds)
+   * @param dropped          whether the request failed from overload
+   */
+  void release(int admittedInFlight, long rttNanos, boolean dropped) {
+    List<Waiter> admitted = new ArrayList<>(2);
+    List<Integer> admittedCounts = new ArrayList<>(2);
+    synchronized (this) {
+      if (admittedInFlight > 0) {
+        adapt(admittedInFlight, rttNanos, dropped);
+      }
+      inFlight--;
+      while (inFlight < (int) limit && !waiters.isEmpty()) {
+        admitted.add(waiters.poll());
+        admittedCounts.add(++inFlight);
+      }
+    }
+    for (int i = 0; i < admitted.size(); ++i) {
+      admitted.get(i).admit(admittedCounts.get(i));
+    }
+  }
+
+  private synchronized Integer enqueue(Waiter waiter) throws ConcurrencyLimitExceededException {
+    if (inFlight < (int) limit && waiters.isEmpty()) {
+      return ++inFlight;
+    }
+    if (waiters.size() >= policy.getMaxQueue()) {
+      throw new ConcurrencyLimitExceededException("Too many requests queued for " + name
+          + " (limit " + (int) limit + ", queued " + waiters.size() + ")");
+    }
+    waiters.add(waiter);
+    return null;
+  }
+
+  private void adapt(int admittedInFlight, long rttNanos, boolean dropped) {
+    samples++;
+    double step = Math.max(1, Math.log10(limit));
+    if (dropped) {
+      limit = Math.max(policy.getMinLimit(), limit * BACKOFF_RATIO);
+      return;
+    }
+    rttNanos = Math.max(1, rttNanos);
+    if (rttNanos < minRttNanos || samples % PROBE_SAMPLES == 0) {
+      minRttNanos = rttNanos;
+    }
+    double queued = limit * (1 - (double) minRttNanos / rttNanos);
+    if (queued < ALPHA * step) {
+      // only grow when the limit is actually used
+      if (admittedInFlight * 2 >= limit) {
+        limit = Math.min(policy.getMaxLimit(), limit + step);
+      }
+    } else if (queued > BETA * step) {
+      limit = Math.max(policy.getMinLimit(), limit - step);
+    }
+  }
+
+  /**
+   * A request waiting for the limit.
+   */
+  abstract static class Waiter {
+    /**
+     * Invoked when the request may be sent.
+     *
+     * @param inFlight the number of requests in flight including this one
+     */
+    abstract void admit(int inFlight);
+  }
+}
@@ -0,0 +1,67 @@
+package com.example.sdk;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The point in time by which an API call must complete, retries, backoff and token refresh included.
+ * <p>A deadline is absolute: every stage of the call (connecting, sending, waiting for the response,
+ * waiting before a retry) only gets the time left, and the pages fetched from an {@link ApiNodeList}
+ * share the deadline of the first page.</p>
+ *
+ * @author Feng Zheng
+ * @version 1.0
+ * @since 1.0
+ */
+public final class Deadline {
+  private final long deadlineNanos;
+
+  private Deadline(long deadlineNanos) {
+    this.deadlineNanos = deadlineNanos;
+  }
+
+  /**
+   * Creates the deadline after the given time from now.
+   *
+   * @param timeoutMs the time budget (in milliseconds)
+   * @return the deadline
+   */
+  public static Deadline after(long timeoutMs) {
+    if (timeoutMs < 0) {
+      throw new IllegalArgumentException("Timeout must not be negative");
+    }
+    return new Deadline(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs));
+  }
+
+  /**
+   * Gets the time left before the deadline.
+   *
+   * @return the remaining time (in nanoseconds), not positive once the deadline is passed
+   */
+  public long getRemainingNanos() {
+    return deadlineNanos - System.nanoTime();
+  }
+
+  /**
+   * Gets the time left before the deadline, rounded up.
+   *
+   * @return the remaining time (in milliseconds), or 0 once the deadline is passed
+   */
+  public long getRemainingMs() {
+    long remaining = getRemainingNanos();
+    return (remaining <= 0) ? 0 : (remaining + TimeUnit.MILLISECONDS.toNanos(1) - 1) / TimeUnit.MILLISECONDS.toNanos(1);
+  }
+
+  /**
+   * Checks whether the deadline is passed.
+   *
+   * @return whether the deadline is passed
+   */
+  public boolean isExpired() {
+    return getRemainingNanos() <= 0;
+  }
+
+  @Override
+  public String toString() {
+    return "Deadline in " + getRemainingMs() + " ms";
+  }
+}
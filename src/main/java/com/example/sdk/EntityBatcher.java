@@ -0,0 +1,335 @@
+package com.example.sdk;
+
+import com.example.sdk.ApiEndPoints.ApiEndPoint;
+import com.example.sdk.ApiException.EntityNotFoundException;
+import com.example.sdk.ApiException.FailedRequestException;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Batches the lookups of entities by ID into bulk list requests.
+ * <p>Instead of one {@link ApiEndPoints#GET_ENTITY_BY_ID} request per entity, the lookups issued
+ * within a short window are sent as a single {@link ApiEndPoints#GET_ENTITIES} request filtered
+ * by their IDs ({@link ApiConfig#ID_FILTER_KEY}). The batch is sent when the window of its first
+ * lookup ends, or as soon as it holds the maximum number of IDs. The entities of the response are
+ * handed back to the lookups by ID, and the IDs missing from the response fail with
+ * {@link EntityNotFoundException} without further requests. A failed batch fails all its lookups.</p>
+ * <p>The lookups of the same ID in a batch share the same entity. With the {@link EntityCache}
+ * of the context, the fresh entities are found without a request, and the fetched ones are cached.
+ * With the {@link NegativeCache} of the context, the entities known not to exist fail without
+ * a request, and the IDs missing from a batch are remembered as absent.</p>
+ *
+ * @param <T> the type of {@link ApiNode} or its subclass
+ * @author Feng Zheng
+ * @version 1.0
+ * @since 1.0
+ */
+public class EntityBatcher<T extends ApiNode> {
+  /**
+   * The timer sending the batches of all batchers at the end of their window.
+   */
+  private static ScheduledExecutorService flushTimer = null;
+
+  private final ApiContext context;
+  private final Class<T> cls;
+  private final ApiEndPoint listEndPoint;
+  private final int maxBatchSize;
+  private final long windowMs;
+  private final AtomicLong lookups = new AtomicLong();
+  private final AtomicLong batches = new AtomicLong();
+  /**
+   * The lookups waiting for the next batch by ID, guarded by this.
+   */
+  private Map<String, List<SettableApiFuture<T>>> pending = new LinkedHashMap<>();
+  /**
+   * The scheduled sending of the next batch, guarded by this.
+   */
+  private ScheduledFuture<?> flush = null;
+
+  /**
+   * Constructs a new entity batcher with the defaults of {@link ApiConfig}.
+   *
+   * @param context the instance of {@link ApiContext}
+   * @param cls     the type of the entities
+   */
+  public EntityBatcher(ApiContext context, Class<T> cls) {
+    this(context, cls, ApiConfig.DEFAULT_BATCH_MAX_SIZE, ApiConfig.DEFAULT_BATCH_WINDOW_MS);
+  }
+
+  /**
+   * Constructs a new entity batcher.
+   *
+   * @param context      the instance of {@link ApiContext}
+   * @param cls          the type of the entities
+   * @param maxBatchSize the maximum number of IDs in a batch, at most a page of the list endpoint
+   * @param windowMs     the time the first lookup waits for others to join its batch (in milliseconds)
+   */
+  public EntityBatcher(ApiContext context, Class<T> cls, int maxBatchSize, long windowMs) {
+    this(context, cls, ApiEndPoints.GET_ENTITIES, maxBatchSize, windowMs);
+  }
+
+  /**
+   * Constructs a new entity batcher of a list endpoint.
+   *
+   * @param context      the instance of {@link ApiContext}
+   * @param cls          the type of the entities
+   * @param listEndPoint the endpoint listing the entities filtered by IDs
+   * @param maxBatchSize the maximum number of IDs in a batch, at most a page of the list endpoint
+   * @param windowMs     the time the first lookup waits for others to join its batch (in milliseconds)
+   */
+  EntityBatcher(ApiContext context, Class<T> cls, ApiEndPoint listEndPoint, int maxBatchSize, long windowMs) {
+    if (maxBatchSize < 1 || windowMs < 0) {
+      throw new IllegalArgumentException("Invalid batching settings");
+    }
+    this.context = context;
+    this.cls = cls;
+    this.listEndPoint = listEndPoint;
+    this.maxBatchSize = maxBatchSize;
+    this.windowMs = windowMs;
+  }
+
+  /**
+   * Gets the number of lookups by ID.
+   *
+   * @return the number of lookups
+   */
+  public long getLookups() {
+    return lookups.get();
+  }
+
+  /**
+   * Gets the number of batches sent, i.e. the number of round trips of the lookups.
+   *
+   * @return the number of batches
+   */
+  public long getBatches() {
+    return batches.get();
+  }
+
+  /**
+   * Looks up an entity by ID, waiting for its batch.
+   *
+   * @param id the ID of the entity
+   * @return the entity
+   * @throws ApiException         the api exception, {@link EntityNotFoundException} if there is no such entity
+   * @throws InterruptedException the interrupted exception
+   */
+  public T get(String id) throws ApiException, InterruptedException {
+    try {
+      return getAsync(id).get();
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof ApiException) {
+        throw (ApiException) cause;
+      } else if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw new FailedRequestException(cause);
+    }
+  }
+
+  /**
+   * Looks up an entity by ID asynchronously.
+   *
+   * @param id the ID of the entity
+   * @return the pending entity, failing with {@link EntityNotFoundException} if there is no such entity
+   */
+  public ApiFuture<T> getAsync(String id) {
+    lookups.incrementAndGet();
+    SettableApiFuture<T> result = new SettableApiFuture<>();
+    EntityCache cache = context.getEntityCache();
+    T cached = (cache != null) ? cache.get(context, cls, id) : null;
+    if (cached != null) {
+      result.set(cached);
+      return result;
+    }
+    NegativeCache negativeCache = context.getNegativeCache();
+    if (negativeCache != null && negativeCache.isAbsent(context, id)) {
+      result.setException(new EntityNotFoundException("Entity not found: " + id));
+      return result;
+    }
+    Map<String, List<SettableApiFuture<T>>> batch = null;
+    synchronized (this) {
+      List<SettableApiFuture<T>> waiting = pending.get(id);
+      if (waiting == null) {
+        waiting = new ArrayList<>(1);
+        pending.put(id, waiting);
+      }
+      waiting.add(result);
+      if (pending.size() >= maxBatchSize) {
+        batch = takePending();
+      } else if (flush == null) {
+        flush = getFlushTimer().schedule(new Runnable() {
+          @Override
+          public void run() {
+            flush();
+          }
+        }, windowMs, TimeUnit.MILLISECONDS);
+      }
+    }
+    if (batch != null) {
+      send(batch);
+    }
+    return result;
+  }
+
+  /**
+   * Sends the pending lookups right away, without waiting for the end of their window.
+   */
+  public void flush() {
+    Map<String, List<SettableApiFuture<T>>> batch;
+    synchronized (this) {
+      batch = takePending();
+    }
+    if (!batch.isEmpty()) {
+      send(batch);
+    }
+  }
+
+  private Map<String, List<SettableApiFuture<T>>> takePending() {
+    Map<String, List<SettableApiFuture<T>>> batch = pending;
+    pending = new LinkedHashMap<>();
+    if (flush != null) {
+      flush.cancel(false);
+      flush = null;
+    }
+    return batch;
+  }
+
+  private void send(final Map<String, List<SettableApiFuture<T>>> batch) {
+    batches.incrementAndGet();
+    StringBuilder ids = new StringBuilder();
+    for (String id : batch.keySet()) {
+      if (ids.length() > 0) {
+        ids.append(',');
+      }
+      ids.append(id);
+    }
+    RequestGetEntities<T> request = new RequestGetEntities<>(context, listEndPoint, cls);
+    request.setParam(ApiConfig.ID_FILTER_KEY, ids.toString());
+    request.setParam("limit", batch.size());
+    request.executeAsync().addCallback(new ApiCallback<ApiNodeList<T>>() {
+      @Override
+      public void onSuccess(ApiNodeList<T> entities) {
+        EntityCache cache = context.getEntityCache();
+        try {
+          for (T entity : entities) {
+            if (cache != null) {
+              cache.put(context, entity);
+            }
+            List<SettableApiFuture<T>> waiting = batch.remove(entity.getId());
+            if (waiting != null) {
+              for (SettableApiFuture<T> lookup : waiting) {
+                lookup.set(entity);
+              }
+            }
+          }
+        } catch (RuntimeException e) {
+          // the lookups not answered yet must not wait forever
+          onFailure(e);
+          return;
+        }
+        NegativeCache negativeCache = context.getNegativeCache();
+        for (Map.Entry<String, List<SettableApiFuture<T>>> miss : batch.entrySet()) {
+          if (negativeCache != null) {
+            negativeCache.putAbsent(context, miss.getKey());
+          }
+          EntityNotFoundException error = new EntityNotFoundException("Entity not found: " + miss.getKey());
+          for (SettableApiFuture<T> lookup : miss.getValue()) {
+            lookup.setException(error);
+          }
+        }
+      }
+
+      @Override
+      public void onFailure(Throwable error) {
+        for (List<SettableApiFuture<T>> waiting : batch.values()) {
+          for (SettableApiFuture<T> lookup : waiting) {
+            lookup.setException(error);
+          }
+        }
+      }
+    });
+  }
+
+  private static synchronized ScheduledExecutorService getFlushTimer() {
+    if (flushTimer == null) {
+      flushTimer = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable runnable) {
+          Thread thread = new Thread(runnable, "api-entity-batcher");
+          thread.setDaemon(true);
+          return thread;
+        }
+      });
+    }
+    return flushTimer;
+  }
+
+  /**
+   * The {@link ApiRequest} listing the entities of a batch.
+   *
+   * @param <T> the type of {@link ApiNode} or its subclass
+   */
+  private static final class RequestGetEntities<T extends ApiNode> extends ApiRequest {
+    private final Class<T> cls;
+    /**
+     * The last API response.
+     */
+    private ApiNodeList<T> lastResponse = null;
+
+    /**
+     * Constructs a new {@link ApiRequest} to list the entities.
+     *
+     * @param context      the instance of {@link ApiContext}
+     * @param listEndPoint the endpoint listing the entities
+     * @param cls          the type of the entities
+     */
+    RequestGetEntities(ApiContext context, ApiEndPoint listEndPoint, Class<T> cls) {
+      super(context, listEndPoint);
+      this.cls = cls;
+    }
+
+    @Override
+    public ApiNodeList<T> getLastResponse() {
+      return lastResponse;
+    }
+
+    @Override
+    public ApiNodeList<T> execute() throws ApiException, InterruptedException {
+      return execute(null);
+    }
+
+    @Override
+    public ApiNodeList<T> execute(Map<String, Object> extraParams) throws ApiException, InterruptedException {
+      return handleResponse(executeInternal(extraParams));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public ApiFuture<ApiNodeList<T>> executeAsync() {
+      return (ApiFuture<ApiNodeList<T>>) super.executeAsync(null);
+    }
+
+    @Override
+    boolean allowsLazyList() {
+      return false;
+    }
+
+    @Override
+    protected ApiNodeList<T> handleResponse(String response) throws ApiException {
+      lastResponse = ApiNode.parseResponse(cls, response, getContext(), this);
+      return lastResponse;
+    }
+  }
+}
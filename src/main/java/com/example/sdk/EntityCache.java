@@ -0,0 +1,428 @@
+package com.example.sdk;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caches the parsed entities of an {@link ApiContext} by ID.
+ * <p>The entities are keyed by the API base of their context, their class and their ID. An entity
+ * expires a given time after it is written, and the cache holds at most a given number of them.
+ * The eviction is W-TinyLFU: a new entity enters a small LRU window, and when the window is full,
+ * its oldest entity is only admitted to the main cache if it has been looked up more often than
+ * the entity it would evict. The frequencies are estimated by a count-min sketch halved every
+ * ten times the capacity of lookups, so a scan of entities seen once does not flush the popular ones.
+ * The main cache is a segmented LRU: the entities looked up again move to its protected part.</p>
+ * <p>The entities are spread over segments, each with its own lock, so the lookups of different
+ * entities seldom contend. A successful PUT or DELETE of an endpoint ending with the ID of an
+ * entity, e.g. {@link ApiEndPoints#UPDATE_ENTITY}, invalidates the cached entity of that ID.
+ * The cached entities are shared: they must not be modified.</p>
+ *
+ * @author Feng Zheng
+ * @version 1.0
+ * @since 1.0
+ */
+public class EntityCache {
+  /**
+   * The minimum number of entities per segment.
+   */
+  private static final int MIN_SEGMENT_CAPACITY = 64;
+  /**
+   * The maximum number of segments.
+   */
+  private static final int MAX_SEGMENTS = 16;
+
+  private final int maxEntries;
+  private final long ttlMs;
+  private final Segment[] segments;
+  /**
+   * The classes of the cached entities, to invalidate an ID whatever its class.
+   */
+  private final Set<Class<?>> classes = Collections.newSetFromMap(new ConcurrentHashMap<Class<?>, Boolean>());
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  private final AtomicLong evictions = new AtomicLong();
+  private final AtomicLong expirations = new AtomicLong();
+
+  /**
+   * Constructs a new entity cache with the defaults of {@link ApiConfig}.
+   */
+  public EntityCache() {
+    this(ApiConfig.DEFAULT_ENTITY_CACHE_MAX_ENTRIES, ApiConfig.DEFAULT_ENTITY_CACHE_TTL_MS);
+  }
+
+  /**
+   * Constructs a new entity cache.
+   *
+   * @param maxEntries the maximum number of entities
+   * @param ttlMs      the time an entity is fresh after it is written (in milliseconds)
+   */
+  public EntityCache(int maxEntries, long ttlMs) {
+    if (maxEntries < 1 || ttlMs < 1) {
+      throw new IllegalArgumentException("Invalid entity cache settings");
+    }
+    this.maxEntries = maxEntries;
+    this.ttlMs = ttlMs;
+    int count = 1;
+    while (count < MAX_SEGMENTS && maxEntries / (count * 2) >= MIN_SEGMENT_CAPACITY) {
+      count *= 2;
+    }
+    segments = new Segment[count];
+    for (int i = 0; i < count; ++i) {
+      segments[i] = new Segment((maxEntries + count - 1) / count);
+    }
+  }
+
+  /**
+   * Gets the maximum number of entities.
+   *
+   * @return the maximum number of entities
+   */
+  public int getMaxEntries() {
+    return maxEntries;
+  }
+
+  /**
+   * Gets the default time an entity is fresh after it is written.
+   *
+   * @return the time to live (in milliseconds)
+   */
+  public long getTtlMs() {
+    return ttlMs;
+  }
+
+  /**
+   * Gets the number of cached entities, expired or not.
+   *
+   * @return the number of entities
+   */
+  public int getSize() {
+    int size = 0;
+    for (Segment segment : segments) {
+      size += segment.size();
+    }
+    return size;
+  }
+
+  /**
+   * Gets the number of lookups answered by the cache.
+   *
+   * @return the number of hits
+   */
+  public long getHits() {
+    return hits.get();
+  }
+
+  /**
+   * Gets the number of lookups not answered by the cache.
+   *
+   * @return the number of misses
+   */
+  public long getMisses() {
+    return misses.get();
+  }
+
+  /**
+   * Gets the fraction of the lookups answered by the cache.
+   *
+   * @return the hit rate, or 0 if there was no lookup
+   */
+  public double getHitRate() {
+    long hitCount = hits.get();
+    long total = hitCount + misses.get();
+    return (total == 0) ? 0 : hitCount / (double) total;
+  }
+
+  /**
+   * Gets the number of entities evicted, or not admitted, for lack of room.
+   *
+   * @return the number of evictions
+   */
+  public long getEvictions() {
+    return evictions.get();
+  }
+
+  /**
+   * Gets the number of entities removed after their time to live.
+   *
+   * @return the number of expirations
+   */
+  public long getExpirations() {
+    return expirations.get();
+  }
+
+  /**
+   * Looks up a fresh entity.
+   *
+   * @param <T>     the type of {@link ApiNode} or its subclass
+   * @param context the API context of the entity
+   * @param cls     the class of the entity
+   * @param id      the ID of the entity
+   * @return the entity, or null if it is not cached or has expired
+   */
+  public <T extends ApiNode> T get(ApiContext context, Class<T> cls, String id) {
+    String key = key(context, cls, id);
+    ApiNode node = segment(key).get(key);
+    if (node == null) {
+      misses.incrementAndGet();
+      return null;
+    }
+    hits.incrementAndGet();
+    return cls.cast(node);
+  }
+
+  /**
+   * Caches an entity for the default time to live.
+   *
+   * @param context the API context of the entity
+   * @param node    the entity
+   */
+  public void put(ApiContext context, ApiNode node) {
+    put(context, node, ttlMs);
+  }
+
+  /**
+   * Caches an entity.
+   *
+   * @param context the API context of the entity
+   * @param node    the entity
+   * @param ttlMs   the time the entity is fresh (in milliseconds)
+   */
+  public void put(ApiContext context, ApiNode node, long ttlMs) {
+    if (node.getId() == null || ttlMs < 1) {
+      return;
+    }
+    classes.add(node.getClass());
+    String key = key(context, node.getClass(), node.getId());
+    segment(key).put(key, node, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(ttlMs));
+  }
+
+  /**
+   * Removes the cached entity of an ID, whatever its class.
+   *
+   * @param context the API context of the entity
+   * @param id      the ID of the entity
+   */
+  public void invalidate(ApiContext context, String id) {
+    for (Class<?> cls : classes) {
+      String key = key(context, cls, id);
+      segment(key).remove(key);
+    }
+  }
+
+  /**
+   * Removes all the cached entities.
+   */
+  public void invalidateAll() {
+    for (Segment segment : segments) {
+      segment.clear();
+    }
+  }
+
+  private Segment segment(String key) {
+    int hash = key.hashCode();
+    return segments[(hash ^ (hash >>> 16)) & (segments.length - 1)];
+  }
+
+  private static String key(ApiContext context, Class<?> cls, String id) {
+    return context.getApiBase() + '\u0000' + cls.getName() + '\u0000' + id;
+  }
+
+  /**
+   * The cached entities of a segment, under a lock of their own.
+   */
+  private final class Segment {
+    private final int windowCapacity;
+    private final int protectedCapacity;
+    private final int mainCapacity;
+    private final FrequencySketch sketch;
+    /**
+     * The queues of the entries in access order, guarded by this.
+     */
+    private final LinkedHashMap<String, Entry> window = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<String, Entry> probation = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<String, Entry> protectedQueue = new LinkedHashMap<>(16, 0.75f, true);
+
+    Segment(int capacity) {
+      windowCapacity = Math.max(1, capacity / 100);
+      mainCapacity = Math.max(1, capacity - windowCapacity);
+      protectedCapacity = Math.max(1, mainCapacity * 4 / 5);
+      sketch = new FrequencySketch(capacity);
+    }
+
+    synchronized int size() {
+      return window.size() + probation.size() + protectedQueue.size();
+    }
+
+    synchronized ApiNode get(String key) {
+      sketch.increment(key);
+      Entry entry = window.get(key);
+      if (entry == null) {
+        entry = protectedQueue.get(key);
+      }
+      if (entry == null) {
+        entry = probation.remove(key);
+        if (entry != null) {
+          // looked up again on probation, so it is promoted
+          protectedQueue.put(key, entry);
+          demote();
+        }
+      }
+      if (entry == null) {
+        return null;
+      }
+      if (entry.expiresAtNanos - System.nanoTime() <= 0) {
+        remove(key);
+        expirations.incrementAndGet();
+        return null;
+      }
+      return entry.node;
+    }
+
+    synchronized void put(String key, ApiNode node, long expiresAtNanos) {
+      sketch.increment(key);
+      Entry entry = new Entry(node, expiresAtNanos);
+      if (protectedQueue.containsKey(key)) {
+        protectedQueue.put(key, entry);
+      } else if (probation.containsKey(key)) {
+        probation.put(key, entry);
+      } else {
+        window.put(key, entry);
+        if (window.size() > windowCapacity) {
+          admit();
+        }
+      }
+    }
+
+    synchronized void remove(String key) {
+      if (window.remove(key) == null && probation.remove(key) == null) {
+        protectedQueue.remove(key);
+      }
+    }
+
+    synchronized void clear() {
+      window.clear();
+      probation.clear();
+      protectedQueue.clear();
+    }
+
+    /**
+     * Moves the oldest entry of the window to the main cache, if it is more popular than the one it evicts.
+     */
+    private void admit() {
+      Map.Entry<String, Entry> candidate = removeEldest(window);
+      if (probation.size() + protectedQueue.size() < mainCapacity) {
+        probation.put(candidate.getKey(), candidate.getValue());
+        return;
+      }
+      Iterator<Map.Entry<String, Entry>> victims = probation.entrySet().iterator();
+      if (!victims.hasNext()) {
+        victims = protectedQueue.entrySet().iterator();
+      }
+      Map.Entry<String, Entry> victim = victims.next();
+      if (sketch.frequency(candidate.getKey()) > sketch.frequency(victim.getKey())) {
+        victims.remove();
+        probation.put(candidate.getKey(), candidate.getValue());
+      }
+      evictions.incrementAndGet();
+    }
+
+    /**
+     * Moves the oldest entries of the protected part back on probation while it is over capacity.
+     */
+    private void demote() {
+      while (protectedQueue.size() > protectedCapacity) {
+        Map.Entry<String, Entry> eldest = removeEldest(protectedQueue);
+        probation.put(eldest.getKey(), eldest.getValue());
+      }
+    }
+
+    private Map.Entry<String, Entry> removeEldest(LinkedHashMap<String, Entry> queue) {
+      Iterator<Map.Entry<String, Entry>> iterator = queue.entrySet().iterator();
+      Map.Entry<String, Entry> eldest = iterator.next();
+      iterator.remove();
+      return eldest;
+    }
+  }
+
+  /**
+   * A cached entity.
+   */
+  private static final class Entry {
+    private final ApiNode node;
+    private final long expiresAtNanos;
+
+    Entry(ApiNode node, long expiresAtNanos) {
+      this.node = node;
+      this.expiresAtNanos = expiresAtNanos;
+    }
+  }
+
+  /**
+   * Estimates the recent lookup frequency of the keys, with 4 rows of saturating counters.
+   * The counters are halved every ten times the capacity of increments, so the old lookups fade.
+   */
+  private static final class FrequencySketch {
+    private static final int ROWS = 4;
+    private static final int MAX_COUNT = 15;
+    private static final int[] SEEDS = {0x97cb3127, 0xb0b4d50f, 0x5ac3d6e1, 0x8e3f5a27};
+
+    private final byte[][] counts;
+    private final int mask;
+    private final int sampleSize;
+    private int additions = 0;
+
+    FrequencySketch(int capacity) {
+      int width = 16;
+      while (width < capacity) {
+        width <<= 1;
+      }
+      counts = new byte[ROWS][width];
+      mask = width - 1;
+      sampleSize = 10 * Math.max(capacity, 16);
+    }
+
+    void increment(String key) {
+      int hash = key.hashCode();
+      boolean added = false;
+      for (int row = 0; row < ROWS; ++row) {
+        int index = index(hash, row);
+        if (counts[row][index] < MAX_COUNT) {
+          counts[row][index]++;
+          added = true;
+        }
+      }
+      if (added && ++additions >= sampleSize) {
+        reset();
+      }
+    }
+
+    int frequency(String key) {
+      int hash = key.hashCode();
+      int frequency = MAX_COUNT;
+      for (int row = 0; row < ROWS; ++row) {
+        frequency = Math.min(frequency, counts[row][index(hash, row)]);
+      }
+      return frequency;
+    }
+
+    private int index(int hash, int row) {
+      int h = (hash ^ SEEDS[row]) * 0x9e3779b9;
+      return (h ^ (h >>> 16)) & mask;
+    }
+
+    private void reset() {
+      for (byte[] row : counts) {
+        for (int i = 0; i < row.length; ++i) {
+          row[i] >>= 1;
+        }
+      }
+      additions /= 2;
+    }
+  }
+}
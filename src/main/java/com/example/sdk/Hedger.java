@@ -0,0 +1,135 @@
+package com.example.sdk;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The hedging state of an endpoint, following a {@link HedgingPolicy}.
+ * <p>The latencies are counted in a histogram of logarithmic buckets, {@link #BUCKETS_PER_DOUBLING}
+ * per doubling, so the percentile is accurate to about 9%. Every {@link HedgingPolicy#getMinimumSamples()}
+ * latencies, the hedge delay is computed again and the counts are halved, so the older latencies
+ * weigh less and less. The hedged requests are paid from a {@link RetryBudget} earning the maximum
+ * hedge ratio on every request.</p>
+ *
+ * @author Feng Zheng
+ * @version 1.0
+ * @since 1.0
+ */
+final class Hedger {
+  /**
+   * The number of histogram buckets per doubling of the latency.
+   */
+  private static final int BUCKETS_PER_DOUBLING = 8;
+  /**
+   * The number of histogram buckets, from a microsecond to about 70 minutes.
+   */
+  private static final int BUCKETS = 32 * BUCKETS_PER_DOUBLING;
+  /**
+   * The maximum number of hedged requests saved while the endpoint is fast.
+   */
+  private static final int MAX_SAVED_HEDGES = 10;
+
+  private final HedgingPolicy policy;
+  private final RetryBudget budget;
+  private final AtomicLong hedges = new AtomicLong();
+  /**
+   * The latency counts, guarded by this.
+   */
+  private final int[] counts = new int[BUCKETS];
+  /**
+   * The sum of the latency counts, guarded by this.
+   */
+  private long total = 0;
+  /**
+   * The number of latencies recorded since the hedge delay was computed, guarded by this.
+   */
+  private int fresh = 0;
+  /**
+   * The delay before a hedged request is sent (in nanoseconds), or -1 until enough latencies are recorded.
+   */
+  private volatile long delayNanos = -1;
+
+  /**
+   * Constructs a new hedger without latencies.
+   *
+   * @param policy the hedging policy
+   */
+  Hedger(HedgingPolicy policy) {
+    this.policy = policy;
+    this.budget = new RetryBudget(policy.getMaxHedgeRatio(), MAX_SAVED_HEDGES);
+  }
+
+  /**
+   * Gets the delay before a hedged request is sent.
+   *
+   * @return the hedge delay (in nanoseconds), or -1 until enough latencies are recorded
+   */
+  long getDelayNanos() {
+    return delayNanos;
+  }
+
+  /**
+   * Gets the number of hedged requests sent.
+   *
+   * @return the number of hedged requests
+   */
+  long getHedges() {
+    return hedges.get();
+  }
+
+  /**
+   * Records a request, earning a fraction of a hedged request.
+   */
+  void onRequest() {
+    budget.onRequest();
+  }
+
+  /**
+   * Takes a hedged request from the budget.
+   *
+   * @return whether the hedged request may be sent
+   */
+  boolean tryHedge() {
+    if (!budget.tryRetry()) {
+      return false;
+    }
+    hedges.incrementAndGet();
+    return true;
+  }
+
+  /**
+   * Records the latency of a request, or a lower bound of it if the request was cancelled.
+   *
+   * @param latencyNanos the latency (in nanoseconds)
+   */
+  synchronized void record(long latencyNanos) {
+    counts[bucket(latencyNanos)]++;
+    total++;
+    if (++fresh < policy.getMinimumSamples()) {
+      return;
+    }
+    fresh = 0;
+    long target = (long) Math.ceil(policy.getPercentile() * total);
+    long seen = 0;
+    int index = 0;
+    while (index < BUCKETS - 1 && (seen += counts[index]) < target) {
+      index++;
+    }
+    delayNanos = Math.max(TimeUnit.MILLISECONDS.toNanos(policy.getMinDelayMs()), upperBoundNanos(index));
+    total = 0;
+    for (int i = 0; i < BUCKETS; ++i) {
+      counts[i] >>= 1;
+      total += counts[i];
+    }
+  }
+
+  private static int bucket(long latencyNanos) {
+    double micros = Math.max(1, latencyNanos / 1000.0);
+    int index = (int) (Math.log(micros) / Math.log(2) * BUCKETS_PER_DOUBLING);
+    return Math.min(BUCKETS - 1, index);
+  }
+
+  private static long upperBoundNanos(int bucket) {
+    return (long) (1000 * Math.pow(2, (bucket + 1) / (double) BUCKETS_PER_DOUBLING));
+  }
+}
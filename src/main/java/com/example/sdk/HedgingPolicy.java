@@ -0,0 +1,83 @@
+package com.example.sdk;
+
+/**
+ * The settings of the hedged requests of the idempotent endpoints of an {@link ApiContext}.
+ * <p>Every GET endpoint, identified by its URI template, measures the latency of its requests.
+ * When a request has not been answered after the given percentile of that latency, an identical
+ * hedged request is sent, and the first response wins: the other request is cancelled and its
+ * connection closed or reset. The hedged requests are capped to a fraction of the requests of the
+ * endpoint, so a slow server gets at most that much more load. The latency percentile adapts as the
+ * server gets faster or slower, and no request is hedged until enough latencies are measured.</p>
+ *
+ * @author Feng Zheng
+ * @version 1.0
+ * @since 1.0
+ */
+public class HedgingPolicy {
+  /**
+   * The policy with the defaults of {@link ApiConfig}.
+   */
+  public static final HedgingPolicy DEFAULT = new HedgingPolicy(
+      ApiConfig.DEFAULT_HEDGE_PERCENTILE, ApiConfig.DEFAULT_HEDGE_MAX_RATIO,
+      ApiConfig.DEFAULT_HEDGE_MIN_DELAY_MS, ApiConfig.DEFAULT_HEDGE_MINIMUM_SAMPLES);
+
+  private final double percentile;
+  private final double maxHedgeRatio;
+  private final long minDelayMs;
+  private final int minimumSamples;
+
+  /**
+   * Constructs a new hedging policy.
+   *
+   * @param percentile     the percentile of the latency after which a hedged request is sent, e.g. 0.95
+   * @param maxHedgeRatio  the maximum number of hedged requests per request, e.g. 0.05
+   * @param minDelayMs     the shortest delay before a hedged request is sent (in milliseconds)
+   * @param minimumSamples the number of latencies measured before the requests are hedged
+   */
+  public HedgingPolicy(double percentile, double maxHedgeRatio, long minDelayMs, int minimumSamples) {
+    if (!(percentile > 0 && percentile < 1) || !(maxHedgeRatio > 0 && maxHedgeRatio <= 1)
+        || minDelayMs < 0 || minimumSamples < 1) {
+      throw new IllegalArgumentException("Invalid hedging policy");
+    }
+    this.percentile = percentile;
+    this.maxHedgeRatio = maxHedgeRatio;
+    this.minDelayMs = minDelayMs;
+    this.minimumSamples = minimumSamples;
+  }
+
+  /**
+   * Gets the percentile of the latency after which a hedged request is sent.
+   *
+   * @return the percentile
+   */
+  public double getPercentile() {
+    return percentile;
+  }
+
+  /**
+   * Gets the maximum number of hedged requests per request.
+   *
+   * @return the maximum hedge ratio
+   */
+  public double getMaxHedgeRatio() {
+    return maxHedgeRatio;
+  }
+
+  /**
+   * Gets the shortest delay before a hedged request is sent.
+   *
+   * @return the minimum delay (in milliseconds)
+   */
+  public long getMinDelayMs() {
+    return minDelayMs;
+  }
+
+  /**
+   * Gets the number of latencies measured before the requests are hedged.
+   *
+   * @return the minimum number of samples
+   */
+  public int getMinimumSamples() {
+    return minimumSamples;
+  }
+}
@@ -0,0 +1,426 @@
+package com.example.sdk;
+
+import com.example.sdk.transport.HttpTransport;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caches the GET responses of an {@link ApiContext}, keyed by their resolved URL.
+ * <p>A response is stored with its <code>ETag</code> and <code>Last-Modified</code> validators, and
+ * is fresh for the <code>max-age</code> of its <code>Cache-Control</code> header. A fresh response
+ * is served without a request. Once stale, the request carries <code>If-None-Match</code> and
+ * <code>If-Modified-Since</code>, and a <code>304 Not Modified</code> serves the stored response.
+ * The responses with <code>no-store</code> are never stored, the ones with <code>no-cache</code>
+ * are always revalidated.</p>
+ * <p>With a {@link RevalidationPolicy}, a response which expired within its staleness bound is
+ * still served, and a response served shortly before its expiry is kept fresh, while a single
+ * background request per URL revalidates it.</p>
+ * <p>The entities parsed from a stored response are kept with it, so serving it again does not
+ * parse it again: every request gets its own {@link ApiNodeList}, holding the same entities.
+ * The stored responses, and the entities parsed from them, take at most the given number of bytes
+ * by estimate, the least recently used ones being evicted first. The requests of an API context
+ * share its access token, so the cache does not vary by token.</p>
+ *
+ * @author Feng Zheng
+ * @version 1.0
+ * @since 1.0
+ */
+public class HttpCache {
+  /**
+   * The estimated size of an entry besides its URL and its body (in bytes).
+   */
+  private static final int ENTRY_OVERHEAD = 128;
+  /**
+   * The estimated size of a parsed entity besides the values it copied out of the body (in bytes).
+   */
+  private static final int ENTITY_OVERHEAD = 96;
+
+  private final long maxBytes;
+  /**
+   * The entries by URL in access order, guarded by this.
+   */
+  private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+  /**
+   * The entries by identity of their body, guarded by this.
+   */
+  private final Map<String, Entry> bodies = new IdentityHashMap<>();
+  /**
+   * The estimated size of the entries (in bytes), guarded by this.
+   */
+  private long size = 0;
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong revalidations = new AtomicLong();
+  private final AtomicLong staleHits = new AtomicLong();
+  private final AtomicLong refreshes = new AtomicLong();
+
+  /**
+   * Constructs a new HTTP cache of {@link ApiConfig#DEFAULT_HTTP_CACHE_MAX_BYTES}.
+   */
+  public HttpCache() {
+    this(ApiConfig.DEFAULT_HTTP_CACHE_MAX_BYTES);
+  }
+
+  /**
+   * Constructs a new HTTP cache.
+   *
+   * @param maxBytes the maximum estimated size of the stored responses (in bytes)
+   */
+  public HttpCache(long maxBytes) {
+    if (maxBytes < 1) {
+      throw new IllegalArgumentException("Invalid HTTP cache size");
+    }
+    this.maxBytes = maxBytes;
+  }
+
+  /**
+   * Gets the maximum estimated size of the stored responses.
+   *
+   * @return the maximum size (in bytes)
+   */
+  public long getMaxBytes() {
+    return maxBytes;
+  }
+
+  /**
+   * Gets the estimated size of the stored responses.
+   *
+   * @return the size (in bytes)
+   */
+  public synchronized long getSize() {
+    return size;
+  }
+
+  /**
+   * Gets the number of stored responses.
+   *
+   * @return the number of entries
+   */
+  public synchronized int getEntries() {
+    return entries.size();
+  }
+
+  /**
+   * Gets the number of fresh responses served without a request.
+   *
+   * @return the number of hits
+   */
+  public long getHits() {
+    return hits.get();
+  }
+
+  /**
+   * Gets the number of stored responses served on a <code>304 Not Modified</code>.
+   *
+   * @return the number of revalidations
+   */
+  public long getRevalidations() {
+    return revalidations.get();
+  }
+
+  /**
+   * Gets the number of expired responses served without a request, while they were refreshed.
+   *
+   * @return the number of stale hits
+   */
+  public long getStaleHits() {
+    return staleHits.get();
+  }
+
+  /**
+   * Gets the number of background requests refreshing the stored responses.
+   *
+   * @return the number of refreshes
+   */
+  public long getRefreshes() {
+    return refreshes.get();
+  }
+
+  /**
+   * Removes all the stored responses.
+   */
+  public synchronized void clear() {
+    entries.clear();
+    bodies.clear();
+    size = 0;
+  }
+
+  /**
+   * Gets the stored response of the URL, if it is still fresh,
+   * or if it expired within the staleness bound of the revalidation policy.
+   *
+   * @param url    the resolved URL
+   * @param policy the revalidation policy, or null to only serve a fresh response
+   * @return the response, or null if it must be requested
+   */
+  synchronized String get(String url, RevalidationPolicy policy) {
+    Entry entry = entries.get(url);
+    if (entry == null) {
+      return null;
+    }
+    long age = System.nanoTime() - entry.expiresAtNanos;
+    if (age < 0) {
+      hits.incrementAndGet();
+      return entry.body;
+    }
+    if (policy == null || entry.noCache || age >= TimeUnit.MILLISECONDS.toNanos(policy.getStaleMs())) {
+      return null;
+    }
+    staleHits.incrementAndGet();
+    return entry.body;
+  }
+
+  /**
+   * Starts refreshing the stored response of the URL, if it expires within the refresh-ahead
+   * window of the revalidation policy and no other refresh of it is in progress.
+   * A started refresh must be ended with {@link #endRefresh(String)}.
+   *
+   * @param url    the resolved URL
+   * @param policy the revalidation policy
+   * @return whether the caller must refresh the response
+   */
+  synchronized boolean startRefresh(String url, RevalidationPolicy policy) {
+    Entry entry = entries.get(url);
+    if (entry == null || entry.refreshing || entry.expiresAtNanos - System.nanoTime()
+        > TimeUnit.MILLISECONDS.toNanos(policy.getRefreshAheadMs())) {
+      return false;
+    }
+    entry.refreshing = true;
+    refreshes.incrementAndGet();
+    return true;
+  }
+
+  /**
+   * Ends the refresh of the stored response of the URL, whether it succeeded or not.
+   *
+   * @param url the resolved URL
+   */
+  synchronized void endRefresh(String url) {
+    Entry entry = entries.get(url);
+    if (entry != null) {
+      entry.refreshing = false;
+    }
+  }
+
+  /**
+   * Adds the conditional headers validating the stored response of the URL, if any.
+   *
+   * @param url     the resolved URL
+   * @param headers the request headers
+   */
+  synchronized void addValidators(String url, Map<String, String> headers) {
+    Entry entry = entries.get(url);
+    if (entry == null) {
+      return;
+    }
+    if (entry.etag != null) {
+      headers.put("If-None-Match", entry.etag);
+    }
+    if (entry.lastModified != null) {
+      headers.put("If-Modified-Since", entry.lastModified);
+    }
+  }
+
+  /**
+   * Serves the stored response of the URL on a <code>304 Not Modified</code>,
+   * fresh again for the <code>max-age</code> of the new response.
+   *
+   * @param url      the resolved URL
+   * @param response the <code>304</code> response
+   * @return the stored response, or null if it has been evicted since the request
+   */
+  synchronized String revalidate(String url, HttpTransport.Response response) {
+    Entry entry = entries.get(url);
+    if (entry == null) {
+      return null;
+    }
+    revalidations.incrementAndGet();
+    List<String> directives = directives(response);
+    long maxAgeSeconds = maxAgeSeconds(directives);
+    if (maxAgeSeconds < 0) {
+      remove(url);
+    } else {
+      entry.expiresAtNanos = System.nanoTime() + TimeUnit.SECONDS.toNanos(maxAgeSeconds);
+      entry.noCache = directives.contains("no-cache");
+    }
+    return entry.body;
+  }
+
+  /**
+   * Stores the successful response of the URL, unless it cannot be reused.
+   *
+   * @param url      the resolved URL
+   * @param response the response
+   * @param body     the response body, which the stored response will be
+   */
+  synchronized void store(String url, HttpTransport.Response response, String body) {
+    remove(url);
+    List<String> directives = directives(response);
+    long maxAgeSeconds = maxAgeSeconds(directives);
+    String etag = response.getHeader("ETag");
+    String lastModified = response.getHeader("Last-Modified");
+    if (maxAgeSeconds < 0 || (maxAgeSeconds == 0 && etag == null && lastModified == null)) {
+      return;
+    }
+    long entrySize = 2L * (url.length() + body.length()) + ENTRY_OVERHEAD;
+    if (entrySize > maxBytes) {
+      return;
+    }
+    Entry entry = new Entry(body, etag, lastModified,
+        System.nanoTime() + TimeUnit.SECONDS.toNanos(maxAgeSeconds), entrySize);
+    entry.noCache = directives.contains("no-cache");
+    entries.put(url, entry);
+    bodies.put(body, entry);
+    size += entrySize;
+    evict();
+  }
+
+  private void evict() {
+    Iterator<Map.Entry<String, Entry>> eldest = entries.entrySet().iterator();
+    while (size > maxBytes) {
+      Entry evicted = eldest.next().getValue();
+      eldest.remove();
+      bodies.remove(evicted.body);
+      size -= evicted.size;
+    }
+  }
+
+  /**
+   * Gets the entities parsed from a stored response, for a new request.
+   *
+   * @param <T>          the type of {@link ApiNode} or its subclass
+   * @param cls          the class of the entities
+   * @param secondaryKey the secondary data key the response was parsed with
+   * @param body         the response body
+   * @param request      the new request
+   * @return the list of the parsed entities, or null if the response was not parsed yet
+   */
+  @SuppressWarnings("unchecked")
+  synchronized <T extends ApiNode> ApiNodeList<T> getParsed(Class<T> cls, String secondaryKey,
+                                                            String body, ApiRequest request) {
+    Entry entry = bodies.get(body);
+    if (entry == null || entry.parsed == null || entry.parsedClass != cls
+        || !equals(entry.parsedSecondaryKey, secondaryKey)) {
+      return null;
+    }
+    return ((ApiNodeList<T>) entry.parsed).reuse(request);
+  }
+
+  /**
+   * Keeps the entities parsed from a stored response with it, unless they would not fit in the cache.
+   * The entities are counted as the values they copied out of the body, at most the body itself,
+   * and an overhead per entity. The list kept is a copy detached from the request it was parsed for.
+   *
+   * @param cls          the class of the entities
+   * @param secondaryKey the secondary data key the response was parsed with
+   * @param body         the response body
+   * @param parsed       the list of the parsed entities
+   */
+  synchronized void putParsed(Class<? extends ApiNode> cls, String secondaryKey, String body, ApiNodeList<?> parsed) {
+    Entry entry = bodies.get(body);
+    if (entry == null) {
+      return;
+    }
+    long parsedSize = 2L * body.length() + (long) ENTITY_OVERHEAD * parsed.size();
+    if (entry.size - entry.parsedSize + parsedSize > maxBytes) {
+      return;
+    }
+    entry.parsedClass = cls;
+    entry.parsedSecondaryKey = secondaryKey;
+    entry.parsed = parsed.reuse(null);
+    entry.size += parsedSize - entry.parsedSize;
+    size += parsedSize - entry.parsedSize;
+    entry.parsedSize = parsedSize;
+    evict();
+  }
+
+  private void remove(String url) {
+    Entry removed = entries.remove(url);
+    if (removed != null) {
+      bodies.remove(removed.body);
+      size -= removed.size;
+    }
+  }
+
+  /**
+   * Gets the directives of the <code>Cache-Control</code> header of a response, in lower case.
+   *
+   * @param response the response
+   * @return the directives
+   */
+  private static List<String> directives(HttpTransport.Response response) {
+    List<String> values = response.getHeaders().get("Cache-Control");
+    if (values == null) {
+      return Collections.emptyList();
+    }
+    List<String> directives = new ArrayList<>();
+    for (String value : values) {
+      for (String directive : value.split(",")) {
+        directives.add(directive.trim().toLowerCase(Locale.ROOT));
+      }
+    }
+    return directives;
+  }
+
+  /**
+   * Gets the freshness lifetime of a response from its <code>Cache-Control</code> directives.
+   *
+   * @param directives the directives
+   * @return the lifetime (in seconds), 0 if it must be revalidated, or -1 if it must not be stored
+   */
+  private static long maxAgeSeconds(List<String> directives) {
+    long maxAgeSeconds = 0;
+    boolean noCache = false;
+    for (String directive : directives) {
+      if (directive.equals("no-store")) {
+        return -1;
+      } else if (directive.equals("no-cache")) {
+        noCache = true;
+      } else if (directive.startsWith("max-age=")) {
+        try {
+          maxAgeSeconds = Math.max(0, Long.parseLong(directive.substring("max-age=".length()).trim()));
+        } catch (NumberFormatException e) {
+          maxAgeSeconds = 0;
+        }
+      }
+    }
+    return noCache ? 0 : maxAgeSeconds;
+  }
+
+  private static boolean equals(String a, String b) {
+    return (a == null) ? b == null : a.equals(b);
+  }
+
+  /**
+   * A stored response.
+   */
+  private static final class Entry {
+    private final String body;
+    private final String etag;
+    private final String lastModified;
+    private long size;
+    private long expiresAtNanos;
+    private boolean noCache = false;
+    private boolean refreshing = false;
+    private Class<? extends ApiNode> parsedClass = null;
+    private String parsedSecondaryKey = null;
+    private ApiNodeList<?> parsed = null;
+    private long parsedSize = 0;
+
+    Entry(String body, String etag, String lastModified, long expiresAtNanos, long size) {
+      this.body = body;
+      this.etag = etag;
+      this.lastModified = lastModified;
+      this.expiresAtNanos = expiresAtNanos;
+      this.size = size;
+    }
+  }
+}
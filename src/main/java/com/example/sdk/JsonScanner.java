@@ -0,0 +1,262 @@
+package com.example.sdk;
+
+import com.google.gson.stream.JsonReader;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.Arrays;
+
+/**
+ * Finds the boundaries of the values of a JSON document without parsing them.
+ * <p>The scanner only tells where the values start and end: it skips the strings, counts the
+ * brackets and stops at the delimiters, so a value is walked at the cost of a loop over its
+ * characters, without a token or an object per value. The values are then bound from the
+ * document itself by a {@link JsonReader} of its {@link #reader(int, int) slices}, and keep their
+ * exact text as raw value. The scanner only accepts strict JSON: anything else, e.g. an unquoted
+ * name, fails with an {@link IllegalArgumentException}.</p>
+ *
+ * @author Feng Zheng
+ * @version 1.0
+ * @since 1.0
+ */
+final class JsonScanner {
+  private final String json;
+  /**
+   * The position after the object or the array last walked.
+   */
+  private int end = -1;
+
+  /**
+   * Constructs a new scanner of a JSON document.
+   *
+   * @param json the JSON document
+   */
+  JsonScanner(String json) {
+    this.json = json;
+  }
+
+  /**
+   * Skips the whitespace from a position.
+   *
+   * @param pos the position
+   * @return the position of the next character which is not whitespace, or the length of the document
+   */
+  int skipWhitespace(int pos) {
+    while (pos < json.length()) {
+      char c = json.charAt(pos);
+      if (c != ' ' && c != '\n' && c != '\r' && c != '\t') {
+        break;
+      }
+      ++pos;
+    }
+    return pos;
+  }
+
+  /**
+   * Skips a value.
+   *
+   * @param start the position of the first character of the value
+   * @return the position after its last character
+   */
+  int skipValue(int start) {
+    char c = charAt(start);
+    if (c == '"') {
+      return skipString(start);
+    }
+    if (c != '{' && c != '[') {
+      int pos = start;
+      while (pos < json.length() && !isDelimiter(json.charAt(pos))) {
+        ++pos;
+      }
+      if (pos == start) {
+        throw new IllegalArgumentException("Expected a value at " + start);
+      }
+      return pos;
+    }
+    int depth = 0;
+    int pos = start;
+    while (true) {
+      c = charAt(pos);
+      if (c == '"') {
+        pos = skipString(pos);
+        continue;
+      }
+      if (c == '{' || c == '[') {
+        ++depth;
+      } else if (c == '}' || c == ']') {
+        if (--depth == 0) {
+          return pos + 1;
+        }
+      }
+      ++pos;
+    }
+  }
+
+  /**
+   * Finds the values of members of an object, in a single walk of the object.
+   * The last member of a name wins, as in a parsed object.
+   *
+   * @param start the position of the opening brace of the object
+   * @param names the names of the members
+   * @return the position of the value of every member, or -1 if the object has no such member
+   */
+  int[] members(int start, String... names) {
+    expect(start, '{');
+    int[] found = new int[names.length];
+    Arrays.fill(found, -1);
+    int pos = skipWhitespace(start + 1);
+    if (charAt(pos) == '}') {
+      end = pos + 1;
+      return found;
+    }
+    while (true) {
+      int nameEnd = skipString(expect(pos, '"'));
+      int value = skipWhitespace(expect(skipWhitespace(nameEnd), ':') + 1);
+      for (int i = 0; i < names.length; ++i) {
+        if (names[i] != null && nameEquals(pos, nameEnd, names[i])) {
+          found[i] = value;
+        }
+      }
+      pos = skipWhitespace(skipValue(value));
+      if (charAt(pos) == '}') {
+        end = pos + 1;
+        return found;
+      }
+      pos = skipWhitespace(expect(pos, ',') + 1);
+    }
+  }
+
+  /**
+   * Finds the elements of an array.
+   *
+   * @param start the position of the opening bracket of the array
+   * @return the start and end positions of every element, in pairs
+   */
+  int[] elements(int start) {
+    expect(start, '[');
+    int[] bounds = new int[16];
+    int count = 0;
+    int pos = skipWhitespace(start + 1);
+    if (charAt(pos) == ']') {
+      end = pos + 1;
+      return new int[0];
+    }
+    while (true) {
+      int elementEnd = skipValue(pos);
+      if (count + 2 > bounds.length) {
+        bounds = Arrays.copyOf(bounds, bounds.length * 2);
+      }
+      bounds[count++] = pos;
+      bounds[count++] = elementEnd;
+      pos = skipWhitespace(elementEnd);
+      if (charAt(pos) == ']') {
+        end = pos + 1;
+        return Arrays.copyOf(bounds, count);
+      }
+      pos = skipWhitespace(expect(pos, ',') + 1);
+    }
+  }
+
+  /**
+   * Gets the end of the object or the array last walked by {@link #members(int, String...)}
+   * or {@link #elements(int)}.
+   *
+   * @return the position after its last character
+   */
+  int end() {
+    return end;
+  }
+
+  /**
+   * Gets a character of the document.
+   *
+   * @param pos the position
+   * @return the character
+   */
+  char charAt(int pos) {
+    if (pos >= json.length()) {
+      throw new IllegalArgumentException("Unexpected end of the JSON document");
+    }
+    return json.charAt(pos);
+  }
+
+  /**
+   * Gets a reader of a slice of the document, without copying it.
+   *
+   * @param start the start position of the slice
+   * @param end   the end position of the slice
+   * @return the reader
+   */
+  Reader reader(int start, int end) {
+    return reader(json, start, end);
+  }
+
+  /**
+   * Gets a reader of a slice of a string, without copying it.
+   *
+   * @param json  the string
+   * @param start the start position of the slice
+   * @param end   the end position of the slice
+   * @return the reader
+   */
+  static Reader reader(final String json, final int start, final int end) {
+    return new Reader() {
+      private int pos = start;
+
+      @Override
+      public int read(char[] buffer, int offset, int length) {
+        if (pos >= end) {
+          return -1;
+        }
+        int count = Math.min(length, end - pos);
+        json.getChars(pos, pos + count, buffer, offset);
+        pos += count;
+        return count;
+      }
+
+      @Override
+      public void close() {
+      }
+    };
+  }
+
+  private int skipString(int start) {
+    int pos = start + 1;
+    while (true) {
+      char c = charAt(pos);
+      if (c == '"') {
+        return pos + 1;
+      }
+      pos += (c == '\\') ? 2 : 1;
+    }
+  }
+
+  private boolean nameEquals(int start, int end, String name) {
+    for (int pos = start + 1; pos < end - 1; ++pos) {
+      if (json.charAt(pos) == '\\') {
+        // an escaped name is decoded, which is rare enough not to matter
+        JsonReader reader = new JsonReader(new StringReader(json.substring(start, end)));
+        reader.setLenient(true);
+        try {
+          return name.equals(reader.nextString());
+        } catch (IOException e) {
+          throw new IllegalArgumentException(e);
+        }
+      }
+    }
+    int length = end - start - 2;
+    return length == name.length() && json.regionMatches(start + 1, name, 0, length);
+  }
+
+  private int expect(int pos, char c) {
+    if (charAt(pos) != c) {
+      throw new IllegalArgumentException("Expected '" + c + "' at " + pos);
+    }
+    return pos;
+  }
+
+  private static boolean isDelimiter(char c) {
+    return c == ',' || c == '}' || c == ']' || c == ' ' || c == '\n' || c == '\r' || c == '\t';
+  }
+}
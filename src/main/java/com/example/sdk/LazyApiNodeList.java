@@ -0,0 +1,427 @@
+package com.example.sdk;
+
+import com.example.sdk.ApiException.MalformedResponseException;
+import com.example.sdk.types.RawResponseRetention;
+import com.google.gson.TypeAdapter;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+/**
+ * The {@link ApiNodeList} whose entities are bound on demand.
+ * <p>The response is only scanned for the boundaries of the elements of its data array when it is parsed.
+ * An entity is bound from its slice of the response the first time it is read, by {@link #get(int)} or
+ * an iteration, and then kept in the list. The size, the pagination and the next pages are known without
+ * binding any entity, and {@link #head()} and {@link #tail()} only bind the entity they return.</p>
+ * <p>The other operations reading all the entities, e.g. {@link #toArray()} or {@link #indexOf(Object)},
+ * and the operations moving them bind them all first. So do the bulk operations added to lists by Java 8,
+ * such as {@code forEach}, {@code stream} or {@code removeIf}, which read the elements of an
+ * {@link java.util.ArrayList} without {@link #get(int)}. They are only called on a Java 8 runtime.</p>
+ * <p>The list keeps the whole response until all its entities are bound, whatever the retention of
+ * the raw responses.</p>
+ *
+ * @param <T> the type of {@link ApiNode} or its subclass
+ * @author Feng Zheng
+ * @version 1.0
+ * @since 1.0
+ */
+public class LazyApiNodeList<T extends ApiNode> extends ApiNodeList<T> {
+  /**
+   * Serial version UID.
+   */
+  private static final long serialVersionUID = 1L;
+  /**
+   * The type adapter binding the entities.
+   */
+  private final transient TypeAdapter<T> adapter;
+  /**
+   * The API context of the entities.
+   */
+  private final transient ApiContext context;
+  /**
+   * The response the entities are bound from, or null once they are all bound.
+   */
+  private transient volatile String source = null;
+  /**
+   * The start and end positions of every entity in the response, in pairs.
+   * The start position of a bound entity is -1.
+   */
+  private transient int[] bounds = null;
+  /**
+   * The number of the entities not bound yet.
+   */
+  private transient int pending = 0;
+  /**
+   * The retention of the raw values of the entities bound later.
+   */
+  private transient RawResponseRetention retention = RawResponseRetention.FULL;
+
+  /**
+   * Constructs a new {@link LazyApiNodeList} with a {@link ApiRequest} and raw response JSON string.
+   *
+   * @param request  the request
+   * @param rawValue the raw value
+   * @param adapter  the type adapter binding the entities
+   * @param context  the API context of the entities
+   */
+  LazyApiNodeList(ApiRequest request, String rawValue, TypeAdapter<T> adapter, ApiContext context) {
+    super(request, rawValue);
+    this.adapter = adapter;
+    this.context = context;
+  }
+
+  /**
+   * Appends the entities of a response, to be bound on demand.
+   *
+   * @param json   the response JSON string
+   * @param bounds the start and end positions of every entity in the response, in pairs
+   */
+  synchronized void index(String json, int[] bounds) {
+    if (bounds.length == 0) {
+      return;
+    }
+    bindAll();
+    int[] shifted = new int[size() * 2 + bounds.length];
+    Arrays.fill(shifted, 0, size() * 2, -1);
+    System.arraycopy(bounds, 0, shifted, size() * 2, bounds.length);
+    for (int i = 0; i < bounds.length; i += 2) {
+      super.add(size(), null);
+    }
+    this.bounds = shifted;
+    this.pending = bounds.length / 2;
+    this.source = json;
+  }
+
+  /**
+   * Whether all the entities of the list are bound.
+   *
+   * @return the boolean
+   */
+  public boolean isBound() {
+    return source == null;
+  }
+
+  /**
+   * Binds all the entities of the list not bound yet.
+   */
+  public synchronized void bindAll() {
+    if (source == null) {
+      return;
+    }
+    int[] indexed = bounds;
+    for (int i = 0; i < indexed.length; i += 2) {
+      if (indexed[i] >= 0) {
+        bind(i / 2);
+      }
+    }
+  }
+
+  /**
+   * Binds an entity from its slice of the response.
+   *
+   * @param index the index of the entity
+   */
+  private void bind(int index) {
+    int start = bounds[index * 2];
+    int end = bounds[index * 2 + 1];
+    T node;
+    try {
+      node = ApiNode.bindSlice(adapter, source, start, end, context);
+    } catch (IOException | RuntimeException e) {
+      throw new IllegalStateException("Unable to bind the entity at " + index, new MalformedResponseException(
+          "Invalid response string: " + source.substring(start, end), e));
+    }
+    if (retention != RawResponseRetention.FULL) {
+      node.retainRaw(retention);
+    }
+    super.set(index, node);
+    unindex(index);
+  }
+
+  /**
+   * Forgets the slice of an entity, once it is bound or replaced.
+   *
+   * @param index the index of the entity
+   */
+  private void unindex(int index) {
+    bounds[index * 2] = -1;
+    if (--pending == 0) {
+      bounds = null;
+      source = null;
+    }
+  }
+
+  @Override
+  ApiNodeList<T> reuse(ApiRequest request) {
+    LazyApiNodeList<T> nodes = new LazyApiNodeList<>(request, null, adapter, context);
+    synchronized (this) {
+      for (int i = 0; i < size(); ++i) {
+        nodes.add(super.get(i));
+      }
+      nodes.retention = retention;
+      if (source != null) {
+        nodes.bounds = bounds.clone();
+        nodes.pending = pending;
+        nodes.source = source;
+      }
+    }
+    return share(nodes);
+  }
+
+  @Override
+  synchronized void retainRaw(RawResponseRetention retention) {
+    this.retention = retention;
+    for (int i = 0; i < size(); ++i) {
+      T node = super.get(i);
+      if (node != null) {
+        node.retainRaw(retention);
+      }
+    }
+    retainOwnRaw(retention);
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>The entity is bound if it is not yet. The structure of the response was checked when it was
+   * parsed, but an entity whose values do not fit its fields only fails here, with an
+   * {@link IllegalStateException} caused by a {@link MalformedResponseException}, since a list cannot
+   * throw checked exceptions. The entity stays unbound.</p>
+   */
+  @Override
+  public T get(int index) {
+    if (source == null) {
+      return super.get(index);
+    }
+    synchronized (this) {
+      T node = super.get(index);
+      if (source != null && index * 2 < bounds.length && bounds[index * 2] >= 0) {
+        bind(index);
+        node = super.get(index);
+      }
+      return node;
+    }
+  }
+
+  @Override
+  public T set(int index, T element) {
+    synchronized (this) {
+      T previous = get(index);
+      super.set(index, element);
+      return previous;
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>The entities are bound one at a time, as the iteration reaches them.</p>
+   */
+  @Override
+  public Iterator<T> iterator() {
+    return new Iterator<T>() {
+      private int cursor = 0;
+      private int last = -1;
+
+      @Override
+      public boolean hasNext() {
+        return cursor < size();
+      }
+
+      @Override
+      public T next() {
+        if (cursor >= size()) {
+          throw new NoSuchElementException();
+        }
+        last = cursor;
+        return get(cursor++);
+      }
+
+      @Override
+      public void remove() {
+        if (last < 0) {
+          throw new IllegalStateException();
+        }
+        LazyApiNodeList.this.remove(last);
+        cursor = last;
+        last = -1;
+      }
+    };
+  }
+
+  @Override
+  public ListIterator<T> listIterator() {
+    bindAll();
+    return super.listIterator();
+  }
+
+  @Override
+  public ListIterator<T> listIterator(int index) {
+    bindAll();
+    return super.listIterator(index);
+  }
+
+  @Override
+  public List<T> subList(int fromIndex, int toIndex) {
+    bindAll();
+    return super.subList(fromIndex, toIndex);
+  }
+
+  @Override
+  public Object[] toArray() {
+    bindAll();
+    return super.toArray();
+  }
+
+  @Override
+  public <E> E[] toArray(E[] a) {
+    bindAll();
+    return super.toArray(a);
+  }
+
+  @Override
+  public int indexOf(Object o) {
+    bindAll();
+    return super.indexOf(o);
+  }
+
+  @Override
+  public int lastIndexOf(Object o) {
+    bindAll();
+    return super.lastIndexOf(o);
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>The entities are only bound first if the element is not appended.</p>
+   */
+  @Override
+  public void add(int index, T element) {
+    synchronized (this) {
+      if (index != size()) {
+        bindAll();
+      }
+      super.add(index, element);
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>The entities are only bound first if the elements are not appended.</p>
+   */
+  @Override
+  public boolean addAll(int index, Collection<? extends T> c) {
+    synchronized (this) {
+      if (index != size()) {
+        bindAll();
+      }
+      return super.addAll(index, c);
+    }
+  }
+
+  @Override
+  public T remove(int index) {
+    synchronized (this) {
+      bindAll();
+      return super.remove(index);
+    }
+  }
+
+  @Override
+  public boolean remove(Object o) {
+    bindAll();
+    return super.remove(o);
+  }
+
+  @Override
+  public boolean removeAll(Collection<?> c) {
+    bindAll();
+    return super.removeAll(c);
+  }
+
+  @Override
+  public boolean retainAll(Collection<?> c) {
+    bindAll();
+    return super.retainAll(c);
+  }
+
+  @Override
+  protected void removeRange(int fromIndex, int toIndex) {
+    bindAll();
+    super.removeRange(fromIndex, toIndex);
+  }
+
+  @Override
+  public void forEach(Consumer<? super T> action) {
+    bindAll();
+    super.forEach(action);
+  }
+
+  @Override
+  public Spliterator<T> spliterator() {
+    bindAll();
+    return super.spliterator();
+  }
+
+  @Override
+  public boolean removeIf(Predicate<? super T> filter) {
+    bindAll();
+    return super.removeIf(filter);
+  }
+
+  @Override
+  public void replaceAll(UnaryOperator<T> operator) {
+    bindAll();
+    super.replaceAll(operator);
+  }
+
+  @Override
+  public void sort(Comparator<? super T> c) {
+    bindAll();
+    super.sort(c);
+  }
+
+  @Override
+  public synchronized void clear() {
+    source = null;
+    bounds = null;
+    pending = 0;
+    super.clear();
+  }
+
+  @Override
+  public Object clone() {
+    bindAll();
+    return super.clone();
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    bindAll();
+    return super.equals(o);
+  }
+
+  @Override
+  public int hashCode() {
+    bindAll();
+    return super.hashCode();
+  }
+
+  /**
+   * Binds all the entities before the list is serialized.
+   *
+   * @return the list itself
+   */
+  private Object writeReplace() {
+    bindAll();
+    return this;
+  }
+}
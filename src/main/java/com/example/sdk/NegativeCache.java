@@ -0,0 +1,308 @@
+package com.example.sdk;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Remembers the entities of an {@link ApiContext} known not to exist, so looking them up again
+ * fails with {@link ApiException.EntityNotFoundException} without a request.
+ * <p>An ID answered with a <code>404 Not Found</code> by a GET of an endpoint ending with the ID,
+ * e.g. {@link ApiEndPoints#GET_ENTITY_BY_ID}, or successfully deleted, is known absent for a short
+ * time. The cache holds at most a given number of IDs, the oldest ones being evicted first.</p>
+ * <p>Optionally, a Bloom filter holds the IDs of all the entities seen in a response, e.g. the
+ * listings of {@link ApiEndPoints#GET_ENTITIES}, and the ones created, e.g. by
+ * {@link ApiEndPoints#CREATE_ENTITY}. An ID the filter has never seen is known absent for good.
+ * The filter may only be used when the entities seen are all the entities of the API, e.g. once
+ * they have all been listed, and when none is created elsewhere. The IDs are assumed unique across
+ * the entity types of the API.</p>
+ *
+ * @author Feng Zheng
+ * @version 1.0
+ * @since 1.0
+ */
+public class NegativeCache {
+  private final int maxEntries;
+  private final long ttlMs;
+  /**
+   * The filter of the IDs seen, or null if only the 404 responses are remembered.
+   */
+  private final BloomFilter filter;
+  /**
+   * The expiry of the absent IDs in insertion order, guarded by this.
+   */
+  private final LinkedHashMap<String, Long> absent = new LinkedHashMap<>();
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong filterHits = new AtomicLong();
+
+  /**
+   * Constructs a new negative cache with the defaults of {@link ApiConfig}, without a Bloom filter.
+   */
+  public NegativeCache() {
+    this(ApiConfig.DEFAULT_NEGATIVE_CACHE_MAX_ENTRIES, ApiConfig.DEFAULT_NEGATIVE_CACHE_TTL_MS);
+  }
+
+  /**
+   * Constructs a new negative cache without a Bloom filter.
+   *
+   * @param maxEntries the maximum number of absent IDs
+   * @param ttlMs      the time an ID is known absent (in milliseconds)
+   */
+  public NegativeCache(int maxEntries, long ttlMs) {
+    this(maxEntries, ttlMs, null);
+  }
+
+  /**
+   * Constructs a new negative cache with a Bloom filter of the IDs seen.
+   *
+   * @param maxEntries        the maximum number of absent IDs
+   * @param ttlMs             the time an ID is known absent (in milliseconds)
+   * @param expectedIds       the expected number of entities
+   * @param falsePositiveRate the fraction of the absent IDs the filter lets through at the expected number
+   */
+  public NegativeCache(int maxEntries, long ttlMs, int expectedIds, double falsePositiveRate) {
+    this(maxEntries, ttlMs, new BloomFilter(expectedIds, falsePositiveRate));
+  }
+
+  private NegativeCache(int maxEntries, long ttlMs, BloomFilter filter) {
+    if (maxEntries < 1 || ttlMs < 1) {
+      throw new IllegalArgumentException("Invalid negative cache settings");
+    }
+    this.maxEntries = maxEntries;
+    this.ttlMs = ttlMs;
+    this.filter = filter;
+  }
+
+  /**
+   * Gets the maximum number of absent IDs.
+   *
+   * @return the maximum number of IDs
+   */
+  public int getMaxEntries() {
+    return maxEntries;
+  }
+
+  /**
+   * Gets the time an ID answered with a 404 is known absent.
+   *
+   * @return the time to live (in milliseconds)
+   */
+  public long getTtlMs() {
+    return ttlMs;
+  }
+
+  /**
+   * Checks whether the cache has a Bloom filter of the IDs seen.
+   *
+   * @return whether the IDs never seen are known absent
+   */
+  public boolean hasFilter() {
+    return filter != null;
+  }
+
+  /**
+   * Gets the number of absent IDs, expired or not.
+   *
+   * @return the number of IDs
+   */
+  public synchronized int getSize() {
+    return absent.size();
+  }
+
+  /**
+   * Gets the number of lookups known absent without a request.
+   *
+   * @return the number of hits
+   */
+  public long getHits() {
+    return hits.get();
+  }
+
+  /**
+   * Gets the number of lookups known absent because the Bloom filter has never seen their ID.
+   *
+   * @return the number of filter hits, part of the hits
+   */
+  public long getFilterHits() {
+    return filterHits.get();
+  }
+
+  /**
+   * Checks whether an entity is known not to exist.
+   *
+   * @param context the API context of the entity
+   * @param id      the ID of the entity
+   * @return whether the entity is absent
+   */
+  public boolean isAbsent(ApiContext context, String id) {
+    String key = key(context, id);
+    if (filter != null && !filter.mightContain(key)) {
+      filterHits.incrementAndGet();
+      hits.incrementAndGet();
+      return true;
+    }
+    synchronized (this) {
+      Long expiresAtNanos = absent.get(key);
+      if (expiresAtNanos == null) {
+        return false;
+      }
+      if (expiresAtNanos - System.nanoTime() <= 0) {
+        absent.remove(key);
+        return false;
+      }
+    }
+    hits.incrementAndGet();
+    return true;
+  }
+
+  /**
+   * Remembers an entity does not exist, for the time to live.
+   *
+   * @param context the API context of the entity
+   * @param id      the ID of the entity
+   */
+  public void putAbsent(ApiContext context, String id) {
+    String key = key(context, id);
+    synchronized (this) {
+      // re-inserted, so the insertion order stays the expiry order
+      absent.remove(key);
+      absent.put(key, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(ttlMs));
+      Iterator<Long> eldest = absent.values().iterator();
+      while (absent.size() > maxEntries) {
+        eldest.next();
+        eldest.remove();
+      }
+    }
+  }
+
+  /**
+   * Remembers an entity exists, e.g. once it is listed or created.
+   *
+   * @param context the API context of the entity
+   * @param id      the ID of the entity
+   */
+  public void putExisting(ApiContext context, String id) {
+    String key = key(context, id);
+    if (filter != null) {
+      filter.put(key);
+    }
+    synchronized (this) {
+      absent.remove(key);
+    }
+  }
+
+  /**
+   * Forgets all the absent IDs. The IDs seen by the Bloom filter are kept.
+   */
+  public synchronized void invalidateAll() {
+    absent.clear();
+  }
+
+  /**
+   * Remembers the entity of a creation response exists, if the response holds its ID,
+   * either at the top level or under {@link ApiConfig#PRIMARY_DATA_KEY}.
+   *
+   * @param context  the API context of the entity
+   * @param response the creation response
+   */
+  void putCreated(ApiContext context, String response) {
+    JsonElement json;
+    try {
+      json = new JsonParser().parse(response);
+    } catch (RuntimeException e) {
+      return;
+    }
+    if (!json.isJsonObject()) {
+      return;
+    }
+    JsonObject object = json.getAsJsonObject();
+    JsonElement data = object.get(ApiConfig.PRIMARY_DATA_KEY);
+    if (data != null && data.isJsonObject()) {
+      object = data.getAsJsonObject();
+    }
+    JsonElement id = object.get("id");
+    if (id != null && id.isJsonPrimitive()) {
+      putExisting(context, id.getAsString());
+    }
+  }
+
+  private static String key(ApiContext context, String id) {
+    return context.getApiBase() + '\u0000' + id;
+  }
+
+  /**
+   * A Bloom filter of strings, whose bits are set without a lock.
+   */
+  private static final class BloomFilter {
+    private final AtomicLongArray bits;
+    private final long bitCount;
+    private final int hashCount;
+
+    BloomFilter(int expectedInsertions, double falsePositiveRate) {
+      if (expectedInsertions < 1 || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+        throw new IllegalArgumentException("Invalid Bloom filter settings");
+      }
+      long optimalBits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+      int words = (int) Math.min(Integer.MAX_VALUE, (Math.max(optimalBits, 64) + 63) / 64);
+      bits = new AtomicLongArray(words);
+      bitCount = 64L * words;
+      hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedInsertions * Math.log(2)));
+    }
+
+    void put(String key) {
+      long hash = hash(key);
+      int h1 = (int) hash;
+      int h2 = (int) (hash >>> 32);
+      for (int i = 1; i <= hashCount; ++i) {
+        long index = index(h1 + i * h2);
+        int word = (int) (index >>> 6);
+        long mask = 1L << index;
+        long current = bits.get(word);
+        while ((current & mask) == 0 && !bits.compareAndSet(word, current, current | mask)) {
+          current = bits.get(word);
+        }
+      }
+    }
+
+    boolean mightContain(String key) {
+      long hash = hash(key);
+      int h1 = (int) hash;
+      int h2 = (int) (hash >>> 32);
+      for (int i = 1; i <= hashCount; ++i) {
+        long index = index(h1 + i * h2);
+        if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    private long index(int combined) {
+      return (combined & Integer.MAX_VALUE) % bitCount;
+    }
+
+    /**
+     * Hashes a key with 64-bit FNV-1a, then mixes the bits as the finalizer of MurmurHash3.
+     */
+    private static long hash(String key) {
+      long hash = 0xcbf29ce484222325L;
+      for (int i = 0; i < key.length(); ++i) {
+        hash ^= key.charAt(i);
+        hash *= 0x100000001b3L;
+      }
+      hash ^= hash >>> 33;
+      hash *= 0xff51afd7ed558ccdL;
+      hash ^= hash >>> 33;
+      hash *= 0xc4ceb9fe1a85ec53L;
+      hash ^= hash >>> 33;
+      return hash;
+    }
+  }
+}
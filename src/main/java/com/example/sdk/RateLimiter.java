@@ -0,0 +1,239 @@
+package com.example.sdk;
+
+import com.example.sdk.ApiException.RateLimitExceededException;
+import com.example.sdk.transport.HttpTransport;
+import com.example.sdk.types.RateLimitMode;
+
+import java.net.HttpURLConnection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The token bucket limiting the rate of the API requests of an {@link ApiContext} or of an endpoint.
+ * <p>Permits are added at the configured rate, and up to the burst size of them are saved while
+ * the requests are idle. Every HTTP request, retries included, takes a permit.</p>
+ * <p>The limiter also follows the rate limit headers of the server ({@code RateLimit-Remaining} and
+ * {@code RateLimit-Reset}, with or without the {@code X-} prefix): the remaining quota is spread evenly
+ * until the window resets, an exhausted quota pauses the requests until then, and so does a 429 response
+ * with {@code Retry-After}. The configured rate stays the upper bound.</p>
+ *
+ * @author Feng Zheng
+ * @version 1.0
+ * @since 1.0
+ */
+public class RateLimiter {
+  /**
+   * The resets after this many seconds are epoch times rather than delays.
+   */
+  private static final long EPOCH_RESET_THRESHOLD_SECONDS = 1000000000L;
+  /**
+   * The status code of too many requests, missing from {@link HttpURLConnection}.
+   */
+  private static final int HTTP_TOO_MANY_REQUESTS = 429;
+
+  private final double permitsPerSecond;
+  private final int burst;
+  private final RateLimitMode mode;
+  /**
+   * The permits saved, guarded by this.
+   */
+  private double storedPermits;
+  /**
+   * The time the next permit is available (in nanoseconds), guarded by this.
+   */
+  private long nextFreeNanos;
+  /**
+   * The rate allowed by the server, guarded by this.
+   */
+  private double serverPermitsPerSecond = Double.MAX_VALUE;
+  /**
+   * The time the rate allowed by the server expires (in nanoseconds), guarded by this.
+   */
+  private long serverRateUntilNanos;
+  /**
+   * The total time the requests waited for their permits (in nanoseconds), guarded by this.
+   */
+  private long totalWaitNanos = 0;
+  /**
+   * The number of requests which waited for their permits, guarded by this.
+   */
+  private long delayedRequests = 0;
+  /**
+   * The number of requests rejected in {@link RateLimitMode#FAIL_FAST}, guarded by this.
+   */
+  private long rejectedRequests = 0;
+
+  /**
+   * Constructs a new rate limiter with all the burst permits available.
+   *
+   * @param permitsPerSecond the maximum rate of the requests
+   * @param burst            the maximum number of permits saved while the requests are idle
+   * @param mode             how the requests wait for their permits
+   */
+  public RateLimiter(double permitsPerSecond, int burst, RateLimitMode mode) {
+    if (!(permitsPerSecond > 0) || burst < 1 || mode == null) {
+      throw new IllegalArgumentException("Invalid rate limiter");
+    }
+    this.permitsPerSecond = permitsPerSecond;
+    this.burst = burst;
+    this.mode = mode;
+    this.storedPermits = burst;
+    this.nextFreeNanos = System.nanoTime();
+    this.serverRateUntilNanos = nextFreeNanos;
+  }
+
+  /**
+   * Gets the maximum rate of the requests.
+   *
+   * @return the permits per second
+   */
+  public double getPermitsPerSecond() {
+    return permitsPerSecond;
+  }
+
+  /**
+   * Gets how the requests wait for their permits.
+   *
+   * @return the rate limit mode
+   */
+  public RateLimitMode getMode() {
+    return mode;
+  }
+
+  /**
+   * Gets the total time the requests waited for their permits.
+   *
+   * @return the total wait time (in milliseconds)
+   */
+  public synchronized long getTotalWaitMs() {
+    return TimeUnit.NANOSECONDS.toMillis(totalWaitNanos);
+  }
+
+  /**
+   * Gets the number of requests which waited for their permits.
+   *
+   * @return the number of delayed requests
+   */
+  public synchronized long getDelayedRequests() {
+    return delayedRequests;
+  }
+
+  /**
+   * Gets the number of requests rejected for the lack of permits.
+   *
+   * @return the number of rejected requests
+   */
+  public synchronized long getRejectedRequests() {
+    return rejectedRequests;
+  }
+
+  /**
+   * Takes a permit, which may be available only in the future.
+   *
+   * @return the time to wait before sending the request (in milliseconds)
+   * @throws RateLimitExceededException if the permit is not available now in {@link RateLimitMode#FAIL_FAST}
+   */
+  long reserve() throws RateLimitExceededException {
+    long waitNanos = reserve(System.nanoTime());
+    // round up, a request sent early would be throttled
+    return (waitNanos + TimeUnit.MILLISECONDS.toNanos(1) - 1) / TimeUnit.MILLISECONDS.toNanos(1);
+  }
+
+  /**
+   * Takes a permit at the given time.
+   *
+   * @param now the current time (in nanoseconds)
+   * @return the time to wait before sending the request (in nanoseconds)
+   * @throws RateLimitExceededException if the permit is not available now in {@link RateLimitMode#FAIL_FAST}
+   */
+  synchronized long reserve(long now) throws RateLimitExceededException {
+    refill(now);
+    long waitNanos = Math.max(0, nextFreeNanos - now);
+    if (waitNanos > 0 && mode == RateLimitMode.FAIL_FAST) {
+      rejectedRequests++;
+      throw new RateLimitExceededException("Rate limit of " + permitsPerSecond + " requests per second exceeded");
+    }
+    double fromStored = Math.min(1, storedPermits);
+    storedPermits -= fromStored;
+    nextFreeNanos = Math.max(nextFreeNanos, now) + (long) ((1 - fromStored) * intervalNanos(now));
+    if (waitNanos > 0) {
+      totalWaitNanos += waitNanos;
+      delayedRequests++;
+    }
+    return waitNanos;
+  }
+
+  /**
+   * Adapts the rate to the rate limit headers of a response.
+   *
+   * @param response the response
+   */
+  void onResponse(HttpTransport.Response response) {
+    onResponse(response, System.nanoTime(), System.currentTimeMillis());
+  }
+
+  /**
+   * Adapts the rate to the rate limit headers of a response at the given time.
+   *
+   * @param response  the response
+   * @param now       the current time (in nanoseconds)
+   * @param currentMs the current wall clock time (in milliseconds)
+   */
+  synchronized void onResponse(HttpTransport.Response response, long now, long currentMs) {
+    if (response.getStatusCode() == HTTP_TOO_MANY_REQUESTS) {
+      long retryAfterMs = RetryPolicy.parseRetryAfterMs(response.getHeader("Retry-After"), currentMs);
+      if (retryAfterMs > 0) {
+        pause(now + TimeUnit.MILLISECONDS.toNanos(retryAfterMs));
+      }
+    }
+    long remaining = parseLong(header(response, "RateLimit-Remaining"));
+    long resetSeconds = parseLong(header(response, "RateLimit-Reset"));
+    if (remaining < 0 || resetSeconds < 0) {
+      return;
+    }
+    if (resetSeconds >= EPOCH_RESET_THRESHOLD_SECONDS) {
+      resetSeconds = Math.max(0, resetSeconds - TimeUnit.MILLISECONDS.toSeconds(currentMs));
+    }
+    long resetNanos = now + TimeUnit.SECONDS.toNanos(resetSeconds);
+    if (remaining == 0) {
+      pause(resetNanos);
+    } else if (resetSeconds > 0) {
+      refill(now);
+      storedPermits = Math.min(storedPermits, remaining);
+      serverPermitsPerSecond = remaining / (double) resetSeconds;
+      serverRateUntilNanos = resetNanos;
+    }
+  }
+
+  private void pause(long untilNanos) {
+    storedPermits = 0;
+    nextFreeNanos = Math.max(nextFreeNanos, untilNanos);
+  }
+
+  private void refill(long now) {
+    if (now > nextFreeNanos) {
+      storedPermits = Math.min(burst, storedPermits + (now - nextFreeNanos) / (double) intervalNanos(now));
+      nextFreeNanos = now;
+    }
+  }
+
+  private long intervalNanos(long now) {
+    double rate = (now - serverRateUntilNanos < 0) ? Math.min(permitsPerSecond, serverPermitsPerSecond) : permitsPerSecond;
+    return (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+  }
+
+  private static String header(HttpTransport.Response response, String name) {
+    String value = response.getHeader(name);
+    return (value != null) ? value : response.getHeader("X-" + name);
+  }
+
+  private static long parseLong(String value) {
+    if (value == null) {
+      return -1;
+    }
+    try {
+      return Long.parseLong(value.trim());
+    } catch (NumberFormatException e) {
+      return -1;
+    }
+  }
+}
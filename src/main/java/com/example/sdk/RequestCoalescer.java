@@ -0,0 +1,98 @@
+package com.example.sdk;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Coalesces the identical GET requests in flight of an {@link ApiContext}.
+ * <p>Two requests are identical when they have the same resolved URL, the same parameters and the
+ * same access token. The first one is sent, and the identical ones issued before its response
+ * wait for it instead of sending their own: they share its response, or its failure. The response
+ * is the immutable string of the API, which every request still parses into its own entities.
+ * A follower waits no longer than its own deadline.</p>
+ * <p>The coalescer counts the requests going through it, so its hit rate is the fraction of
+ * the GET requests which did not reach the network.</p>
+ *
+ * @author Feng Zheng
+ * @version 1.0
+ * @since 1.0
+ */
+public class RequestCoalescer {
+  /**
+   * The responses of the requests in flight, keyed by the identity of the requests.
+   */
+  private final ConcurrentMap<String, SettableApiFuture<String>> inFlight = new ConcurrentHashMap<>();
+  private final AtomicLong requests = new AtomicLong();
+  private final AtomicLong coalescedRequests = new AtomicLong();
+
+  /**
+   * Gets the number of GET requests which went through the coalescer.
+   *
+   * @return the number of requests
+   */
+  public long getRequests() {
+    return requests.get();
+  }
+
+  /**
+   * Gets the number of GET requests which shared the response of an identical request in flight.
+   *
+   * @return the number of coalesced requests
+   */
+  public long getCoalescedRequests() {
+    return coalescedRequests.get();
+  }
+
+  /**
+   * Gets the fraction of the GET requests which shared the response of an identical request in flight.
+   *
+   * @return the hit rate, or 0 if there was no request
+   */
+  public double getHitRate() {
+    long total = requests.get();
+    return (total == 0) ? 0 : coalescedRequests.get() / (double) total;
+  }
+
+  /**
+   * Gets the number of distinct GET requests in flight.
+   *
+   * @return the number of requests in flight
+   */
+  public int getInFlight() {
+    return inFlight.size();
+  }
+
+  /**
+   * Joins the identical request in flight, or registers the flight of a new one.
+   *
+   * @param key    the identity of the request
+   * @param flight the response of the request, if it is the first one
+   * @return the response of the identical request in flight, or null if the request must be sent
+   */
+  SettableApiFuture<String> join(String key, SettableApiFuture<String> flight) {
+    requests.incrementAndGet();
+    SettableApiFuture<String> shared = inFlight.putIfAbsent(key, flight);
+    if (shared != null) {
+      coalescedRequests.incrementAndGet();
+    }
+    return shared;
+  }
+
+  /**
+   * Completes the flight of a request, so the next identical requests are sent again.
+   *
+   * @param key      the identity of the request
+   * @param flight   the response of the request
+   * @param response the response, or null if the request failed
+   * @param error    the failure, or null if the request succeeded
+   */
+  void complete(String key, SettableApiFuture<String> flight, String response, Throwable error) {
+    inFlight.remove(key, flight);
+    if (error == null) {
+      flight.set(response);
+    } else {
+      flight.setException(error);
+    }
+  }
+}
@@ -0,0 +1,79 @@
+package com.example.sdk;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The budget limiting the retries of an {@link ApiContext} to a fraction of its requests,
+ * so the retries cannot multiply the load of a failing server.
+ * <p>Every request deposits the ratio in the budget, up to the maximum balance, and every retry
+ * withdraws one. A retry is dropped when the budget is exhausted. The full balance lets the
+ * short bursts of failures retry right away.</p>
+ *
+ * @author Feng Zheng
+ * @version 1.0
+ * @since 1.0
+ */
+public class RetryBudget {
+  /**
+   * The budget is counted in thousandths of a retry.
+   */
+  private static final long SCALE = 1000;
+
+  private final long deposit;
+  private final long maxBalance;
+  private final AtomicLong balance;
+
+  /**
+   * Constructs a new full retry budget.
+   *
+   * @param ratio      the number of retries earned by a request
+   * @param maxRetries the maximum number of retries saved in the budget
+   */
+  public RetryBudget(double ratio, int maxRetries) {
+    if (ratio < 0 || maxRetries < 0) {
+      throw new IllegalArgumentException("Invalid retry budget");
+    }
+    this.deposit = (long) (ratio * SCALE);
+    this.maxBalance = maxRetries * SCALE;
+    this.balance = new AtomicLong(maxBalance);
+  }
+
+  /**
+   * Records a request, earning a fraction of a retry.
+   */
+  public void onRequest() {
+    while (true) {
+      long current = balance.get();
+      long next = Math.min(maxBalance, current + deposit);
+      if (next == current || balance.compareAndSet(current, next)) {
+        return;
+      }
+    }
+  }
+
+  /**
+   * Withdraws a retry from the budget.
+   *
+   * @return whether the retry is allowed
+   */
+  public boolean tryRetry() {
+    while (true) {
+      long current = balance.get();
+      if (current < SCALE) {
+        return false;
+      }
+      if (balance.compareAndSet(current, current - SCALE)) {
+        return true;
+      }
+    }
+  }
+
+  /**
+   * Gets the number of retries left in the budget.
+   *
+   * @return the number of retries left
+   */
+  public int getRetriesLeft() {
+    return (int) (balance.get() / SCALE);
+  }
+}
@@ -0,0 +1,163 @@
+package com.example.sdk;
+
+import com.example.sdk.types.HttpMethod;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Locale;
+import java.util.TimeZone;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The policy deciding whether and when a failed API request is sent again.
+ * <p>Only the idempotent requests (GET, PUT and DELETE) are retried, after connection failures,
+ * 429 and 5xx responses. The delay grows exponentially with full jitter, so the clients failing
+ * together do not retry together, and a {@code Retry-After} header of the server is honored.
+ * Subclasses may override the methods to retry other failures or methods.</p>
+ * <p>The retries of an {@link ApiContext} are also limited by its {@link RetryBudget}.</p>
+ *
+ * @author Feng Zheng
+ * @version 1.0
+ * @since 1.0
+ */
+public class RetryPolicy {
+  /**
+   * The policy never retrying.
+   */
+  public static final RetryPolicy NO_RETRY = new RetryPolicy(0, 0, 0);
+  /**
+   * The policy retrying with {@link ApiConfig#DEFAULT_RETRY_MAX}, {@link ApiConfig#DEFAULT_RETRY_BASE_DELAY_MS}
+   * and {@link ApiConfig#DEFAULT_RETRY_MAX_DELAY_MS}.
+   */
+  public static final RetryPolicy DEFAULT = new RetryPolicy(ApiConfig.DEFAULT_RETRY_MAX,
+      ApiConfig.DEFAULT_RETRY_BASE_DELAY_MS, ApiConfig.DEFAULT_RETRY_MAX_DELAY_MS);
+  /**
+   * The status code of too many requests, missing from {@link HttpURLConnection}.
+   */
+  private static final int HTTP_TOO_MANY_REQUESTS = 429;
+  /**
+   * The format of the HTTP dates in {@code Retry-After}.
+   */
+  private static final String HTTP_DATE_FORMAT = "EEE, dd MMM yyyy HH:mm:ss zzz";
+
+  private final int maxRetries;
+  private final long baseDelayMs;
+  private final long maxDelayMs;
+
+  /**
+   * Constructs a new retry policy.
+   *
+   * @param maxRetries  the maximum number of retries of a request
+   * @param baseDelayMs the upper bound of the delay before the first retry (in milliseconds)
+   * @param maxDelayMs  the upper bound of the delay before any retry (in milliseconds)
+   */
+  public RetryPolicy(int maxRetries, long baseDelayMs, long maxDelayMs) {
+    if (maxRetries < 0 || baseDelayMs < 0 || maxDelayMs < baseDelayMs) {
+      throw new IllegalArgumentException("Invalid retry policy");
+    }
+    this.maxRetries = maxRetries;
+    this.baseDelayMs = baseDelayMs;
+    this.maxDelayMs = maxDelayMs;
+  }
+
+  /**
+   * Gets the maximum number of retries of a request.
+   *
+   * @return the maximum number of retries
+   */
+  public int getMaxRetries() {
+    return maxRetries;
+  }
+
+  /**
+   * Gets the upper bound of the delay before any retry.
+   * A request is not retried if the server asks to wait longer.
+   *
+   * @return the maximum delay (in milliseconds)
+   */
+  public long getMaxDelayMs() {
+    return maxDelayMs;
+  }
+
+  /**
+   * Returns whether the requests of the HTTP method may be sent more than once.
+   *
+   * @param method the HTTP method
+   * @return whether the method is idempotent
+   */
+  public boolean isIdempotent(HttpMethod method) {
+    return method != HttpMethod.POST;
+  }
+
+  /**
+   * Returns whether a request failing to get a response is retried.
+   *
+   * @param method the HTTP method of the request
+   * @param error  the I/O failure
+   * @return whether the request is retried
+   */
+  public boolean isRetryable(HttpMethod method, IOException error) {
+    return isIdempotent(method);
+  }
+
+  /**
+   * Returns whether a request answered with the status code is retried.
+   *
+   * @param method     the HTTP method of the request
+   * @param statusCode the status code of the response
+   * @return whether the request is retried
+   */
+  public boolean isRetryable(HttpMethod method, int statusCode) {
+    if (statusCode == HTTP_TOO_MANY_REQUESTS) {
+      return isIdempotent(method);
+    }
+    return statusCode >= HttpURLConnection.HTTP_INTERNAL_ERROR
+        && statusCode != HttpURLConnection.HTTP_NOT_IMPLEMENTED
+        && statusCode != HttpURLConnection.HTTP_VERSION
+        && isIdempotent(method);
+  }
+
+  /**
+   * Gets the delay before a retry: a random time up to the base delay doubled by every retry,
+   * bounded by the maximum delay.
+   *
+   * @param retry the number of retries already made
+   * @return the delay (in milliseconds)
+   */
+  public long getBackoffMs(int retry) {
+    long bound = baseDelayMs << Math.min(retry, 30);
+    if (bound <= 0 || bound > maxDelayMs) {
+      bound = maxDelayMs;
+    }
+    return bound == 0 ? 0 : ThreadLocalRandom.current().nextLong(bound + 1);
+  }
+
+  /**
+   * Parses a {@code Retry-After} header, either in seconds or as an HTTP date.
+   *
+   * @param value the header value
+   * @param now   the current time (in milliseconds)
+   * @return the delay asked by the server (in milliseconds), or -1 if absent or invalid
+   */
+  static long parseRetryAfterMs(String value, long now) {
+    if (value == null || value.trim().isEmpty()) {
+      return -1;
+    }
+    value = value.trim();
+    try {
+      long seconds = Long.parseLong(value);
+      return seconds < 0 ? -1 : seconds * 1000;
+    } catch (NumberFormatException e) {
+      // an HTTP date
+    }
+    SimpleDateFormat format = new SimpleDateFormat(HTTP_DATE_FORMAT, Locale.US);
+    format.setTimeZone(TimeZone.getTimeZone("GMT"));
+    try {
+      return Math.max(0, format.parse(value).getTime() - now);
+    } catch (ParseException e) {
+      return -1;
+    }
+  }
+}
@@ -0,0 +1,72 @@
+package com.example.sdk;
+
+import java.util.concurrent.Executor;
+
+/**
+ * The policy refreshing the GET responses of the {@link HttpCache} in the background.
+ * <p>A response which expired less than the staleness bound ago is served right away, as if it
+ * were fresh, while a single background request revalidates it (stale-while-revalidate). A fresh
+ * response served within the refresh-ahead window before its expiry is revalidated the same way,
+ * so the responses in use do not expire at all (refresh-ahead). Either way, the callers do not
+ * wait for the server; the responses with <code>no-cache</code> are never served stale.</p>
+ * <p>The background requests run on the given executor, or are sent asynchronously if none.</p>
+ *
+ * @author Feng Zheng
+ * @version 1.0
+ * @since 1.0
+ */
+public class RevalidationPolicy {
+  /**
+   * The policy with {@link ApiConfig#DEFAULT_STALE_WHILE_REVALIDATE_MS} and
+   * {@link ApiConfig#DEFAULT_REFRESH_AHEAD_MS}, sending the background requests asynchronously.
+   */
+  public static final RevalidationPolicy DEFAULT = new RevalidationPolicy(
+      ApiConfig.DEFAULT_STALE_WHILE_REVALIDATE_MS, ApiConfig.DEFAULT_REFRESH_AHEAD_MS, null);
+
+  private final long staleMs;
+  private final long refreshAheadMs;
+  private final Executor executor;
+
+  /**
+   * Constructs a new revalidation policy.
+   *
+   * @param staleMs        the time an expired response is still served (in milliseconds)
+   * @param refreshAheadMs the time before its expiry a served response is refreshed (in milliseconds)
+   * @param executor       the executor of the background requests, or null to send them asynchronously
+   */
+  public RevalidationPolicy(long staleMs, long refreshAheadMs, Executor executor) {
+    if (staleMs < 0 || refreshAheadMs < 0) {
+      throw new IllegalArgumentException("Invalid revalidation policy");
+    }
+    this.staleMs = staleMs;
+    this.refreshAheadMs = refreshAheadMs;
+    this.executor = executor;
+  }
+
+  /**
+   * Gets the time an expired response is still served while it is refreshed.
+   *
+   * @return the staleness bound (in milliseconds)
+   */
+  public long getStaleMs() {
+    return staleMs;
+  }
+
+  /**
+   * Gets the time before its expiry a served response is refreshed.
+   *
+   * @return the refresh-ahead window (in milliseconds)
+   */
+  public long getRefreshAheadMs() {
+    return refreshAheadMs;
+  }
+
+  /**
+   * Gets the executor of the background requests.
+   *
+   * @return the executor, or null if they are sent asynchronously
+   */
+  public Executor getExecutor() {
+    return executor;
+  }
+}
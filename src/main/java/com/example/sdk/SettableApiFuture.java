@@ -0,0 +1,130 @@
+package com.example.sdk;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * The {@link ApiFuture} completed explicitly by the SDK.
+ *
+ * @param <V> the type of the result
+ * @author Feng Zheng
+ * @version 1.0
+ * @since 1.0
+ */
+class SettableApiFuture<V> implements ApiFuture<V> {
+  private final CountDownLatch done = new CountDownLatch(1);
+  private List<ApiCallback<? super V>> callbacks = new ArrayList<>(2);
+  private boolean completed = false;
+  private boolean cancelled = false;
+  private V value = null;
+  private Throwable error = null;
+
+  /**
+   * Completes the future with the result.
+   *
+   * @param result the result
+   * @return whether the future was completed by this call
+   */
+  boolean set(V result) {
+    return complete(result, null, false);
+  }
+
+  /**
+   * Completes the future with the failure.
+   *
+   * @param failure the failure
+   * @return whether the future was completed by this call
+   */
+  boolean setException(Throwable failure) {
+    return complete(null, failure, false);
+  }
+
+  @Override
+  public void addCallback(ApiCallback<? super V> callback) {
+    synchronized (this) {
+      if (!completed) {
+        callbacks.add(callback);
+        return;
+      }
+    }
+    notify(callback);
+  }
+
+  @Override
+  public boolean cancel(boolean mayInterruptIfRunning) {
+    return complete(null, new CancellationException("Request cancelled"), true);
+  }
+
+  @Override
+  public synchronized boolean isCancelled() {
+    return cancelled;
+  }
+
+  @Override
+  public boolean isDone() {
+    return done.getCount() == 0;
+  }
+
+  @Override
+  public V get() throws InterruptedException, ExecutionException {
+    done.await();
+    return report();
+  }
+
+  @Override
+  public V get(long timeout, TimeUnit unit)
+      throws InterruptedException, ExecutionException, TimeoutException {
+    if (!done.await(timeout, unit)) {
+      throw new TimeoutException();
+    }
+    return report();
+  }
+
+  private boolean complete(V result, Throwable failure, boolean cancel) {
+    List<ApiCallback<? super V>> pending;
+    synchronized (this) {
+      if (completed) {
+        return false;
+      }
+      completed = true;
+      cancelled = cancel;
+      value = result;
+      error = failure;
+      pending = callbacks;
+      callbacks = null;
+    }
+    done.countDown();
+    for (ApiCallback<? super V> callback : pending) {
+      notify(callback);
+    }
+    return true;
+  }
+
+  private V report() throws ExecutionException {
+    if (cancelled) {
+      throw (CancellationException) error;
+    }
+    if (error != null) {
+      throw new ExecutionException(error);
+    }
+    return value;
+  }
+
+  private void notify(ApiCallback<? super V> callback) {
+    try {
+      if (error == null) {
+        callback.onSuccess(value);
+      } else {
+        callback.onFailure(error);
+      }
+    } catch (RuntimeException e) {
+      Thread thread = Thread.currentThread();
+      thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+    }
+  }
+}
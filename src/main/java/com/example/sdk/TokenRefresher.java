@@ -0,0 +1,253 @@
+package com.example.sdk;
+
+import com.example.sdk.ApiException.DeadlineExceededException;
+import com.example.sdk.ApiException.FailedRequestException;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Refreshes the app access token of an {@link ApiContext} one refresh at a time.
+ * <p>The requests rejected with an expired token while a refresh is in flight wait for it
+ * instead of requesting tokens of their own, and the requests rejected with a token which
+ * has been replaced already are replayed right away. Only the 401 path takes the lock of the
+ * refresher: sending a request reads the token state without locking.</p>
+ * <p>Once enabled, the token is also renewed in the background before it expires. The new token
+ * replaces the old one in a single write, so the requests never go without a valid token.</p>
+ *
+ * @author Feng Zheng
+ * @version 1.0
+ * @since 1.0
+ */
+final class TokenRefresher {
+  /**
+   * The minimum delay before a renewal (in milliseconds).
+   */
+  private static final long MIN_RENEWAL_DELAY_MS = 100;
+  /**
+   * The timer renewing the tokens of all API contexts.
+   */
+  private static ScheduledExecutorService renewalTimer = null;
+
+  private final ApiContext context;
+  /**
+   * The refresh in flight, guarded by this.
+   */
+  private SettableApiFuture<String> inFlight = null;
+  /**
+   * The lifetime of the tokens without expiry, or 0 if the renewal is disabled, guarded by this.
+   */
+  private long defaultLifetimeMs = 0;
+  /**
+   * The lifetime of the current token, guarded by this.
+   */
+  private long tokenLifetimeMs = 0;
+  /**
+   * The scheduled renewal, guarded by this.
+   */
+  private ScheduledFuture<?> renewal = null;
+
+  /**
+   * Constructs a new token refresher of the API context.
+   *
+   * @param context the instance of {@link ApiContext}
+   */
+  TokenRefresher(ApiContext context) {
+    this.context = context;
+  }
+
+  /**
+   * Refreshes the expired token on the calling thread, or waits for the refresh in flight.
+   *
+   * @param expired  the token state the rejected request was sent with
+   * @param deadline the deadline of the rejected request, or null if there is none
+   * @return the new app access token
+   * @throws ApiException         the api exception
+   * @throws InterruptedException the interrupted exception
+   */
+  String refresh(ApiContext.TokenState expired, Deadline deadline) throws ApiException, InterruptedException {
+    SettableApiFuture<String> refresh;
+    boolean leader = false;
+    synchronized (this) {
+      ApiContext.TokenState current = context.getTokenState();
+      if (current != expired && current.getToken() != null) {
+        return current.getToken();
+      }
+      if (inFlight == null) {
+        inFlight = new SettableApiFuture<>();
+        leader = true;
+      }
+      refresh = inFlight;
+    }
+    if (leader) {
+      return lead(refresh, deadline);
+    }
+    try {
+      return (deadline == null) ? refresh.get() : refresh.get(deadline.getRemainingNanos(), TimeUnit.NANOSECONDS);
+    } catch (TimeoutException e) {
+      throw new DeadlineExceededException("Deadline exceeded waiting for the app access token");
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof ApiException) {
+        throw (ApiException) cause;
+      } else if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw new FailedRequestException(cause);
+    }
+  }
+
+  /**
+   * Refreshes the expired token asynchronously, or joins the refresh in flight.
+   *
+   * @param expired  the token state the rejected request was sent with
+   * @param deadline the deadline of the rejected request, or null if there is none
+   * @return the pending new app access token
+   */
+  ApiFuture<String> refreshAsync(ApiContext.TokenState expired, Deadline deadline) {
+    final SettableApiFuture<String> refresh;
+    synchronized (this) {
+      ApiContext.TokenState current = context.getTokenState();
+      if (current != expired && current.getToken() != null) {
+        SettableApiFuture<String> replaced = new SettableApiFuture<>();
+        replaced.set(current.getToken());
+        return replaced;
+      }
+      if (inFlight != null) {
+        return inFlight;
+      }
+      refresh = inFlight = new SettableApiFuture<>();
+    }
+    App.RequestCreateToken request = new App(context).createToken();
+    request.setDeadline(deadline);
+    request.executeAsync().addCallback(new ApiCallback<App>() {
+      @Override
+      public void onSuccess(App app) {
+        complete(refresh, app.getToken(), null);
+      }
+
+      @Override
+      public void onFailure(Throwable error) {
+        complete(refresh, null, error);
+      }
+    });
+    return refresh;
+  }
+
+  /**
+   * Enables the background renewal of the token.
+   *
+   * @param lifetimeMs the lifetime of the tokens whose response has no expiry (in milliseconds)
+   */
+  synchronized void enableRenewal(long lifetimeMs) {
+    if (lifetimeMs <= 0) {
+      throw new IllegalArgumentException("Token lifetime must be positive");
+    }
+    defaultLifetimeMs = lifetimeMs;
+    tokenLifetimeMs = lifetimeMs;
+    scheduleRenewal((long) (lifetimeMs * ApiConfig.TOKEN_RENEWAL_THRESHOLD));
+  }
+
+  /**
+   * Disables the background renewal of the token.
+   */
+  synchronized void disableRenewal() {
+    defaultLifetimeMs = 0;
+    if (renewal != null) {
+      renewal.cancel(false);
+      renewal = null;
+    }
+  }
+
+  /**
+   * Schedules the renewal of the token just created.
+   *
+   * @param app the app holding the new token
+   */
+  synchronized void onTokenCreated(App app) {
+    if (defaultLifetimeMs <= 0) {
+      return;
+    }
+    Long expiresIn = app.getExpiresIn();
+    tokenLifetimeMs = (expiresIn != null && expiresIn > 0)
+        ? TimeUnit.SECONDS.toMillis(expiresIn) : defaultLifetimeMs;
+    scheduleRenewal((long) (tokenLifetimeMs * ApiConfig.TOKEN_RENEWAL_THRESHOLD));
+  }
+
+  private void scheduleRenewal(long delayMs) {
+    if (renewal != null) {
+      renewal.cancel(false);
+    }
+    renewal = getRenewalTimer().schedule(new Runnable() {
+      @Override
+      public void run() {
+        renew();
+      }
+    }, Math.max(delayMs, MIN_RENEWAL_DELAY_MS), TimeUnit.MILLISECONDS);
+  }
+
+  private void renew() {
+    refreshAsync(context.getTokenState(), null).addCallback(new ApiCallback<String>() {
+      @Override
+      public void onSuccess(String token) {
+        // the next renewal is scheduled when the token is created
+      }
+
+      @Override
+      public void onFailure(Throwable error) {
+        synchronized (TokenRefresher.this) {
+          if (defaultLifetimeMs > 0) {
+            // retry within the remaining lifetime, the expired requests still refresh on their own
+            scheduleRenewal((long) (tokenLifetimeMs * (1 - ApiConfig.TOKEN_RENEWAL_THRESHOLD) / 2));
+          }
+        }
+      }
+    });
+  }
+
+  private String lead(SettableApiFuture<String> refresh, Deadline deadline)
+      throws ApiException, InterruptedException {
+    try {
+      App.RequestCreateToken request = new App(context).createToken();
+      request.setDeadline(deadline);
+      String token = request.execute().getToken();
+      complete(refresh, token, null);
+      return token;
+    } catch (ApiException | InterruptedException | RuntimeException e) {
+      complete(refresh, null, e);
+      throw e;
+    }
+  }
+
+  private void complete(SettableApiFuture<String> refresh, String token, Throwable error) {
+    synchronized (this) {
+      if (inFlight == refresh) {
+        inFlight = null;
+      }
+    }
+    if (error == null) {
+      refresh.set(token);
+    } else {
+      refresh.setException(error);
+    }
+  }
+
+  private static synchronized ScheduledExecutorService getRenewalTimer() {
+    if (renewalTimer == null) {
+      renewalTimer = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable runnable) {
+          Thread thread = new Thread(runnable, "api-token-renewal");
+          thread.setDaemon(true);
+          return thread;
+        }
+      });
+    }
+    return renewalTimer;
+  }
+}
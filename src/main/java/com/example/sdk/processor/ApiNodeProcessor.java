@@ -0,0 +1,337 @@
+package com.example.sdk.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The annotation processor generating a type adapter for every subclass of {@code ApiNode} compiled with it.
+ * <p>The adapter of an entity, e.g. {@code AppTypeAdapter} for {@code App}, extends {@code ApiNodeTypeAdapter}
+ * and binds the same fields as the reflective adapter of the shared Gson: the fields which are not final,
+ * transient, protected nor static. A field is named by its {@code @SerializedName}, and read by its alternate
+ * names too. Strings, integers, longs, doubles and booleans are read and written directly, the other types
+ * through the adapters of the Gson.</p>
+ * <p>The fields of the entity keep their visibility: the adapter gets them by reflection once, in its static
+ * initializer, and creates the entities as the reflective adapter does. An entity is skipped, and still bound
+ * reflectively, if its bound fields share a name, or if one of them is generic or of a type not accessible
+ * from its package.</p>
+ *
+ * @author Feng Zheng
+ * @version 1.0
+ * @since 1.0
+ */
+@SupportedAnnotationTypes("*")
+public class ApiNodeProcessor extends AbstractProcessor {
+  private static final String API_NODE = "com.example.sdk.ApiNode";
+  private static final String ADAPTER = "com.example.sdk.ApiNodeTypeAdapter";
+  private static final String SERIALIZED_NAME = "com.google.gson.annotations.SerializedName";
+  private static final String SUFFIX = "TypeAdapter";
+  /**
+   * The types read and written directly, in the package {@code java.lang}.
+   */
+  private static final String[] DIRECT = {"String", "Integer", "Long", "Double", "Boolean"};
+
+  @Override
+  public SourceVersion getSupportedSourceVersion() {
+    return SourceVersion.latestSupported();
+  }
+
+  @Override
+  public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+    TypeElement apiNode = processingEnv.getElementUtils().getTypeElement(API_NODE);
+    if (apiNode == null) {
+      return false;
+    }
+    for (TypeElement type : ElementFilter.typesIn(roundEnv.getRootElements())) {
+      if (type.getKind() == ElementKind.CLASS && !type.equals(apiNode)
+          && processingEnv.getTypeUtils().isSubtype(type.asType(), apiNode.asType())) {
+        generate(type, apiNode);
+      }
+    }
+    return false;
+  }
+
+  private void generate(TypeElement type, TypeElement apiNode) {
+    if (type.getModifiers().contains(Modifier.ABSTRACT) || !type.getTypeParameters().isEmpty()) {
+      return;
+    }
+    String reason = null;
+    List<Field> fields = new ArrayList<>();
+    for (TypeElement t = type; reason == null && !t.equals(apiNode); t = superclass(t)) {
+      for (VariableElement field : ElementFilter.fieldsIn(t.getEnclosedElements())) {
+        Set<Modifier> modifiers = field.getModifiers();
+        if (modifiers.contains(Modifier.FINAL) || modifiers.contains(Modifier.TRANSIENT)
+            || modifiers.contains(Modifier.PROTECTED) || modifiers.contains(Modifier.STATIC)) {
+          continue;
+        }
+        if (reason != null) {
+          break;
+        } else if (field.asType().getKind() == TypeKind.TYPEVAR) {
+          reason = "its field " + field.getSimpleName() + " is generic";
+        } else if (!isAccessible(field.asType(), packageOf(type))) {
+          reason = "the type of its field " + field.getSimpleName() + " is not accessible";
+        }
+        Field bound = new Field(field);
+        for (Field other : fields) {
+          if (reason == null && other.name.equals(bound.name)) {
+            reason = "its field " + bound.name + " is hidden by another one";
+          } else if (reason == null && !Collections.disjoint(other.names, bound.names)) {
+            reason = "its fields " + other.name + " and " + bound.name + " share a JSON name";
+          }
+        }
+        fields.add(bound);
+      }
+    }
+    if (reason != null) {
+      processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE,
+          type.getQualifiedName() + " is bound reflectively since " + reason, type);
+      return;
+    }
+    try {
+      write(type, fields);
+    } catch (IOException e) {
+      processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+          "Unable to generate the type adapter of " + type.getQualifiedName() + ": " + e.getMessage(), type);
+    }
+  }
+
+  private void write(TypeElement type, List<Field> fields) throws IOException {
+    String pkg = packageOf(type);
+    String entity = type.getSimpleName().toString();
+    String adapter = entity + SUFFIX;
+    String name = pkg.isEmpty() ? adapter : pkg + "." + adapter;
+    try (PrintWriter out = new PrintWriter(processingEnv.getFiler().createSourceFile(name, type).openWriter())) {
+      if (!pkg.isEmpty()) {
+        out.println("package " + pkg + ";");
+        out.println();
+      }
+      out.println("/**");
+      out.println(" * The type adapter of {@link " + entity + "}, generated by {@link "
+          + ApiNodeProcessor.class.getName() + "}.");
+      out.println(" */");
+      out.println("final class " + adapter + " extends " + ADAPTER + "<" + entity + "> {");
+      for (Field field : fields) {
+        out.println("  private static final java.lang.reflect.Field " + field.name + "Field;");
+      }
+      for (Field field : fields) {
+        if (field.delegated()) {
+          out.println("  private final com.google.gson.TypeAdapter<" + field.boxed() + "> "
+              + field.name + "Adapter;");
+        }
+      }
+      out.println();
+      // the fields are resolved once, the entity keeps them private
+      out.println("  static {");
+      for (Field field : fields) {
+        out.println("    " + field.name + "Field = field(" + entity + ".class, \"" + field.name + "\");");
+      }
+      out.println("  }");
+      out.println();
+      out.println("  " + adapter + "(com.google.gson.Gson gson) {");
+      out.println("    super(" + entity + ".class);");
+      for (Field field : fields) {
+        if (field.delegated()) {
+          out.println("    this." + field.name + "Adapter = gson.getAdapter(new com.google.gson.reflect.TypeToken<"
+              + field.boxed() + ">() {});");
+        }
+      }
+      out.println("  }");
+      out.println();
+      out.println("  @Override");
+      out.println("  @java.lang.SuppressWarnings(\"unchecked\")");
+      out.println("  public void write(com.google.gson.stream.JsonWriter out, " + entity + " value)"
+          + " throws java.io.IOException {");
+      out.println("    if (value == null) {");
+      out.println("      out.nullValue();");
+      out.println("      return;");
+      out.println("    }");
+      out.println("    out.beginObject();");
+      for (Field field : fields) {
+        out.println("    out.name(\"" + escape(field.names.get(0)) + "\");");
+        out.println("    " + field.write("(" + field.boxed() + ") get(" + field.name + "Field, value)") + ";");
+      }
+      out.println("    out.endObject();");
+      out.println("  }");
+      out.println();
+      out.println("  @Override");
+      out.println("  public " + entity + " read(com.google.gson.stream.JsonReader in) throws java.io.IOException {");
+      out.println("    if (in.peek() == com.google.gson.stream.JsonToken.NULL) {");
+      out.println("      in.nextNull();");
+      out.println("      return null;");
+      out.println("    }");
+      out.println("    " + entity + " value = newInstance();");
+      // a token of another type fails as in the reflective adapter, with a JsonSyntaxException
+      out.println("    try {");
+      out.println("      in.beginObject();");
+      out.println("      while (in.hasNext()) {");
+      out.println("        switch (in.nextName()) {");
+      for (Field field : fields) {
+        for (String alias : field.names) {
+          out.println("          case \"" + escape(alias) + "\":");
+        }
+        if (field.primitive()) {
+          // a null keeps the default value, as the reflective adapter does
+          out.println("            if (in.peek() == com.google.gson.stream.JsonToken.NULL) {");
+          out.println("              in.nextNull();");
+          out.println("            } else {");
+          out.println("              set(" + field.name + "Field, value, " + field.read() + ");");
+          out.println("            }");
+        } else {
+          out.println("            set(" + field.name + "Field, value, " + field.read() + ");");
+        }
+        out.println("            break;");
+      }
+      out.println("          default:");
+      out.println("            in.skipValue();");
+      out.println("        }");
+      out.println("      }");
+      out.println("      in.endObject();");
+      out.println("    } catch (java.lang.IllegalStateException e) {");
+      out.println("      throw new com.google.gson.JsonSyntaxException(e);");
+      out.println("    }");
+      out.println("    return value;");
+      out.println("  }");
+      out.println("}");
+    }
+  }
+
+  private boolean isAccessible(TypeMirror type, String pkg) {
+    if (type.getKind() == TypeKind.ARRAY) {
+      return isAccessible(((ArrayType) type).getComponentType(), pkg);
+    } else if (type.getKind() != TypeKind.DECLARED) {
+      return true;
+    }
+    Element element = ((DeclaredType) type).asElement();
+    for (; element.getKind() != ElementKind.PACKAGE; element = element.getEnclosingElement()) {
+      Set<Modifier> modifiers = element.getModifiers();
+      if (modifiers.contains(Modifier.PRIVATE)
+          || (!modifiers.contains(Modifier.PUBLIC) && !packageOf(element).equals(pkg))) {
+        return false;
+      }
+    }
+    for (TypeMirror argument : ((DeclaredType) type).getTypeArguments()) {
+      if (!isAccessible(argument, pkg)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private TypeElement superclass(TypeElement type) {
+    return (TypeElement) ((DeclaredType) type.getSuperclass()).asElement();
+  }
+
+  private String packageOf(Element element) {
+    PackageElement pkg = processingEnv.getElementUtils().getPackageOf(element);
+    return pkg.getQualifiedName().toString();
+  }
+
+  private static String escape(String name) {
+    return name.replace("\\", "\\\\").replace("\"", "\\\"");
+  }
+
+  /**
+   * A field bound by the generated adapter.
+   */
+  private final class Field {
+    private final String name;
+    private final TypeMirror type;
+    private final List<String> names = new ArrayList<>();
+
+    Field(VariableElement field) {
+      this.name = field.getSimpleName().toString();
+      this.type = field.asType();
+      for (AnnotationMirror annotation : field.getAnnotationMirrors()) {
+        if (((TypeElement) annotation.getAnnotationType().asElement()).getQualifiedName()
+            .contentEquals(SERIALIZED_NAME)) {
+          for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry
+              : annotation.getElementValues().entrySet()) {
+            String key = entry.getKey().getSimpleName().toString();
+            if (key.equals("value")) {
+              names.add(0, (String) entry.getValue().getValue());
+            } else if (key.equals("alternate")) {
+              @SuppressWarnings("unchecked")
+              List<? extends AnnotationValue> alternates = (List<? extends AnnotationValue>) entry.getValue().getValue();
+              for (AnnotationValue alternate : alternates) {
+                names.add((String) alternate.getValue());
+              }
+            }
+          }
+        }
+      }
+      if (names.isEmpty()) {
+        names.add(name);
+      }
+    }
+
+    boolean primitive() {
+      return type.getKind().isPrimitive();
+    }
+
+    String boxed() {
+      if (primitive()) {
+        return processingEnv.getTypeUtils().boxedClass(processingEnv.getTypeUtils().getPrimitiveType(type.getKind()))
+            .getQualifiedName().toString();
+      }
+      return type.toString();
+    }
+
+    boolean delegated() {
+      return direct() == null;
+    }
+
+    /**
+     * Gets the suffix of the helpers reading the type directly, e.g. {@code Long}.
+     *
+     * @return the suffix, or null if the type is read by the adapter of the Gson
+     */
+    String direct() {
+      String boxed = boxed();
+      for (String direct : DIRECT) {
+        if (boxed.equals("java.lang." + direct)) {
+          return direct;
+        }
+      }
+      return null;
+    }
+
+    String read() {
+      return delegated() ? name + "Adapter.read(in)" : "read" + direct() + "(in)";
+    }
+
+    String write(String value) {
+      String direct = direct();
+      if (direct == null) {
+        return name + "Adapter.write(out, " + value + ")";
+      } else if (direct.equals("Boolean")) {
+        return "writeBoolean(out, " + value + ")";
+      } else if (direct.equals("String")) {
+        return "out.value(" + value + ")";
+      }
+      return "out.value((java.lang.Number) " + value + ")";
+    }
+  }
+}
@@ -0,0 +1,42 @@
+package com.example.sdk.transport;
+
+import java.io.IOException;
+
+/**
+ * The {@link HttpTransport} which can send requests without blocking the calling thread.
+ * Asynchronous API requests go through {@link #executeAsync(Request, Callback)} when the transport
+ * implements it, otherwise the blocking {@link #execute(Request)} runs on a shared executor.
+ *
+ * @author Feng Zheng
+ * @version 1.0
+ * @since 1.0
+ */
+public interface AsyncHttpTransport extends HttpTransport {
+  /**
+   * Sends the HTTP request and returns immediately.
+   * The callback is notified exactly once, possibly on an I/O thread of the transport.
+   *
+   * @param request  the HTTP request
+   * @param callback the callback notified with the response or the failure
+   */
+  void executeAsync(Request request, Callback callback);
+
+  /**
+   * The callback notified when the exchange completes.
+   */
+  interface Callback {
+    /**
+     * Invoked with the HTTP response, whatever its status code is.
+     *
+     * @param response the HTTP response
+     */
+    void onResponse(Response response);
+
+    /**
+     * Invoked when the exchange fails.
+     *
+     * @param e the I/O exception
+     */
+    void onFailure(IOException e);
+  }
+}
@@ -0,0 +1,49 @@
+package com.example.sdk.transport;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * The callback through which a blocking request waits for an asynchronous transport.
+ *
+ * @author Feng Zheng
+ * @version 1.0
+ * @since 1.0
+ */
+final class BlockingCallback implements AsyncHttpTransport.Callback {
+  private final CountDownLatch done = new CountDownLatch(1);
+  private volatile HttpTransport.Response response;
+  private volatile IOException error;
+
+  @Override
+  public void onResponse(HttpTransport.Response response) {
+    this.response = response;
+    done.countDown();
+  }
+
+  @Override
+  public void onFailure(IOException e) {
+    this.error = e;
+    done.countDown();
+  }
+
+  /**
+   * Waits for the response.
+   *
+   * @return the response
+   * @throws IOException if the request failed or the wait was interrupted
+   */
+  HttpTransport.Response await() throws IOException {
+    try {
+      done.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while waiting for the response");
+    }
+    if (error != null) {
+      throw error;
+    }
+    return response;
+  }
+}
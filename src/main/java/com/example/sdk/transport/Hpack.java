@@ -0,0 +1,361 @@
+package com.example.sdk.transport;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.ProtocolException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The HPACK header compression of HTTP/2 (RFC 7541).
+ *
+ * @author Feng Zheng
+ * @version 1.0
+ * @since 1.0
+ */
+final class Hpack {
+  /**
+   * The default size of the dynamic table.
+   */
+  static final int DEFAULT_TABLE_SIZE = 4096;
+
+  private static final Charset ISO_8859_1 = Charset.forName("ISO-8859-1");
+  private static final String[][] STATIC_TABLE = {
+      {":authority", ""}, {":method", "GET"}, {":method", "POST"}, {":path", "/"},
+      {":path", "/index.html"}, {":scheme", "http"}, {":scheme", "https"}, {":status", "200"},
+      {":status", "204"}, {":status", "206"}, {":status", "304"}, {":status", "400"},
+      {":status", "404"}, {":status", "500"}, {"accept-charset", ""}, {"accept-encoding", "gzip, deflate"},
+      {"accept-language", ""}, {"accept-ranges", ""}, {"accept", ""}, {"access-control-allow-origin", ""},
+      {"age", ""}, {"allow", ""}, {"authorization", ""}, {"cache-control", ""},
+      {"content-disposition", ""}, {"content-encoding", ""}, {"content-language", ""}, {"content-length", ""},
+      {"content-location", ""}, {"content-range", ""}, {"content-type", ""}, {"cookie", ""},
+      {"date", ""}, {"etag", ""}, {"expect", ""}, {"expires", ""},
+      {"from", ""}, {"host", ""}, {"if-match", ""}, {"if-modified-since", ""},
+      {"if-none-match", ""}, {"if-range", ""}, {"if-unmodified-since", ""}, {"last-modified", ""},
+      {"link", ""}, {"location", ""}, {"max-forwards", ""}, {"proxy-authenticate", ""},
+      {"proxy-authorization", ""}, {"range", ""}, {"referer", ""}, {"refresh", ""},
+      {"retry-after", ""}, {"server", ""}, {"set-cookie", ""}, {"strict-transport-security", ""},
+      {"transfer-encoding", ""}, {"user-agent", ""}, {"vary", ""}, {"via", ""},
+      {"www-authenticate", ""}
+  };
+  private static final Map<String, Integer> STATIC_NAMES = new HashMap<>();
+  private static final Map<String, Integer> STATIC_FIELDS = new HashMap<>();
+
+  /**
+   * The Huffman codes of the symbols (RFC 7541, Appendix B).
+   */
+  private static final int[] CODES = {
+      0x1ff8, 0x7fffd8, 0xfffffe2, 0xfffffe3, 0xfffffe4, 0xfffffe5, 0xfffffe6, 0xfffffe7,
+      0xfffffe8, 0xffffea, 0x3ffffffc, 0xfffffe9, 0xfffffea, 0x3ffffffd, 0xfffffeb, 0xfffffec,
+      0xfffffed, 0xfffffee, 0xfffffef, 0xffffff0, 0xffffff1, 0xffffff2, 0x3ffffffe, 0xffffff3,
+      0xffffff4, 0xffffff5, 0xffffff6, 0xffffff7, 0xffffff8, 0xffffff9, 0xffffffa, 0xffffffb,
+      0x14, 0x3f8, 0x3f9, 0xffa, 0x1ff9, 0x15, 0xf8, 0x7fa,
+      0x3fa, 0x3fb, 0xf9, 0x7fb, 0xfa, 0x16, 0x17, 0x18,
+      0x0, 0x1, 0x2, 0x19, 0x1a, 0x1b, 0x1c, 0x1d,
+      0x1e, 0x1f, 0x5c, 0xfb, 0x7ffc, 0x20, 0xffb, 0x3fc,
+      0x1ffa, 0x21, 0x5d, 0x5e, 0x5f, 0x60, 0x61, 0x62,
+      0x63, 0x64, 0x65, 0x66, 0x67, 0x68, 0x69, 0x6a,
+      0x6b, 0x6c, 0x6d, 0x6e, 0x6f, 0x70, 0x71, 0x72,
+      0xfc, 0x73, 0xfd, 0x1ffb, 0x7fff0, 0x1ffc, 0x3ffc, 0x22,
+      0x7ffd, 0x3, 0x23, 0x4, 0x24, 0x5, 0x25, 0x26,
+      0x27, 0x6, 0x74, 0x75, 0x28, 0x29, 0x2a, 0x7,
+      0x2b, 0x76, 0x2c, 0x8, 0x9, 0x2d, 0x77, 0x78,
+      0x79, 0x7a, 0x7b, 0x7ffe, 0x7fc, 0x3ffd, 0x1ffd, 0xffffffc,
+      0xfffe6, 0x3fffd2, 0xfffe7, 0xfffe8, 0x3fffd3, 0x3fffd4, 0x3fffd5, 0x7fffd9,
+      0x3fffd6, 0x7fffda, 0x7fffdb, 0x7fffdc, 0x7fffdd, 0x7fffde, 0xffffeb, 0x7fffdf,
+      0xffffec, 0xffffed, 0x3fffd7, 0x7fffe0, 0xffffee, 0x7fffe1, 0x7fffe2, 0x7fffe3,
+      0x7fffe4, 0x1fffdc, 0x3fffd8, 0x7fffe5, 0x3fffd9, 0x7fffe6, 0x7fffe7, 0xffffef,
+      0x3fffda, 0x1fffdd, 0xfffe9, 0x3fffdb, 0x3fffdc, 0x7fffe8, 0x7fffe9, 0x1fffde,
+      0x7fffea, 0x3fffdd, 0x3fffde, 0xfffff0, 0x1fffdf, 0x3fffdf, 0x7fffeb, 0x7fffec,
+      0x1fffe0, 0x1fffe1, 0x3fffe0, 0x1fffe2, 0x7fffed, 0x3fffe1, 0x7fffee, 0x7fffef,
+      0xfffea, 0x3fffe2, 0x3fffe3, 0x3fffe4, 0x7ffff0, 0x3fffe5, 0x3fffe6, 0x7ffff1,
+      0x3ffffe0, 0x3ffffe1, 0xfffeb, 0x7fff1, 0x3fffe7, 0x7ffff2, 0x3fffe8, 0x1ffffec,
+      0x3ffffe2, 0x3ffffe3, 0x3ffffe4, 0x7ffffde, 0x7ffffdf, 0x3ffffe5, 0xfffff1, 0x1ffffed,
+      0x7fff2, 0x1fffe3, 0x3ffffe6, 0x7ffffe0, 0x7ffffe1, 0x3ffffe7, 0x7ffffe2, 0xfffff2,
+      0x1fffe4, 0x1fffe5, 0x3ffffe8, 0x3ffffe9, 0xffffffd, 0x7ffffe3, 0x7ffffe4, 0x7ffffe5,
+      0xfffec, 0xfffff3, 0xfffed, 0x1fffe6, 0x3fffe9, 0x1fffe7, 0x1fffe8, 0x7ffff3,
+      0x3fffea, 0x3fffeb, 0x1ffffee, 0x1ffffef, 0xfffff4, 0xfffff5, 0x3ffffea, 0x7ffff4,
+      0x3ffffeb, 0x7ffffe6, 0x3ffffec, 0x3ffffed, 0x7ffffe7, 0x7ffffe8, 0x7ffffe9, 0x7ffffea,
+      0x7ffffeb, 0xffffffe, 0x7ffffec, 0x7ffffed, 0x7ffffee, 0x7ffffef, 0x7fffff0, 0x3ffffee
+  };
+  /**
+   * The lengths of the Huffman codes in bits.
+   */
+  private static final byte[] LENGTHS = {
+      13, 23, 28, 28, 28, 28, 28, 28, 28, 24, 30, 28, 28, 30, 28, 28,
+      28, 28, 28, 28, 28, 28, 30, 28, 28, 28, 28, 28, 28, 28, 28, 28,
+      6, 10, 10, 12, 13, 6, 8, 11, 10, 10, 8, 11, 8, 6, 6, 6,
+      5, 5, 5, 6, 6, 6, 6, 6, 6, 6, 7, 8, 15, 6, 12, 10,
+      13, 6, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7,
+      7, 7, 7, 7, 7, 7, 7, 7, 8, 7, 8, 13, 19, 13, 14, 6,
+      15, 5, 6, 5, 6, 5, 6, 6, 6, 5, 7, 7, 6, 6, 6, 5,
+      6, 7, 6, 5, 5, 6, 7, 7, 7, 7, 7, 15, 11, 14, 13, 28,
+      20, 22, 20, 20, 22, 22, 22, 23, 22, 23, 23, 23, 23, 23, 24, 23,
+      24, 24, 22, 23, 24, 23, 23, 23, 23, 21, 22, 23, 22, 23, 23, 24,
+      22, 21, 20, 22, 22, 23, 23, 21, 23, 22, 22, 24, 21, 22, 23, 23,
+      21, 21, 22, 21, 23, 22, 23, 23, 20, 22, 22, 22, 23, 22, 22, 23,
+      26, 26, 20, 19, 22, 23, 22, 25, 26, 26, 26, 27, 27, 26, 24, 25,
+      19, 21, 26, 27, 27, 26, 27, 24, 21, 21, 26, 26, 28, 27, 27, 27,
+      20, 24, 20, 21, 22, 21, 21, 23, 22, 22, 25, 25, 24, 24, 26, 23,
+      26, 27, 26, 26, 27, 27, 27, 27, 27, 28, 27, 27, 27, 27, 27, 26
+  };
+  private static final HuffmanNode HUFFMAN_ROOT = new HuffmanNode();
+
+  static {
+    for (int i = STATIC_TABLE.length - 1; i >= 0; --i) {
+      STATIC_NAMES.put(STATIC_TABLE[i][0], i + 1);
+      STATIC_FIELDS.put(STATIC_TABLE[i][0] + ':' + STATIC_TABLE[i][1], i + 1);
+    }
+    for (int symbol = 0; symbol < CODES.length; ++symbol) {
+      HuffmanNode node = HUFFMAN_ROOT;
+      for (int bit = LENGTHS[symbol] - 1; bit >= 0; --bit) {
+        node = node.child((CODES[symbol] >>> bit) & 1);
+      }
+      node.symbol = symbol;
+    }
+  }
+
+  /**
+   * Private constructor to prevent new instance.
+   */
+  private Hpack() {
+  }
+
+  /**
+   * Decodes the header blocks of a connection, maintaining its dynamic table.
+   */
+  static final class Decoder {
+    private final List<String[]> dynamicTable = new ArrayList<>();
+    private final int maxTableSizeLimit;
+    private int maxTableSize;
+    private int tableSize = 0;
+
+    /**
+     * Constructs a new decoder.
+     *
+     * @param maxTableSize the maximum size of the dynamic table announced to the peer
+     */
+    Decoder(int maxTableSize) {
+      this.maxTableSizeLimit = maxTableSize;
+      this.maxTableSize = maxTableSize;
+    }
+
+    /**
+     * Decodes a complete header block.
+     *
+     * @param block the header block
+     * @return the header fields in order, each as a name and value pair
+     * @throws IOException if the header block is malformed
+     */
+    List<String[]> decode(byte[] block) throws IOException {
+      List<String[]> fields = new ArrayList<>();
+      int[] position = {0};
+      while (position[0] < block.length) {
+        int b = block[position[0]] & 0xff;
+        if ((b & 0x80) != 0) {
+          fields.add(field(readInt(block, position, 7)));
+        } else if ((b & 0xc0) == 0x40) {
+          String[] field = readLiteral(block, position, 6);
+          add(field);
+          fields.add(field);
+        } else if ((b & 0xe0) == 0x20) {
+          if (!fields.isEmpty()) {
+            throw new ProtocolException("HPACK table size update after a header field");
+          }
+          int size = readInt(block, position, 5);
+          if (size > maxTableSizeLimit) {
+            throw new ProtocolException("HPACK table size update beyond the limit: " + size);
+          }
+          maxTableSize = size;
+          evict(0);
+        } else {
+          fields.add(readLiteral(block, position, 4));
+        }
+      }
+      return fields;
+    }
+
+    /**
+     * Gets the current size of the dynamic table.
+     *
+     * @return the size of the dynamic table
+     */
+    int getTableSize() {
+      return tableSize;
+    }
+
+    private String[] field(int index) throws IOException {
+      if (index <= 0) {
+        throw new ProtocolException("Invalid HPACK index: " + index);
+      } else if (index <= STATIC_TABLE.length) {
+        return STATIC_TABLE[index - 1];
+      } else if (index - STATIC_TABLE.length <= dynamicTable.size()) {
+        return dynamicTable.get(index - STATIC_TABLE.length - 1);
+      }
+      throw new ProtocolException("Invalid HPACK index: " + index);
+    }
+
+    private String[] readLiteral(byte[] block, int[] position, int prefix) throws IOException {
+      int index = readInt(block, position, prefix);
+      String name = (index == 0) ? readString(block, position) : field(index)[0];
+      return new String[]{name, readString(block, position)};
+    }
+
+    private void add(String[] field) {
+      int size = entrySize(field);
+      evict(size);
+      if (size <= maxTableSize) {
+        dynamicTable.add(0, field);
+        tableSize += size;
+      }
+    }
+
+    private void evict(int room) {
+      while (!dynamicTable.isEmpty() && tableSize + room > maxTableSize) {
+        tableSize -= entrySize(dynamicTable.remove(dynamicTable.size() - 1));
+      }
+    }
+
+    private static int entrySize(String[] field) {
+      return field[0].length() + field[1].length() + 32;
+    }
+
+    private static int readInt(byte[] block, int[] position, int prefix) throws IOException {
+      int mask = (1 << prefix) - 1;
+      long value = block[position[0]++] & mask;
+      if (value < mask) {
+        return (int) value;
+      }
+      int shift = 0;
+      int b;
+      do {
+        if (position[0] >= block.length) {
+          throw new ProtocolException("Truncated HPACK integer");
+        }
+        b = block[position[0]++] & 0xff;
+        value += (long) (b & 0x7f) << shift;
+        shift += 7;
+        if (value > Integer.MAX_VALUE) {
+          throw new ProtocolException("HPACK integer overflow");
+        }
+      } while ((b & 0x80) != 0);
+      return (int) value;
+    }
+
+    private static String readString(byte[] block, int[] position) throws IOException {
+      if (position[0] >= block.length) {
+        throw new ProtocolException("Truncated HPACK string");
+      }
+      boolean huffman = (block[position[0]] & 0x80) != 0;
+      int length = readInt(block, position, 7);
+      if (length > block.length - position[0]) {
+        throw new ProtocolException("Truncated HPACK string");
+      }
+      int start = position[0];
+      position[0] += length;
+      return huffman ? decodeHuffman(block, start, length) : new String(block, start, length, ISO_8859_1);
+    }
+  }
+
+  /**
+   * Encodes header blocks without touching the dynamic table, so it keeps no state.
+   * Credentials are encoded as never-indexed literals.
+   */
+  static final class Encoder {
+    /**
+     * Encodes a header field.
+     *
+     * @param name  the lower-case header name
+     * @param value the header value
+     * @param out   the header block
+     */
+    void encode(String name, String value, ByteArrayOutputStream out) {
+      Integer index = STATIC_FIELDS.get(name + ':' + value);
+      if (index != null) {
+        writeInt(out, 0x80, 7, index);
+        return;
+      }
+      boolean sensitive = "authorization".equals(name) || "cookie".equals(name);
+      index = STATIC_NAMES.get(name);
+      writeInt(out, sensitive ? 0x10 : 0x00, 4, (index == null) ? 0 : index);
+      if (index == null) {
+        writeString(out, name);
+      }
+      writeString(out, value);
+    }
+
+    private static void writeString(ByteArrayOutputStream out, String value) {
+      byte[] bytes = value.getBytes(ISO_8859_1);
+      writeInt(out, 0x00, 7, bytes.length);
+      out.write(bytes, 0, bytes.length);
+    }
+
+    private static void writeInt(ByteArrayOutputStream out, int flags, int prefix, int value) {
+      int mask = (1 << prefix) - 1;
+      if (value < mask) {
+        out.write(flags | value);
+        return;
+      }
+      out.write(flags | mask);
+      value -= mask;
+      while (value >= 0x80) {
+        out.write((value & 0x7f) | 0x80);
+        value >>>= 7;
+      }
+      out.write(value);
+    }
+  }
+
+  private static String decodeHuffman(byte[] data, int offset, int length) throws IOException {
+    StringBuilder decoded = new StringBuilder(length * 8 / 5);
+    HuffmanNode node = HUFFMAN_ROOT;
+    int pendingBits = 0;
+    boolean pendingOnes = true;
+    for (int i = offset; i < offset + length; ++i) {
+      for (int bit = 7; bit >= 0; --bit) {
+        int value = (data[i] >>> bit) & 1;
+        node = (value == 0) ? node.zero : node.one;
+        if (node == null) {
+          throw new ProtocolException("Invalid Huffman code");
+        }
+        pendingBits++;
+        pendingOnes &= value == 1;
+        if (node.symbol >= 0) {
+          decoded.append((char) node.symbol);
+          node = HUFFMAN_ROOT;
+          pendingBits = 0;
+          pendingOnes = true;
+        }
+      }
+    }
+    if (pendingBits > 7 || !pendingOnes) {
+      throw new ProtocolException("Invalid Huffman padding");
+    }
+    return decoded.toString();
+  }
+
+  /**
+   * A node of the Huffman decoding tree.
+   */
+  private static final class HuffmanNode {
+    private HuffmanNode zero;
+    private HuffmanNode one;
+    private int symbol = -1;
+
+    private HuffmanNode child(int bit) {
+      if (bit == 0) {
+        if (zero == null) {
+          zero = new HuffmanNode();
+        }
+        return zero;
+      }
+      if (one == null) {
+        one = new HuffmanNode();
+      }
+      return one;
+    }
+  }
+}
@@ -0,0 +1,92 @@
+package com.example.sdk.transport;
+
+import com.example.sdk.types.HttpMethod;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URL;
+import java.util.Map;
+
+/**
+ * Encodes HTTP/1.1 requests on the wire.
+ *
+ * @author Feng Zheng
+ * @version 1.0
+ * @since 1.0
+ */
+final class Http1Codec {
+  /**
+   * Private constructor to prevent new instance.
+   */
+  private Http1Codec() {
+  }
+
+  /**
+   * Encodes the request line and the headers of the HTTP request.
+   *
+   * @param request   the HTTP request
+   * @param keepAlive whether the connection should be kept alive after the exchange
+   * @return the encoded request head
+   */
+  static byte[] encodeHead(HttpTransport.Request request, boolean keepAlive) {
+    URL url = request.getUrl();
+    String target = url.getFile();
+    StringBuilder head = new StringBuilder(256)
+        .append(request.getMethod().toString()).append(' ')
+        .append(target.isEmpty() ? "/" : target).append(" HTTP/1.1\r\n")
+        .append("Host: ").append(hostHeader(url)).append("\r\n");
+    for (Map.Entry<String, String> header : request.getHeaders().entrySet()) {
+      head.append(header.getKey()).append(": ").append(header.getValue()).append("\r\n");
+    }
+    if (request.getBody() != null) {
+      head.append("Content-Length: ").append(request.getBody().length).append("\r\n");
+    }
+    head.append("Connection: ").append(keepAlive ? "keep-alive" : "close").append("\r\n\r\n");
+    try {
+      return head.toString().getBytes("ISO-8859-1");
+    } catch (UnsupportedEncodingException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Gets the value of the Host header of the URL.
+   *
+   * @param url the request URL
+   * @return the host and the port if it is not the default one of the scheme
+   */
+  static String hostHeader(URL url) {
+    int port = url.getPort();
+    return (port == -1 || port == url.getDefaultPort()) ? url.getHost() : url.getHost() + ":" + port;
+  }
+
+  /**
+   * Gets the key of the connection pool of the URL.
+   *
+   * @param url the request URL
+   * @return the scheme, the host and the effective port of the URL
+   */
+  static String poolKey(URL url) {
+    return url.getProtocol() + "://" + url.getHost() + ":" + port(url);
+  }
+
+  /**
+   * Whether a request of the method may be sent again once the server may have processed it,
+   * e.g. when the connection fails before the response.
+   *
+   * @param method the HTTP method
+   * @return whether the method is idempotent
+   */
+  static boolean isIdempotent(HttpMethod method) {
+    return method != HttpMethod.POST;
+  }
+
+  /**
+   * Gets the effective port of the URL.
+   *
+   * @param url the request URL
+   * @return the port of the URL, or the default port of its scheme
+   */
+  static int port(URL url) {
+    return url.getPort() == -1 ? url.getDefaultPort() : url.getPort();
+  }
+}
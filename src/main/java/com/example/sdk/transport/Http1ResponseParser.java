@@ -0,0 +1,306 @@
+package com.example.sdk.transport;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Incremental parser of a HTTP/1.1 response. The parser is fed with the bytes as they
+ * arrive from the connection, so the same parser serves both the blocking and the
+ * non-blocking transports. It handles content-length, chunked and close-delimited bodies.
+ *
+ * @author Feng Zheng
+ * @version 1.0
+ * @since 1.0
+ */
+final class Http1ResponseParser {
+  /**
+   * Maximum length of the status line and of a single header line.
+   */
+  private static final int MAX_LINE_LENGTH = 64 * 1024;
+  /**
+   * Maximum size of the body buffer allocated ahead of the bytes, whatever length the server declares.
+   */
+  private static final int MAX_INITIAL_BODY_SIZE = 64 * 1024;
+
+  /**
+   * The parser states.
+   */
+  private enum State {
+    STATUS_LINE, HEADERS, FIXED_BODY, CHUNK_SIZE, CHUNK_DATA, CHUNK_END, TRAILERS, UNTIL_CLOSE, DONE
+  }
+
+  /**
+   * The line being read.
+   */
+  private final StringBuilder line = new StringBuilder(128);
+  private State state = State.STATUS_LINE;
+  private boolean started = false;
+  private boolean http10 = false;
+  private boolean keepAlive = false;
+  private int statusCode;
+  private Map<String, List<String>> headers = newHeaders();
+  private long remaining;
+  private byte[] body = new byte[0];
+  private int bodySize = 0;
+
+  /**
+   * Feeds the parser with the bytes received from the connection.
+   *
+   * @param in the received bytes
+   * @return whether the response is complete
+   * @throws IOException the I/O exception if the response is malformed
+   */
+  boolean feed(ByteBuffer in) throws IOException {
+    if (in.hasRemaining()) {
+      started = true;
+    }
+    while (in.hasRemaining() && state != State.DONE) {
+      switch (state) {
+        case FIXED_BODY:
+        case CHUNK_DATA:
+          int n = (int) Math.min(remaining, in.remaining());
+          append(in, n);
+          remaining -= n;
+          if (remaining == 0) {
+            state = (state == State.FIXED_BODY) ? State.DONE : State.CHUNK_END;
+          }
+          break;
+        case UNTIL_CLOSE:
+          append(in, in.remaining());
+          break;
+        default:
+          if (readLine(in)) {
+            onLine(line.toString());
+            line.setLength(0);
+          }
+          break;
+      }
+    }
+    return state == State.DONE;
+  }
+
+  /**
+   * Notifies the parser that the peer closed the connection.
+   *
+   * @throws IOException the I/O exception if the response is incomplete
+   */
+  void endOfStream() throws IOException {
+    if (state == State.UNTIL_CLOSE) {
+      state = State.DONE;
+    } else if (state != State.DONE) {
+      throw new EOFException("Unexpected end of stream in " + state);
+    }
+  }
+
+  /**
+   * Whether any byte of the response was received.
+   *
+   * @return whether any byte of the response was received
+   */
+  boolean isStarted() {
+    return started;
+  }
+
+  /**
+   * Whether the response is complete.
+   *
+   * @return whether the response is complete
+   */
+  boolean isDone() {
+    return state == State.DONE;
+  }
+
+  /**
+   * Whether the connection can be reused once the response is complete.
+   *
+   * @return whether the connection can be reused
+   */
+  boolean isKeepAlive() {
+    return keepAlive;
+  }
+
+  /**
+   * Gets the parsed response.
+   *
+   * @return the parsed response
+   */
+  HttpTransport.Response getResponse() {
+    byte[] bytes = (bodySize == body.length) ? body : Arrays.copyOf(body, bodySize);
+    return new HttpTransport.Response(statusCode, headers, bytes);
+  }
+
+  private boolean readLine(ByteBuffer in) throws IOException {
+    while (in.hasRemaining()) {
+      char c = (char) (in.get() & 0xff);
+      if (c == '\n') {
+        int length = line.length();
+        if (length > 0 && line.charAt(length - 1) == '\r') {
+          line.setLength(length - 1);
+        }
+        return true;
+      }
+      if (line.length() >= MAX_LINE_LENGTH) {
+        throw new ProtocolException("Response line too long");
+      }
+      line.append(c);
+    }
+    return false;
+  }
+
+  private void onLine(String text) throws IOException {
+    switch (state) {
+      case STATUS_LINE:
+        if (!text.isEmpty()) {
+          parseStatusLine(text);
+          state = State.HEADERS;
+        }
+        break;
+      case HEADERS:
+        if (text.isEmpty()) {
+          onHeadersComplete();
+        } else {
+          int colon = text.indexOf(':');
+          if (colon <= 0) {
+            throw new ProtocolException("Malformed header: " + text);
+          }
+          String name = text.substring(0, colon).trim();
+          List<String> values = headers.get(name);
+          if (values == null) {
+            values = new ArrayList<>(1);
+            headers.put(name, values);
+          }
+          values.add(text.substring(colon + 1).trim());
+        }
+        break;
+      case CHUNK_SIZE:
+        int extension = text.indexOf(';');
+        String size = (extension < 0 ? text : text.substring(0, extension)).trim();
+        try {
+          remaining = Long.parseLong(size, 16);
+        } catch (NumberFormatException e) {
+          throw new ProtocolException("Malformed chunk size: " + text);
+        }
+        if (remaining < 0) {
+          throw new ProtocolException("Malformed chunk size: " + text);
+        }
+        if (remaining == 0) {
+          state = State.TRAILERS;
+        } else {
+          expect(remaining);
+          state = State.CHUNK_DATA;
+        }
+        break;
+      case CHUNK_END:
+        if (!text.isEmpty()) {
+          throw new ProtocolException("Malformed chunk terminator");
+        }
+        state = State.CHUNK_SIZE;
+        break;
+      case TRAILERS:
+        if (text.isEmpty()) {
+          state = State.DONE;
+        }
+        break;
+      default:
+        throw new IllegalStateException("Unexpected line in " + state);
+    }
+  }
+
+  private void parseStatusLine(String text) throws IOException {
+    // HTTP/1.1 200 OK
+    if (!text.startsWith("HTTP/1.") || text.length() < 12 || text.charAt(8) != ' ') {
+      throw new ProtocolException("Malformed status line: " + text);
+    }
+    http10 = text.charAt(7) == '0';
+    try {
+      statusCode = Integer.parseInt(text.substring(9, 12));
+    } catch (NumberFormatException e) {
+      throw new ProtocolException("Malformed status line: " + text);
+    }
+  }
+
+  private void onHeadersComplete() throws IOException {
+    if (statusCode >= 100 && statusCode < 200) {
+      // interim response, the final one follows
+      headers = newHeaders();
+      state = State.STATUS_LINE;
+      return;
+    }
+    String connection = joined("Connection");
+    keepAlive = http10 ? connection.contains("keep-alive") : !connection.contains("close");
+    String contentLength = firstHeader("Content-Length");
+    if (statusCode == 204 || statusCode == 304) {
+      state = State.DONE;
+    } else if (joined("Transfer-Encoding").contains("chunked")) {
+      state = State.CHUNK_SIZE;
+    } else if (contentLength != null) {
+      try {
+        remaining = Long.parseLong(contentLength.trim());
+      } catch (NumberFormatException e) {
+        throw new ProtocolException("Malformed content length: " + contentLength);
+      }
+      if (remaining < 0) {
+        throw new ProtocolException("Malformed content length: " + contentLength);
+      }
+      expect(remaining);
+      state = (remaining == 0) ? State.DONE : State.FIXED_BODY;
+    } else {
+      keepAlive = false;
+      state = State.UNTIL_CLOSE;
+    }
+  }
+
+  private String firstHeader(String name) {
+    List<String> values = headers.get(name);
+    return (values == null || values.isEmpty()) ? null : values.get(0);
+  }
+
+  private String joined(String name) {
+    List<String> values = headers.get(name);
+    if (values == null) {
+      return "";
+    }
+    StringBuilder builder = new StringBuilder();
+    for (String value : values) {
+      builder.append(value.toLowerCase()).append(',');
+    }
+    return builder.toString();
+  }
+
+  private void expect(long more) throws IOException {
+    checkSize(bodySize + more);
+    // the declared length is not trusted for the allocation, the buffer grows with the bytes read
+    reserve(Math.min(more, MAX_INITIAL_BODY_SIZE));
+  }
+
+  private void reserve(long more) throws IOException {
+    long required = bodySize + more;
+    checkSize(required);
+    if (required > body.length) {
+      body = Arrays.copyOf(body, (int) Math.max(required, Math.min(body.length * 2L, Integer.MAX_VALUE - 8)));
+    }
+  }
+
+  private static void checkSize(long size) throws ProtocolException {
+    if (size > Integer.MAX_VALUE - 8) {
+      throw new ProtocolException("Response body too large");
+    }
+  }
+
+  private void append(ByteBuffer in, int length) throws IOException {
+    reserve(length);
+    in.get(body, bodySize, length);
+    bodySize += length;
+  }
+
+  private static Map<String, List<String>> newHeaders() {
+    return new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+  }
+}
@@ -0,0 +1,839 @@
+package com.example.sdk.transport;
+
+import com.example.sdk.Deadline;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ProtocolException;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A cleartext HTTP/2 connection (RFC 7540) multiplexing concurrent requests as streams.
+ * <p>The frames are read by a dedicated thread, which also notifies the callbacks, and written
+ * by the requesting threads under a write lock. Request bodies are sent within the flow-control
+ * windows granted by the server, without ever blocking the reading thread.</p>
+ *
+ * @author Feng Zheng
+ * @version 1.0
+ * @since 1.0
+ */
+final class Http2Connection implements Runnable {
+  private static final byte[] PREFACE = "PRI * HTTP/2.0\r\n\r\nSM\r\n\r\n".getBytes(Charset.forName("US-ASCII"));
+  private static final int DATA = 0x0;
+  private static final int HEADERS = 0x1;
+  private static final int RST_STREAM = 0x3;
+  private static final int SETTINGS = 0x4;
+  private static final int PUSH_PROMISE = 0x5;
+  private static final int PING = 0x6;
+  private static final int GOAWAY = 0x7;
+  private static final int WINDOW_UPDATE = 0x8;
+  private static final int CONTINUATION = 0x9;
+  private static final int FLAG_END_STREAM = 0x1;
+  private static final int FLAG_ACK = 0x1;
+  private static final int FLAG_END_HEADERS = 0x4;
+  private static final int FLAG_PADDED = 0x8;
+  private static final int FLAG_PRIORITY = 0x20;
+  private static final int SETTINGS_HEADER_TABLE_SIZE = 0x1;
+  private static final int SETTINGS_ENABLE_PUSH = 0x2;
+  private static final int SETTINGS_MAX_CONCURRENT_STREAMS = 0x3;
+  private static final int SETTINGS_INITIAL_WINDOW_SIZE = 0x4;
+  private static final int SETTINGS_MAX_FRAME_SIZE = 0x5;
+  private static final int ERROR_NO_ERROR = 0x0;
+  private static final int ERROR_PROTOCOL = 0x1;
+  private static final int ERROR_CANCEL = 0x8;
+  private static final int DEFAULT_WINDOW_SIZE = 65535;
+  private static final int DEFAULT_FRAME_SIZE = 16384;
+  /**
+   * The flow-control window granted to the server, per stream and for the connection.
+   */
+  private static final int RECEIVE_WINDOW = 16 * 1024 * 1024;
+  /**
+   * The timer resetting the streams past their deadline, shared by all the connections.
+   */
+  private static final ScheduledThreadPoolExecutor TIMER = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+    @Override
+    public Thread newThread(Runnable runnable) {
+      Thread thread = new Thread(runnable, "api-h2-timer");
+      thread.setDaemon(true);
+      return thread;
+    }
+  });
+
+  static {
+    // most deadlines are cancelled long before they are due
+    TIMER.setRemoveOnCancelPolicy(true);
+  }
+
+  private final Http2Transport transport;
+  private final Socket socket;
+  private final DataInputStream in;
+  private final OutputStream out;
+  private final Object writeLock = new Object();
+  private final Hpack.Decoder decoder = new Hpack.Decoder(Hpack.DEFAULT_TABLE_SIZE);
+  private final Hpack.Encoder encoder = new Hpack.Encoder();
+  private final Map<Integer, Stream> streams = new HashMap<>();
+  private final ArrayDeque<Stream> pending = new ArrayDeque<>();
+  private int nextStreamId = 1;
+  private int maxConcurrentStreams = Integer.MAX_VALUE;
+  private int initialSendWindow = DEFAULT_WINDOW_SIZE;
+  private int maxSendFrameSize = DEFAULT_FRAME_SIZE;
+  private long sendWindow = DEFAULT_WINDOW_SIZE;
+  private int unacknowledged = 0;
+  private boolean shutdown = false;
+
+  private Http2Connection(Http2Transport transport, Socket socket) throws IOException {
+    this.transport = transport;
+    this.socket = socket;
+    this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), DEFAULT_FRAME_SIZE));
+    this.out = new BufferedOutputStream(socket.getOutputStream(), DEFAULT_FRAME_SIZE);
+  }
+
+  /**
+   * Opens a connection to the host of the URL, with prior knowledge that it speaks HTTP/2.
+   *
+   * @param transport        the transport the connection belongs to
+   * @param url              the URL
+   * @param connectTimeoutMs the time allowed to connect (in milliseconds), or 0 for no limit
+   * @return the connection
+   * @throws IOException the I/O exception
+   */
+  static Http2Connection open(Http2Transport transport, URL url, int connectTimeoutMs) throws IOException {
+    Socket socket = new Socket();
+    try {
+      socket.setTcpNoDelay(true);
+      socket.connect(new InetSocketAddress(url.getHost(), Http1Codec.port(url)), connectTimeoutMs);
+      Http2Connection connection = new Http2Connection(transport, socket);
+      connection.start(Http1Codec.poolKey(url));
+      return connection;
+    } catch (IOException e) {
+      socket.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Checks whether the connection accepts new streams.
+   *
+   * @return whether the connection accepts new streams
+   */
+  synchronized boolean isUsable() {
+    return !shutdown;
+  }
+
+  /**
+   * Sends the request on a new stream of the connection.
+   *
+   * @param request  the request
+   * @param callback the callback notified with the response
+   * @return false if the connection no longer accepts new streams
+   */
+  boolean newStream(HttpTransport.Request request, AsyncHttpTransport.Callback callback) {
+    final Stream stream = new Stream(request, callback);
+    boolean queued;
+    synchronized (this) {
+      if (shutdown) {
+        return false;
+      }
+      queued = streams.size() >= maxConcurrentStreams;
+      if (queued) {
+        pending.addLast(stream);
+      }
+    }
+    if (!queued) {
+      send(stream);
+    }
+    Deadline deadline = request.getDeadline();
+    if (deadline != null) {
+      stream.timeout = TIMER.schedule(new Runnable() {
+        @Override
+        public void run() {
+          abort(stream, new SocketTimeoutException("Timed out waiting for the response of stream " + stream.id));
+        }
+      }, deadline.getRemainingNanos(), TimeUnit.NANOSECONDS);
+    }
+    request.onCancel(new Runnable() {
+      @Override
+      public void run() {
+        abort(stream, new InterruptedIOException("Request cancelled: " + stream.request.getMethod()
+            + " " + stream.request.getUrl()));
+      }
+    });
+    return true;
+  }
+
+  /**
+   * Closes the connection, failing the streams in flight.
+   */
+  void close() {
+    synchronized (this) {
+      shutdown = true;
+    }
+    try {
+      synchronized (writeLock) {
+        writeGoAway(ERROR_NO_ERROR);
+        out.flush();
+      }
+    } catch (IOException e) {
+      // the connection is closed anyway
+    }
+    closeSocket();
+  }
+
+  @Override
+  public void run() {
+    IOException failure;
+    try {
+      while (true) {
+        readFrame();
+      }
+    } catch (IOException e) {
+      failure = e;
+    }
+    closeSocket();
+    transport.onClosed(this);
+    List<Stream> failed;
+    List<Stream> unsent;
+    synchronized (this) {
+      shutdown = true;
+      failed = new ArrayList<>(streams.values());
+      streams.clear();
+      unsent = new ArrayList<>(pending);
+      pending.clear();
+    }
+    for (Stream stream : failed) {
+      stream.fail(failure);
+    }
+    for (Stream stream : unsent) {
+      transport.executeAsync(stream.request, stream.callback);
+    }
+  }
+
+  private void start(String name) throws IOException {
+    synchronized (writeLock) {
+      out.write(PREFACE);
+      byte[] settings = new byte[12];
+      putSetting(settings, 0, SETTINGS_ENABLE_PUSH, 0);
+      putSetting(settings, 6, SETTINGS_INITIAL_WINDOW_SIZE, RECEIVE_WINDOW);
+      writeFrame(SETTINGS, 0, 0, settings, 0, settings.length);
+      writeWindowUpdate(0, RECEIVE_WINDOW - DEFAULT_WINDOW_SIZE);
+      out.flush();
+    }
+    Thread reader = new Thread(this, "api-h2-" + name);
+    reader.setDaemon(true);
+    reader.start();
+  }
+
+  private void send(Stream stream) {
+    boolean refused;
+    try {
+      synchronized (writeLock) {
+        synchronized (this) {
+          refused = shutdown || nextStreamId < 0;
+          if (refused) {
+            shutdown = true;
+          } else {
+            stream.id = nextStreamId;
+            nextStreamId += 2;
+            stream.sendWindow = initialSendWindow;
+            streams.put(stream.id, stream);
+          }
+        }
+        if (!refused) {
+          writeHeaders(stream);
+          out.flush();
+        }
+      }
+      if (!refused) {
+        flushData();
+      }
+    } catch (IOException e) {
+      boolean owned;
+      synchronized (this) {
+        shutdown = true;
+        owned = streams.remove(stream.id) == stream;
+      }
+      closeSocket();
+      transport.onClosed(this);
+      if (owned && stream.id > 1) {
+        // the server went away between two streams, retry once on a fresh connection
+        transport.executeAsync(stream.request, stream.callback);
+      } else if (owned) {
+        stream.fail(e);
+      }
+      return;
+    }
+    if (refused) {
+      transport.onClosed(this);
+      transport.executeAsync(stream.request, stream.callback);
+    }
+  }
+
+  private void writeHeaders(Stream stream) throws IOException {
+    HttpTransport.Request request = stream.request;
+    URL url = request.getUrl();
+    String path = url.getFile();
+    ByteArrayOutputStream block = new ByteArrayOutputStream(256);
+    encoder.encode(":method", request.getMethod().toString(), block);
+    encoder.encode(":scheme", url.getProtocol().toLowerCase(Locale.ENGLISH), block);
+    encoder.encode(":authority", Http1Codec.hostHeader(url), block);
+    encoder.encode(":path", path.isEmpty() ? "/" : path, block);
+    for (Map.Entry<String, String> header : request.getHeaders().entrySet()) {
+      String name = header.getKey().toLowerCase(Locale.ENGLISH);
+      if (!isConnectionSpecific(name)) {
+        encoder.encode(name, header.getValue(), block);
+      }
+    }
+    if (stream.body != null) {
+      encoder.encode("content-length", Integer.toString(stream.body.length), block);
+    }
+    byte[] bytes = block.toByteArray();
+    int endStream = (stream.body == null) ? FLAG_END_STREAM : 0;
+    int offset = 0;
+    int type = HEADERS;
+    do {
+      int length = Math.min(bytes.length - offset, maxSendFrameSize);
+      int flags = (offset + length == bytes.length) ? FLAG_END_HEADERS : 0;
+      writeFrame(type, (type == HEADERS) ? flags | endStream : flags, stream.id, bytes, offset, length);
+      offset += length;
+      type = CONTINUATION;
+    } while (offset < bytes.length);
+  }
+
+  /**
+   * Sends as much of the request bodies as the flow-control windows allow.
+   */
+  private void flushData() throws IOException {
+    synchronized (writeLock) {
+      boolean written = false;
+      while (true) {
+        Stream stream = null;
+        int offset = 0;
+        int length = 0;
+        boolean last = false;
+        synchronized (this) {
+          if (sendWindow > 0) {
+            for (Stream candidate : streams.values()) {
+              if (candidate.body != null && candidate.sendWindow > 0 && candidate.sent < candidate.body.length) {
+                stream = candidate;
+                break;
+              }
+            }
+          }
+          if (stream != null) {
+            offset = stream.sent;
+            length = (int) Math.min(Math.min(sendWindow, stream.sendWindow),
+                Math.min(maxSendFrameSize, stream.body.length - offset));
+            stream.sent += length;
+            stream.sendWindow -= length;
+            sendWindow -= length;
+            last = stream.sent == stream.body.length;
+          }
+        }
+        if (stream == null) {
+          break;
+        }
+        writeFrame(DATA, last ? FLAG_END_STREAM : 0, stream.id, stream.body, offset, length);
+        written = true;
+      }
+      if (written) {
+        out.flush();
+      }
+    }
+  }
+
+  private void readFrame() throws IOException {
+    int length = in.readUnsignedByte() << 16 | in.readUnsignedShort();
+    int type = in.readUnsignedByte();
+    int flags = in.readUnsignedByte();
+    int streamId = in.readInt() & Integer.MAX_VALUE;
+    if (length > DEFAULT_FRAME_SIZE) {
+      throw protocolError("Frame too large: " + length);
+    }
+    byte[] payload = new byte[length];
+    in.readFully(payload);
+    switch (type) {
+      case DATA:
+        onData(streamId, flags, payload);
+        break;
+      case HEADERS:
+        onHeaders(streamId, flags, payload);
+        break;
+      case RST_STREAM:
+        onReset(streamId, payload);
+        break;
+      case SETTINGS:
+        if ((flags & FLAG_ACK) == 0) {
+          onSettings(payload);
+        }
+        break;
+      case PUSH_PROMISE:
+        throw protocolError("Server push is disabled");
+      case PING:
+        if ((flags & FLAG_ACK) == 0) {
+          synchronized (writeLock) {
+            writeFrame(PING, FLAG_ACK, 0, payload, 0, payload.length);
+            out.flush();
+          }
+        }
+        break;
+      case GOAWAY:
+        onGoAway(payload);
+        break;
+      case WINDOW_UPDATE:
+        onWindowUpdate(streamId, payload);
+        break;
+      case CONTINUATION:
+        throw protocolError("Unexpected CONTINUATION frame");
+      default:
+        // PRIORITY and unknown frames are ignored
+        break;
+    }
+  }
+
+  private void onData(int streamId, int flags, byte[] payload) throws IOException {
+    int offset = 0;
+    int length = payload.length;
+    if ((flags & FLAG_PADDED) != 0) {
+      int padding = unpad(payload);
+      offset = 1;
+      length = payload.length - 1 - padding;
+    }
+    Stream stream;
+    int streamUpdate = 0;
+    int connectionUpdate = 0;
+    synchronized (this) {
+      stream = streams.get(streamId);
+      unacknowledged += payload.length;
+      if (unacknowledged >= RECEIVE_WINDOW / 2) {
+        connectionUpdate = unacknowledged;
+        unacknowledged = 0;
+      }
+      if (stream != null) {
+        stream.data.write(payload, offset, length);
+        stream.unacknowledged += payload.length;
+        if ((flags & FLAG_END_STREAM) == 0 && stream.unacknowledged >= RECEIVE_WINDOW / 2) {
+          streamUpdate = stream.unacknowledged;
+          stream.unacknowledged = 0;
+        }
+      }
+    }
+    if (connectionUpdate > 0 || streamUpdate > 0) {
+      synchronized (writeLock) {
+        if (connectionUpdate > 0) {
+          writeWindowUpdate(0, connectionUpdate);
+        }
+        if (streamUpdate > 0) {
+          writeWindowUpdate(streamId, streamUpdate);
+        }
+        out.flush();
+      }
+    }
+    if (stream != null && (flags & FLAG_END_STREAM) != 0) {
+      complete(stream);
+    }
+  }
+
+  private void onHeaders(int streamId, int flags, byte[] payload) throws IOException {
+    int offset = 0;
+    int length = payload.length;
+    if ((flags & FLAG_PADDED) != 0) {
+      int padding = unpad(payload);
+      offset = 1;
+      length -= 1 + padding;
+    }
+    if ((flags & FLAG_PRIORITY) != 0) {
+      offset += 5;
+      length -= 5;
+    }
+    if (length < 0) {
+      throw protocolError("Malformed HEADERS frame");
+    }
+    ByteArrayOutputStream block = new ByteArrayOutputStream(length);
+    block.write(payload, offset, length);
+    int continuationFlags = flags;
+    while ((continuationFlags & FLAG_END_HEADERS) == 0) {
+      int continuationLength = in.readUnsignedByte() << 16 | in.readUnsignedShort();
+      int type = in.readUnsignedByte();
+      continuationFlags = in.readUnsignedByte();
+      int continuationStream = in.readInt() & Integer.MAX_VALUE;
+      if (type != CONTINUATION || continuationStream != streamId || continuationLength > DEFAULT_FRAME_SIZE) {
+        throw protocolError("Expected CONTINUATION frame of stream " + streamId);
+      }
+      byte[] fragment = new byte[continuationLength];
+      in.readFully(fragment);
+      block.write(fragment, 0, fragment.length);
+    }
+    // the header block is decoded even for unknown streams to keep the dynamic table in sync
+    List<String[]> fields = decoder.decode(block.toByteArray());
+    Stream stream;
+    synchronized (this) {
+      stream = streams.get(streamId);
+    }
+    if (stream == null) {
+      return;
+    }
+    if (stream.status == 0) {
+      int status = 0;
+      Map<String, List<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+      for (String[] field : fields) {
+        if (":status".equals(field[0])) {
+          try {
+            status = Integer.parseInt(field[1]);
+          } catch (NumberFormatException e) {
+            throw protocolError("Invalid status: " + field[1]);
+          }
+        } else if (!field[0].startsWith(":")) {
+          List<String> values = headers.get(field[0]);
+          if (values == null) {
+            values = new LinkedList<>();
+            headers.put(field[0], values);
+          }
+          values.add(field[1]);
+        }
+      }
+      if (status == 0) {
+        throw protocolError("Missing :status in the response of stream " + streamId);
+      }
+      if (status >= 200) {
+        stream.status = status;
+        stream.headers = headers;
+      }
+    }
+    if ((flags & FLAG_END_STREAM) != 0) {
+      complete(stream);
+    }
+  }
+
+  private void onReset(int streamId, byte[] payload) throws IOException {
+    if (payload.length != 4) {
+      throw protocolError("Malformed RST_STREAM frame");
+    }
+    Stream stream;
+    synchronized (this) {
+      stream = streams.remove(streamId);
+    }
+    if (stream != null) {
+      stream.fail(new IOException("Stream reset by the server with error code " + readInt(payload, 0)));
+      startPending();
+    }
+  }
+
+  private void onSettings(byte[] payload) throws IOException {
+    if (payload.length % 6 != 0) {
+      throw protocolError("Malformed SETTINGS frame");
+    }
+    synchronized (this) {
+      for (int i = 0; i < payload.length; i += 6) {
+        int identifier = (payload[i] & 0xff) << 8 | (payload[i + 1] & 0xff);
+        int value = readInt(payload, i + 2);
+        switch (identifier) {
+          case SETTINGS_MAX_CONCURRENT_STREAMS:
+            maxConcurrentStreams = value;
+            break;
+          case SETTINGS_INITIAL_WINDOW_SIZE:
+            if (value < 0) {
+              throw protocolError("Invalid initial window size");
+            }
+            for (Stream stream : streams.values()) {
+              stream.sendWindow += value - initialSendWindow;
+            }
+            initialSendWindow = value;
+            break;
+          case SETTINGS_MAX_FRAME_SIZE:
+            if (value < DEFAULT_FRAME_SIZE || value > 0xffffff) {
+              throw protocolError("Invalid max frame size");
+            }
+            maxSendFrameSize = value;
+            break;
+          case SETTINGS_HEADER_TABLE_SIZE:
+            // the encoder never inserts into the dynamic table
+          default:
+            break;
+        }
+      }
+    }
+    synchronized (writeLock) {
+      writeFrame(SETTINGS, FLAG_ACK, 0, payload, 0, 0);
+      out.flush();
+    }
+    startPending();
+    flushData();
+  }
+
+  private void onGoAway(byte[] payload) throws IOException {
+    if (payload.length < 8) {
+      throw protocolError("Malformed GOAWAY frame");
+    }
+    int lastStreamId = readInt(payload, 0) & Integer.MAX_VALUE;
+    List<Stream> unprocessed = new ArrayList<>();
+    boolean idle;
+    synchronized (this) {
+      shutdown = true;
+      for (Stream stream : new ArrayList<>(streams.values())) {
+        if (stream.id > lastStreamId) {
+          streams.remove(stream.id);
+          unprocessed.add(stream);
+        }
+      }
+      unprocessed.addAll(pending);
+      pending.clear();
+      idle = streams.isEmpty();
+    }
+    transport.onClosed(this);
+    // the streams the server never processed are safe to retry on a new connection
+    for (Stream stream : unprocessed) {
+      transport.executeAsync(stream.request, stream.callback);
+    }
+    if (idle) {
+      closeSocket();
+    }
+  }
+
+  private void onWindowUpdate(int streamId, byte[] payload) throws IOException {
+    if (payload.length != 4) {
+      throw protocolError("Malformed WINDOW_UPDATE frame");
+    }
+    int increment = readInt(payload, 0) & Integer.MAX_VALUE;
+    synchronized (this) {
+      if (streamId == 0) {
+        sendWindow += increment;
+      } else {
+        Stream stream = streams.get(streamId);
+        if (stream != null) {
+          stream.sendWindow += increment;
+        }
+      }
+    }
+    flushData();
+  }
+
+  private void complete(Stream stream) {
+    boolean idle;
+    synchronized (this) {
+      streams.remove(stream.id);
+      idle = shutdown && streams.isEmpty() && pending.isEmpty();
+    }
+    if (stream.status == 0) {
+      stream.fail(new ProtocolException("Stream " + stream.id + " ended without a response"));
+    } else {
+      stream.succeed(new HttpTransport.Response(stream.status, stream.headers, stream.data.toByteArray()));
+    }
+    if (idle) {
+      closeSocket();
+    } else {
+      startPending();
+    }
+  }
+
+  /**
+   * Fails the stream past its deadline or cancelled, resetting it if it has been sent.
+   * The other streams of the connection go on.
+   *
+   * @param stream the stream
+   * @param error  the failure of the stream
+   */
+  private void abort(Stream stream, IOException error) {
+    boolean sent;
+    synchronized (this) {
+      if (pending.remove(stream)) {
+        sent = false;
+      } else if (stream.id != 0 && streams.get(stream.id) == stream) {
+        streams.remove(stream.id);
+        sent = true;
+      } else {
+        // completed, or retried on another connection
+        return;
+      }
+    }
+    if (sent) {
+      try {
+        synchronized (writeLock) {
+          writeReset(stream.id, ERROR_CANCEL);
+          out.flush();
+        }
+      } catch (IOException e) {
+        // the reading thread fails the connection
+      }
+    }
+    stream.fail(error);
+    startPending();
+  }
+
+  private void startPending() {
+    while (true) {
+      Stream next;
+      synchronized (this) {
+        if (shutdown || pending.isEmpty() || streams.size() >= maxConcurrentStreams) {
+          return;
+        }
+        next = pending.pollFirst();
+      }
+      send(next);
+    }
+  }
+
+  private IOException protocolError(String message) {
+    try {
+      synchronized (writeLock) {
+        writeGoAway(ERROR_PROTOCOL);
+        out.flush();
+      }
+    } catch (IOException e) {
+      // the connection is failing anyway
+    }
+    return new ProtocolException(message);
+  }
+
+  private void writeGoAway(int errorCode) throws IOException {
+    byte[] payload = new byte[8];
+    putInt(payload, 4, errorCode);
+    writeFrame(GOAWAY, 0, 0, payload, 0, payload.length);
+  }
+
+  private void writeReset(int streamId, int errorCode) throws IOException {
+    byte[] payload = new byte[4];
+    putInt(payload, 0, errorCode);
+    writeFrame(RST_STREAM, 0, streamId, payload, 0, payload.length);
+  }
+
+  private void writeWindowUpdate(int streamId, int increment) throws IOException {
+    byte[] payload = new byte[4];
+    putInt(payload, 0, increment);
+    writeFrame(WINDOW_UPDATE, 0, streamId, payload, 0, payload.length);
+  }
+
+  private void writeFrame(int type, int flags, int streamId, byte[] payload, int offset, int length)
+      throws IOException {
+    out.write(length >>> 16);
+    out.write(length >>> 8);
+    out.write(length);
+    out.write(type);
+    out.write(flags);
+    out.write(streamId >>> 24);
+    out.write(streamId >>> 16);
+    out.write(streamId >>> 8);
+    out.write(streamId);
+    out.write(payload, offset, length);
+  }
+
+  private void closeSocket() {
+    try {
+      socket.close();
+    } catch (IOException e) {
+      // the connection is discarded anyway
+    }
+  }
+
+  private int unpad(byte[] payload) throws IOException {
+    if (payload.length == 0 || (payload[0] & 0xff) >= payload.length) {
+      throw protocolError("Invalid padding");
+    }
+    return payload[0] & 0xff;
+  }
+
+  private static boolean isConnectionSpecific(String name) {
+    return "connection".equals(name) || "host".equals(name) || "keep-alive".equals(name)
+        || "proxy-connection".equals(name) || "transfer-encoding".equals(name) || "upgrade".equals(name)
+        || "content-length".equals(name);
+  }
+
+  private static void putSetting(byte[] payload, int offset, int identifier, int value) {
+    payload[offset] = (byte) (identifier >>> 8);
+    payload[offset + 1] = (byte) identifier;
+    putInt(payload, offset + 2, value);
+  }
+
+  private static void putInt(byte[] payload, int offset, int value) {
+    payload[offset] = (byte) (value >>> 24);
+    payload[offset + 1] = (byte) (value >>> 16);
+    payload[offset + 2] = (byte) (value >>> 8);
+    payload[offset + 3] = (byte) value;
+  }
+
+  private static int readInt(byte[] payload, int offset) {
+    return (payload[offset] & 0xff) << 24 | (payload[offset + 1] & 0xff) << 16
+        | (payload[offset + 2] & 0xff) << 8 | (payload[offset + 3] & 0xff);
+  }
+
+  /**
+   * A request in flight on the connection.
+   */
+  private static final class Stream {
+    private final HttpTransport.Request request;
+    private final AsyncHttpTransport.Callback callback;
+    private final byte[] body;
+    private final ByteArrayOutputStream data = new ByteArrayOutputStream();
+    private int id;
+    private int sent = 0;
+    private long sendWindow;
+    private int unacknowledged = 0;
+    private int status = 0;
+    private Map<String, List<String>> headers;
+    private volatile ScheduledFuture<?> timeout = null;
+    /**
+     * Whether the callback is notified, which may race between the reading thread and the timer.
+     */
+    private final AtomicBoolean done = new AtomicBoolean();
+
+    private Stream(HttpTransport.Request request, AsyncHttpTransport.Callback callback) {
+      this.request = request;
+      this.callback = callback;
+      this.body = (request.getBody() == null || request.getBody().length == 0) ? null : request.getBody();
+    }
+
+    private void succeed(HttpTransport.Response response) {
+      if (!done.compareAndSet(false, true)) {
+        return;
+      }
+      cancelTimeout();
+      try {
+        callback.onResponse(response);
+      } catch (RuntimeException e) {
+        Thread thread = Thread.currentThread();
+        thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+      }
+    }
+
+    private void fail(IOException error) {
+      if (!done.compareAndSet(false, true)) {
+        return;
+      }
+      cancelTimeout();
+      try {
+        callback.onFailure(error);
+      } catch (RuntimeException e) {
+        Thread thread = Thread.currentThread();
+        thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+      }
+    }
+
+    private void cancelTimeout() {
+      ScheduledFuture<?> scheduled = timeout;
+      if (scheduled != null) {
+        scheduled.cancel(false);
+      }
+    }
+  }
+}
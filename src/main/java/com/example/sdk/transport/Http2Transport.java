@@ -0,0 +1,91 @@
+package com.example.sdk.transport;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The {@link AsyncHttpTransport} multiplexing all the requests to a host over a single
+ * cleartext HTTP/2 connection (h2c with prior knowledge), so concurrent requests share
+ * one handshake and do not block each other behind a slow response.
+ * <p>The server must accept HTTP/2 without upgrade, as most HTTP/2 servers and proxies do
+ * on their cleartext ports. HTTP/2 over TLS is not supported because the negotiation (ALPN)
+ * is not available on every supported Java version; such requests fail with an {@link IOException}.</p>
+ * <p>The callbacks are notified on the reading thread of the connection and must not block.
+ * A stream past the deadline of its request is reset and fails, without closing the connection.</p>
+ *
+ * @author Feng Zheng
+ * @version 1.0
+ * @since 1.0
+ */
+public class Http2Transport implements AsyncHttpTransport {
+  private final Map<String, Http2Connection> connections = new HashMap<>();
+  private boolean closed = false;
+
+  @Override
+  public Response execute(Request request) throws IOException {
+    BlockingCallback callback = new BlockingCallback();
+    executeAsync(request, callback);
+    return callback.await();
+  }
+
+  @Override
+  public void executeAsync(Request request, Callback callback) {
+    URL url = request.getUrl();
+    if (!"http".equalsIgnoreCase(url.getProtocol())) {
+      callback.onFailure(new IOException("HTTP/2 is only supported on cleartext connections: " + url));
+      return;
+    }
+    while (true) {
+      Http2Connection connection;
+      try {
+        connection = connection(url, request);
+      } catch (IOException e) {
+        callback.onFailure(e);
+        return;
+      }
+      if (connection.newStream(request, callback)) {
+        return;
+      }
+      onClosed(connection);
+    }
+  }
+
+  @Override
+  public void close() {
+    List<Http2Connection> open;
+    synchronized (this) {
+      closed = true;
+      open = new ArrayList<>(connections.values());
+      connections.clear();
+    }
+    for (Http2Connection connection : open) {
+      connection.close();
+    }
+  }
+
+  /**
+   * Forgets the connection once it stops accepting new streams.
+   *
+   * @param connection the connection
+   */
+  synchronized void onClosed(Http2Connection connection) {
+    connections.values().remove(connection);
+  }
+
+  private synchronized Http2Connection connection(URL url, Request request) throws IOException {
+    if (closed) {
+      throw new IOException("Transport is closed");
+    }
+    String key = Http1Codec.poolKey(url);
+    Http2Connection connection = connections.get(key);
+    if (connection == null || !connection.isUsable()) {
+      connection = Http2Connection.open(this, url, request.getConnectTimeoutMs());
+      connections.put(key, connection);
+    }
+    return connection;
+  }
+}
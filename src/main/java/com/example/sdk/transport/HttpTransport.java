@@ -0,0 +1,331 @@
+package com.example.sdk.transport;
+
+import com.example.sdk.Deadline;
+import com.example.sdk.types.HttpMethod;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UnsupportedEncodingException;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The service provider interface of the HTTP transport that sends API requests.
+ * Implementations must be thread-safe, since a single transport is shared
+ * by all the requests of an {@link com.example.sdk.ApiContext}.
+ *
+ * @author Feng Zheng
+ * @version 1.0
+ * @since 1.0
+ */
+public interface HttpTransport {
+  /**
+   * Sends the HTTP request and blocks until the whole response is read.
+   *
+   * @param request the HTTP request
+   * @return the HTTP response, whatever its status code is
+   * @throws IOException the I/O exception if the exchange fails
+   */
+  Response execute(Request request) throws IOException;
+
+  /**
+   * Closes the transport and releases all the connections it holds.
+   */
+  void close();
+
+  /**
+   * The HTTP request sent by the transport.
+   */
+  final class Request {
+    /**
+     * The cancel action of a cancelled request.
+     */
+    private static final Runnable CANCELLED = new Runnable() {
+      @Override
+      public void run() {
+      }
+    };
+
+    /**
+     * The HTTP method.
+     */
+    private final HttpMethod method;
+    /**
+     * The request URL.
+     */
+    private final URL url;
+    /**
+     * The request headers.
+     */
+    private final Map<String, String> headers;
+    /**
+     * The request body, or null if there is no body.
+     */
+    private final byte[] body;
+    /**
+     * The time allowed to open a connection (in milliseconds), or 0 for no limit.
+     */
+    private final long connectTimeoutMs;
+    /**
+     * The deadline of the exchange, or null if there is none.
+     */
+    private final Deadline deadline;
+    /**
+     * The action aborting the exchange in progress, set by the transport, or {@link #CANCELLED}.
+     */
+    private final AtomicReference<Runnable> cancelAction = new AtomicReference<>();
+
+    /**
+     * Constructs a new HTTP request without timeouts.
+     *
+     * @param method  the HTTP method
+     * @param url     the request URL
+     * @param headers the request headers
+     * @param body    the request body, or null if there is no body
+     */
+    public Request(HttpMethod method, URL url, Map<String, String> headers, byte[] body) {
+      this(method, url, headers, body, 0, null);
+    }
+
+    /**
+     * Constructs a new HTTP request.
+     *
+     * @param method           the HTTP method
+     * @param url              the request URL
+     * @param headers          the request headers
+     * @param body             the request body, or null if there is no body
+     * @param connectTimeoutMs the time allowed to open a connection (in milliseconds), or 0 for no limit
+     * @param deadline         the deadline of the exchange, or null if there is none
+     */
+    public Request(HttpMethod method, URL url, Map<String, String> headers, byte[] body,
+                   long connectTimeoutMs, Deadline deadline) {
+      this.method = method;
+      this.url = url;
+      this.headers = Collections.unmodifiableMap(headers);
+      this.body = body;
+      this.connectTimeoutMs = connectTimeoutMs;
+      this.deadline = deadline;
+    }
+
+    /**
+     * Gets the HTTP method.
+     *
+     * @return the HTTP method
+     */
+    public HttpMethod getMethod() {
+      return method;
+    }
+
+    /**
+     * Gets the request URL.
+     *
+     * @return the request URL
+     */
+    public URL getUrl() {
+      return url;
+    }
+
+    /**
+     * Gets the request headers.
+     *
+     * @return the request headers
+     */
+    public Map<String, String> getHeaders() {
+      return headers;
+    }
+
+    /**
+     * Gets the request body.
+     *
+     * @return the request body, or null if there is no body
+     */
+    public byte[] getBody() {
+      return body;
+    }
+
+    /**
+     * Gets the deadline of the exchange.
+     *
+     * @return the deadline, or null if there is none
+     */
+    public Deadline getDeadline() {
+      return deadline;
+    }
+
+    /**
+     * Gets the timeout of opening a connection, bounded by the time left before the deadline.
+     *
+     * @return the connect timeout (in milliseconds), or 0 for no limit as with {@link java.net.Socket}
+     * @throws SocketTimeoutException if the deadline is passed
+     */
+    public int getConnectTimeoutMs() throws SocketTimeoutException {
+      int readTimeoutMs = getReadTimeoutMs();
+      if (connectTimeoutMs == 0) {
+        return readTimeoutMs;
+      }
+      return (readTimeoutMs == 0) ? clamp(connectTimeoutMs) : Math.min(readTimeoutMs, clamp(connectTimeoutMs));
+    }
+
+    /**
+     * Gets the timeout of a blocking read or write, which is the time left before the deadline.
+     *
+     * @return the read timeout (in milliseconds), or 0 for no limit as with {@link java.net.Socket}
+     * @throws SocketTimeoutException if the deadline is passed
+     */
+    public int getReadTimeoutMs() throws SocketTimeoutException {
+      if (deadline == null) {
+        return 0;
+      }
+      long remainingMs = deadline.getRemainingMs();
+      if (remainingMs <= 0) {
+        throw new SocketTimeoutException("Deadline exceeded for " + method + " " + url);
+      }
+      return clamp(remainingMs);
+    }
+
+    /**
+     * Cancels the request. The exchange in progress is aborted and fails with an
+     * {@link InterruptedIOException}, and its connection is closed or reset.
+     * It has no effect once the response is received.
+     */
+    public void cancel() {
+      Runnable action = cancelAction.getAndSet(CANCELLED);
+      if (action != null) {
+        action.run();
+      }
+    }
+
+    /**
+     * Checks whether the request is cancelled.
+     *
+     * @return whether the request is cancelled
+     */
+    public boolean isCancelled() {
+      return cancelAction.get() == CANCELLED;
+    }
+
+    /**
+     * Sets the action aborting the exchange in progress when the request is cancelled.
+     * The action runs right away if the request is already cancelled.
+     *
+     * @param action the cancel action, or null once the exchange is over
+     * @return false if the request is already cancelled
+     */
+    boolean onCancel(Runnable action) {
+      while (true) {
+        Runnable current = cancelAction.get();
+        if (current == CANCELLED) {
+          if (action != null) {
+            action.run();
+          }
+          return false;
+        }
+        if (cancelAction.compareAndSet(current, action)) {
+          return true;
+        }
+      }
+    }
+
+    /**
+     * Throws if the request is cancelled, so its exchange fails with the cancellation
+     * rather than the error of its aborted connection.
+     *
+     * @throws InterruptedIOException if the request is cancelled
+     */
+    void checkNotCancelled() throws InterruptedIOException {
+      if (isCancelled()) {
+        throw new InterruptedIOException("Request cancelled: " + method + " " + url);
+      }
+    }
+
+    private static int clamp(long timeoutMs) {
+      return (int) Math.min(timeoutMs, Integer.MAX_VALUE);
+    }
+  }
+
+  /**
+   * The HTTP response received by the transport.
+   */
+  final class Response {
+    /**
+     * The HTTP status code.
+     */
+    private final int statusCode;
+    /**
+     * The response headers, keyed case-insensitively.
+     */
+    private final Map<String, List<String>> headers;
+    /**
+     * The response body.
+     */
+    private final byte[] body;
+
+    /**
+     * Constructs a new HTTP response.
+     *
+     * @param statusCode the HTTP status code
+     * @param headers    the response headers, keyed case-insensitively
+     * @param body       the response body
+     */
+    public Response(int statusCode, Map<String, List<String>> headers, byte[] body) {
+      this.statusCode = statusCode;
+      this.headers = Collections.unmodifiableMap(headers);
+      this.body = body;
+    }
+
+    /**
+     * Gets the HTTP status code.
+     *
+     * @return the HTTP status code
+     */
+    public int getStatusCode() {
+      return statusCode;
+    }
+
+    /**
+     * Gets the response headers.
+     *
+     * @return the response headers
+     */
+    public Map<String, List<String>> getHeaders() {
+      return headers;
+    }
+
+    /**
+     * Gets the first value of the response header.
+     *
+     * @param name the header name
+     * @return the header value, or null if the header is absent
+     */
+    public String getHeader(String name) {
+      List<String> values = headers.get(name);
+      return (values == null || values.isEmpty()) ? null : values.get(0);
+    }
+
+    /**
+     * Gets the response body.
+     *
+     * @return the response body
+     */
+    public byte[] getBody() {
+      return body;
+    }
+
+    /**
+     * Gets the response body decoded in UTF-8.
+     *
+     * @return the response body in string
+     */
+    public String getBodyAsString() {
+      try {
+        return new String(body, "UTF-8");
+      } catch (UnsupportedEncodingException e) {
+        throw new IllegalStateException(e);
+      }
+    }
+  }
+}
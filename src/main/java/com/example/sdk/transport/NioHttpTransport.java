@@ -0,0 +1,606 @@
+package com.example.sdk.transport;
+
+import com.example.sdk.ApiConfig;
+import com.example.sdk.Deadline;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.net.StandardSocketOptions;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The non-blocking {@link AsyncHttpTransport}, which speaks HTTP/1.1 over {@link SocketChannel}s
+ * multiplexed by a few {@link Selector} event loops, so the requests in flight do not park a thread each.
+ * <p>Every host is served by a single event loop, which owns the host's connection pool: the number of
+ * open connections to a host is bounded, the exchanges beyond the bound wait for a free connection,
+ * and idle connections are closed after the idle timeout. The event loop also fails the exchanges
+ * past the deadline of their request, closing their connection, and the connections which take
+ * longer than the connect timeout of their first request to open.</p>
+ * <p>The callbacks are notified on the event loops and must not block. TLS is not handled by
+ * the event loops: https requests are sent by a {@link PooledHttpTransport} on a separate thread.</p>
+ * <p>As for the {@link PooledHttpTransport}, redirects are not followed, and a request failing on a reused
+ * connection before any byte of the response is sent again once on a fresh connection, a POST request
+ * only if it failed while being written.</p>
+ *
+ * @author Feng Zheng
+ * @version 1.0
+ * @since 1.0
+ */
+public class NioHttpTransport implements AsyncHttpTransport {
+  /**
+   * The size of the read buffer of an event loop.
+   */
+  private static final int BUFFER_SIZE = 16 * 1024;
+
+  private final int maxConnectionsPerHost;
+  private final long idleTimeoutNanos;
+  private final long evictionPeriodMs;
+  private final EventLoop[] loops;
+  private final PooledHttpTransport secureTransport;
+  private final ExecutorService secureExecutor;
+  private volatile boolean closed = false;
+
+  /**
+   * Constructs a new non-blocking transport with a single event loop,
+   * {@link ApiConfig#DEFAULT_MAX_CONNECTIONS_PER_HOST} connections per host and
+   * {@link ApiConfig#DEFAULT_CONNECTION_IDLE_TIMEOUT_MS} idle timeout.
+   */
+  public NioHttpTransport() {
+    this(1, ApiConfig.DEFAULT_MAX_CONNECTIONS_PER_HOST, ApiConfig.DEFAULT_CONNECTION_IDLE_TIMEOUT_MS);
+  }
+
+  /**
+   * Constructs a new non-blocking transport.
+   *
+   * @param ioThreads             the number of event loops
+   * @param maxConnectionsPerHost the maximum number of open connections per host
+   * @param idleTimeoutMs         the time an idle connection is kept open (in milliseconds)
+   */
+  public NioHttpTransport(int ioThreads, int maxConnectionsPerHost, long idleTimeoutMs) {
+    if (ioThreads <= 0 || maxConnectionsPerHost <= 0 || idleTimeoutMs <= 0) {
+      throw new IllegalArgumentException("Threads, connection limit and idle timeout must be positive");
+    }
+    this.maxConnectionsPerHost = maxConnectionsPerHost;
+    this.idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(idleTimeoutMs);
+    this.evictionPeriodMs = Math.max(idleTimeoutMs / 2, 100);
+    this.secureTransport = new PooledHttpTransport(maxConnectionsPerHost, idleTimeoutMs, true);
+    this.secureExecutor = Executors.newCachedThreadPool(new ThreadFactory() {
+      @Override
+      public Thread newThread(Runnable runnable) {
+        Thread thread = new Thread(runnable, "api-nio-tls");
+        thread.setDaemon(true);
+        return thread;
+      }
+    });
+    this.loops = new EventLoop[ioThreads];
+    try {
+      for (int i = 0; i < ioThreads; ++i) {
+        loops[i] = new EventLoop("api-nio-loop-" + (i + 1));
+      }
+    } catch (IOException e) {
+      close();
+      throw new IllegalStateException("Cannot open selector", e);
+    }
+    for (EventLoop loop : loops) {
+      loop.thread.start();
+    }
+  }
+
+  @Override
+  public Response execute(Request request) throws IOException {
+    for (EventLoop loop : loops) {
+      if (loop.thread == Thread.currentThread()) {
+        throw new IllegalStateException("Blocking request on an event loop of the transport");
+      }
+    }
+    BlockingCallback callback = new BlockingCallback();
+    executeAsync(request, callback);
+    return callback.await();
+  }
+
+  @Override
+  public void executeAsync(final Request request, final Callback callback) {
+    if (closed) {
+      callback.onFailure(new IOException("Transport is closed"));
+      return;
+    }
+    URL url = request.getUrl();
+    if ("https".equalsIgnoreCase(url.getProtocol())) {
+      secureExecutor.execute(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            callback.onResponse(secureTransport.execute(request));
+          } catch (IOException e) {
+            callback.onFailure(e);
+          }
+        }
+      });
+      return;
+    }
+    final String key = Http1Codec.poolKey(url);
+    final EventLoop loop = loops[(key.hashCode() & Integer.MAX_VALUE) % loops.length];
+    final Exchange exchange = new Exchange(request, callback);
+    loop.execute(new Runnable() {
+      @Override
+      public void run() {
+        loop.pool(key, request.getUrl()).dispatch(exchange, false);
+      }
+    });
+    request.onCancel(new Runnable() {
+      @Override
+      public void run() {
+        loop.execute(new Runnable() {
+          @Override
+          public void run() {
+            loop.pool(key, request.getUrl()).cancel(exchange);
+          }
+        });
+      }
+    });
+  }
+
+  @Override
+  public void close() {
+    closed = true;
+    for (EventLoop loop : loops) {
+      if (loop != null) {
+        loop.selector.wakeup();
+      }
+    }
+    secureExecutor.shutdown();
+    secureTransport.close();
+  }
+
+  /**
+   * An event loop multiplexing the connections of its hosts.
+   */
+  private final class EventLoop implements Runnable {
+    private final Selector selector;
+    private final Thread thread;
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean wakeupPending = new AtomicBoolean();
+    private final Map<String, HostPool> pools = new HashMap<>();
+    private final ByteBuffer readBuffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+    private EventLoop(String name) throws IOException {
+      this.selector = Selector.open();
+      this.thread = new Thread(this, name);
+      this.thread.setDaemon(true);
+    }
+
+    private void execute(Runnable task) {
+      tasks.add(task);
+      if (wakeupPending.compareAndSet(false, true)) {
+        selector.wakeup();
+      }
+    }
+
+    private HostPool pool(String key, URL url) {
+      HostPool pool = pools.get(key);
+      if (pool == null) {
+        pool = new HostPool(this, url);
+        pools.put(key, pool);
+      }
+      return pool;
+    }
+
+    @Override
+    public void run() {
+      long lastEviction = System.nanoTime();
+      long selectTimeoutMs = evictionPeriodMs;
+      while (!closed) {
+        try {
+          selector.select(selectTimeoutMs);
+        } catch (IOException e) {
+          break;
+        }
+        wakeupPending.set(false);
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+          task.run();
+        }
+        Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+        while (keys.hasNext()) {
+          SelectionKey key = keys.next();
+          keys.remove();
+          if (key.isValid()) {
+            ((Connection) key.attachment()).onReady(key);
+          }
+        }
+        long now = System.nanoTime();
+        selectTimeoutMs = evictionPeriodMs;
+        for (HostPool pool : pools.values()) {
+          selectTimeoutMs = Math.min(selectTimeoutMs, pool.expire(now));
+        }
+        if (now - lastEviction >= TimeUnit.MILLISECONDS.toNanos(evictionPeriodMs)) {
+          lastEviction = now;
+          for (HostPool pool : pools.values()) {
+            pool.evict(now);
+          }
+        }
+      }
+      shutdown();
+    }
+
+    private void shutdown() {
+      IOException error = new IOException("Transport is closed");
+      for (HostPool pool : pools.values()) {
+        pool.shutdown(error);
+      }
+      Runnable task;
+      while ((task = tasks.poll()) != null) {
+        task.run();
+      }
+      for (HostPool pool : pools.values()) {
+        pool.shutdown(error);
+      }
+      try {
+        selector.close();
+      } catch (IOException e) {
+        // the loop is gone anyway
+      }
+    }
+  }
+
+  /**
+   * The pool of the connections to a single host, confined to the thread of its event loop.
+   */
+  private final class HostPool {
+    private final EventLoop loop;
+    private final String host;
+    private final int port;
+    private final ArrayDeque<Connection> idle = new ArrayDeque<>();
+    private final ArrayDeque<Exchange> pending = new ArrayDeque<>();
+    private final List<Connection> active = new ArrayList<>();
+    private int open = 0;
+
+    private HostPool(EventLoop loop, URL url) {
+      this.loop = loop;
+      this.host = url.getHost();
+      this.port = Http1Codec.port(url);
+    }
+
+    private void dispatch(Exchange exchange, boolean fresh) {
+      if (closed) {
+        exchange.fail(new IOException("Transport is closed"));
+        return;
+      }
+      if (!fresh) {
+        long now = System.nanoTime();
+        Connection connection;
+        while ((connection = idle.pollFirst()) != null) {
+          if (connection.channel.isOpen() && now - connection.idleSince <= idleTimeoutNanos) {
+            connection.start(exchange);
+            return;
+          }
+          connection.close();
+        }
+      }
+      if (open < maxConnectionsPerHost) {
+        connect(exchange);
+      } else if (fresh) {
+        pending.addFirst(exchange);
+      } else {
+        pending.addLast(exchange);
+      }
+    }
+
+    private void connect(Exchange exchange) {
+      SocketChannel channel = null;
+      try {
+        int connectTimeoutMs = exchange.request.getConnectTimeoutMs();
+        channel = SocketChannel.open();
+        channel.configureBlocking(false);
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        boolean connected = channel.connect(new InetSocketAddress(host, port));
+        SelectionKey key = channel.register(loop.selector,
+            connected ? SelectionKey.OP_WRITE : SelectionKey.OP_CONNECT);
+        Connection connection = new Connection(this, channel, key, connected);
+        if (!connected && connectTimeoutMs > 0) {
+          connection.connectDeadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(connectTimeoutMs);
+        }
+        key.attach(connection);
+        open++;
+        active.add(connection);
+        connection.start(exchange);
+      } catch (IOException e) {
+        if (channel != null) {
+          try {
+            channel.close();
+          } catch (IOException closeError) {
+            // the connection is discarded anyway
+          }
+        }
+        exchange.fail(e);
+      }
+    }
+
+    private void release(Connection connection) {
+      Exchange next = pending.pollFirst();
+      if (next != null) {
+        connection.start(next);
+      } else {
+        connection.idleSince = System.nanoTime();
+        idle.addFirst(connection);
+      }
+    }
+
+    private void onClosed(Connection connection) {
+      open--;
+      active.remove(connection);
+      idle.remove(connection);
+      Exchange next = pending.pollFirst();
+      if (next != null) {
+        dispatch(next, false);
+      }
+    }
+
+    private void evict(long now) {
+      Iterator<Connection> iterator = idle.descendingIterator();
+      while (iterator.hasNext()) {
+        Connection connection = iterator.next();
+        if (now - connection.idleSince > idleTimeoutNanos) {
+          iterator.remove();
+          connection.close();
+        }
+      }
+    }
+
+    /**
+     * Fails a cancelled exchange, closing its connection if it has been sent.
+     *
+     * @param exchange the exchange
+     */
+    private void cancel(Exchange exchange) {
+      InterruptedIOException error = new InterruptedIOException("Request cancelled: "
+          + exchange.request.getMethod() + " " + exchange.request.getUrl());
+      if (pending.remove(exchange)) {
+        exchange.fail(error);
+        return;
+      }
+      for (Connection connection : active) {
+        if (connection.exchange == exchange) {
+          connection.fail(error, false);
+          return;
+        }
+      }
+      // completed already
+    }
+
+    /**
+     * Fails the exchanges past their deadline and the connections taking too long to open.
+     *
+     * @param now the current time (in nanoseconds)
+     * @return the time until the next deadline (in milliseconds), or {@link Long#MAX_VALUE} if there is none
+     */
+    private long expire(long now) {
+      long nextNanos = Long.MAX_VALUE;
+      Iterator<Exchange> waiting = pending.iterator();
+      while (waiting.hasNext()) {
+        Exchange exchange = waiting.next();
+        long remaining = exchange.remainingNanos();
+        if (remaining <= 0) {
+          waiting.remove();
+          exchange.fail(new SocketTimeoutException("Timed out waiting for a connection to " + host + ":" + port));
+        } else {
+          nextNanos = Math.min(nextNanos, remaining);
+        }
+      }
+      for (Connection connection : new ArrayList<>(active)) {
+        if (connection.exchange == null) {
+          continue;
+        }
+        long remaining = connection.exchange.remainingNanos();
+        if (!connection.connected && connection.connectDeadlineNanos != 0) {
+          remaining = Math.min(remaining, connection.connectDeadlineNanos - now);
+        }
+        if (remaining <= 0) {
+          String stage = connection.connected ? "response" : "connection";
+          connection.fail(new SocketTimeoutException("Timed out waiting for the " + stage
+              + " of " + host + ":" + port), false);
+        } else {
+          nextNanos = Math.min(nextNanos, remaining);
+        }
+      }
+      return (nextNanos == Long.MAX_VALUE) ? nextNanos : TimeUnit.NANOSECONDS.toMillis(nextNanos) + 1;
+    }
+
+    private void shutdown(IOException error) {
+      Exchange exchange;
+      while ((exchange = pending.pollFirst()) != null) {
+        exchange.fail(error);
+      }
+      for (Connection connection : new ArrayList<>(active)) {
+        connection.fail(error, false);
+      }
+    }
+  }
+
+  /**
+   * A non-blocking connection serving one exchange at a time.
+   */
+  private final class Connection {
+    private final HostPool pool;
+    private final SocketChannel channel;
+    private final SelectionKey key;
+    private boolean connected;
+    private boolean closed = false;
+    private long connectDeadlineNanos = 0;
+    private int served = 0;
+    private long idleSince;
+    private Exchange exchange = null;
+    private ByteBuffer[] output = null;
+
+    private Connection(HostPool pool, SocketChannel channel, SelectionKey key, boolean connected) {
+      this.pool = pool;
+      this.channel = channel;
+      this.key = key;
+      this.connected = connected;
+    }
+
+    private void start(Exchange next) {
+      exchange = next;
+      exchange.reused = served > 0;
+      exchange.sent = false;
+      exchange.parser = new Http1ResponseParser();
+      byte[] body = next.request.getBody();
+      ByteBuffer head = ByteBuffer.wrap(Http1Codec.encodeHead(next.request, true));
+      output = (body == null) ? new ByteBuffer[]{head} : new ByteBuffer[]{head, ByteBuffer.wrap(body)};
+      if (connected) {
+        key.interestOps(SelectionKey.OP_WRITE);
+      }
+    }
+
+    private void onReady(SelectionKey readyKey) {
+      try {
+        if (readyKey.isConnectable()) {
+          channel.finishConnect();
+          connected = true;
+          key.interestOps(SelectionKey.OP_WRITE);
+        } else if (readyKey.isWritable()) {
+          write();
+        } else if (readyKey.isReadable()) {
+          read();
+        }
+      } catch (IOException e) {
+        fail(e, true);
+      }
+    }
+
+    private void write() throws IOException {
+      channel.write(output);
+      if (!output[output.length - 1].hasRemaining()) {
+        output = null;
+        exchange.sent = true;
+        key.interestOps(SelectionKey.OP_READ);
+      }
+    }
+
+    private void read() throws IOException {
+      ByteBuffer buffer = pool.loop.readBuffer;
+      buffer.clear();
+      int n = channel.read(buffer);
+      if (n < 0) {
+        if (exchange == null) {
+          close();
+        } else {
+          exchange.parser.endOfStream();
+          complete(false);
+        }
+        return;
+      }
+      buffer.flip();
+      if (exchange == null) {
+        // nothing is expected on an idle connection
+        close();
+      } else if (exchange.parser.feed(buffer)) {
+        complete(exchange.parser.isKeepAlive() && !buffer.hasRemaining());
+      }
+    }
+
+    private void complete(boolean reusable) {
+      Exchange done = exchange;
+      exchange = null;
+      served++;
+      if (reusable) {
+        pool.release(this);
+      } else {
+        close();
+      }
+      done.succeed(done.parser.getResponse());
+    }
+
+    private void fail(IOException error, boolean retryIfStale) {
+      Exchange failed = exchange;
+      exchange = null;
+      close();
+      if (failed == null) {
+        return;
+      }
+      if (retryIfStale && failed.reused && !failed.parser.isStarted()
+          && (!failed.sent || Http1Codec.isIdempotent(failed.request.getMethod()))) {
+        // the server closed the idle connection, retry once on a fresh one
+        failed.reused = false;
+        pool.dispatch(failed, true);
+      } else {
+        failed.fail(error);
+      }
+    }
+
+    private void close() {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      key.cancel();
+      try {
+        channel.close();
+      } catch (IOException e) {
+        // the connection is discarded anyway
+      }
+      pool.onClosed(this);
+    }
+  }
+
+  /**
+   * A request and the callback waiting for its response.
+   */
+  private static final class Exchange {
+    private final Request request;
+    private final Callback callback;
+    private Http1ResponseParser parser;
+    private boolean reused = false;
+    private boolean sent = false;
+
+    private Exchange(Request request, Callback callback) {
+      this.request = request;
+      this.callback = callback;
+    }
+
+    private long remainingNanos() {
+      Deadline deadline = request.getDeadline();
+      return (deadline == null) ? Long.MAX_VALUE : deadline.getRemainingNanos();
+    }
+
+    private void succeed(Response response) {
+      try {
+        callback.onResponse(response);
+      } catch (RuntimeException e) {
+        uncaught(e);
+      }
+    }
+
+    private void fail(IOException error) {
+      try {
+        callback.onFailure(error);
+      } catch (RuntimeException e) {
+        uncaught(e);
+      }
+    }
+
+    private static void uncaught(RuntimeException e) {
+      Thread thread = Thread.currentThread();
+      thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+    }
+  }
+}
@@ -0,0 +1,365 @@
+package com.example.sdk.transport;
+
+import com.example.sdk.ApiConfig;
+
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.SSLSocketFactory;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The default {@link HttpTransport}, which speaks HTTP/1.1 over persistent connections.
+ * Connections are pooled per scheme, host and port: the number of open connections to a host
+ * is bounded, idle connections are reused most-recently-used first, and the ones idle for
+ * longer than the idle timeout are closed by a background evictor.
+ * <p>Unlike {@link UrlConnectionTransport}, the transport does not go through the system proxies,
+ * and does not follow redirects: a 3xx response is returned as it is. The servers answering the API
+ * requests with redirects need a {@link UrlConnectionTransport}.
+ * The deadline of a request bounds the wait for a connection, the connect and TLS handshake,
+ * and every blocking read of the response.</p>
+ * <p>A request failing on a reused connection before any byte of the response is sent again once on
+ * a fresh connection, since the server may have closed the idle connection. A POST request is only
+ * sent again if it failed while being written, since the server may have processed it, so an idle
+ * connection is checked before a POST request reuses it.</p>
+ *
+ * @author Feng Zheng
+ * @version 1.0
+ * @since 1.0
+ */
+public class PooledHttpTransport implements HttpTransport {
+  /**
+   * The size of the read buffer of a connection.
+   */
+  private static final int BUFFER_SIZE = 8192;
+  /**
+   * The scheduler shared by all the pools to evict idle connections.
+   */
+  private static final ScheduledExecutorService EVICTOR =
+      Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable runnable) {
+          Thread thread = new Thread(runnable, "api-connection-evictor");
+          thread.setDaemon(true);
+          return thread;
+        }
+      });
+
+  private final int maxConnectionsPerHost;
+  private final long idleTimeoutNanos;
+  private final boolean keepAlive;
+  private final ConcurrentMap<String, HostPool> pools = new ConcurrentHashMap<>();
+  private final ScheduledFuture<?> evictionTask;
+  private volatile boolean closed = false;
+
+  /**
+   * Constructs a new pooled transport with {@link ApiConfig#DEFAULT_MAX_CONNECTIONS_PER_HOST}
+   * connections per host and {@link ApiConfig#DEFAULT_CONNECTION_IDLE_TIMEOUT_MS} idle timeout.
+   */
+  public PooledHttpTransport() {
+    this(ApiConfig.DEFAULT_MAX_CONNECTIONS_PER_HOST, ApiConfig.DEFAULT_CONNECTION_IDLE_TIMEOUT_MS, true);
+  }
+
+  /**
+   * Constructs a new pooled transport.
+   *
+   * @param maxConnectionsPerHost the maximum number of open connections per host
+   * @param idleTimeoutMs         the time an idle connection is kept in the pool (in milliseconds)
+   * @param keepAlive             whether connections are kept alive between requests
+   */
+  public PooledHttpTransport(int maxConnectionsPerHost, long idleTimeoutMs, boolean keepAlive) {
+    if (maxConnectionsPerHost <= 0 || idleTimeoutMs <= 0) {
+      throw new IllegalArgumentException("Connection limit and idle timeout must be positive");
+    }
+    this.maxConnectionsPerHost = maxConnectionsPerHost;
+    this.idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(idleTimeoutMs);
+    this.keepAlive = keepAlive;
+    long period = Math.max(idleTimeoutMs / 2, 100);
+    this.evictionTask = EVICTOR.scheduleWithFixedDelay(new Runnable() {
+      @Override
+      public void run() {
+        evictIdleConnections();
+      }
+    }, period, period, TimeUnit.MILLISECONDS);
+  }
+
+  @Override
+  public Response execute(Request request) throws IOException {
+    if (closed) {
+      throw new IOException("Transport is closed");
+    }
+    HostPool pool = pool(request.getUrl());
+    Connection connection = pool.acquire(request);
+    boolean reusable = false;
+    try {
+      while (true) {
+        Http1ResponseParser parser = new Http1ResponseParser();
+        // closing the socket unblocks the exchange
+        request.onCancel(connection.closer());
+        boolean sent = false;
+        try {
+          send(connection, request);
+          sent = true;
+          Response response = receive(connection, request, parser);
+          reusable = keepAlive && parser.isKeepAlive() && !connection.poisoned;
+          return response;
+        } catch (IOException e) {
+          request.checkNotCancelled();
+          if (!connection.reused || parser.isStarted() || e instanceof SocketTimeoutException
+              || (sent && !Http1Codec.isIdempotent(request.getMethod()))) {
+            throw e;
+          }
+          // the server closed the idle connection, retry once on a fresh one
+          connection.close();
+          connection = pool.open(request);
+        }
+      }
+    } finally {
+      if (!request.onCancel(null)) {
+        // cancelled as the response arrived, the socket may be closed
+        reusable = false;
+      }
+      pool.release(connection, reusable);
+    }
+  }
+
+  /**
+   * Closes the connections that have been idle for longer than the idle timeout.
+   */
+  public void evictIdleConnections() {
+    long now = System.nanoTime();
+    for (HostPool pool : pools.values()) {
+      pool.evict(now);
+    }
+  }
+
+  @Override
+  public void close() {
+    closed = true;
+    evictionTask.cancel(false);
+    for (HostPool pool : pools.values()) {
+      pool.close();
+    }
+  }
+
+  private HostPool pool(URL url) {
+    String key = Http1Codec.poolKey(url);
+    HostPool pool = pools.get(key);
+    if (pool == null) {
+      HostPool created = new HostPool(url);
+      pool = pools.putIfAbsent(key, created);
+      if (pool == null) {
+        pool = created;
+      }
+    }
+    return pool;
+  }
+
+  private void send(Connection connection, Request request) throws IOException {
+    OutputStream out = connection.out;
+    connection.socket.setSoTimeout(request.getReadTimeoutMs());
+    out.write(Http1Codec.encodeHead(request, keepAlive));
+    if (request.getBody() != null) {
+      out.write(request.getBody());
+    }
+    out.flush();
+  }
+
+  private Response receive(Connection connection, Request request, Http1ResponseParser parser)
+      throws IOException {
+    byte[] buffer = connection.buffer;
+    while (true) {
+      // every read only gets the time left before the deadline
+      connection.socket.setSoTimeout(request.getReadTimeoutMs());
+      int n = connection.in.read(buffer);
+      if (n < 0) {
+        parser.endOfStream();
+        connection.poisoned = true;
+        break;
+      }
+      ByteBuffer received = ByteBuffer.wrap(buffer, 0, n);
+      if (parser.feed(received)) {
+        // bytes after the response mean the connection is out of sync
+        connection.poisoned = received.hasRemaining();
+        break;
+      }
+    }
+    return parser.getResponse();
+  }
+
+  /**
+   * The pool of the connections to a single host.
+   */
+  private final class HostPool {
+    private final String host;
+    private final int port;
+    private final boolean secure;
+    private final Semaphore permits = new Semaphore(maxConnectionsPerHost);
+    private final Deque<Connection> idle = new ConcurrentLinkedDeque<>();
+
+    private HostPool(URL url) {
+      this.host = url.getHost();
+      this.port = Http1Codec.port(url);
+      this.secure = "https".equalsIgnoreCase(url.getProtocol());
+    }
+
+    private Connection acquire(Request request) throws IOException {
+      try {
+        int timeoutMs = request.getReadTimeoutMs();
+        if (timeoutMs == 0) {
+          permits.acquire();
+        } else if (!permits.tryAcquire(timeoutMs, TimeUnit.MILLISECONDS)) {
+          throw new SocketTimeoutException("Timed out waiting for a connection to " + host + ":" + port);
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException("Interrupted while waiting for a connection");
+      }
+      try {
+        long now = System.nanoTime();
+        Connection connection;
+        while ((connection = idle.pollFirst()) != null) {
+          if (connection.isOpen() && now - connection.idleSince <= idleTimeoutNanos
+              && (Http1Codec.isIdempotent(request.getMethod()) || !connection.isStale())) {
+            connection.reused = true;
+            return connection;
+          }
+          connection.close();
+        }
+        return open(request);
+      } catch (IOException | RuntimeException e) {
+        permits.release();
+        throw e;
+      }
+    }
+
+    private Connection open(Request request) throws IOException {
+      Socket socket = new Socket();
+      try {
+        socket.setTcpNoDelay(true);
+        socket.connect(new InetSocketAddress(host, port), request.getConnectTimeoutMs());
+        if (secure) {
+          socket.setSoTimeout(request.getConnectTimeoutMs());
+          SSLSocketFactory factory = (SSLSocketFactory) SSLSocketFactory.getDefault();
+          SSLSocket sslSocket = (SSLSocket) factory.createSocket(socket, host, port, true);
+          SSLParameters parameters = sslSocket.getSSLParameters();
+          parameters.setEndpointIdentificationAlgorithm("HTTPS");
+          sslSocket.setSSLParameters(parameters);
+          sslSocket.startHandshake();
+          socket = sslSocket;
+        }
+        return new Connection(socket);
+      } catch (IOException | RuntimeException e) {
+        socket.close();
+        throw e;
+      }
+    }
+
+    private void release(Connection connection, boolean reusable) {
+      if (reusable && !closed) {
+        connection.idleSince = System.nanoTime();
+        idle.offerFirst(connection);
+      } else {
+        connection.close();
+      }
+      permits.release();
+      if (closed) {
+        close();
+      }
+    }
+
+    private void evict(long now) {
+      Iterator<Connection> iterator = idle.descendingIterator();
+      while (iterator.hasNext()) {
+        Connection connection = iterator.next();
+        if (now - connection.idleSince > idleTimeoutNanos && idle.remove(connection)) {
+          connection.close();
+        }
+      }
+    }
+
+    private void close() {
+      Connection connection;
+      while ((connection = idle.pollFirst()) != null) {
+        connection.close();
+      }
+    }
+  }
+
+  /**
+   * A persistent connection.
+   */
+  private static final class Connection {
+    private final Socket socket;
+    private final OutputStream out;
+    private final InputStream in;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private long idleSince;
+    private boolean reused = false;
+    private boolean poisoned = false;
+
+    private Connection(Socket socket) throws IOException {
+      this.socket = socket;
+      this.out = new BufferedOutputStream(socket.getOutputStream(), BUFFER_SIZE);
+      this.in = socket.getInputStream();
+    }
+
+    private boolean isOpen() {
+      return !socket.isClosed() && !socket.isInputShutdown() && !socket.isOutputShutdown();
+    }
+
+    /**
+     * Whether the server closed the idle connection, told by a read waiting at most a millisecond.
+     * Nothing is expected on an idle connection, so a byte read makes it stale too.
+     *
+     * @return whether the connection is stale
+     */
+    private boolean isStale() {
+      try {
+        socket.setSoTimeout(1);
+        in.read();
+        return true;
+      } catch (SocketTimeoutException e) {
+        return false;
+      } catch (IOException e) {
+        return true;
+      }
+    }
+
+    private void close() {
+      try {
+        socket.close();
+      } catch (IOException e) {
+        // the connection is discarded anyway
+      }
+    }
+
+    private Runnable closer() {
+      return new Runnable() {
+        @Override
+        public void run() {
+          close();
+        }
+      };
+    }
+  }
+}
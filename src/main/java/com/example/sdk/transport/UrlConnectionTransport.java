@@ -0,0 +1,90 @@
+package com.example.sdk.transport;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The {@link HttpTransport} backed by {@link HttpURLConnection}, which opens a connection per request
+ * and leaves the connection reuse to the JDK. It honors the system proxy settings.
+ * <p>The connect and read timeouts come from the deadline of the request; the deadline bounds
+ * every blocking read rather than the whole response.</p>
+ *
+ * @author Feng Zheng
+ * @version 1.0
+ * @since 1.0
+ */
+public class UrlConnectionTransport implements HttpTransport {
+  @Override
+  public Response execute(Request request) throws IOException {
+    final HttpURLConnection connection = (HttpURLConnection) request.getUrl().openConnection();
+    request.onCancel(new Runnable() {
+      @Override
+      public void run() {
+        connection.disconnect();
+      }
+    });
+    try {
+      return exchange(connection, request);
+    } catch (IOException e) {
+      request.checkNotCancelled();
+      throw e;
+    } finally {
+      request.onCancel(null);
+    }
+  }
+
+  @Override
+  public void close() {
+  }
+
+  private static Response exchange(HttpURLConnection connection, Request request) throws IOException {
+    connection.setConnectTimeout(request.getConnectTimeoutMs());
+    connection.setReadTimeout(request.getReadTimeoutMs());
+    connection.setRequestMethod(request.getMethod().toString());
+    for (Map.Entry<String, String> header : request.getHeaders().entrySet()) {
+      connection.setRequestProperty(header.getKey(), header.getValue());
+    }
+    if (request.getBody() != null) {
+      connection.setDoOutput(true);
+      OutputStream stream = connection.getOutputStream();
+      stream.write(request.getBody());
+      stream.flush();
+      stream.close();
+      // the response only gets the time left after sending the body
+      connection.setReadTimeout(request.getReadTimeoutMs());
+    }
+    int responseCode = connection.getResponseCode();
+    Map<String, List<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    for (Map.Entry<String, List<String>> header : connection.getHeaderFields().entrySet()) {
+      if (header.getKey() != null) {
+        headers.put(header.getKey(), header.getValue());
+      }
+    }
+    InputStream stream = (responseCode < HttpURLConnection.HTTP_BAD_REQUEST)
+        ? connection.getInputStream() : connection.getErrorStream();
+    return new Response(responseCode, headers, readFully(stream));
+  }
+
+  private static byte[] readFully(InputStream stream) throws IOException {
+    if (stream == null) {
+      return new byte[0];
+    }
+    try {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      byte[] buffer = new byte[8192];
+      int n;
+      while ((n = stream.read(buffer)) != -1) {
+        out.write(buffer, 0, n);
+      }
+      return out.toByteArray();
+    } finally {
+      stream.close();
+    }
+  }
+}
@@ -0,0 +1,7 @@
+/**
+ * Provides the HTTP transports used to send API requests over the wire.
+ *
+ * @version 1.0
+ * @since 1.0
+ */
+package com.example.sdk.transport;
@@ -0,0 +1,25 @@
+package com.example.sdk.types;
+
+/**
+ * Enum type of the ways an API request waits for the permit of a rate limiter.
+ *
+ * @author Feng Zheng
+ * @version 1.0
+ * @since 1.0
+ */
+public enum RateLimitMode {
+  /**
+   * The request waits on the calling thread, even when it is executed asynchronously,
+   * which pushes back on the callers producing requests faster than allowed.
+   */
+  BLOCK,
+  /**
+   * The synchronous request waits on the calling thread, while the asynchronous
+   * request is delayed without blocking any thread.
+   */
+  ASYNC_WAIT,
+  /**
+   * The request fails right away when no permit is available.
+   */
+  FAIL_FAST
+}
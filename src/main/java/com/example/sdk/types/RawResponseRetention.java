@@ -0,0 +1,25 @@
+package com.example.sdk.types;
+
+/**
+ * Enum type of the ways the parsed entities keep the raw JSON of their API response.
+ *
+ * @author Feng Zheng
+ * @version 1.0
+ * @since 1.0
+ */
+public enum RawResponseRetention {
+  /**
+   * The raw JSON is kept as it was received: an entity of a list keeps a slice of the whole response.
+   */
+  FULL,
+  /**
+   * The raw JSON of every entity and list is kept on its own as UTF-8 bytes, decoded on demand,
+   * so the whole response is not kept by the entities outliving their list.
+   */
+  COMPACT,
+  /**
+   * The raw JSON is not kept: the raw response of an entity or list is serialized again on demand,
+   * and only holds the fields bound to it.
+   */
+  NONE
+}
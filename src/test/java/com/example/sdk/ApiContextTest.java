@@ -2,6 +2,13 @@ package com.example.sdk;
 
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import static org.junit.Assert.*;
 
 /**
@@ -127,4 +134,111 @@ public class ApiContextTest extends BaseTest {
     context.clearAppToken();
     assertFalse(context.hasAppToken());
   }
-}
\ No newline at end of file
+
+  /**
+   * Tests {@link ApiContext#clearAppToken(ApiContext.TokenState)} keeps a token refreshed
+   * after the failed request was sent.
+   *
+   * @throws Exception the exception
+   */
+  @Test
+  public void clearAppTokenTestKeepsRefreshedToken() throws Exception {
+    String fakeAppToken = fakeUUID();
+    String anotherFakeAppToken = fakeUUID();
+    ApiContext context = new ApiContext(fakeUUID(), fakeUUID(), fakeAppToken);
+    ApiContext.TokenState failed = context.getTokenState();
+    context.setAppToken(anotherFakeAppToken);
+    assertFalse(context.clearAppToken(failed));
+    assertEquals(anotherFakeAppToken, context.getAppToken());
+    ApiContext.TokenState current = context.getTokenState();
+    assertTrue(context.clearAppToken(current));
+    assertNull(context.getAppToken());
+    assertEquals(current.getVersion() + 1, context.getTokenState().getVersion());
+    assertFalse(context.clearAppToken(current));
+  }
+
+  /**
+   * Tests the token state under contention of refreshing, failing and reading threads:
+   * every change gets its own version, a failed request never clears a newer token,
+   * and no thread observes the version going backwards.
+   *
+   * @throws Exception the exception
+   */
+  @Test
+  public void tokenStateTestUnderContention() throws Exception {
+    final ApiContext context = new ApiContext(fakeUUID(), fakeUUID(), "token-0");
+    final int threads = 4;
+    final int iterations = 20000;
+    final CountDownLatch start = new CountDownLatch(1);
+    final AtomicInteger sets = new AtomicInteger();
+    final AtomicInteger clears = new AtomicInteger();
+    final Queue<String> violations = new ConcurrentLinkedQueue<>();
+    List<Thread> workers = new ArrayList<>();
+    for (int t = 0; t < threads; ++t) {
+      final int id = t;
+      // refreshing threads
+      workers.add(new Thread(new Runnable() {
+        @Override
+        public void run() {
+          await(start);
+          for (int i = 0; i < iterations; ++i) {
+            context.setAppToken("token-" + id + "-" + i);
+            sets.incrementAndGet();
+          }
+        }
+      }));
+      // failing threads, clearing the token their request was sent with
+      workers.add(new Thread(new Runnable() {
+        @Override
+        public void run() {
+          await(start);
+          for (int i = 0; i < iterations; ++i) {
+            ApiContext.TokenState sent = context.getTokenState();
+            if (context.clearAppToken(sent)) {
+              clears.incrementAndGet();
+            } else if (context.getTokenState() == sent) {
+              violations.add("clear failed without a concurrent change");
+            }
+          }
+        }
+      }));
+      // reading threads
+      workers.add(new Thread(new Runnable() {
+        @Override
+        public void run() {
+          await(start);
+          long last = -1;
+          for (int i = 0; i < iterations; ++i) {
+            ApiContext.TokenState state = context.getTokenState();
+            if (state.getVersion() < last) {
+              violations.add("version went back from " + last + " to " + state.getVersion());
+            }
+            last = state.getVersion();
+            if (state.getToken() == null && context.hasAppToken() && context.getTokenState() == state) {
+              violations.add("inconsistent read of version " + last);
+            }
+          }
+        }
+      }));
+    }
+    for (Thread worker : workers) {
+      worker.start();
+    }
+    start.countDown();
+    for (Thread worker : workers) {
+      worker.join();
+    }
+    assertTrue(violations.toString(), violations.isEmpty());
+    assertEquals(threads * iterations, sets.get());
+    // every set and every successful clear is one version, none is lost
+    assertEquals(sets.get() + clears.get(), context.getTokenState().getVersion());
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
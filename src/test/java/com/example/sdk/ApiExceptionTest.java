@@ -1,10 +1,15 @@
 package com.example.sdk;
 
 import com.google.gson.JsonObject;
+import com.example.sdk.ApiException.CircuitOpenException;
+import com.example.sdk.ApiException.ConcurrencyLimitExceededException;
+import com.example.sdk.ApiException.DeadlineExceededException;
+import com.example.sdk.ApiException.EntityNotFoundException;
 import com.example.sdk.ApiException.FailedAccessTokenException;
 import com.example.sdk.ApiException.FailedRequestException;
 import com.example.sdk.ApiException.MalformedResponseException;
 import com.example.sdk.ApiException.NotImplementedException;
+import com.example.sdk.ApiException.RateLimitExceededException;
 import org.junit.Test;
 
 import java.io.IOException;
@@ -200,4 +205,114 @@ public class ApiExceptionTest extends BaseTest {
     assertEquals(customMessage, apiException.getMessage());
     assertEquals(exception, apiException.getCause());
   }
-}
\ No newline at end of file
+
+  /**
+   * Tests {@link RateLimitExceededException}.
+   *
+   * @throws Exception the test exception
+   */
+  @Test
+  public void testRateLimitExceededException() throws Exception {
+    RateLimitExceededException apiException = new RateLimitExceededException();
+    assertNull(apiException.getMessage());
+    Exception exception = new EmptyStackException();
+    apiException = new RateLimitExceededException(exception);
+    assertEquals(exception, apiException.getCause());
+    String customMessage = faker.lorem().sentence();
+    apiException = new RateLimitExceededException(customMessage);
+    assertEquals(customMessage, apiException.getMessage());
+    customMessage = faker.lorem().sentence();
+    exception = new IOException();
+    apiException = new RateLimitExceededException(customMessage, exception);
+    assertEquals(customMessage, apiException.getMessage());
+    assertEquals(exception, apiException.getCause());
+  }
+
+  /**
+   * Tests {@link CircuitOpenException}.
+   *
+   * @throws Exception the test exception
+   */
+  @Test
+  public void testCircuitOpenException() throws Exception {
+    CircuitOpenException apiException = new CircuitOpenException();
+    assertNull(apiException.getMessage());
+    Exception exception = new EmptyStackException();
+    apiException = new CircuitOpenException(exception);
+    assertEquals(exception, apiException.getCause());
+    String customMessage = faker.lorem().sentence();
+    apiException = new CircuitOpenException(customMessage);
+    assertEquals(customMessage, apiException.getMessage());
+    customMessage = faker.lorem().sentence();
+    exception = new IOException();
+    apiException = new CircuitOpenException(customMessage, exception);
+    assertEquals(customMessage, apiException.getMessage());
+    assertEquals(exception, apiException.getCause());
+  }
+
+  /**
+   * Tests {@link ConcurrencyLimitExceededException}.
+   *
+   * @throws Exception the test exception
+   */
+  @Test
+  public void testConcurrencyLimitExceededException() throws Exception {
+    ConcurrencyLimitExceededException apiException = new ConcurrencyLimitExceededException();
+    assertNull(apiException.getMessage());
+    Exception exception = new EmptyStackException();
+    apiException = new ConcurrencyLimitExceededException(exception);
+    assertEquals(exception, apiException.getCause());
+    String customMessage = faker.lorem().sentence();
+    apiException = new ConcurrencyLimitExceededException(customMessage);
+    assertEquals(customMessage, apiException.getMessage());
+    customMessage = faker.lorem().sentence();
+    exception = new IOException();
+    apiException = new ConcurrencyLimitExceededException(customMessage, exception);
+    assertEquals(customMessage, apiException.getMessage());
+    assertEquals(exception, apiException.getCause());
+  }
+
+  /**
+   * Tests {@link DeadlineExceededException}.
+   *
+   * @throws Exception the test exception
+   */
+  @Test
+  public void testDeadlineExceededException() throws Exception {
+    DeadlineExceededException apiException = new DeadlineExceededException();
+    assertNull(apiException.getMessage());
+    Exception exception = new EmptyStackException();
+    apiException = new DeadlineExceededException(exception);
+    assertEquals(exception, apiException.getCause());
+    String customMessage = faker.lorem().sentence();
+    apiException = new DeadlineExceededException(customMessage);
+    assertEquals(customMessage, apiException.getMessage());
+    customMessage = faker.lorem().sentence();
+    exception = new IOException();
+    apiException = new DeadlineExceededException(customMessage, exception);
+    assertEquals(customMessage, apiException.getMessage());
+    assertEquals(exception, apiException.getCause());
+  }
+
+  /**
+   * Tests {@link EntityNotFoundException}.
+   *
+   * @throws Exception the test exception
+   */
+  @Test
+  public void testEntityNotFoundException() throws Exception {
+    EntityNotFoundException apiException = new EntityNotFoundException();
+    assertNull(apiException.getMessage());
+    Exception exception = new EmptyStackException();
+    apiException = new EntityNotFoundException(exception);
+    assertEquals(exception, apiException.getCause());
+    String customMessage = faker.lorem().sentence();
+    apiException = new EntityNotFoundException(customMessage);
+    assertEquals(customMessage, apiException.getMessage());
+    customMessage = faker.lorem().sentence();
+    exception = new IOException();
+    apiException = new EntityNotFoundException(customMessage, exception);
+    assertEquals(customMessage, apiException.getMessage());
+    assertEquals(exception, apiException.getCause());
+  }
+}
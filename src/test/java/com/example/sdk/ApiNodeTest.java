@@ -1,5 +1,6 @@
 package com.example.sdk;
 
+import com.example.sdk.types.RawResponseRetention;
 import com.google.gson.JsonObject;
 import org.junit.After;
 import org.junit.Before;
@@ -210,4 +211,159 @@ public class ApiNodeTest extends BaseTest {
     BogusApp bogusApp = bogusAppReq.getBogusApp2().execute();
     assertNull(bogusApp);
   }
-}
\ No newline at end of file
+
+  /**
+   * Tests the entities and the pagination are bound from the response, with their exact text as raw value.
+   *
+   * @throws Exception the test exception
+   */
+  @Test
+  public void parseResponseTestBinding() throws Exception {
+    String first = "{ \"id\": \"a\", \"token\": \"[\\\"}\", \"extra\": {\"list\": [1, {}]} }";
+    String second = "{\"id\":\"b\",\"token\":null}";
+    String res = "{\n  \"data\" : [ " + first + " ,\n " + second + " ],\n"
+        + "  \"me\\u0074a\": {\"pagination\": {\"limit\": 2, \"offset\": 0, \"total\": 5}}\n}";
+    ApiNodeList<BogusApp> apps = ApiNode.parseResponse(BogusApp.class, res, getContext(), null);
+    assertEquals(2, apps.size());
+    assertEquals("a", apps.get(0).getId());
+    assertEquals("[\"}", apps.get(0).getToken());
+    assertEquals(first, apps.get(0).getRawResponse());
+    assertNull(apps.get(1).getToken());
+    assertEquals(second, apps.tail().getRawResponse());
+    assertEquals("[\"}", apps.head().getRawResponseAsJsonObject().get("token").getAsString());
+    assertEquals(5, apps.getRawResponseAsJsonObject().getAsJsonObject("meta").getAsJsonObject("pagination")
+        .get("total").getAsInt());
+    assertSame(getContext(), apps.head().getContext());
+    assertTrue(apps.hasNextPage());
+    assertEquals(res, apps.getRawResponse());
+    String nested = "{\"data\": {\"" + secondaryKey + "\": " + second + ", \"other\": []}}";
+    assertEquals("b", ApiNode.parseResponse(BogusApp.class, secondaryKey, nested, getContext(), null).head().getId());
+    assertEquals(0, ApiNode.parseResponse(BogusApp.class, "{\"data\": null}", getContext(), null).size());
+    apps.tail().setRawValue(first);
+    assertEquals(first, apps.tail().getRawResponse());
+    String whole = " " + second + " ";
+    assertEquals(whole, ApiNode.parseResponse(BogusApp.class, whole, getContext(), null).head().getRawResponse());
+  }
+
+  /**
+   * Tests the responses which are not strict JSON are still parsed leniently, and the invalid ones rejected.
+   *
+   * @throws Exception the test exception
+   */
+  @Test
+  public void parseResponseTestLenient() throws Exception {
+    ApiNodeList<BogusApp> apps = ApiNode.parseResponse(BogusApp.class, "{data: [{id: 'a'}]}", getContext(), null);
+    assertEquals("a", apps.head().getId());
+    assertEquals(0, ApiNode.parseResponse(BogusApp.class, "", getContext(), null).size());
+    String[] invalid = {"{\"data\": [{\"id\": \"a\"}, 1]}", "{\"data\": {\"id\": [\"a\"]}}",
+        "{\"data\": [{\"id\": \"a\"}", "[{}] []"};
+    for (String res : invalid) {
+      try {
+        ApiNode.parseResponse(BogusApp.class, res, getContext(), null);
+        fail("Expected " + ApiException.MalformedResponseException.class.getName());
+      } catch (ApiException.MalformedResponseException e) {
+        assertEquals("Invalid response string: " + res, e.getMessage());
+      }
+    }
+  }
+
+  /**
+   * Tests the raw responses are kept as the retention of the context or the request requires.
+   *
+   * @throws Exception the test exception
+   */
+  @Test
+  public void parseResponseTestRetention() throws Exception {
+    String first = "{\"id\":\"a\",  \"token\":\"\u00e9\"}";
+    String res = "{\"data\": [" + first + "], \"meta\": {\"pagination\": {\"limit\": 1, \"offset\": 0, \"total\": 3}}}";
+    assertEquals(RawResponseRetention.FULL, getContext().getRawResponseRetention());
+    getContext().setRawResponseRetention(RawResponseRetention.COMPACT);
+    ApiNodeList<BogusApp> apps = ApiNode.parseResponse(BogusApp.class, res, getContext(), null);
+    assertEquals(first, apps.head().getRawResponse());
+    assertEquals("\u00e9", apps.head().getRawResponseAsJsonObject().get("token").getAsString());
+    assertEquals(res, apps.getRawResponse());
+    assertEquals(3, apps.getRawResponseAsJsonObject().getAsJsonObject("meta").getAsJsonObject("pagination")
+        .get("total").getAsInt());
+
+    getContext().setRawResponseRetention(RawResponseRetention.NONE);
+    apps = ApiNode.parseResponse(BogusApp.class, res, getContext(), null);
+    assertEquals("a", apps.head().getId());
+    assertTrue(apps.head().getRawResponse().contains("\"token\":\"\u00e9\""));
+    assertEquals("a", apps.head().getRawResponseAsJsonObject().get("id").getAsString());
+    JsonObject json = apps.getRawResponseAsJsonObject();
+    assertEquals(3, json.getAsJsonObject("meta").getAsJsonObject("pagination").get("total").getAsInt());
+    assertEquals("a", json.getAsJsonArray("data").get(0).getAsJsonObject().get("id").getAsString());
+    assertTrue(apps.hasNextPage());
+    apps.head().setRawValue(first);
+    assertEquals(first, apps.head().getRawResponse());
+
+    BogusApp bogusAppReq = new BogusApp("a", getContext());
+    ApiRequest request = bogusAppReq.getBogusApp();
+    request.setRawResponseRetention(RawResponseRetention.FULL);
+    assertEquals(first, ApiNode.parseResponse(BogusApp.class, null, res, getContext(), request).head().getRawResponse());
+    try {
+      getContext().setRawResponseRetention(null);
+      fail("Expected " + IllegalArgumentException.class.getName());
+    } catch (IllegalArgumentException e) {
+      assertEquals("Raw response retention must not be null", e.getMessage());
+    }
+  }
+
+  /**
+   * Tests the entities of a lazy list are only bound when they are read.
+   *
+   * @throws Exception the test exception
+   */
+  @Test
+  public void parseResponseTestLazy() throws Exception {
+    String res = "{\"data\": [{\"id\": \"a\", \"token\": \"x\"}, {\"id\": \"b\"}, {\"id\": \"c\"}],"
+        + " \"meta\": {\"pagination\": {\"limit\": 3, \"offset\": 0, \"total\": 9}}}";
+    getContext().setLazyListParsing(true);
+    ApiNodeList<BogusApp> apps = ApiNode.parseResponse(BogusApp.class, res, getContext(), null);
+    assertTrue(apps instanceof LazyApiNodeList);
+    LazyApiNodeList<BogusApp> lazy = (LazyApiNodeList<BogusApp>) apps;
+    assertEquals(3, apps.size());
+    assertTrue(apps.hasNextPage());
+    assertEquals(0, apps.getOffset());
+    assertFalse(lazy.isBound());
+    assertEquals("c", apps.tail().getId());
+    assertEquals("{\"id\": \"c\"}", apps.tail().getRawResponse());
+    assertSame(apps.tail(), apps.get(2));
+    assertFalse(lazy.isBound());
+    StringBuilder ids = new StringBuilder();
+    for (BogusApp app : apps) {
+      ids.append(app.getId());
+    }
+    assertEquals("abc", ids.toString());
+    assertTrue(lazy.isBound());
+    assertEquals("x", apps.head().getToken());
+    assertSame(getContext(), apps.head().getContext());
+    assertEquals(res, apps.getRawResponse());
+
+    apps = ApiNode.parseResponse(BogusApp.class, res, getContext(), null);
+    assertEquals(1, apps.indexOf(apps.get(1)));
+    assertTrue(((LazyApiNodeList<BogusApp>) apps).isBound());
+    apps.remove(0);
+    assertEquals("b", apps.head().getId());
+    apps = ApiNode.parseResponse(BogusApp.class, res, getContext(), null);
+    assertEquals("c", apps.toArray(new BogusApp[0])[2].getId());
+
+    getContext().setRawResponseRetention(RawResponseRetention.NONE);
+    apps = ApiNode.parseResponse(BogusApp.class, res, getContext(), null);
+    assertEquals("b", apps.get(1).getRawResponseAsJsonObject().get("id").getAsString());
+    assertEquals(9, apps.getRawResponseAsJsonObject().getAsJsonObject("meta").getAsJsonObject("pagination")
+        .get("total").getAsInt());
+
+    apps = ApiNode.parseResponse(BogusApp.class, "{\"data\": [{\"id\": \"a\"}, {\"id\": {}}]}", getContext(), null);
+    assertEquals("a", apps.head().getId());
+    try {
+      apps.get(1);
+      fail("Expected " + IllegalStateException.class.getName());
+    } catch (IllegalStateException e) {
+      assertTrue(e.getCause() instanceof ApiException.MalformedResponseException);
+    }
+
+    getContext().setLazyListParsing(false);
+    assertFalse(ApiNode.parseResponse(BogusApp.class, res, getContext(), null) instanceof LazyApiNodeList);
+  }
+}
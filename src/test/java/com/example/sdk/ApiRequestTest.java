@@ -1,14 +1,40 @@
 package com.example.sdk;
 
+import com.example.sdk.ApiEndPoints.ApiEndPoint;
+import com.example.sdk.ApiException.CircuitOpenException;
+import com.example.sdk.ApiException.DeadlineExceededException;
+import com.example.sdk.ApiException.EntityNotFoundException;
 import com.example.sdk.ApiException.FailedRequestException;
+import com.example.sdk.ApiException.NotImplementedException;
+import com.example.sdk.ApiException.RateLimitExceededException;
+import com.example.sdk.transport.HttpTransport;
+import com.example.sdk.types.HttpMethod;
+import com.example.sdk.types.RateLimitMode;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockserver.model.Header;
 
 import javax.json.Json;
 import javax.json.JsonBuilderFactory;
+import javax.json.JsonObjectBuilder;
+import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.net.HttpURLConnection;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.Assert.*;
 
@@ -49,4 +75,847 @@ public class ApiRequestTest extends BaseTest {
       assertEquals("Unsupported http request method", e.getMessage());
     }
   }
-}
\ No newline at end of file
+
+  /**
+   * Tests {@link ApiRequest#executeAsync(Map)}.
+   *
+   * @throws Exception the test exception
+   */
+  @Test
+  public void executeAsyncTest() throws Exception {
+    MockApp mockApp = new MockApp();
+    JsonBuilderFactory factory = Json.createBuilderFactory(null);
+    String res = factory.createObjectBuilder().add("id", mockApp.appId).add("token", mockApp.appToken).build().toString();
+    addAuthenticateServerClient(GET_BOGUS_APP.resolveUriParams(mockApp.appId), null, null, 200, res);
+    BogusApp.RequestGetBogusApp request = new BogusApp(mockApp.appId, getContext()).getBogusApp();
+    final CountDownLatch notified = new CountDownLatch(1);
+    final AtomicReference<BogusApp> callbackResult = new AtomicReference<>();
+    ApiFuture<BogusApp> future = request.executeAsync();
+    future.addCallback(new ApiCallback<BogusApp>() {
+      @Override
+      public void onSuccess(BogusApp result) {
+        callbackResult.set(result);
+        notified.countDown();
+      }
+
+      @Override
+      public void onFailure(Throwable error) {
+        notified.countDown();
+      }
+    });
+    BogusApp bogusApp = future.get(5, TimeUnit.SECONDS);
+    assertTrue(notified.await(5, TimeUnit.SECONDS));
+    assertEquals(mockApp.appId, bogusApp.getId());
+    assertEquals(mockApp.appToken, bogusApp.getToken());
+    assertEquals(bogusApp, callbackResult.get());
+    assertEquals(bogusApp, request.getLastResponse());
+  }
+
+  /**
+   * Tests {@link ApiRequest#executeAsync(Map)} refreshes the expired access token and replays the request.
+   *
+   * @throws Exception the test exception
+   */
+  @Test
+  public void executeAsyncTestRefreshesToken() throws Exception {
+    MockApp mockApp = new MockApp();
+    String newToken = fakeUUID();
+    JsonBuilderFactory factory = Json.createBuilderFactory(null);
+    String tokenResponse = factory.createObjectBuilder()
+        .add("data", factory.createObjectBuilder().add("token", newToken))
+        .build().toString();
+    String res = factory.createObjectBuilder().add("id", mockApp.appId).add("token", mockApp.appToken).build().toString();
+    addAuthenticateServerClient(GET_BOGUS_APP.resolveUriParams(mockApp.appId), null, null,
+        HttpURLConnection.HTTP_UNAUTHORIZED, getInvalidTokenResponse());
+    addAnonymousServerClient(ApiEndPoints.CREATE_ACCESS_TOKEN.resolveUriParams(getAppId()), null, null, 200, tokenResponse);
+    ApiContext refreshedContext = new ApiContext(getMockServerURL(), getMockServerVersion(), getAppId(), getAppSecret(), newToken);
+    addAuthenticateServerClient(GET_BOGUS_APP.resolveUriParams(mockApp.appId), refreshedContext, null, null, 200, res);
+    BogusApp bogusApp = new BogusApp(mockApp.appId, getContext()).getBogusApp().executeAsync().get(10, TimeUnit.SECONDS);
+    assertEquals(mockApp.appId, bogusApp.getId());
+    assertEquals(newToken, getContext().getAppToken());
+  }
+
+  /**
+   * Tests concurrent {@link ApiRequest#execute(Map)} calls rejected with an expired token share a single refresh.
+   *
+   * @throws Exception the test exception
+   */
+  @Test
+  public void executeTestCoalescesTokenRefresh() throws Exception {
+    final MockApp mockApp = new MockApp();
+    int count = 8;
+    final String newToken = addExpiredTokenServerClients(mockApp, count);
+    final CountDownLatch start = new CountDownLatch(1);
+    List<Future<BogusApp>> futures = new ArrayList<>();
+    ExecutorService threads = Executors.newFixedThreadPool(count);
+    for (int i = 0; i < count; ++i) {
+      futures.add(threads.submit(new Callable<BogusApp>() {
+        @Override
+        public BogusApp call() throws Exception {
+          start.await();
+          return new BogusApp(mockApp.appId, getContext()).getBogusApp().execute();
+        }
+      }));
+    }
+    start.countDown();
+    for (Future<BogusApp> future : futures) {
+      assertEquals(mockApp.appId, future.get(10, TimeUnit.SECONDS).getId());
+    }
+    threads.shutdown();
+    assertEquals(newToken, getContext().getAppToken());
+  }
+
+  /**
+   * Tests concurrent {@link ApiRequest#executeAsync(Map)} calls rejected with an expired token share a single refresh.
+   *
+   * @throws Exception the test exception
+   */
+  @Test
+  public void executeAsyncTestCoalescesTokenRefresh() throws Exception {
+    MockApp mockApp = new MockApp();
+    int count = 8;
+    String newToken = addExpiredTokenServerClients(mockApp, count);
+    List<ApiFuture<BogusApp>> futures = new ArrayList<>();
+    for (int i = 0; i < count; ++i) {
+      futures.add(new BogusApp(mockApp.appId, getContext()).getBogusApp().executeAsync());
+    }
+    for (ApiFuture<BogusApp> future : futures) {
+      assertEquals(mockApp.appId, future.get(10, TimeUnit.SECONDS).getId());
+    }
+    assertEquals(newToken, getContext().getAppToken());
+  }
+
+  /**
+   * Tests {@link ApiRequest#executeAsync(Map)} fails for the requests without {@link ApiRequest#handleResponse(String)}.
+   *
+   * @throws Exception the test exception
+   */
+  @Test
+  public void executeAsyncTestNotImplemented() throws Exception {
+    JsonBuilderFactory factory = Json.createBuilderFactory(null);
+    String res = factory.createArrayBuilder().build().toString();
+    addAuthenticateServerClient(GET_BOGUS_APPS, null, null, 200, res);
+    try {
+      new BogusApp(getContext()).getBogusApps().executeAsync().get(5, TimeUnit.SECONDS);
+      fail("Expected " + NotImplementedException.class.getName());
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause() instanceof NotImplementedException);
+    }
+  }
+
+  /**
+   * Tests {@link ApiRequest#execute(Map)} retries the idempotent requests after 429 and 5xx responses.
+   *
+   * @throws Exception the test exception
+   */
+  @Test
+  public void executeTestRetriesServerErrors() throws Exception {
+    MockApp mockApp = new MockApp();
+    ApiEndPoint endpoint = GET_BOGUS_APP.resolveUriParams(mockApp.appId);
+    addAuthenticateServerClient(endpoint, 503, emptyObject, new Header("Retry-After", "0"));
+    addAuthenticateServerClient(endpoint, 429, emptyObject);
+    addAuthenticateServerClient(endpoint, 200, mockAppResponse(mockApp));
+    getContext().setRetryPolicy(new RetryPolicy(2, 10, 100));
+    assertEquals(mockApp.appId, new BogusApp(mockApp.appId, getContext()).getBogusApp().execute().getId());
+  }
+
+  /**
+   * Tests {@link ApiRequest#executeAsync(Map)} retries the idempotent requests after 5xx responses.
+   *
+   * @throws Exception the test exception
+   */
+  @Test
+  public void executeAsyncTestRetriesServerErrors() throws Exception {
+    MockApp mockApp = new MockApp();
+    ApiEndPoint endpoint = GET_BOGUS_APP.resolveUriParams(mockApp.appId);
+    addAuthenticateServerClient(endpoint, 502, emptyObject);
+    addAuthenticateServerClient(endpoint, 500, emptyObject);
+    addAuthenticateServerClient(endpoint, 200, mockAppResponse(mockApp));
+    getContext().setRetryPolicy(new RetryPolicy(2, 10, 100));
+    BogusApp bogusApp = new BogusApp(mockApp.appId, getContext()).getBogusApp().executeAsync().get(5, TimeUnit.SECONDS);
+    assertEquals(mockApp.appId, bogusApp.getId());
+  }
+
+  /**
+   * Tests {@link ApiRequest#execute(Map)} retries the requests to an endpoint with the retry policy set for it
+   * by {@link ApiContext#setRetryPolicy(HttpMethod, String, RetryPolicy)}.
+   *
+   * @throws Exception the test exception
+   */
+  @Test
+  public void executeTestEndpointRetryPolicy() throws Exception {
+    getContext().setRetryPolicy(RetryPolicy.NO_RETRY);
+    RetryPolicy policy = new RetryPolicy(1, 10, 100);
+    getContext().setRetryPolicy(HttpMethod.GET, "bogus/%1s", policy);
+    assertSame(policy, getContext().getRetryPolicy(HttpMethod.GET, "bogus/%1s"));
+    // the other endpoints keep the policy of the context
+    assertSame(RetryPolicy.NO_RETRY, getContext().getRetryPolicy(HttpMethod.GET, "bogus"));
+    MockApp mockApp = new MockApp();
+    ApiEndPoint endpoint = GET_BOGUS_APP.resolveUriParams(mockApp.appId);
+    addAuthenticateServerClient(endpoint, 503, emptyObject);
+    addAuthenticateServerClient(endpoint, 200, mockAppResponse(mockApp));
+    assertEquals(mockApp.appId, new BogusApp(mockApp.appId, getContext()).getBogusApp().execute().getId());
+
+    getContext().setRetryPolicy(HttpMethod.GET, "bogus/%1s", null);
+    assertSame(RetryPolicy.NO_RETRY, getContext().getRetryPolicy(HttpMethod.GET, "bogus/%1s"));
+    addAuthenticateServerClient(endpoint, 503, emptyObject);
+    addAuthenticateServerClient(endpoint, 200, mockAppResponse(mockApp));
+    try {
+      new BogusApp(mockApp.appId, getContext()).getBogusApp().execute();
+      fail("Expected " + FailedRequestException.class.getName());
+    } catch (FailedRequestException e) {
+      // the 503 response is not retried any more
+    }
+  }
+
+  /**
+   * Tests {@link ApiRequest#execute(Map)} does not retry more than the policy allows.
+   *
+   * @throws Exception the test exception
+   */
+  @Test(expected = FailedRequestException.class)
+  public void executeTestRetriesExhausted() throws Exception {
+    MockApp mockApp = new MockApp();
+    ApiEndPoint endpoint = GET_BOGUS_APP.resolveUriParams(mockApp.appId);
+    addAuthenticateServerClient(endpoint, 503, emptyObject);
+    addAuthenticateServerClient(endpoint, 503, emptyObject);
+    addAuthenticateServerClient(endpoint, 200, mockAppResponse(mockApp));
+    getContext().setRetryPolicy(new RetryPolicy(1, 10, 100));
+    new BogusApp(mockApp.appId, getContext()).getBogusApp().execute();
+  }
+
+  /**
+   * Tests {@link ApiRequest#execute(Map)} does not retry when the server asks to wait longer than the policy allows.
+   *
+   * @throws Exception the test exception
+   */
+  @Test(expected = FailedRequestException.class)
+  public void executeTestRetryAfterTooLong() throws Exception {
+    MockApp mockApp = new MockApp();
+    ApiEndPoint endpoint = GET_BOGUS_APP.resolveUriParams(mockApp.appId);
+    addAuthenticateServerClient(endpoint, 503, emptyObject, new Header("Retry-After", "3600"));
+    addAuthenticateServerClient(endpoint, 200, mockAppResponse(mockApp));
+    new BogusApp(mockApp.appId, getContext()).getBogusApp().execute();
+  }
+
+  /**
+   * Tests {@link ApiRequest#execute(Map)} does not retry once the retry budget is exhausted.
+   *
+   * @throws Exception the test exception
+   */
+  @Test(expected = FailedRequestException.class)
+  public void executeTestRetryBudgetExhausted() throws Exception {
+    MockApp mockApp = new MockApp();
+    ApiEndPoint endpoint = GET_BOGUS_APP.resolveUriParams(mockApp.appId);
+    addAuthenticateServerClient(endpoint, 503, emptyObject);
+    addAuthenticateServerClient(endpoint, 200, mockAppResponse(mockApp));
+    getContext().setRetryBudget(new RetryBudget(0, 0));
+    new BogusApp(mockApp.appId, getContext()).getBogusApp().execute();
+  }
+
+  /**
+   * Tests {@link ApiRequest#execute(Map)} does not retry the non-idempotent requests.
+   *
+   * @throws Exception the test exception
+   */
+  @Test(expected = FailedRequestException.class)
+  public void executeTestNoRetryOfPost() throws Exception {
+    ApiEndPoint endpoint = ApiEndPoints.CREATE_ACCESS_TOKEN.resolveUriParams(getAppId());
+    addAnonymousServerClient(endpoint, null, null, 503, emptyObject);
+    addAnonymousServerClient(endpoint, null, null, 200, emptyObject);
+    new App(getContext()).createToken().execute();
+  }
+
+  /**
+   * Tests {@link ApiRequest#executeAsync(Map)} delays the requests beyond the rate limit of the context.
+   *
+   * @throws Exception the test exception
+   */
+  @Test
+  public void executeAsyncTestRateLimited() throws Exception {
+    MockApp mockApp = new MockApp();
+    ApiEndPoint endpoint = GET_BOGUS_APP.resolveUriParams(mockApp.appId);
+    int count = 5;
+    for (int i = 0; i < count; ++i) {
+      addAuthenticateServerClient(endpoint, 200, mockAppResponse(mockApp));
+    }
+    RateLimiter limiter = new RateLimiter(20, 1, RateLimitMode.ASYNC_WAIT);
+    getContext().setRateLimiter(limiter);
+    long start = System.nanoTime();
+    List<ApiFuture<BogusApp>> futures = new ArrayList<>();
+    for (int i = 0; i < count; ++i) {
+      futures.add(new BogusApp(mockApp.appId, getContext()).getBogusApp().executeAsync());
+    }
+    // the calling thread is not blocked
+    assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(100));
+    for (ApiFuture<BogusApp> future : futures) {
+      assertEquals(mockApp.appId, future.get(5, TimeUnit.SECONDS).getId());
+    }
+    assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(140));
+    assertEquals(count - 2, limiter.getDelayedRequests());
+    assertTrue(limiter.getTotalWaitMs() >= 140);
+  }
+
+  /**
+   * Tests {@link ApiRequest#execute(Map)} fails fast once the server reports an exhausted quota.
+   *
+   * @throws Exception the test exception
+   */
+  @Test
+  public void executeTestRateLimitFromHeaders() throws Exception {
+    MockApp mockApp = new MockApp();
+    ApiEndPoint endpoint = GET_BOGUS_APP.resolveUriParams(mockApp.appId);
+    addAuthenticateServerClient(endpoint, 200, mockAppResponse(mockApp),
+        new Header("X-RateLimit-Remaining", "0"), new Header("X-RateLimit-Reset", "60"));
+    addAuthenticateServerClient(endpoint, 200, mockAppResponse(mockApp));
+    RateLimiter limiter = new RateLimiter(100, 10, RateLimitMode.FAIL_FAST);
+    getContext().setRateLimiter(limiter);
+    new BogusApp(mockApp.appId, getContext()).getBogusApp().execute();
+    try {
+      new BogusApp(mockApp.appId, getContext()).getBogusApp().execute();
+      fail("Expected " + RateLimitExceededException.class.getName());
+    } catch (RateLimitExceededException e) {
+      assertEquals(1, limiter.getRejectedRequests());
+    }
+  }
+
+  /**
+   * Tests {@link ApiRequest#execute(Map)} limits the requests to an endpoint by the rate limiter set for it
+   * by {@link ApiContext#setRateLimiter(HttpMethod, String, RateLimiter)}.
+   *
+   * @throws Exception the test exception
+   */
+  @Test
+  public void executeTestEndpointRateLimiter() throws Exception {
+    RateLimiter limiter = new RateLimiter(0.5, 1, RateLimitMode.FAIL_FAST);
+    getContext().setRateLimiter(HttpMethod.GET, "bogus/%1s", limiter);
+    assertSame(limiter, getContext().getRateLimiter(HttpMethod.GET, "bogus/%1s"));
+    assertNull(getContext().getRateLimiter());
+    MockApp mockApp = new MockApp();
+    ApiEndPoint endpoint = GET_BOGUS_APP.resolveUriParams(mockApp.appId);
+    addAuthenticateServerClient(endpoint, 200, mockAppResponse(mockApp));
+    addAuthenticateServerClient(endpoint, 200, mockAppResponse(mockApp));
+    addAuthenticateServerClient(endpoint, 200, mockAppResponse(mockApp));
+    new BogusApp(mockApp.appId, getContext()).getBogusApp().execute();
+    new BogusApp(mockApp.appId, getContext()).getBogusApp().execute();
+    try {
+      new BogusApp(mockApp.appId, getContext()).getBogusApp().execute();
+      fail("Expected " + RateLimitExceededException.class.getName());
+    } catch (RateLimitExceededException e) {
+      assertEquals(1, limiter.getRejectedRequests());
+    }
+    // the other endpoints are not limited
+    for (int i = 0; i < 3; ++i) {
+      addAuthenticateServerClient(GET_BOGUS_APPS, null, null, 200, "[]");
+      new BogusApp(getContext()).getBogusApps().execute();
+    }
+    getContext().setRateLimiter(HttpMethod.GET, "bogus/%1s", null);
+    assertNull(getContext().getRateLimiter(HttpMethod.GET, "bogus/%1s"));
+    new BogusApp(mockApp.appId, getContext()).getBogusApp().execute();
+  }
+
+  /**
+   * Tests {@link ApiRequest#execute(Map)} fails fast once the circuit breaker of the endpoint opens.
+   *
+   * @throws Exception the test exception
+   */
+  @Test
+  public void executeTestCircuitBreakerOpens() throws Exception {
+    getContext().setRetryPolicy(RetryPolicy.NO_RETRY);
+    getContext().setCircuitBreakerPolicy(new CircuitBreakerPolicy(10, 2, 0.5, 10000, 1, 60000, 1));
+    for (int i = 0; i < 2; ++i) {
+      MockApp mockApp = new MockApp();
+      addAuthenticateServerClient(GET_BOGUS_APP.resolveUriParams(mockApp.appId), 503, emptyObject);
+      try {
+        new BogusApp(mockApp.appId, getContext()).getBogusApp().execute();
+        fail("Expected " + FailedRequestException.class.getName());
+      } catch (FailedRequestException e) {
+        // the backend is failing
+      }
+    }
+    // the breaker is shared by the ids of the endpoint
+    MockApp mockApp = new MockApp();
+    addAuthenticateServerClient(GET_BOGUS_APP.resolveUriParams(mockApp.appId), 200, mockAppResponse(mockApp));
+    try {
+      new BogusApp(mockApp.appId, getContext()).getBogusApp().executeAsync().get(5, TimeUnit.SECONDS);
+      fail("Expected " + CircuitOpenException.class.getName());
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause() instanceof CircuitOpenException);
+    }
+    // the other endpoints are not affected
+    addAuthenticateServerClient(GET_BOGUS_APPS, null, null, 200, "[]");
+    new BogusApp(getContext()).getBogusApps().execute();
+  }
+
+  /**
+   * Tests a trial call of a half-open circuit breaker rejected by the rate limiter, in {@link ApiRequest#execute(Map)}
+   * and {@link ApiRequest#executeAsync(Map)}, does not keep the breaker from closing.
+   *
+   * @throws Exception the test exception
+   */
+  @Test
+  public void executeTestCircuitBreakerRateLimited() throws Exception {
+    getContext().setRetryPolicy(RetryPolicy.NO_RETRY);
+    getContext().setCircuitBreakerPolicy(new CircuitBreakerPolicy(10, 1, 0.5, 10000, 1, 100, 1));
+    MockApp failingApp = new MockApp();
+    addAuthenticateServerClient(GET_BOGUS_APP.resolveUriParams(failingApp.appId), 503, emptyObject);
+    try {
+      new BogusApp(failingApp.appId, getContext()).getBogusApp().execute();
+      fail("Expected " + FailedRequestException.class.getName());
+    } catch (FailedRequestException e) {
+      // the breaker opens
+    }
+    RateLimiter limiter = new RateLimiter(0.5, 1, RateLimitMode.FAIL_FAST);
+    try {
+      while (true) {
+        limiter.reserve();
+      }
+    } catch (RateLimitExceededException e) {
+      // the permits are all taken
+    }
+    getContext().setRateLimiter(limiter);
+    Thread.sleep(150);
+    MockApp mockApp = new MockApp();
+    try {
+      new BogusApp(mockApp.appId, getContext()).getBogusApp().execute();
+      fail("Expected " + RateLimitExceededException.class.getName());
+    } catch (RateLimitExceededException e) {
+      // the trial call is not sent
+    }
+    try {
+      new BogusApp(mockApp.appId, getContext()).getBogusApp().executeAsync().get(5, TimeUnit.SECONDS);
+      fail("Expected " + RateLimitExceededException.class.getName());
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause() instanceof RateLimitExceededException);
+    }
+    getContext().setRateLimiter(null);
+    addAuthenticateServerClient(GET_BOGUS_APP.resolveUriParams(mockApp.appId), 200, mockAppResponse(mockApp));
+    new BogusApp(mockApp.appId, getContext()).getBogusApp().execute();
+    assertEquals(CircuitBreaker.State.CLOSED, getContext().getCircuitBreaker(GET_BOGUS_APP).getState());
+  }
+
+  /**
+   * Tests the concurrency limit of an endpoint backs off on a 5xx response and releases every request.
+   *
+   * @throws Exception the test exception
+   */
+  @Test
+  public void executeTestConcurrencyLimit() throws Exception {
+    getContext().setRetryPolicy(RetryPolicy.NO_RETRY);
+    getContext().setConcurrencyLimitPolicy(new ConcurrencyLimitPolicy(4, 1, 8, 0));
+    MockApp failingApp = new MockApp();
+    addAuthenticateServerClient(GET_BOGUS_APP.resolveUriParams(failingApp.appId), 503, emptyObject);
+    try {
+      new BogusApp(failingApp.appId, getContext()).getBogusApp().execute();
+      fail("Expected " + FailedRequestException.class.getName());
+    } catch (FailedRequestException e) {
+      // the backend is overloaded
+    }
+    ConcurrencyLimiter limiter = getContext().getConcurrencyLimiter(GET_BOGUS_APP);
+    assertEquals(3, limiter.getLimit());
+    assertEquals(0, limiter.getInFlight());
+    MockApp mockApp = new MockApp();
+    addAuthenticateServerClient(GET_BOGUS_APP.resolveUriParams(mockApp.appId), 200, mockAppResponse(mockApp));
+    new BogusApp(mockApp.appId, getContext()).getBogusApp().executeAsync().get(5, TimeUnit.SECONDS);
+    assertEquals(0, limiter.getInFlight());
+  }
+
+  /**
+   * Tests {@link ApiRequest#execute(Map)} and {@link ApiRequest#executeAsync(Map)} fail without
+   * sending the request once the deadline is passed.
+   *
+   * @throws Exception the test exception
+   */
+  @Test
+  public void executeTestDeadlineExceeded() throws Exception {
+    MockApp mockApp = new MockApp();
+    BogusApp.RequestGetBogusApp request = new BogusApp(mockApp.appId, getContext()).getBogusApp();
+    request.setDeadline(Deadline.after(0));
+    try {
+      request.execute();
+      fail("Expected " + DeadlineExceededException.class.getName());
+    } catch (DeadlineExceededException e) {
+      // the deadline is passed
+    }
+    try {
+      request.executeAsync().get(5, TimeUnit.SECONDS);
+      fail("Expected " + DeadlineExceededException.class.getName());
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause() instanceof DeadlineExceededException);
+    }
+  }
+
+  /**
+   * Tests {@link ApiRequest#execute(Map)} does not wait for a retry which would end after the deadline.
+   *
+   * @throws Exception the test exception
+   */
+  @Test
+  public void executeTestDeadlineBoundsBackoff() throws Exception {
+    getContext().setRetryPolicy(new RetryPolicy(3, 10, 10000));
+    MockApp mockApp = new MockApp();
+    addAuthenticateServerClient(GET_BOGUS_APP.resolveUriParams(mockApp.appId), 503, emptyObject,
+        new Header("Retry-After", "2"));
+    BogusApp.RequestGetBogusApp request = new BogusApp(mockApp.appId, getContext()).getBogusApp();
+    request.setTimeout(1000);
+    long start = System.nanoTime();
+    try {
+      request.execute();
+      fail("Expected " + FailedRequestException.class.getName());
+    } catch (FailedRequestException e) {
+      // the 503 response is final
+    }
+    assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(1000));
+  }
+
+  /**
+   * Tests {@link ApiNodeList#nextPage(int)} is requested within the deadline set on the request of the first page.
+   *
+   * @throws Exception the test exception
+   */
+  @Test
+  public void nextPageTestCarriesDeadline() throws Exception {
+    String response = generatePaginationResponse(mockApps(4), 2, 0);
+    for (int i = 0; i < 2; ++i) {
+      addAuthenticateServerClient(GET_BOGUS_APPS, null, null, 200, response);
+    }
+    BogusApp.RequestGetBogusApps request = new BogusApp(getContext()).getBogusApps();
+    Deadline deadline = Deadline.after(500);
+    request.setDeadline(deadline);
+    ApiNodeList<BogusApp> firstPage = request.execute();
+    assertTrue(firstPage.hasNextPage());
+    assertSame(deadline, firstPage.getDeadline());
+    request.setDeadline(null);
+    Thread.sleep(deadline.getRemainingMs() + 1);
+    try {
+      firstPage.nextPage(2);
+      fail("Expected " + DeadlineExceededException.class.getName());
+    } catch (DeadlineExceededException e) {
+      // the next page only gets the time left
+    }
+    // the request gets a new deadline on its own
+    assertNull(request.getDeadline());
+    assertNull(request.execute().getDeadline());
+  }
+
+  /**
+   * Tests {@link ApiNodeList#nextPage(int)} gets its own timeout when the caller set no deadline.
+   *
+   * @throws Exception the test exception
+   */
+  @Test
+  public void nextPageTestDefaultTimeout() throws Exception {
+    String response = generatePaginationResponse(mockApps(4), 2, 0);
+    for (int i = 0; i < 4; ++i) {
+      addAuthenticateServerClient(GET_BOGUS_APPS, null, null, 200, response);
+    }
+    getContext().setRequestTimeoutMs(300);
+    BogusApp.RequestGetBogusApps request = new BogusApp(getContext()).getBogusApps();
+    ApiNodeList<BogusApp> firstPage = request.execute();
+    assertNull(firstPage.getDeadline());
+    Thread.sleep(400);
+    // the pages together take longer than the timeout of one
+    assertEquals(2, firstPage.nextPage(2).size());
+
+    request.setTimeout(300);
+    firstPage = request.execute();
+    assertNull(firstPage.getDeadline());
+    Thread.sleep(400);
+    assertEquals(2, firstPage.nextPage(2).size());
+  }
+
+  /**
+   * Tests a late GET request is hedged, the hedged request answers and the late one is cancelled,
+   * in {@link ApiRequest#execute(Map)} and {@link ApiRequest#executeAsync(Map)}.
+   *
+   * @throws Exception the test exception
+   */
+  @Test
+  public void executeTestHedgedRequest() throws Exception {
+    getContext().setHedgingPolicy(new HedgingPolicy(0.5, 1, 0, 1));
+    MockApp warmApp = new MockApp();
+    addAuthenticateServerClient(GET_BOGUS_APP.resolveUriParams(warmApp.appId), 200, mockAppResponse(warmApp));
+    new BogusApp(warmApp.appId, getContext()).getBogusApp().execute();
+    Hedger hedger = getContext().getHedger(GET_BOGUS_APP);
+    assertTrue(hedger.getDelayNanos() >= 0);
+    StallingTransport transport = new StallingTransport(getContext().getTransport());
+    getContext().setTransport(transport);
+    MockApp mockApp = new MockApp();
+    addAuthenticateServerClient(GET_BOGUS_APP.resolveUriParams(mockApp.appId), 200, mockAppResponse(mockApp));
+    addAuthenticateServerClient(GET_BOGUS_APP.resolveUriParams(mockApp.appId), 200, mockAppResponse(mockApp));
+    long start = System.nanoTime();
+    assertEquals(mockApp.appId, new BogusApp(mockApp.appId, getContext()).getBogusApp().execute().getId());
+    transport.stalling.set(true);
+    assertEquals(mockApp.appId, new BogusApp(mockApp.appId, getContext()).getBogusApp().executeAsync()
+        .get(5, TimeUnit.SECONDS).getId());
+    assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(2000));
+    assertEquals(2, hedger.getHedges());
+    assertTrue(transport.cancelled.await(1, TimeUnit.SECONDS));
+  }
+
+  /**
+   * Tests the identical GET requests in flight share a single exchange, in {@link ApiRequest#execute(Map)}
+   * and {@link ApiRequest#executeAsync(Map)}, while the other requests are sent on their own.
+   *
+   * @throws Exception the test exception
+   */
+  @Test
+  public void executeTestCoalescesIdenticalRequests() throws Exception {
+    RequestCoalescer coalescer = new RequestCoalescer();
+    getContext().setRequestCoalescer(coalescer);
+    GatedTransport transport = new GatedTransport(getContext().getTransport());
+    getContext().setTransport(transport);
+    final MockApp mockApp = new MockApp();
+    MockApp otherApp = new MockApp();
+    addAuthenticateServerClient(GET_BOGUS_APP.resolveUriParams(mockApp.appId), 200, mockAppResponse(mockApp));
+    addAuthenticateServerClient(GET_BOGUS_APP.resolveUriParams(otherApp.appId), 200, mockAppResponse(otherApp));
+    ExecutorService threads = Executors.newFixedThreadPool(4);
+    List<Future<BogusApp>> results = new ArrayList<>();
+    for (int i = 0; i < 4; ++i) {
+      results.add(threads.submit(new Callable<BogusApp>() {
+        @Override
+        public BogusApp call() throws Exception {
+          return new BogusApp(mockApp.appId, getContext()).getBogusApp().execute();
+        }
+      }));
+    }
+    ApiFuture<BogusApp> async = new BogusApp(mockApp.appId, getContext()).getBogusApp().executeAsync();
+    ApiFuture<BogusApp> other = new BogusApp(otherApp.appId, getContext()).getBogusApp().executeAsync();
+    while (coalescer.getRequests() < 6) {
+      Thread.sleep(1);
+    }
+    transport.gate.countDown();
+    for (Future<BogusApp> result : results) {
+      assertEquals(mockApp.appId, result.get(5, TimeUnit.SECONDS).getId());
+    }
+    assertEquals(mockApp.appId, async.get(5, TimeUnit.SECONDS).getId());
+    assertEquals(otherApp.appId, other.get(5, TimeUnit.SECONDS).getId());
+    threads.shutdown();
+    assertEquals(2, transport.calls.get());
+    assertEquals(4, coalescer.getCoalescedRequests());
+    assertEquals(4 / 6.0, coalescer.getHitRate(), 1e-9);
+    assertEquals(0, coalescer.getInFlight());
+  }
+
+  /**
+   * Tests a GET response stored with its ETag is revalidated, and served again on a 304
+   * in {@link ApiRequest#executeAsync(Map)} without parsing it again.
+   *
+   * @throws Exception the test exception
+   */
+  @Test
+  public void executeTestHttpCacheRevalidates() throws Exception {
+    HttpCache cache = new HttpCache();
+    getContext().setHttpCache(cache);
+    GatedTransport transport = new GatedTransport(getContext().getTransport());
+    transport.gate.countDown();
+    getContext().setTransport(transport);
+    MockApp mockApp = new MockApp();
+    ApiEndPoint endpoint = GET_BOGUS_APP.resolveUriParams(mockApp.appId);
+    addAuthenticateServerClient(endpoint, 200, mockAppResponse(mockApp), new Header("ETag", "\"v1\""));
+    addAuthenticateServerClient(endpoint, 304, "");
+    BogusApp first = new BogusApp(mockApp.appId, getContext()).getBogusApp().execute();
+    BogusApp second = new BogusApp(mockApp.appId, getContext()).getBogusApp().executeAsync().get(5, TimeUnit.SECONDS);
+    assertEquals(mockApp.appId, first.getId());
+    assertSame(first, second);
+    assertEquals(2, transport.calls.get());
+    assertEquals(1, cache.getRevalidations());
+    assertEquals(0, cache.getHits());
+  }
+
+  /**
+   * Tests an expired cached response is served right away, while a background request revalidates it.
+   *
+   * @throws Exception the test exception
+   */
+  @Test
+  public void executeTestStaleWhileRevalidate() throws Exception {
+    HttpCache cache = new HttpCache();
+    getContext().setHttpCache(cache);
+    getContext().setRevalidationPolicy(new RevalidationPolicy(60000, 0, new Executor() {
+      @Override
+      public void execute(Runnable command) {
+        command.run();
+      }
+    }));
+    GatedTransport transport = new GatedTransport(getContext().getTransport());
+    transport.gate.countDown();
+    getContext().setTransport(transport);
+    MockApp mockApp = new MockApp();
+    ApiEndPoint endpoint = GET_BOGUS_APP.resolveUriParams(mockApp.appId);
+    addAuthenticateServerClient(endpoint, 200, mockAppResponse(mockApp), new Header("ETag", "\"v1\""));
+    addAuthenticateServerClient(endpoint, 304, "");
+    BogusApp first = new BogusApp(mockApp.appId, getContext()).getBogusApp().execute();
+    BogusApp second = new BogusApp(mockApp.appId, getContext()).getBogusApp().execute();
+    assertSame(first, second);
+    assertEquals(2, transport.calls.get());
+    assertEquals(1, cache.getStaleHits());
+    assertEquals(1, cache.getRefreshes());
+    assertEquals(1, cache.getRevalidations());
+  }
+
+  /**
+   * Tests an expired cached response of an endpoint is served and revalidated with the revalidation policy set for it
+   * by {@link ApiContext#setRevalidationPolicy(HttpMethod, String, RevalidationPolicy)}.
+   *
+   * @throws Exception the test exception
+   */
+  @Test
+  public void executeTestEndpointRevalidationPolicy() throws Exception {
+    HttpCache cache = new HttpCache();
+    getContext().setHttpCache(cache);
+    final AtomicInteger refreshes = new AtomicInteger();
+    RevalidationPolicy policy = new RevalidationPolicy(60000, 0, new Executor() {
+      @Override
+      public void execute(Runnable command) {
+        refreshes.incrementAndGet();
+        command.run();
+      }
+    });
+    getContext().setRevalidationPolicy(HttpMethod.GET, "bogus/%1s", policy);
+    assertSame(policy, getContext().getRevalidationPolicy(HttpMethod.GET, "bogus/%1s"));
+    // the other endpoints keep the policy of the context
+    assertNull(getContext().getRevalidationPolicy(HttpMethod.GET, "bogus"));
+    MockApp mockApp = new MockApp();
+    ApiEndPoint endpoint = GET_BOGUS_APP.resolveUriParams(mockApp.appId);
+    addAuthenticateServerClient(endpoint, 200, mockAppResponse(mockApp), new Header("ETag", "\"v1\""));
+    addAuthenticateServerClient(endpoint, 304, "");
+    BogusApp first = new BogusApp(mockApp.appId, getContext()).getBogusApp().execute();
+    BogusApp second = new BogusApp(mockApp.appId, getContext()).getBogusApp().execute();
+    assertSame(first, second);
+    assertEquals(1, refreshes.get());
+    assertEquals(1, cache.getStaleHits());
+
+    getContext().setRevalidationPolicy(HttpMethod.GET, "bogus/%1s", null);
+    assertNull(getContext().getRevalidationPolicy(HttpMethod.GET, "bogus/%1s"));
+  }
+
+  /**
+   * Tests a lookup answered with a 404 fails as not found, then again without a request.
+   *
+   * @throws Exception the test exception
+   */
+  @Test
+  public void executeTestNegativeCache() throws Exception {
+    NegativeCache cache = new NegativeCache();
+    getContext().setNegativeCache(cache);
+    GatedTransport transport = new GatedTransport(getContext().getTransport());
+    transport.gate.countDown();
+    getContext().setTransport(transport);
+    String id = fakeUUID();
+    addAuthenticateServerClient(GET_BOGUS_APP.resolveUriParams(id), 404, "{\"error\":\"not found\"}");
+    for (int i = 0; i < 2; ++i) {
+      try {
+        new BogusApp(id, getContext()).getBogusApp().execute();
+        fail("Expected " + EntityNotFoundException.class.getName());
+      } catch (EntityNotFoundException e) {
+        assertEquals(1, transport.calls.get());
+      }
+    }
+    assertEquals(1, cache.getHits());
+    try {
+      new BogusApp(id, getContext()).getBogusApp().executeAsync().get(5, TimeUnit.SECONDS);
+      fail("Expected " + EntityNotFoundException.class.getName());
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause() instanceof EntityNotFoundException);
+    }
+    assertEquals(1, transport.calls.get());
+  }
+
+  private String mockAppResponse(MockApp mockApp) {
+    JsonBuilderFactory factory = Json.createBuilderFactory(null);
+    return factory.createObjectBuilder().add("id", mockApp.appId).add("token", mockApp.appToken).build().toString();
+  }
+
+  private JsonObjectBuilder[] mockApps(int count) {
+    JsonBuilderFactory factory = Json.createBuilderFactory(null);
+    JsonObjectBuilder[] apps = new JsonObjectBuilder[count];
+    for (int i = 0; i < count; ++i) {
+      MockApp mockApp = new MockApp();
+      apps[i] = factory.createObjectBuilder().add("id", mockApp.appId).add("token", mockApp.appToken);
+    }
+    return apps;
+  }
+
+  private String addExpiredTokenServerClients(MockApp mockApp, int count) {
+    String newToken = fakeUUID();
+    JsonBuilderFactory factory = Json.createBuilderFactory(null);
+    String tokenResponse = factory.createObjectBuilder()
+        .add("data", factory.createObjectBuilder().add("token", newToken))
+        .build().toString();
+    String res = factory.createObjectBuilder().add("id", mockApp.appId).add("token", mockApp.appToken).build().toString();
+    ApiContext refreshedContext = new ApiContext(getMockServerURL(), getMockServerVersion(), getAppId(), getAppSecret(), newToken);
+    for (int i = 0; i < count; ++i) {
+      addAuthenticateServerClient(GET_BOGUS_APP.resolveUriParams(mockApp.appId), null, null,
+          HttpURLConnection.HTTP_UNAUTHORIZED, getInvalidTokenResponse());
+      addAuthenticateServerClient(GET_BOGUS_APP.resolveUriParams(mockApp.appId), refreshedContext, null, null, 200, res);
+    }
+    // a second refresh would not find a token to create
+    addAnonymousServerClient(ApiEndPoints.CREATE_ACCESS_TOKEN.resolveUriParams(getAppId()), null, null, 200, tokenResponse);
+    return newToken;
+  }
+
+  /**
+   * The transport holding back the next request until it is cancelled.
+   */
+  private static class StallingTransport implements HttpTransport {
+    private final HttpTransport transport;
+    private final AtomicBoolean stalling = new AtomicBoolean(true);
+    private final CountDownLatch cancelled = new CountDownLatch(2);
+
+    private StallingTransport(HttpTransport transport) {
+      this.transport = transport;
+    }
+
+    @Override
+    public Response execute(Request request) throws IOException {
+      if (stalling.compareAndSet(true, false)) {
+        long start = System.nanoTime();
+        while (!request.isCancelled() && System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5)) {
+          try {
+            Thread.sleep(1);
+          } catch (InterruptedException e) {
+            throw new InterruptedIOException();
+          }
+        }
+        if (request.isCancelled()) {
+          cancelled.countDown();
+          throw new InterruptedIOException("Request cancelled");
+        }
+      }
+      return transport.execute(request);
+    }
+
+    @Override
+    public void close() {
+    }
+  }
+
+  /**
+   * The transport holding back the requests until its gate opens.
+   */
+  private static class GatedTransport implements HttpTransport {
+    private final HttpTransport transport;
+    private final CountDownLatch gate = new CountDownLatch(1);
+    private final AtomicInteger calls = new AtomicInteger();
+
+    private GatedTransport(HttpTransport transport) {
+      this.transport = transport;
+    }
+
+    @Override
+    public Response execute(Request request) throws IOException {
+      calls.incrementAndGet();
+      try {
+        gate.await();
+      } catch (InterruptedException e) {
+        throw new InterruptedIOException();
+      }
+      return transport.execute(request);
+    }
+
+    @Override
+    public void close() {
+    }
+  }
+}
@@ -7,6 +7,7 @@ import org.junit.Test;
 
 import javax.json.Json;
 import javax.json.JsonBuilderFactory;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.*;
 
@@ -28,7 +29,7 @@ public class AppTest extends BaseTest {
     String requestBody = factory.createObjectBuilder()
         .add("appSecret", getAppSecret())
         .build().toString();
-    addAnonymousServerClient(endpoint, null, requestBody, 200, mockCreateTokenResponse());
+    addAnonymousServerClient(endpoint, null, requestBody, 200, mockCreateTokenResponse(newToken, 1));
   }
 
   @After
@@ -52,10 +53,26 @@ public class AppTest extends BaseTest {
     assertNotNull(app.getToken());
     assertNotEquals(getAppToken(), app.getToken());
     assertEquals(newToken, app.getToken());
+    assertEquals(Long.valueOf(1), app.getExpiresIn());
     App lastResponse = request.getLastResponse();
     assertEquals(app, lastResponse);
   }
 
+  /**
+   * Tests {@link App.RequestCreateToken#executeAsync()}.
+   *
+   * @throws Exception the test exception
+   */
+  @Test
+  public void createTokenAsyncTest() throws Exception {
+    App.RequestCreateToken request = new App(getContext()).createToken();
+    App app = request.executeAsync().get(5, TimeUnit.SECONDS);
+    assertEquals(getAppId(), app.getId());
+    assertEquals(newToken, app.getToken());
+    assertEquals(newToken, getContext().getAppToken());
+    assertEquals(app, request.getLastResponse());
+  }
+
   /**
    * Tests {@link App#getId()}.
    *
@@ -85,16 +102,92 @@ public class AppTest extends BaseTest {
     assertEquals(mockApp.appToken, app.getToken());
   }
 
+  /**
+   * Tests {@link ApiContext#enableTokenRenewal(long)} renews the token in the background.
+   *
+   * @throws Exception the test exception
+   */
+  @Test
+  public void tokenRenewalTest() throws Exception {
+    ApiContext context = getContext();
+    context.enableTokenRenewal(200);
+    try {
+      assertTrue(awaitAppToken(context, newToken));
+    } finally {
+      context.disableTokenRenewal();
+    }
+  }
+
+  /**
+   * Tests the token is renewed before the expiry of the token response.
+   *
+   * @throws Exception the test exception
+   */
+  @Test
+  public void tokenRenewalTestUsesExpiry() throws Exception {
+    String renewedToken = fakeUUID();
+    addAnonymousServerClient(ApiEndPoints.CREATE_ACCESS_TOKEN.resolveUriParams(getAppId()), null, null, 200,
+        mockCreateTokenResponse(renewedToken, 3600));
+    ApiContext context = getContext();
+    context.enableTokenRenewal(TimeUnit.HOURS.toMillis(1));
+    try {
+      new App(context).createToken().execute();
+      assertEquals(newToken, context.getAppToken());
+      assertTrue(awaitAppToken(context, renewedToken));
+    } finally {
+      context.disableTokenRenewal();
+    }
+  }
+
+  /**
+   * Tests {@link App} is bound by its generated type adapter, with the alternate names of its fields.
+   *
+   * @throws Exception the test exception
+   */
+  @Test
+  public void typeAdapterTest() throws Exception {
+    assertTrue(ApiNode.getGson().getAdapter(App.class) instanceof ApiNodeTypeAdapter);
+    App app = ApiNode.getGson().fromJson("{\"appId\": \"a\", \"token\": true, \"expires_in\": 60, \"other\": {}}",
+        App.class);
+    assertEquals("a", app.getId());
+    assertEquals("true", app.getToken());
+    assertEquals(Long.valueOf(60), app.getExpiresIn());
+    app = ApiNode.getGson().fromJson("{\"id\": \"b\", \"expiresIn\": null}", App.class);
+    assertEquals("{\"id\":\"b\",\"token\":null,\"expiresIn\":null}", app.toString());
+  }
+
+  /**
+   * Waits for the app access token of a context to be renewed.
+   *
+   * @param context the API context
+   * @param token   the expected token
+   * @return whether the token was renewed within 5 seconds
+   * @throws InterruptedException the interrupted exception
+   */
+  private static boolean awaitAppToken(ApiContext context, String token) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + 5000;
+    while (!token.equals(context.getAppToken())) {
+      if (System.currentTimeMillis() > deadline) {
+        return false;
+      }
+      Thread.sleep(20);
+    }
+    return true;
+  }
+
   /**
    * Gets the mocked response of {@link App#createToken()}
    *
+   * @param token     the app access token
+   * @param expiresIn the lifetime of the token in seconds
    * @return mocked response in {@link String}
    */
-  private String mockCreateTokenResponse() {
+  private String mockCreateTokenResponse(String token, long expiresIn) {
     JsonBuilderFactory factory = Json.createBuilderFactory(null);
     return factory.createObjectBuilder()
         .add("data", factory.createObjectBuilder()
-            .add("token", newToken))
+            .add("token", token)
+            .add("expiresIn", expiresIn))
         .build().toString();
   }
-}
\ No newline at end of file
+}
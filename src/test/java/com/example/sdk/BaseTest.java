@@ -1,5 +1,6 @@
 package com.example.sdk;
 
+import com.example.sdk.transport.PooledHttpTransport;
 import com.example.sdk.types.HttpMethod;
 import com.github.javafaker.Faker;
 import com.google.gson.annotations.SerializedName;
@@ -75,8 +76,25 @@ class BaseTest {
    * The fake endpoint to get the bogus apps.
    */
   static ApiEndPoint GET_BOGUS_APPS = BaseTest.mockAPIEndPoint("bogus", HttpMethod.GET);
+  /**
+   * The fake endpoint to create a bogus app.
+   */
+  static ApiEndPoint CREATE_BOGUS_APP = BaseTest.mockAPIEndPoint("bogus", HttpMethod.POST);
+  /**
+   * The fake endpoint to update a bogus app.
+   */
+  static ApiEndPoint UPDATE_BOGUS_APP = BaseTest.mockAPIEndPoint("bogus/%1s", HttpMethod.PUT);
+  /**
+   * The fake endpoint to delete a bogus app.
+   */
+  static ApiEndPoint DELETE_BOGUS_APP = BaseTest.mockAPIEndPoint("bogus/%1s", HttpMethod.DELETE);
+  /**
+   * The fake endpoint to write the bogus apps in bulk.
+   */
+  static ApiEndPoint BATCH_BOGUS_APPS = BaseTest.mockAPIEndPoint("bogus/batch", HttpMethod.POST);
 
   private ClientAndServer mockServer;
+  private PooledHttpTransport transport;
   private MockServerClient mockServerClient;
 
   /**
@@ -100,6 +118,9 @@ class BaseTest {
     int port = url.getPort();
     mockServer = ClientAndServer.startClientAndServer(port);
     mockServerClient = new MockServerClient(host, port);
+    // the connections to the mock server of a previous test are not reused, a POST request is not resent
+    transport = new PooledHttpTransport();
+    context.setTransport(transport);
   }
 
   /**
@@ -110,6 +131,10 @@ class BaseTest {
       mockServer.stop();
       mockServer = null;
     }
+    if (transport != null) {
+      transport.close();
+      transport = null;
+    }
     mockServerClient = null;
   }
 
@@ -153,6 +178,18 @@ class BaseTest {
     addMockServerClient(endpoint, context.getAppToken(), queryStringParameters, requestBody, statusCode, responseBody);
   }
 
+  /**
+   * Add an authenticate mock server client responding with extra headers.
+   *
+   * @param endpoint        the endpoint
+   * @param statusCode      the status code
+   * @param responseBody    the response body
+   * @param responseHeaders the extra response headers
+   */
+  void addAuthenticateServerClient(ApiEndPoint endpoint, int statusCode, String responseBody, Header... responseHeaders) {
+    addMockServerClient(endpoint, appToken, null, null, statusCode, responseBody, responseHeaders);
+  }
+
   /**
    * Parse date string date.
    *
@@ -282,7 +319,7 @@ class BaseTest {
     return value.toString();
   }
 
-  private void addMockServerClient(ApiEndPoint endpoint, String appToken, List<Parameter> queryStringParameters, String requestBody, int statusCode, String responseBody) {
+  private void addMockServerClient(ApiEndPoint endpoint, String appToken, List<Parameter> queryStringParameters, String requestBody, int statusCode, String responseBody, Header... responseHeaders) {
     if (queryStringParameters == null) {
       queryStringParameters = Collections.emptyList();
     }
@@ -301,6 +338,9 @@ class BaseTest {
         )
         .withBody(responseBody)
         .withDelay(new Delay(TimeUnit.MILLISECONDS, 10));
+    for (Header header : responseHeaders) {
+      response.withHeader(header);
+    }
     mockServerClient.when(request, Times.exactly(1)).respond(response);
   }
 
@@ -413,7 +453,23 @@ class BaseTest {
 
       @Override
       public BogusApp execute(Map<String, Object> extraParams) throws ApiException, InterruptedException {
-        lastResponse = BogusApp.parseResponse(BogusApp.class, executeInternal(extraParams), getContext(), this).head();
+        return handleResponse(executeInternal(extraParams));
+      }
+
+      @Override
+      public ApiFuture<BogusApp> executeAsync() {
+        return executeAsync(null);
+      }
+
+      @Override
+      @SuppressWarnings("unchecked")
+      public ApiFuture<BogusApp> executeAsync(Map<String, Object> extraParams) {
+        return (ApiFuture<BogusApp>) super.executeAsync(extraParams);
+      }
+
+      @Override
+      protected BogusApp handleResponse(String response) throws ApiException {
+        lastResponse = BogusApp.parseResponse(BogusApp.class, response, getContext(), this).head();
         return lastResponse;
       }
     }
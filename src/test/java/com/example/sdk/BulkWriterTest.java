@@ -0,0 +1,125 @@
+package com.example.sdk;
+
+import com.example.sdk.ApiException.FailedRequestException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * The test suite for {@link BulkWriter}.
+ *
+ * @author Feng Zheng
+ * @version 1.0
+ * @since 1.0
+ */
+public class BulkWriterTest extends BaseTest {
+  /**
+   * Sets up test suite.
+   *
+   * @throws Exception the test exception
+   */
+  @Before
+  public void setUpTest() throws Exception {
+    super.setUp();
+  }
+
+  /**
+   * Tear down test suite.
+   */
+  @After
+  public void tearDownTest() {
+    super.tearDown();
+  }
+
+  /**
+   * Tests the writes are sent one by one in parallel, a failed write not aborting the others.
+   *
+   * @throws Exception the test exception
+   */
+  @Test
+  public void createTestPartialFailure() throws Exception {
+    List<Map<String, Object>> payloads = new ArrayList<>();
+    for (int i = 0; i < 3; ++i) {
+      payloads.add(Collections.<String, Object>singletonMap("name", "app" + i));
+    }
+    addAuthenticateServerClient(CREATE_BOGUS_APP, null, "{\"name\":\"app0\"}", 201, "{\"id\":\"0\"}");
+    addAuthenticateServerClient(CREATE_BOGUS_APP, null, "{\"name\":\"app1\"}", 400, "{\"error\":\"invalid\"}");
+    addAuthenticateServerClient(CREATE_BOGUS_APP, null, "{\"name\":\"app2\"}", 201, "{\"id\":\"2\"}");
+    BulkWriter writer = new BulkWriter(getContext(), CREATE_BOGUS_APP, UPDATE_BOGUS_APP, DELETE_BOGUS_APP, null, 10, 2);
+    List<BulkWriter.Result> results = writer.create(payloads);
+    assertEquals(3, results.size());
+    assertTrue(results.get(0).isSuccess());
+    assertEquals("{\"id\":\"0\"}", results.get(0).getResponse());
+    assertFalse(results.get(1).isSuccess());
+    assertTrue(results.get(1).getError() instanceof FailedRequestException);
+    assertEquals("{\"error\":\"invalid\"}", results.get(1).getError().getMessage());
+    assertTrue(results.get(2).isSuccess());
+    assertEquals(2, results.get(2).getIndex());
+  }
+
+  /**
+   * Tests the writes are sent to the batch endpoint in chunks, the results demultiplexed in order.
+   *
+   * @throws Exception the test exception
+   */
+  @Test
+  public void updateTestBatch() throws Exception {
+    Map<String, Map<String, Object>> payloads = new LinkedHashMap<>();
+    for (int i = 0; i < 3; ++i) {
+      payloads.put("id" + i, Collections.<String, Object>singletonMap("name", "app" + i));
+    }
+    addAuthenticateServerClient(BATCH_BOGUS_APPS, null,
+        "{\"operations\":[{\"method\":\"PUT\",\"id\":\"id0\",\"data\":{\"name\":\"app0\"}},"
+            + "{\"method\":\"PUT\",\"id\":\"id1\",\"data\":{\"name\":\"app1\"}}]}",
+        200, "{\"data\":[{\"status\":200,\"data\":{\"id\":\"id0\"}},{\"status\":404,\"error\":\"not found\"}]}");
+    addAuthenticateServerClient(BATCH_BOGUS_APPS, null,
+        "{\"operations\":[{\"method\":\"PUT\",\"id\":\"id2\",\"data\":{\"name\":\"app2\"}}]}",
+        400, "{\"error\":\"invalid\"}");
+    BulkWriter writer = new BulkWriter(getContext(), CREATE_BOGUS_APP, UPDATE_BOGUS_APP, DELETE_BOGUS_APP,
+        BATCH_BOGUS_APPS, 2, 2);
+    List<BulkWriter.Result> results = writer.update(payloads);
+    assertEquals(3, results.size());
+    assertTrue(results.get(0).isSuccess());
+    assertEquals("{\"id\":\"id0\"}", results.get(0).getResponse());
+    assertEquals("id1", results.get(1).getId());
+    assertTrue(results.get(1).getError() instanceof FailedRequestException);
+    assertTrue(results.get(2).getError() instanceof FailedRequestException);
+  }
+
+  /**
+   * Tests the deletions are sent by ID.
+   *
+   * @throws Exception the test exception
+   */
+  @Test
+  public void deleteTest() throws Exception {
+    addAuthenticateServerClient(mockDelete("id0"), 204, "");
+    addAuthenticateServerClient(mockDelete("id1"), 204, "");
+    BulkWriter writer = new BulkWriter(getContext(), CREATE_BOGUS_APP, UPDATE_BOGUS_APP, DELETE_BOGUS_APP, null, 10, 4);
+    List<BulkWriter.Result> results = writer.delete(Arrays.asList("id0", "id1"));
+    assertTrue(results.get(0).isSuccess());
+    assertTrue(results.get(1).isSuccess());
+    assertEquals("id1", results.get(1).getId());
+  }
+
+  /**
+   * Tests the invalid bulk write settings are rejected.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void constructorTestInvalid() {
+    new BulkWriter(getContext(), false, 10, 0);
+  }
+
+  private static ApiEndPoints.ApiEndPoint mockDelete(String id) {
+    return DELETE_BOGUS_APP.resolveUriParams(id);
+  }
+}
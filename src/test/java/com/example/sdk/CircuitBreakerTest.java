@@ -0,0 +1,163 @@
+package com.example.sdk;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * The test suite for {@link CircuitBreaker}.
+ *
+ * @author Feng Zheng
+ * @version 1.0
+ * @since 1.0
+ */
+public class CircuitBreakerTest {
+  private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+  /**
+   * Tests the breaker opens at the failure rate threshold, then closes after successful trial calls.
+   *
+   * @throws Exception the test exception
+   */
+  @Test
+  public void onResultTestFailureRate() throws Exception {
+    CircuitBreaker breaker = new CircuitBreaker("GET entities", new CircuitBreakerPolicy(10, 4, 0.5, 1000, 1, 100, 2));
+    long now = System.nanoTime();
+    record(breaker, now, false, false, true);
+    assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    // 2 failures out of 4 calls
+    record(breaker, now, true);
+    assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    assertNull(breaker.tryAcquire(now + 99 * MS));
+    now += 100 * MS;
+    CircuitBreaker.Phase first = breaker.tryAcquire(now);
+    CircuitBreaker.Phase second = breaker.tryAcquire(now);
+    assertNotNull(first);
+    assertNotNull(second);
+    assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+    assertNull(breaker.tryAcquire(now));
+    breaker.onResult(first, false, MS, now);
+    assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+    breaker.onResult(second, false, MS, now);
+    assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    // the window starts over
+    record(breaker, now, true, true, true);
+    assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+  }
+
+  /**
+   * Tests a failed trial call opens the breaker again.
+   *
+   * @throws Exception the test exception
+   */
+  @Test
+  public void onResultTestFailedTrial() throws Exception {
+    CircuitBreaker breaker = new CircuitBreaker("GET entities", new CircuitBreakerPolicy(2, 1, 1, 1000, 1, 100, 1));
+    long now = System.nanoTime();
+    record(breaker, now, true);
+    assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    now += 100 * MS;
+    breaker.onResult(breaker.tryAcquire(now), true, MS, now);
+    assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    assertNull(breaker.tryAcquire(now + 50 * MS));
+  }
+
+  /**
+   * Tests the permit of a trial call which is not sent is given back to the half-open breaker.
+   *
+   * @throws Exception the test exception
+   */
+  @Test
+  public void releaseTestTrialPermit() throws Exception {
+    CircuitBreaker breaker = new CircuitBreaker("GET entities", new CircuitBreakerPolicy(2, 1, 1, 1000, 1, 100, 1));
+    long now = System.nanoTime();
+    record(breaker, now, true);
+    now += 100 * MS;
+    CircuitBreaker.Phase trial = breaker.tryAcquire(now);
+    assertNotNull(trial);
+    assertNull(breaker.tryAcquire(now));
+    breaker.release(trial);
+    trial = breaker.tryAcquire(now);
+    assertNotNull(trial);
+    breaker.onResult(trial, false, MS, now);
+    assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    // a permit of a closed breaker has nothing to give back
+    breaker.release(breaker.tryAcquire(now));
+    assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+  }
+
+  /**
+   * Tests the breaker opens at the slow call rate threshold.
+   *
+   * @throws Exception the test exception
+   */
+  @Test
+  public void onResultTestSlowCalls() throws Exception {
+    CircuitBreaker breaker = new CircuitBreaker("GET entities", new CircuitBreakerPolicy(4, 4, 1, 100, 0.75, 100, 1));
+    long now = System.nanoTime();
+    for (long duration : new long[]{100, 10, 200, 150}) {
+      breaker.onResult(breaker.tryAcquire(now), false, duration * MS, now);
+    }
+    assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+  }
+
+  /**
+   * Tests the window only counts the last calls.
+   *
+   * @throws Exception the test exception
+   */
+  @Test
+  public void onResultTestSlidingWindow() throws Exception {
+    CircuitBreaker breaker = new CircuitBreaker("GET entities", new CircuitBreakerPolicy(4, 4, 0.75, 1000, 1, 100, 1));
+    long now = System.nanoTime();
+    record(breaker, now, true, true, false, false, false, false, true, true);
+    assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    record(breaker, now, true);
+    assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+  }
+
+  /**
+   * Tests the calls through a closed breaker from many threads are all counted.
+   *
+   * @throws Exception the test exception
+   */
+  @Test
+  public void onResultTestConcurrentCalls() throws Exception {
+    final CircuitBreaker breaker = new CircuitBreaker("GET entities",
+        new CircuitBreakerPolicy(1000, 1000, 0.5, 1000, 1, 100, 1));
+    final AtomicInteger rejected = new AtomicInteger();
+    Thread[] threads = new Thread[8];
+    for (int t = 0; t < threads.length; ++t) {
+      threads[t] = new Thread(new Runnable() {
+        @Override
+        public void run() {
+          for (int i = 0; i < 10000; ++i) {
+            long now = System.nanoTime();
+            CircuitBreaker.Phase permit = breaker.tryAcquire(now);
+            if (permit == null) {
+              rejected.incrementAndGet();
+            } else {
+              // a quarter of the calls fail
+              breaker.onResult(permit, i % 4 == 0, 0, now);
+            }
+          }
+        }
+      });
+      threads[t].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertEquals(0, rejected.get());
+    assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+  }
+
+  private static void record(CircuitBreaker breaker, long now, boolean... failures) {
+    for (boolean failed : failures) {
+      breaker.onResult(breaker.tryAcquire(now), failed, MS, now);
+    }
+  }
+}
@@ -0,0 +1,193 @@
+package com.example.sdk;
+
+import com.example.sdk.ApiException.ConcurrencyLimitExceededException;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * The test suite for {@link ConcurrencyLimiter}.
+ *
+ * @author Feng Zheng
+ * @version 1.0
+ * @since 1.0
+ */
+public class ConcurrencyLimiterTest {
+  private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+  /**
+   * Tests the limit grows while the latency stays low and the limit is used.
+   *
+   * @throws Exception the test exception
+   */
+  @Test
+  public void releaseTestGrowsAtLowLatency() throws Exception {
+    ConcurrencyLimiter limiter = new ConcurrencyLimiter("GET entities", new ConcurrencyLimitPolicy(4, 1, 8, 10));
+    for (int i = 0; i < 10; ++i) {
+      int limit = limiter.getLimit();
+      int admitted = 0;
+      for (int j = 0; j < limit; ++j) {
+        admitted = limiter.acquire(null);
+      }
+      for (int j = 0; j < limit; ++j) {
+        limiter.release(admitted, 10 * MS, false);
+      }
+    }
+    assertEquals(8, limiter.getLimit());
+    assertEquals(0, limiter.getInFlight());
+  }
+
+  /**
+   * Tests the limit does not grow while most of it is unused.
+   *
+   * @throws Exception the test exception
+   */
+  @Test
+  public void releaseTestKeepsUnusedLimit() throws Exception {
+    ConcurrencyLimiter limiter = new ConcurrencyLimiter("GET entities", new ConcurrencyLimitPolicy(10, 1, 100, 10));
+    for (int i = 0; i < 100; ++i) {
+      limiter.release(limiter.acquire(null), 10 * MS, false);
+    }
+    assertEquals(10, limiter.getLimit());
+  }
+
+  /**
+   * Tests the limit shrinks as the latency builds up queueing.
+   *
+   * @throws Exception the test exception
+   */
+  @Test
+  public void releaseTestShrinksAtHighLatency() throws Exception {
+    ConcurrencyLimiter limiter = new ConcurrencyLimiter("GET entities", new ConcurrencyLimitPolicy(20, 1, 100, 10));
+    limiter.release(limiter.acquire(null), 10 * MS, false);
+    for (int i = 0; i < 5; ++i) {
+      limiter.release(limiter.acquire(null), 100 * MS, false);
+    }
+    assertTrue(limiter.getLimit() < 20);
+    for (int i = 0; i < 50; ++i) {
+      limiter.release(limiter.acquire(null), 100 * MS, false);
+    }
+    // settles where about BETA requests are queued
+    assertEquals(6, limiter.getLimit());
+  }
+
+  /**
+   * Tests a dropped request cuts the limit.
+   *
+   * @throws Exception the test exception
+   */
+  @Test
+  public void releaseTestBacksOffOnDrop() throws Exception {
+    ConcurrencyLimiter limiter = new ConcurrencyLimiter("GET entities", new ConcurrencyLimitPolicy(20, 1, 100, 10));
+    limiter.release(limiter.acquire(null), 10 * MS, true);
+    assertEquals(18, limiter.getLimit());
+    for (int i = 0; i < 100; ++i) {
+      limiter.release(limiter.acquire(null), 10 * MS, true);
+    }
+    assertEquals(1, limiter.getLimit());
+  }
+
+  /**
+   * Tests the requests beyond the limit wait in the queue, and are shed once it is full.
+   *
+   * @throws Exception the test exception
+   */
+  @Test
+  public void acquireAsyncTestQueueAndShed() throws Exception {
+    ConcurrencyLimiter limiter = new ConcurrencyLimiter("GET entities", new ConcurrencyLimitPolicy(2, 1, 2, 2));
+    final List<Integer> admitted = new ArrayList<>();
+    ConcurrencyLimiter.Waiter waiter = new ConcurrencyLimiter.Waiter() {
+      @Override
+      void admit(int inFlight) {
+        admitted.add(inFlight);
+      }
+    };
+    for (int i = 0; i < 4; ++i) {
+      limiter.acquireAsync(waiter);
+    }
+    assertEquals(2, admitted.size());
+    assertEquals(2, limiter.getQueued());
+    try {
+      limiter.acquireAsync(waiter);
+      fail("Expected " + ConcurrencyLimitExceededException.class.getName());
+    } catch (ConcurrencyLimitExceededException e) {
+      // the queue is full
+    }
+    limiter.release(0, 0, false);
+    assertEquals(3, admitted.size());
+    assertEquals(2, (int) admitted.get(2));
+    limiter.release(0, 0, false);
+    limiter.release(0, 0, false);
+    limiter.release(0, 0, false);
+    assertEquals(4, admitted.size());
+    assertEquals(0, limiter.getInFlight());
+    assertEquals(0, limiter.getQueued());
+  }
+
+  /**
+   * Tests a thread waiting for the limit is admitted when a request is released.
+   *
+   * @throws Exception the test exception
+   */
+  @Test
+  public void acquireTestWaitsForRelease() throws Exception {
+    final ConcurrencyLimiter limiter = new ConcurrencyLimiter("GET entities", new ConcurrencyLimitPolicy(1, 1, 1, 1));
+    limiter.acquire(null);
+    final CountDownLatch done = new CountDownLatch(1);
+    Thread thread = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          limiter.acquire(null);
+          done.countDown();
+        } catch (Exception e) {
+          // the latch times out
+        }
+      }
+    });
+    thread.start();
+    assertFalse(done.await(100, TimeUnit.MILLISECONDS));
+    assertEquals(1, limiter.getQueued());
+    limiter.release(0, 0, false);
+    assertTrue(done.await(5, TimeUnit.SECONDS));
+    assertEquals(1, limiter.getInFlight());
+  }
+
+  /**
+   * Tests an interrupted thread leaves the queue.
+   *
+   * @throws Exception the test exception
+   */
+  @Test
+  public void acquireTestInterrupted() throws Exception {
+    final ConcurrencyLimiter limiter = new ConcurrencyLimiter("GET entities", new ConcurrencyLimitPolicy(1, 1, 1, 1));
+    limiter.acquire(null);
+    final AtomicReference<Exception> failure = new AtomicReference<>();
+    Thread thread = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          limiter.acquire(null);
+        } catch (Exception e) {
+          failure.set(e);
+        }
+      }
+    });
+    thread.start();
+    while (limiter.getQueued() == 0) {
+      Thread.sleep(1);
+    }
+    thread.interrupt();
+    thread.join(5000);
+    assertTrue(failure.get() instanceof InterruptedException);
+    assertEquals(0, limiter.getQueued());
+    limiter.release(0, 0, false);
+    assertEquals(0, limiter.getInFlight());
+  }
+}
@@ -0,0 +1,45 @@
+package com.example.sdk;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * The test suite for {@link Deadline}.
+ *
+ * @author Feng Zheng
+ * @version 1.0
+ * @since 1.0
+ */
+public class DeadlineTest {
+  /**
+   * Tests {@link Deadline#after(long)} counts down to the deadline.
+   *
+   * @throws Exception the test exception
+   */
+  @Test
+  public void afterTest() throws Exception {
+    Deadline deadline = Deadline.after(1000);
+    assertFalse(deadline.isExpired());
+    assertTrue(deadline.getRemainingMs() <= 1000);
+    assertTrue(deadline.getRemainingMs() > 500);
+    assertTrue(deadline.getRemainingNanos() <= TimeUnit.SECONDS.toNanos(1));
+    deadline = Deadline.after(10);
+    Thread.sleep(20);
+    assertTrue(deadline.isExpired());
+    assertEquals(0, deadline.getRemainingMs());
+    assertTrue(deadline.getRemainingNanos() < 0);
+  }
+
+  /**
+   * Tests {@link Deadline#after(long)} rejects a negative timeout.
+   *
+   * @throws Exception the test exception
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void afterTestNegativeTimeout() throws Exception {
+    Deadline.after(-1);
+  }
+}
@@ -0,0 +1,163 @@
+package com.example.sdk;
+
+import com.example.sdk.ApiException.EntityNotFoundException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockserver.model.Parameter;
+
+import javax.json.Json;
+import javax.json.JsonBuilderFactory;
+import javax.json.JsonObjectBuilder;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * The test suite for {@link EntityBatcher}.
+ *
+ * @author Feng Zheng
+ * @version 1.0
+ * @since 1.0
+ */
+public class EntityBatcherTest extends BaseTest {
+  /**
+   * Sets up test suite.
+   *
+   * @throws Exception the test exception
+   */
+  @Before
+  public void setUpTest() throws Exception {
+    super.setUp();
+  }
+
+  /**
+   * Tear down test suite.
+   */
+  @After
+  public void tearDownTest() {
+    super.tearDown();
+  }
+
+  /**
+   * Tests a full batch of distinct IDs is sent as a single list request, the missing IDs failing as not found.
+   *
+   * @throws Exception the test exception
+   */
+  @Test
+  public void getAsyncTestFullBatch() throws Exception {
+    MockApp first = new MockApp();
+    MockApp second = new MockApp();
+    MockApp missing = new MockApp();
+    JsonBuilderFactory factory = Json.createBuilderFactory(null);
+    JsonObjectBuilder[] apps = new JsonObjectBuilder[] {
+        factory.createObjectBuilder().add("id", second.appId).add("token", second.appToken),
+        factory.createObjectBuilder().add("id", first.appId).add("token", first.appToken)
+    };
+    String ids = first.appId + "," + missing.appId + "," + second.appId;
+    addAuthenticateServerClient(GET_BOGUS_APPS, Arrays.asList(new Parameter(ApiConfig.ID_FILTER_KEY, ids),
+        new Parameter("limit", "3")), null, 200, generatePaginationResponse(apps, 2, 0));
+    EntityBatcher<BogusApp> batcher = new EntityBatcher<>(getContext(), BogusApp.class, GET_BOGUS_APPS, 3, 60000);
+    ApiFuture<BogusApp> firstLookup = batcher.getAsync(first.appId);
+    ApiFuture<BogusApp> missingLookup = batcher.getAsync(missing.appId);
+    ApiFuture<BogusApp> repeatedLookup = batcher.getAsync(first.appId);
+    ApiFuture<BogusApp> secondLookup = batcher.getAsync(second.appId);
+    assertEquals(first.appId, firstLookup.get(5, TimeUnit.SECONDS).getId());
+    assertEquals(second.appId, secondLookup.get(5, TimeUnit.SECONDS).getId());
+    try {
+      missingLookup.get(5, TimeUnit.SECONDS);
+      fail("Expected " + EntityNotFoundException.class.getName());
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause() instanceof EntityNotFoundException);
+    }
+    assertSame(firstLookup.get(), repeatedLookup.get(5, TimeUnit.SECONDS));
+    assertEquals(4, batcher.getLookups());
+    assertEquals(1, batcher.getBatches());
+  }
+
+  /**
+   * Tests a batch is sent at the end of the window of its first lookup.
+   *
+   * @throws Exception the test exception
+   */
+  @Test
+  public void getTestWindow() throws Exception {
+    MockApp mockApp = new MockApp();
+    JsonBuilderFactory factory = Json.createBuilderFactory(null);
+    JsonObjectBuilder[] apps = new JsonObjectBuilder[] {
+        factory.createObjectBuilder().add("id", mockApp.appId).add("token", mockApp.appToken)
+    };
+    addAuthenticateServerClient(GET_BOGUS_APPS, Arrays.asList(new Parameter(ApiConfig.ID_FILTER_KEY, mockApp.appId)),
+        null, 200, generatePaginationResponse(apps, 1, 0));
+    EntityBatcher<BogusApp> batcher = new EntityBatcher<>(getContext(), BogusApp.class, GET_BOGUS_APPS, 50, 10);
+    BogusApp bogusApp = batcher.get(mockApp.appId);
+    assertEquals(mockApp.appId, bogusApp.getId());
+    assertEquals(1, batcher.getBatches());
+  }
+
+  /**
+   * Tests a failed batch fails all its lookups.
+   *
+   * @throws Exception the test exception
+   */
+  @Test
+  public void getTestFailedBatch() throws Exception {
+    addAuthenticateServerClient(GET_BOGUS_APPS, null, null, 400, "{}");
+    EntityBatcher<BogusApp> batcher = new EntityBatcher<>(getContext(), BogusApp.class, GET_BOGUS_APPS, 50, 60000);
+    ApiFuture<BogusApp> firstLookup = batcher.getAsync(fakeUUID());
+    ApiFuture<BogusApp> secondLookup = batcher.getAsync(fakeUUID());
+    batcher.flush();
+    Throwable error = null;
+    try {
+      firstLookup.get(5, TimeUnit.SECONDS);
+      fail("Expected " + ApiException.class.getName());
+    } catch (ExecutionException e) {
+      error = e.getCause();
+      assertTrue(error instanceof ApiException);
+    }
+    try {
+      secondLookup.get(5, TimeUnit.SECONDS);
+      fail("Expected " + ApiException.class.getName());
+    } catch (ExecutionException e) {
+      assertSame(error, e.getCause());
+    }
+  }
+
+  /**
+   * Tests the fetched entities are cached, until an update of their ID invalidates them.
+   *
+   * @throws Exception the test exception
+   */
+  @Test
+  public void getTestEntityCache() throws Exception {
+    EntityCache cache = new EntityCache();
+    getContext().setEntityCache(cache);
+    MockApp mockApp = new MockApp();
+    JsonBuilderFactory factory = Json.createBuilderFactory(null);
+    JsonObjectBuilder[] apps = new JsonObjectBuilder[] {
+        factory.createObjectBuilder().add("id", mockApp.appId).add("token", mockApp.appToken)
+    };
+    addAuthenticateServerClient(GET_BOGUS_APPS, null, null, 200, generatePaginationResponse(apps, 1, 0));
+    addAuthenticateServerClient(UPDATE_BOGUS_APP.resolveUriParams(mockApp.appId), 200, "{}");
+    EntityBatcher<BogusApp> batcher = new EntityBatcher<>(getContext(), BogusApp.class, GET_BOGUS_APPS, 50, 1);
+    BogusApp bogusApp = batcher.get(mockApp.appId);
+    assertSame(bogusApp, batcher.get(mockApp.appId));
+    assertEquals(1, batcher.getBatches());
+    assertEquals(1, cache.getHits());
+    BulkWriter writer = new BulkWriter(getContext(), CREATE_BOGUS_APP, UPDATE_BOGUS_APP, DELETE_BOGUS_APP, null, 10, 1);
+    assertTrue(writer.update(Collections.singletonMap(mockApp.appId, Collections.<String, Object>emptyMap()))
+        .get(0).isSuccess());
+    assertNull(cache.get(getContext(), BogusApp.class, mockApp.appId));
+  }
+
+  /**
+   * Tests the invalid batching settings are rejected.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void constructorTestInvalid() {
+    new EntityBatcher<>(getContext(), BogusApp.class, 0, 10);
+  }
+}
@@ -0,0 +1,84 @@
+package com.example.sdk;
+
+import com.example.sdk.BaseTest.BogusApp;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * The test suite for {@link EntityCache}.
+ *
+ * @author Feng Zheng
+ * @version 1.0
+ * @since 1.0
+ */
+public class EntityCacheTest {
+  private final ApiContext context = new ApiContext("http://localhost", "v1", "id", "secret", "token");
+
+  /**
+   * Tests an entity is found until it expires, by class and ID.
+   *
+   * @throws Exception the test exception
+   */
+  @Test
+  public void getTestExpireAfterWrite() throws Exception {
+    EntityCache cache = new EntityCache(100, 60000);
+    BogusApp app = new BogusApp("a", context);
+    cache.put(context, app);
+    cache.put(context, new BogusApp("b", context), 1);
+    assertSame(app, cache.get(context, BogusApp.class, "a"));
+    assertNull(cache.get(context, BogusApp.class, "c"));
+    ApiContext other = new ApiContext("http://example.com", "v1", "id", "secret", "token");
+    assertNull(cache.get(other, BogusApp.class, "a"));
+    Thread.sleep(5);
+    assertNull(cache.get(context, BogusApp.class, "b"));
+    assertEquals(1, cache.getHits());
+    assertEquals(3, cache.getMisses());
+    assertEquals(0.25, cache.getHitRate(), 1e-9);
+    assertEquals(1, cache.getExpirations());
+    assertEquals(1, cache.getSize());
+  }
+
+  /**
+   * Tests a scan of entities seen once does not evict the popular ones.
+   */
+  @Test
+  public void putTestScanResistance() {
+    EntityCache cache = new EntityCache(100, 60000);
+    for (int i = 0; i < 50; ++i) {
+      cache.put(context, new BogusApp("hot" + i, context));
+    }
+    for (int round = 0; round < 3; ++round) {
+      for (int i = 0; i < 50; ++i) {
+        assertNotNull(cache.get(context, BogusApp.class, "hot" + i));
+      }
+    }
+    for (int i = 0; i < 1000; ++i) {
+      cache.put(context, new BogusApp("scan" + i, context));
+    }
+    int hits = 0;
+    for (int i = 0; i < 50; ++i) {
+      if (cache.get(context, BogusApp.class, "hot" + i) != null) {
+        hits++;
+      }
+    }
+    assertTrue("Only " + hits + " popular entities left", hits >= 48);
+    assertTrue(cache.getSize() <= 100);
+    assertTrue(cache.getEvictions() >= 950);
+  }
+
+  /**
+   * Tests an ID is invalidated whatever the class of its entity.
+   */
+  @Test
+  public void invalidateTest() {
+    EntityCache cache = new EntityCache();
+    cache.put(context, new BogusApp("a", context));
+    cache.put(context, new BogusApp("b", context));
+    cache.invalidate(context, "a");
+    assertNull(cache.get(context, BogusApp.class, "a"));
+    assertNotNull(cache.get(context, BogusApp.class, "b"));
+    cache.invalidateAll();
+    assertEquals(0, cache.getSize());
+  }
+}
@@ -0,0 +1,98 @@
+package com.example.sdk;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * The test suite for {@link Hedger}.
+ *
+ * @author Feng Zheng
+ * @version 1.0
+ * @since 1.0
+ */
+public class HedgerTest {
+  private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+  /**
+   * Tests no request is hedged until enough latencies are recorded.
+   */
+  @Test
+  public void recordTestMinimumSamples() {
+    Hedger hedger = new Hedger(new HedgingPolicy(0.9, 0.1, 0, 100));
+    for (int i = 0; i < 99; ++i) {
+      hedger.record(10 * MS);
+    }
+    assertEquals(-1, hedger.getDelayNanos());
+    hedger.record(10 * MS);
+    assertTrue(hedger.getDelayNanos() >= 10 * MS);
+  }
+
+  /**
+   * Tests the hedge delay is the percentile of the latencies, within the bucket precision.
+   */
+  @Test
+  public void recordTestPercentile() {
+    Hedger hedger = new Hedger(new HedgingPolicy(0.9, 0.1, 0, 100));
+    for (int i = 0; i < 100; ++i) {
+      hedger.record(((i % 10 == 0) ? 100 : 10) * MS);
+    }
+    assertTrue(hedger.getDelayNanos() >= 10 * MS);
+    assertTrue(hedger.getDelayNanos() <= 11 * MS);
+    hedger = new Hedger(new HedgingPolicy(0.95, 0.1, 0, 100));
+    for (int i = 0; i < 100; ++i) {
+      hedger.record(((i % 10 == 0) ? 100 : 10) * MS);
+    }
+    assertTrue(hedger.getDelayNanos() >= 100 * MS);
+    assertTrue(hedger.getDelayNanos() <= 110 * MS);
+  }
+
+  /**
+   * Tests the hedge delay is at least the minimum delay.
+   */
+  @Test
+  public void recordTestMinDelay() {
+    Hedger hedger = new Hedger(new HedgingPolicy(0.9, 0.1, 5, 10));
+    for (int i = 0; i < 10; ++i) {
+      hedger.record(MS);
+    }
+    assertEquals(5 * MS, hedger.getDelayNanos());
+  }
+
+  /**
+   * Tests the hedge delay follows a slower server, the older latencies weighing less.
+   */
+  @Test
+  public void recordTestFollowsLatency() {
+    Hedger hedger = new Hedger(new HedgingPolicy(0.9, 0.1, 0, 100));
+    for (int i = 0; i < 100; ++i) {
+      hedger.record(10 * MS);
+    }
+    assertTrue(hedger.getDelayNanos() <= 11 * MS);
+    for (int i = 0; i < 100; ++i) {
+      hedger.record(100 * MS);
+    }
+    assertTrue(hedger.getDelayNanos() >= 100 * MS);
+  }
+
+  /**
+   * Tests the hedged requests are capped to the hedge ratio once the saved ones are spent.
+   */
+  @Test
+  public void tryHedgeTestBudget() {
+    Hedger hedger = new Hedger(new HedgingPolicy(0.9, 0.1, 0, 100));
+    int hedges = 0;
+    while (hedger.tryHedge()) {
+      hedges++;
+    }
+    assertEquals(10, hedges);
+    for (int i = 0; i < 10; ++i) {
+      hedger.onRequest();
+    }
+    assertTrue(hedger.tryHedge());
+    assertFalse(hedger.tryHedge());
+    assertEquals(11, hedger.getHedges());
+  }
+}
@@ -0,0 +1,177 @@
+package com.example.sdk;
+
+import com.example.sdk.transport.HttpTransport;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.Assert.*;
+
+/**
+ * The test suite for {@link HttpCache}.
+ *
+ * @author Feng Zheng
+ * @version 1.0
+ * @since 1.0
+ */
+public class HttpCacheTest {
+  private static final String URL = "http://localhost/v1/entities";
+
+  /**
+   * Tests a response is served without a request for its max-age, then revalidated with its validators.
+   */
+  @Test
+  public void getFreshTestMaxAge() {
+    HttpCache cache = new HttpCache();
+    String body = "{\"data\":[]}";
+    cache.store(URL, response(200, "Cache-Control", "public, max-age=60", "ETag", "\"v1\""), body);
+    assertSame(body, cache.get(URL, null));
+    assertEquals(1, cache.getHits());
+    cache.store(URL, response(200, "Cache-Control", "no-cache", "ETag", "\"v2\"", "Last-Modified",
+        "Wed, 21 Oct 2026 07:28:00 GMT"), body);
+    assertNull(cache.get(URL, null));
+    Map<String, String> headers = new HashMap<>();
+    cache.addValidators(URL, headers);
+    assertEquals("\"v2\"", headers.get("If-None-Match"));
+    assertEquals("Wed, 21 Oct 2026 07:28:00 GMT", headers.get("If-Modified-Since"));
+    assertSame(body, cache.revalidate(URL, response(304, "Cache-Control", "max-age=60")));
+    assertSame(body, cache.get(URL, null));
+    assertEquals(1, cache.getRevalidations());
+  }
+
+  /**
+   * Tests an expired response is served within the staleness bound, refreshed by a single caller at a time.
+   */
+  @Test
+  public void getTestStaleWhileRevalidate() {
+    HttpCache cache = new HttpCache();
+    RevalidationPolicy policy = new RevalidationPolicy(60000, 0, null);
+    String body = "{}";
+    cache.store(URL, response(200, "ETag", "\"v1\""), body);
+    assertNull(cache.get(URL, null));
+    assertSame(body, cache.get(URL, policy));
+    assertNull(cache.get(URL, new RevalidationPolicy(0, 0, null)));
+    assertEquals(1, cache.getStaleHits());
+    assertTrue(cache.startRefresh(URL, policy));
+    assertFalse(cache.startRefresh(URL, policy));
+    cache.endRefresh(URL);
+    assertTrue(cache.startRefresh(URL, policy));
+    assertEquals(2, cache.getRefreshes());
+    cache.store(URL, response(200, "Cache-Control", "no-cache", "ETag", "\"v2\""), body);
+    assertNull(cache.get(URL, policy));
+  }
+
+  /**
+   * Tests a fresh response is refreshed within the refresh-ahead window before its expiry.
+   */
+  @Test
+  public void startRefreshTestRefreshAhead() {
+    HttpCache cache = new HttpCache();
+    String body = "{}";
+    cache.store(URL, response(200, "Cache-Control", "max-age=60", "ETag", "\"v1\""), body);
+    assertFalse(cache.startRefresh(URL, new RevalidationPolicy(60000, 1000, null)));
+    assertTrue(cache.startRefresh(URL, new RevalidationPolicy(0, 120000, null)));
+    assertFalse(cache.startRefresh(URL + "/1", new RevalidationPolicy(0, 120000, null)));
+    assertSame(body, cache.get(URL, null));
+  }
+
+  /**
+   * Tests the invalid revalidation policies are rejected.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void constructorTestInvalidPolicy() {
+    new RevalidationPolicy(-1, 0, null);
+  }
+
+  /**
+   * Tests the responses which cannot be reused are not stored.
+   */
+  @Test
+  public void storeTestNotReusable() {
+    HttpCache cache = new HttpCache();
+    cache.store(URL, response(200, "Cache-Control", "no-store", "ETag", "\"v1\""), "{}");
+    cache.store(URL + "/1", response(200), "{}");
+    assertEquals(0, cache.getEntries());
+    Map<String, String> headers = new HashMap<>();
+    cache.addValidators(URL, headers);
+    assertTrue(headers.isEmpty());
+    assertNull(cache.revalidate(URL, response(304)));
+  }
+
+  /**
+   * Tests the least recently used responses are evicted beyond the maximum size.
+   */
+  @Test
+  public void storeTestEviction() {
+    HttpCache cache = new HttpCache(1000);
+    char[] chars = new char[150];
+    String body = new String(chars);
+    for (int i = 0; i < 3; ++i) {
+      cache.store(URL + "/" + i, response(200, "ETag", "\"v1\""), body);
+    }
+    assertEquals(2, cache.getEntries());
+    assertTrue(cache.getSize() <= 1000);
+    Map<String, String> headers = new HashMap<>();
+    cache.addValidators(URL + "/0", headers);
+    assertTrue(headers.isEmpty());
+    cache.store(URL + "/big", response(200, "ETag", "\"v1\""), new String(new char[1000]));
+    assertEquals(2, cache.getEntries());
+    cache.clear();
+    assertEquals(0, cache.getSize());
+  }
+
+  /**
+   * Tests the entities parsed from a stored response are reused, in a list of their own.
+   */
+  @Test
+  public void getParsedTest() {
+    HttpCache cache = new HttpCache();
+    String body = "{}";
+    cache.store(URL, response(200, "ETag", "\"v1\""), body);
+    assertNull(cache.getParsed(BaseTest.BogusApp.class, null, body, null));
+    ApiNodeList<BaseTest.BogusApp> parsed = new ApiNodeList<>(null, body);
+    parsed.add(new BaseTest.BogusApp("id", null));
+    cache.putParsed(BaseTest.BogusApp.class, null, body, parsed);
+    parsed.add(new BaseTest.BogusApp("other", null));
+    ApiNodeList<BaseTest.BogusApp> reused = cache.getParsed(BaseTest.BogusApp.class, null, body, null);
+    assertNotSame(parsed, reused);
+    assertSame(parsed.head(), reused.head());
+    assertEquals(1, reused.size());
+    assertNull(cache.getParsed(BaseTest.BogusApp.class, "key", body, null));
+    assertNull(cache.getParsed(BaseTest.BogusApp.class, null, new String(body), null));
+  }
+
+  /**
+   * Tests the entities parsed from a stored response count towards the maximum size.
+   */
+  @Test
+  public void putParsedTestSize() {
+    HttpCache cache = new HttpCache(1000);
+    String body = new String(new char[100]);
+    cache.store(URL, response(200, "ETag", "\"v1\""), body);
+    long stored = cache.getSize();
+    ApiNodeList<BaseTest.BogusApp> parsed = new ApiNodeList<>(null, body);
+    parsed.add(new BaseTest.BogusApp("id", null));
+    cache.putParsed(BaseTest.BogusApp.class, null, body, parsed);
+    assertTrue(cache.getSize() > stored + 2 * body.length());
+    assertNotNull(cache.getParsed(BaseTest.BogusApp.class, null, body, null));
+    for (int i = 0; i < 10; ++i) {
+      parsed.add(new BaseTest.BogusApp("id" + i, null));
+    }
+    cache.putParsed(BaseTest.BogusApp.class, "key", body, parsed);
+    assertNull(cache.getParsed(BaseTest.BogusApp.class, "key", body, null));
+    assertTrue(cache.getSize() <= 1000);
+  }
+
+  private static HttpTransport.Response response(int statusCode, String... headers) {
+    Map<String, List<String>> map = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    for (int i = 0; i < headers.length; i += 2) {
+      map.put(headers[i], Collections.singletonList(headers[i + 1]));
+    }
+    return new HttpTransport.Response(statusCode, map, new byte[0]);
+  }
+}
@@ -0,0 +1,70 @@
+package com.example.sdk;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * The test suite for {@link JsonScanner}.
+ *
+ * @author Feng Zheng
+ * @version 1.0
+ * @since 1.0
+ */
+public class JsonScannerTest {
+  /**
+   * Tests the boundaries of the values, whatever the strings hold.
+   */
+  @Test
+  public void skipValueTest() {
+    String json = "{\"a\": \"}]\\\"\", \"b\": [1, {\"c\": true}], \"d\": -1.5e3} ";
+    JsonScanner scanner = new JsonScanner(json);
+    assertEquals(json.length() - 1, scanner.skipValue(0));
+    assertEquals(json.length(), scanner.skipWhitespace(json.length() - 1));
+    int[] members = scanner.members(0, "d", "b", "missing");
+    assertEquals("-1.5e3", json.substring(members[0], scanner.skipValue(members[0])));
+    assertEquals("[1, {\"c\": true}]", json.substring(members[1], scanner.skipValue(members[1])));
+    assertEquals(-1, members[2]);
+    int[] bounds = scanner.elements(members[1]);
+    assertEquals(4, bounds.length);
+    assertEquals("{\"c\": true}", json.substring(bounds[2], bounds[3]));
+  }
+
+  /**
+   * Tests the last member of a name wins, and the escaped names are decoded.
+   */
+  @Test
+  public void membersTestNames() {
+    String json = "{\"a\": 1, \"\\u0061\": 2, \"ab\": 3}";
+    JsonScanner scanner = new JsonScanner(json);
+    int[] members = scanner.members(0, "a", "ab");
+    assertEquals('2', json.charAt(members[0]));
+    assertEquals('3', json.charAt(members[1]));
+    assertEquals(json.length(), scanner.end());
+    assertEquals(-1, new JsonScanner("{ }").members(0, "a")[0]);
+    scanner = new JsonScanner("[ ] ");
+    assertEquals(0, scanner.elements(0).length);
+    assertEquals(3, scanner.end());
+  }
+
+  /**
+   * Tests the documents which are not strict JSON are rejected.
+   */
+  @Test
+  public void membersTestInvalid() {
+    String[] invalid = {"{a: 1}", "{\"a\" 1}", "{\"a\": 1", "{\"a\": 1,}", "[1 2]"};
+    for (String json : invalid) {
+      try {
+        JsonScanner scanner = new JsonScanner(json);
+        if (json.charAt(0) == '[') {
+          scanner.elements(0);
+        } else {
+          scanner.members(0, "a");
+        }
+        fail("Expected " + IllegalArgumentException.class.getName() + " for " + json);
+      } catch (IllegalArgumentException e) {
+        assertNotNull(e.getMessage());
+      }
+    }
+  }
+}
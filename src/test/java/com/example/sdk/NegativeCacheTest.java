@@ -0,0 +1,80 @@
+package com.example.sdk;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * The test suite for {@link NegativeCache}.
+ *
+ * @author Feng Zheng
+ * @version 1.0
+ * @since 1.0
+ */
+public class NegativeCacheTest {
+  private final ApiContext context = new ApiContext("http://localhost", "v1", "id", "secret", "token");
+
+  /**
+   * Tests an ID is absent until it expires, is seen, or is evicted.
+   *
+   * @throws Exception the test exception
+   */
+  @Test
+  public void isAbsentTestTtl() throws Exception {
+    NegativeCache cache = new NegativeCache(2, 60000);
+    cache.putAbsent(context, "a");
+    assertTrue(cache.isAbsent(context, "a"));
+    assertFalse(cache.isAbsent(context, "b"));
+    ApiContext other = new ApiContext("http://example.com", "v1", "id", "secret", "token");
+    assertFalse(cache.isAbsent(other, "a"));
+    cache.putExisting(context, "a");
+    assertFalse(cache.isAbsent(context, "a"));
+    cache.putAbsent(context, "a");
+    cache.putAbsent(context, "b");
+    cache.putAbsent(context, "c");
+    assertEquals(2, cache.getSize());
+    assertFalse(cache.isAbsent(context, "a"));
+    assertEquals(1, cache.getHits());
+    NegativeCache shortLived = new NegativeCache(10, 1);
+    shortLived.putAbsent(context, "a");
+    Thread.sleep(5);
+    assertFalse(shortLived.isAbsent(context, "a"));
+    assertEquals(0, shortLived.getSize());
+  }
+
+  /**
+   * Tests the IDs never seen by the Bloom filter are absent, with few false positives.
+   */
+  @Test
+  public void isAbsentTestBloomFilter() {
+    NegativeCache cache = new NegativeCache(100, 60000, 1000, 0.01);
+    assertTrue(cache.hasFilter());
+    for (int i = 0; i < 1000; ++i) {
+      cache.putExisting(context, "entity-" + i);
+    }
+    for (int i = 0; i < 1000; ++i) {
+      assertFalse(cache.isAbsent(context, "entity-" + i));
+    }
+    int absent = 0;
+    for (int i = 0; i < 10000; ++i) {
+      if (cache.isAbsent(context, "other-" + i)) {
+        ++absent;
+      }
+    }
+    assertTrue(absent > 9700);
+    assertEquals(absent, cache.getFilterHits());
+    cache.putCreated(context, "{\"data\":{\"id\":\"created\"}}");
+    cache.putCreated(context, "{\"id\":\"top\"}");
+    cache.putCreated(context, "not json");
+    assertFalse(cache.isAbsent(context, "created"));
+    assertFalse(cache.isAbsent(context, "top"));
+  }
+
+  /**
+   * Tests the invalid Bloom filter settings are rejected.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void constructorTestInvalid() {
+    new NegativeCache(100, 60000, 1000, 1);
+  }
+}
@@ -4,6 +4,7 @@ import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 /**
  * The test suite for {@link Pagination}.
@@ -71,4 +72,19 @@ public class PaginationTest extends BaseTest {
     pagination = new Pagination(limit, offset, total);
     assertEquals(total, pagination.getTotal());
   }
-}
\ No newline at end of file
+
+  /**
+   * Tests {@link Pagination} is bound by its generated type adapter.
+   *
+   * @throws Exception the test exception
+   */
+  @Test
+  public void typeAdapterTest() throws Exception {
+    assertTrue(ApiNode.getGson().getAdapter(Pagination.class) instanceof ApiNodeTypeAdapter);
+    Pagination pagination = ApiNode.getGson().fromJson("{\"limit\": 10, \"total\": null, \"extra\": [{}]}",
+        Pagination.class);
+    assertEquals(10, pagination.getLimit());
+    assertEquals(0, pagination.getTotal());
+    assertEquals("{\"limit\":10,\"offset\":0,\"total\":0}", pagination.toString());
+  }
+}
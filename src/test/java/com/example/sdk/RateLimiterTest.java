@@ -0,0 +1,130 @@
+package com.example.sdk;
+
+import com.example.sdk.ApiException.RateLimitExceededException;
+import com.example.sdk.transport.HttpTransport;
+import com.example.sdk.types.RateLimitMode;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * The test suite for {@link RateLimiter}.
+ *
+ * @author Feng Zheng
+ * @version 1.0
+ * @since 1.0
+ */
+public class RateLimiterTest {
+  private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+  /**
+   * Tests {@link RateLimiter#reserve(long)} spends the burst, then spaces the requests at the rate.
+   *
+   * @throws Exception the test exception
+   */
+  @Test
+  public void reserveTest() throws Exception {
+    RateLimiter limiter = new RateLimiter(10, 2, RateLimitMode.BLOCK);
+    long now = System.nanoTime();
+    // the saved permits and the next one are available right away
+    assertEquals(0, limiter.reserve(now));
+    assertEquals(0, limiter.reserve(now));
+    assertEquals(0, limiter.reserve(now));
+    assertEquals(100 * MS, limiter.reserve(now));
+    assertEquals(200 * MS, limiter.reserve(now));
+    assertEquals(2, limiter.getDelayedRequests());
+    assertEquals(300, limiter.getTotalWaitMs());
+    // idle for a second, only the burst is saved
+    now += 1300 * MS;
+    assertEquals(0, limiter.reserve(now));
+    assertEquals(0, limiter.reserve(now));
+    assertEquals(0, limiter.reserve(now));
+    assertEquals(100 * MS, limiter.reserve(now));
+  }
+
+  /**
+   * Tests {@link RateLimiter#reserve(long)} rejects the requests without permit in {@link RateLimitMode#FAIL_FAST}.
+   *
+   * @throws Exception the test exception
+   */
+  @Test
+  public void reserveTestFailFast() throws Exception {
+    RateLimiter limiter = new RateLimiter(10, 1, RateLimitMode.FAIL_FAST);
+    long now = System.nanoTime();
+    assertEquals(0, limiter.reserve(now));
+    assertEquals(0, limiter.reserve(now));
+    try {
+      limiter.reserve(now);
+      fail("Expected " + RateLimitExceededException.class.getName());
+    } catch (RateLimitExceededException e) {
+      assertEquals(1, limiter.getRejectedRequests());
+    }
+    assertEquals(0, limiter.reserve(now + 100 * MS));
+  }
+
+  /**
+   * Tests {@link RateLimiter#onResponse(HttpTransport.Response, long, long)} spreads the remaining quota
+   * until the window resets.
+   *
+   * @throws Exception the test exception
+   */
+  @Test
+  public void onResponseTestRemaining() throws Exception {
+    RateLimiter limiter = new RateLimiter(100, 1, RateLimitMode.BLOCK);
+    long now = System.nanoTime();
+    limiter.onResponse(response(200, "RateLimit-Remaining", "5", "RateLimit-Reset", "10"), now, 0);
+    assertEquals(0, limiter.reserve(now));
+    assertEquals(0, limiter.reserve(now));
+    assertEquals(2000 * MS, limiter.reserve(now));
+    // the configured rate is back once the window resets
+    now += 10000 * MS;
+    assertEquals(0, limiter.reserve(now));
+    assertEquals(0, limiter.reserve(now));
+    assertEquals(10 * MS, limiter.reserve(now));
+  }
+
+  /**
+   * Tests {@link RateLimiter#onResponse(HttpTransport.Response, long, long)} pauses the requests
+   * until an exhausted quota resets, given in epoch seconds.
+   *
+   * @throws Exception the test exception
+   */
+  @Test
+  public void onResponseTestExhausted() throws Exception {
+    RateLimiter limiter = new RateLimiter(100, 10, RateLimitMode.BLOCK);
+    long now = System.nanoTime();
+    long currentMs = 1500000000000L;
+    limiter.onResponse(response(200, "X-RateLimit-Remaining", "0", "X-RateLimit-Reset", "1500000003"), now, currentMs);
+    assertEquals(3000 * MS, limiter.reserve(now));
+  }
+
+  /**
+   * Tests {@link RateLimiter#onResponse(HttpTransport.Response, long, long)} pauses the requests
+   * after a 429 response with {@code Retry-After}.
+   *
+   * @throws Exception the test exception
+   */
+  @Test
+  public void onResponseTestTooManyRequests() throws Exception {
+    RateLimiter limiter = new RateLimiter(100, 10, RateLimitMode.BLOCK);
+    long now = System.nanoTime();
+    limiter.onResponse(response(429, "Retry-After", "2"), now, 0);
+    assertEquals(2000 * MS, limiter.reserve(now));
+    limiter.onResponse(response(200), now, 0);
+    assertEquals(2010 * MS, limiter.reserve(now));
+  }
+
+  private static HttpTransport.Response response(int statusCode, String... headers) {
+    Map<String, List<String>> fields = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    for (int i = 0; i < headers.length; i += 2) {
+      fields.put(headers[i], Collections.singletonList(headers[i + 1]));
+    }
+    return new HttpTransport.Response(statusCode, fields, new byte[0]);
+  }
+}
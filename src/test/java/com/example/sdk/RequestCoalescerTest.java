@@ -0,0 +1,60 @@
+package com.example.sdk;
+
+import com.example.sdk.ApiException.FailedRequestException;
+import org.junit.Test;
+
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.Assert.*;
+
+/**
+ * The test suite for {@link RequestCoalescer}.
+ *
+ * @author Feng Zheng
+ * @version 1.0
+ * @since 1.0
+ */
+public class RequestCoalescerTest {
+  /**
+   * Tests the identical requests join the flight in flight, until it completes.
+   *
+   * @throws Exception the test exception
+   */
+  @Test
+  public void joinTest() throws Exception {
+    RequestCoalescer coalescer = new RequestCoalescer();
+    SettableApiFuture<String> flight = new SettableApiFuture<>();
+    assertNull(coalescer.join("a", flight));
+    assertSame(flight, coalescer.join("a", new SettableApiFuture<String>()));
+    assertNull(coalescer.join("b", new SettableApiFuture<String>()));
+    assertEquals(2, coalescer.getInFlight());
+    coalescer.complete("a", flight, "{}", null);
+    assertEquals("{}", flight.get());
+    assertNull(coalescer.join("a", new SettableApiFuture<String>()));
+    assertEquals(4, coalescer.getRequests());
+    assertEquals(1, coalescer.getCoalescedRequests());
+    assertEquals(0.25, coalescer.getHitRate(), 1e-9);
+  }
+
+  /**
+   * Tests the failure of a request is shared with the identical requests.
+   *
+   * @throws Exception the test exception
+   */
+  @Test
+  public void completeTestFailure() throws Exception {
+    RequestCoalescer coalescer = new RequestCoalescer();
+    assertEquals(0, coalescer.getHitRate(), 1e-9);
+    SettableApiFuture<String> flight = new SettableApiFuture<>();
+    coalescer.join("a", flight);
+    FailedRequestException error = new FailedRequestException("Failed");
+    coalescer.complete("a", flight, null, error);
+    try {
+      flight.get();
+      fail("Expected " + FailedRequestException.class.getName());
+    } catch (ExecutionException e) {
+      assertSame(error, e.getCause());
+    }
+    assertEquals(0, coalescer.getInFlight());
+  }
+}
@@ -0,0 +1,36 @@
+package com.example.sdk;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * The test suite for {@link RetryBudget}.
+ *
+ * @author Feng Zheng
+ * @version 1.0
+ * @since 1.0
+ */
+public class RetryBudgetTest {
+  /**
+   * Tests {@link RetryBudget#tryRetry()} is limited by the balance earned by {@link RetryBudget#onRequest()}.
+   *
+   * @throws Exception the test exception
+   */
+  @Test
+  public void tryRetryTest() throws Exception {
+    RetryBudget budget = new RetryBudget(0.5, 2);
+    assertEquals(2, budget.getRetriesLeft());
+    assertTrue(budget.tryRetry());
+    assertTrue(budget.tryRetry());
+    assertFalse(budget.tryRetry());
+    budget.onRequest();
+    assertFalse(budget.tryRetry());
+    budget.onRequest();
+    assertTrue(budget.tryRetry());
+    for (int i = 0; i < 10; ++i) {
+      budget.onRequest();
+    }
+    assertEquals(2, budget.getRetriesLeft());
+  }
+}
@@ -0,0 +1,86 @@
+package com.example.sdk;
+
+import com.example.sdk.types.HttpMethod;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.ConnectException;
+
+import static org.junit.Assert.*;
+
+/**
+ * The test suite for {@link RetryPolicy}.
+ *
+ * @author Feng Zheng
+ * @version 1.0
+ * @since 1.0
+ */
+public class RetryPolicyTest {
+  /**
+   * Tests {@link RetryPolicy#isRetryable(HttpMethod, int)} and {@link RetryPolicy#isRetryable(HttpMethod, IOException)}.
+   *
+   * @throws Exception the test exception
+   */
+  @Test
+  public void isRetryableTest() throws Exception {
+    RetryPolicy policy = RetryPolicy.DEFAULT;
+    for (HttpMethod method : new HttpMethod[]{HttpMethod.GET, HttpMethod.PUT, HttpMethod.DELETE}) {
+      assertTrue(policy.isRetryable(method, 429));
+      assertTrue(policy.isRetryable(method, 500));
+      assertTrue(policy.isRetryable(method, 503));
+      assertTrue(policy.isRetryable(method, new ConnectException()));
+      assertFalse(policy.isRetryable(method, 400));
+      assertFalse(policy.isRetryable(method, 404));
+      assertFalse(policy.isRetryable(method, 501));
+    }
+    assertFalse(policy.isRetryable(HttpMethod.POST, 503));
+    assertFalse(policy.isRetryable(HttpMethod.POST, 429));
+    assertFalse(policy.isRetryable(HttpMethod.POST, new ConnectException()));
+  }
+
+  /**
+   * Tests {@link RetryPolicy#getBackoffMs(int)} grows exponentially up to the maximum delay.
+   *
+   * @throws Exception the test exception
+   */
+  @Test
+  public void getBackoffMsTest() throws Exception {
+    RetryPolicy policy = new RetryPolicy(100, 10, 1000);
+    for (int i = 0; i < 1000; ++i) {
+      long first = policy.getBackoffMs(0);
+      assertTrue(first >= 0 && first <= 10);
+      long third = policy.getBackoffMs(2);
+      assertTrue(third >= 0 && third <= 40);
+      long last = policy.getBackoffMs(99);
+      assertTrue(last >= 0 && last <= 1000);
+    }
+    assertEquals(0, RetryPolicy.NO_RETRY.getBackoffMs(0));
+  }
+
+  /**
+   * Tests {@link RetryPolicy#parseRetryAfterMs(String, long)}.
+   *
+   * @throws Exception the test exception
+   */
+  @Test
+  public void parseRetryAfterMsTest() throws Exception {
+    assertEquals(120000, RetryPolicy.parseRetryAfterMs("120", 0));
+    assertEquals(0, RetryPolicy.parseRetryAfterMs(" 0 ", 0));
+    long now = 784111777000L - 5000;
+    assertEquals(5000, RetryPolicy.parseRetryAfterMs("Sun, 06 Nov 1994 08:49:37 GMT", now));
+    assertEquals(0, RetryPolicy.parseRetryAfterMs("Sun, 06 Nov 1994 08:49:37 GMT", now + 10000));
+    assertEquals(-1, RetryPolicy.parseRetryAfterMs(null, 0));
+    assertEquals(-1, RetryPolicy.parseRetryAfterMs("-1", 0));
+    assertEquals(-1, RetryPolicy.parseRetryAfterMs("soon", 0));
+  }
+
+  /**
+   * Tests {@link RetryPolicy#RetryPolicy(int, long, long)} rejects invalid settings.
+   *
+   * @throws Exception the test exception
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void constructorTestInvalid() throws Exception {
+    new RetryPolicy(1, 100, 10);
+  }
+}
@@ -0,0 +1,110 @@
+package com.example.sdk.transport;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.net.ProtocolException;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * The test suite for {@link Hpack}, using the examples of RFC 7541, Appendix C.
+ *
+ * @author Feng Zheng
+ * @version 1.0
+ * @since 1.0
+ */
+public class HpackTest {
+  /**
+   * Tests that {@link Hpack.Decoder#decode(byte[])} decodes literals without Huffman coding.
+   *
+   * @throws Exception the test exception
+   */
+  @Test
+  public void decodeTestWithoutHuffman() throws Exception {
+    Hpack.Decoder decoder = new Hpack.Decoder(Hpack.DEFAULT_TABLE_SIZE);
+    List<String[]> fields = decoder.decode(hex("828684410f7777772e6578616d706c652e636f6d"));
+    assertFields(fields, ":method", "GET", ":scheme", "http", ":path", "/", ":authority", "www.example.com");
+    assertEquals(57, decoder.getTableSize());
+  }
+
+  /**
+   * Tests that {@link Hpack.Decoder#decode(byte[])} decodes Huffman-coded requests
+   * sharing the dynamic table.
+   *
+   * @throws Exception the test exception
+   */
+  @Test
+  public void decodeTestWithHuffman() throws Exception {
+    Hpack.Decoder decoder = new Hpack.Decoder(Hpack.DEFAULT_TABLE_SIZE);
+    assertFields(decoder.decode(hex("828684418cf1e3c2e5f23a6ba0ab90f4ff")),
+        ":method", "GET", ":scheme", "http", ":path", "/", ":authority", "www.example.com");
+    assertFields(decoder.decode(hex("828684be5886a8eb10649cbf")),
+        ":method", "GET", ":scheme", "http", ":path", "/", ":authority", "www.example.com",
+        "cache-control", "no-cache");
+    assertFields(decoder.decode(hex("828785bf408825a849e95ba97d7f8925a849e95bb8e8b4bf")),
+        ":method", "GET", ":scheme", "https", ":path", "/index.html", ":authority", "www.example.com",
+        "custom-key", "custom-value");
+    assertEquals(164, decoder.getTableSize());
+  }
+
+  /**
+   * Tests that {@link Hpack.Decoder#decode(byte[])} rejects malformed header blocks.
+   *
+   * @throws Exception the test exception
+   */
+  @Test
+  public void decodeTestMalformed() throws Exception {
+    Hpack.Decoder decoder = new Hpack.Decoder(Hpack.DEFAULT_TABLE_SIZE);
+    for (String block : new String[]{"be", "80", "0085f2b2", "418cf1e3c2e5f23a6ba0ab90f4fe"}) {
+      try {
+        decoder.decode(hex(block));
+        fail("Expected ProtocolException for " + block);
+      } catch (ProtocolException e) {
+        // expected
+      }
+    }
+  }
+
+  /**
+   * Tests that {@link Hpack.Encoder#encode(String, String, ByteArrayOutputStream)} round trips.
+   *
+   * @throws Exception the test exception
+   */
+  @Test
+  public void encodeTest() throws Exception {
+    StringBuilder longValue = new StringBuilder();
+    for (int i = 0; i < 300; ++i) {
+      longValue.append((char) ('a' + i % 26));
+    }
+    ByteArrayOutputStream block = new ByteArrayOutputStream();
+    Hpack.Encoder encoder = new Hpack.Encoder();
+    encoder.encode(":method", "GET", block);
+    encoder.encode(":path", "/entities?page=2", block);
+    encoder.encode("authorization", "Bearer token", block);
+    encoder.encode("x-custom", longValue.toString(), block);
+    byte[] bytes = block.toByteArray();
+    assertEquals((byte) 0x82, bytes[0]);
+    Hpack.Decoder decoder = new Hpack.Decoder(Hpack.DEFAULT_TABLE_SIZE);
+    assertFields(decoder.decode(bytes), ":method", "GET", ":path", "/entities?page=2",
+        "authorization", "Bearer token", "x-custom", longValue.toString());
+    assertEquals(0, decoder.getTableSize());
+  }
+
+  private static void assertFields(List<String[]> fields, String... expected) {
+    assertEquals(expected.length / 2, fields.size());
+    for (int i = 0; i < fields.size(); ++i) {
+      assertEquals(expected[2 * i], fields.get(i)[0]);
+      assertEquals(expected[2 * i + 1], fields.get(i)[1]);
+    }
+  }
+
+  private static byte[] hex(String value) {
+    byte[] bytes = new byte[value.length() / 2];
+    for (int i = 0; i < bytes.length; ++i) {
+      bytes[i] = (byte) Integer.parseInt(value.substring(2 * i, 2 * i + 2), 16);
+    }
+    return bytes;
+  }
+}
@@ -0,0 +1,309 @@
+package com.example.sdk.transport;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A cleartext HTTP/2 server on the loopback interface which answers every stream
+ * with the response produced by a {@link Handler}, on a worker thread per stream.
+ *
+ * @author Feng Zheng
+ * @version 1.0
+ * @since 1.0
+ */
+class Http2LoopbackServer {
+  private final ServerSocket serverSocket;
+  private final ExecutorService workers = Executors.newCachedThreadPool();
+  private final AtomicInteger connections = new AtomicInteger();
+  private final AtomicInteger inFlight = new AtomicInteger();
+  private final AtomicInteger maxInFlight = new AtomicInteger();
+  private final List<Socket> sockets = new ArrayList<>();
+  private final Handler handler;
+  private final int maxConcurrentStreams;
+  private final int streamsPerConnection;
+
+  /**
+   * The handler producing the response to a request.
+   */
+  interface Handler {
+    /**
+     * Produces the response.
+     *
+     * @param headers the request headers, including the pseudo-headers
+     * @param body    the request body
+     * @return the response
+     * @throws Exception the handler exception
+     */
+    HttpTransport.Response handle(Map<String, String> headers, byte[] body) throws Exception;
+  }
+
+  /**
+   * Starts a new HTTP/2 loopback server on a free port.
+   *
+   * @param handler              the response handler
+   * @param maxConcurrentStreams the announced maximum number of concurrent streams, or 0 for no limit
+   * @param streamsPerConnection the number of streams served before the connection goes away, or 0 for no limit
+   * @throws IOException the I/O exception
+   */
+  Http2LoopbackServer(Handler handler, int maxConcurrentStreams, int streamsPerConnection) throws IOException {
+    this.handler = handler;
+    this.maxConcurrentStreams = maxConcurrentStreams;
+    this.streamsPerConnection = streamsPerConnection;
+    this.serverSocket = new ServerSocket(0, 1024, InetAddress.getLoopbackAddress());
+    workers.execute(new Runnable() {
+      @Override
+      public void run() {
+        accept();
+      }
+    });
+  }
+
+  /**
+   * Builds a response with a body.
+   *
+   * @param status the status code
+   * @param body   the body
+   * @return the response
+   */
+  static HttpTransport.Response response(int status, String body) {
+    return new HttpTransport.Response(status, new HashMap<String, List<String>>(), LoopbackServer.bytes(body));
+  }
+
+  /**
+   * Gets the URL of the path on the server.
+   *
+   * @param path the path
+   * @return the URL
+   * @throws IOException the I/O exception
+   */
+  URL url(String path) throws IOException {
+    return new URL("http://127.0.0.1:" + serverSocket.getLocalPort() + path);
+  }
+
+  /**
+   * Gets the number of accepted connections.
+   *
+   * @return the number of accepted connections
+   */
+  int getConnections() {
+    return connections.get();
+  }
+
+  /**
+   * Gets the maximum number of streams handled concurrently.
+   *
+   * @return the maximum number of streams handled concurrently
+   */
+  int getMaxInFlight() {
+    return maxInFlight.get();
+  }
+
+  /**
+   * Closes the server and all its connections.
+   *
+   * @throws IOException the I/O exception
+   */
+  void close() throws IOException {
+    serverSocket.close();
+    synchronized (sockets) {
+      for (Socket socket : sockets) {
+        socket.close();
+      }
+    }
+    workers.shutdownNow();
+  }
+
+  private void accept() {
+    while (!serverSocket.isClosed()) {
+      try {
+        final Socket socket = serverSocket.accept();
+        connections.incrementAndGet();
+        synchronized (sockets) {
+          sockets.add(socket);
+        }
+        workers.execute(new Runnable() {
+          @Override
+          public void run() {
+            try {
+              new Connection(socket).serve();
+            } catch (IOException e) {
+              // closed by the client
+            } finally {
+              try {
+                socket.close();
+              } catch (IOException e) {
+                // ignored
+              }
+            }
+          }
+        });
+      } catch (IOException e) {
+        return;
+      }
+    }
+  }
+
+  /**
+   * A connection of the server.
+   */
+  private final class Connection {
+    private final Socket socket;
+    private final DataInputStream in;
+    private final OutputStream out;
+    private final Hpack.Decoder decoder = new Hpack.Decoder(Hpack.DEFAULT_TABLE_SIZE);
+    private final Hpack.Encoder encoder = new Hpack.Encoder();
+    private final Map<Integer, Map<String, String>> headers = new HashMap<>();
+    private final Map<Integer, ByteArrayOutputStream> bodies = new HashMap<>();
+    private int accepted = 0;
+    private int answered = 0;
+    private boolean goingAway = false;
+
+    private Connection(Socket socket) throws IOException {
+      this.socket = socket;
+      this.in = new DataInputStream(socket.getInputStream());
+      this.out = new BufferedOutputStream(socket.getOutputStream());
+    }
+
+    private void serve() throws IOException {
+      byte[] preface = new byte[24];
+      in.readFully(preface);
+      if (!new String(preface, "US-ASCII").equals("PRI * HTTP/2.0\r\n\r\nSM\r\n\r\n")) {
+        throw new IOException("Invalid preface");
+      }
+      byte[] settings = new byte[maxConcurrentStreams > 0 ? 6 : 0];
+      if (maxConcurrentStreams > 0) {
+        settings[1] = 0x3;
+        putInt(settings, 2, maxConcurrentStreams);
+      }
+      write(0x4, 0, 0, settings, 0, settings.length);
+      ByteArrayOutputStream block = new ByteArrayOutputStream();
+      while (true) {
+        int length = in.readUnsignedByte() << 16 | in.readUnsignedShort();
+        int type = in.readUnsignedByte();
+        int flags = in.readUnsignedByte();
+        int streamId = in.readInt() & Integer.MAX_VALUE;
+        byte[] payload = new byte[length];
+        in.readFully(payload);
+        if (type == 0x4 && (flags & 0x1) == 0) {
+          write(0x4, 0x1, 0, payload, 0, 0);
+        } else if (type == 0x1 || type == 0x9) {
+          block.write(payload, 0, payload.length);
+          if ((flags & 0x4) != 0) {
+            Map<String, String> fields = new HashMap<>();
+            for (String[] field : decoder.decode(block.toByteArray())) {
+              fields.put(field[0], field[1]);
+            }
+            block.reset();
+            synchronized (this) {
+              if (goingAway) {
+                // streams opened after GOAWAY are ignored, the client retries them elsewhere
+                continue;
+              }
+              accepted++;
+            }
+            headers.put(streamId, fields);
+            bodies.put(streamId, new ByteArrayOutputStream());
+          }
+          if ((flags & 0x1) != 0 && headers.containsKey(streamId)) {
+            dispatch(streamId);
+          }
+        } else if (type == 0x0 && bodies.containsKey(streamId)) {
+          bodies.get(streamId).write(payload, 0, payload.length);
+          if (length > 0) {
+            byte[] increment = new byte[4];
+            putInt(increment, 0, length);
+            write(0x8, 0, 0, increment, 0, 4);
+            write(0x8, 0, streamId, increment, 0, 4);
+          }
+          if ((flags & 0x1) != 0) {
+            dispatch(streamId);
+          }
+        } else if (type == 0x7) {
+          return;
+        }
+      }
+    }
+
+    private void dispatch(final int streamId) {
+      final Map<String, String> fields = headers.remove(streamId);
+      final byte[] body = bodies.remove(streamId).toByteArray();
+      workers.execute(new Runnable() {
+        @Override
+        public void run() {
+          int current = inFlight.incrementAndGet();
+          while (true) {
+            int max = maxInFlight.get();
+            if (current <= max || maxInFlight.compareAndSet(max, current)) {
+              break;
+            }
+          }
+          try {
+            HttpTransport.Response response = handler.handle(fields, body);
+            inFlight.decrementAndGet();
+            respond(streamId, response);
+          } catch (Exception e) {
+            inFlight.decrementAndGet();
+            e.printStackTrace();
+          }
+        }
+      });
+    }
+
+    private synchronized void respond(int streamId, HttpTransport.Response response) throws IOException {
+      ByteArrayOutputStream block = new ByteArrayOutputStream();
+      encoder.encode(":status", Integer.toString(response.getStatusCode()), block);
+      encoder.encode("content-type", "application/json", block);
+      byte[] body = response.getBody();
+      write(0x1, body.length == 0 ? 0x5 : 0x4, streamId, block.toByteArray(), 0, block.size());
+      for (int offset = 0; offset < body.length; offset += 16384) {
+        int length = Math.min(16384, body.length - offset);
+        write(0x0, offset + length == body.length ? 0x1 : 0, streamId, body, offset, length);
+      }
+      answered++;
+      if (streamsPerConnection > 0 && !goingAway && answered >= streamsPerConnection) {
+        goingAway = true;
+        byte[] goAway = new byte[8];
+        putInt(goAway, 0, streamId);
+        write(0x7, 0, 0, goAway, 0, goAway.length);
+      }
+      if (goingAway && answered == accepted) {
+        socket.close();
+      }
+    }
+
+    private synchronized void write(int type, int flags, int streamId, byte[] payload, int offset, int length)
+        throws IOException {
+      out.write(length >>> 16);
+      out.write(length >>> 8);
+      out.write(length);
+      out.write(type);
+      out.write(flags);
+      byte[] id = new byte[4];
+      putInt(id, 0, streamId);
+      out.write(id);
+      out.write(payload, offset, length);
+      out.flush();
+    }
+  }
+
+  private static void putInt(byte[] bytes, int offset, int value) {
+    bytes[offset] = (byte) (value >>> 24);
+    bytes[offset + 1] = (byte) (value >>> 16);
+    bytes[offset + 2] = (byte) (value >>> 8);
+    bytes[offset + 3] = (byte) value;
+  }
+}
@@ -0,0 +1,276 @@
+package com.example.sdk.transport;
+
+import com.example.sdk.Deadline;
+import com.example.sdk.types.HttpMethod;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * The test suite for {@link Http2Transport}.
+ *
+ * @author Feng Zheng
+ * @version 1.0
+ * @since 1.0
+ */
+public class Http2TransportTest {
+  private Http2LoopbackServer server;
+  private Http2Transport transport;
+
+  @After
+  public void tearDown() throws Exception {
+    if (transport != null) {
+      transport.close();
+    }
+    if (server != null) {
+      server.close();
+    }
+  }
+
+  /**
+   * Tests that {@link Http2Transport#executeAsync(HttpTransport.Request, AsyncHttpTransport.Callback)}
+   * multiplexes concurrent requests over a single connection.
+   *
+   * @throws Exception the test exception
+   */
+  @Test
+  public void executeAsyncTestMultiplexes() throws Exception {
+    server = new Http2LoopbackServer(new Http2LoopbackServer.Handler() {
+      @Override
+      public HttpTransport.Response handle(Map<String, String> headers, byte[] body) throws Exception {
+        assertEquals("GET", headers.get(":method"));
+        assertEquals("token", headers.get("authorization"));
+        Thread.sleep(50);
+        return Http2LoopbackServer.response(200, "{\"path\":\"" + headers.get(":path") + "\"}");
+      }
+    }, 0, 0);
+    transport = new Http2Transport();
+    final int count = 50;
+    final CountDownLatch done = new CountDownLatch(count);
+    final AtomicInteger matched = new AtomicInteger();
+    final Queue<IOException> failures = new ConcurrentLinkedQueue<>();
+    for (int i = 0; i < count; ++i) {
+      final String path = "/entities/" + i;
+      HttpTransport.Request request = new HttpTransport.Request(HttpMethod.GET, server.url(path),
+          Collections.singletonMap("Authorization", "token"), null);
+      transport.executeAsync(request, new AsyncHttpTransport.Callback() {
+        @Override
+        public void onResponse(HttpTransport.Response response) {
+          if (response.getStatusCode() == 200
+              && response.getBodyAsString().equals("{\"path\":\"" + path + "\"}")
+              && "application/json".equals(response.getHeader("Content-Type"))) {
+            matched.incrementAndGet();
+          }
+          done.countDown();
+        }
+
+        @Override
+        public void onFailure(IOException e) {
+          failures.add(e);
+          done.countDown();
+        }
+      });
+    }
+    assertTrue(done.await(30, TimeUnit.SECONDS));
+    assertTrue(failures.isEmpty());
+    assertEquals(count, matched.get());
+    assertEquals(1, server.getConnections());
+    assertTrue(server.getMaxInFlight() > 1);
+  }
+
+  /**
+   * Tests bodies larger than the flow-control windows in both directions.
+   *
+   * @throws Exception the test exception
+   */
+  @Test
+  public void executeTestLargeBodies() throws Exception {
+    server = new Http2LoopbackServer(new Http2LoopbackServer.Handler() {
+      @Override
+      public HttpTransport.Response handle(Map<String, String> headers, byte[] body) {
+        assertEquals(Integer.toString(body.length), headers.get("content-length"));
+        return Http2LoopbackServer.response(201, new String(body));
+      }
+    }, 0, 0);
+    transport = new Http2Transport();
+    StringBuilder value = new StringBuilder();
+    while (value.length() < 200000) {
+      value.append("0123456789");
+    }
+    HttpTransport.Request request = new HttpTransport.Request(HttpMethod.POST, server.url("/entities"),
+        Collections.<String, String>emptyMap(), LoopbackServer.bytes(value.toString()));
+    for (int i = 0; i < 3; ++i) {
+      HttpTransport.Response response = transport.execute(request);
+      assertEquals(201, response.getStatusCode());
+      assertEquals(value.toString(), response.getBodyAsString());
+    }
+    assertEquals(1, server.getConnections());
+  }
+
+  /**
+   * Tests the streams beyond the concurrency limit of the server are queued.
+   *
+   * @throws Exception the test exception
+   */
+  @Test
+  public void executeAsyncTestMaxConcurrentStreams() throws Exception {
+    server = new Http2LoopbackServer(new Http2LoopbackServer.Handler() {
+      @Override
+      public HttpTransport.Response handle(Map<String, String> headers, byte[] body) throws Exception {
+        Thread.sleep(10);
+        return Http2LoopbackServer.response(200, "{}");
+      }
+    }, 2, 0);
+    transport = new Http2Transport();
+    // the first request lets the client learn the settings of the server
+    transport.execute(get("/"));
+    final CountDownLatch done = new CountDownLatch(20);
+    final AtomicInteger succeeded = new AtomicInteger();
+    for (int i = 0; i < 20; ++i) {
+      transport.executeAsync(get("/"), new AsyncHttpTransport.Callback() {
+        @Override
+        public void onResponse(HttpTransport.Response response) {
+          succeeded.incrementAndGet();
+          done.countDown();
+        }
+
+        @Override
+        public void onFailure(IOException e) {
+          done.countDown();
+        }
+      });
+    }
+    assertTrue(done.await(30, TimeUnit.SECONDS));
+    assertEquals(20, succeeded.get());
+    assertTrue(server.getMaxInFlight() <= 2);
+  }
+
+  /**
+   * Tests a new connection is opened once the server sends GOAWAY.
+   *
+   * @throws Exception the test exception
+   */
+  @Test
+  public void executeTestGoAway() throws Exception {
+    server = new Http2LoopbackServer(new Http2LoopbackServer.Handler() {
+      @Override
+      public HttpTransport.Response handle(Map<String, String> headers, byte[] body) {
+        return Http2LoopbackServer.response(200, "{}");
+      }
+    }, 0, 1);
+    transport = new Http2Transport();
+    for (int i = 0; i < 3; ++i) {
+      assertEquals("{}", transport.execute(get("/")).getBodyAsString());
+    }
+    assertEquals(3, server.getConnections());
+  }
+
+  /**
+   * Tests HTTP/2 over TLS is rejected.
+   *
+   * @throws Exception the test exception
+   */
+  @Test(expected = IOException.class)
+  public void executeTestHttps() throws Exception {
+    transport = new Http2Transport();
+    transport.execute(new HttpTransport.Request(HttpMethod.GET, new URL("https://127.0.0.1:1/"),
+        Collections.<String, String>emptyMap(), null));
+  }
+
+  /**
+   * Tests a stream slower than the deadline of its request is reset in time, without closing the connection.
+   *
+   * @throws Exception the test exception
+   */
+  @Test
+  public void executeTestDeadline() throws Exception {
+    server = new Http2LoopbackServer(new Http2LoopbackServer.Handler() {
+      @Override
+      public HttpTransport.Response handle(Map<String, String> headers, byte[] body) throws Exception {
+        if ("/slow".equals(headers.get(":path"))) {
+          Thread.sleep(2000);
+        }
+        return Http2LoopbackServer.response(200, "{}");
+      }
+    }, 0, 0);
+    transport = new Http2Transport();
+    HttpTransport.Request request = new HttpTransport.Request(HttpMethod.GET, server.url("/slow"),
+        Collections.<String, String>emptyMap(), null, 1000, Deadline.after(200));
+    long start = System.nanoTime();
+    try {
+      transport.execute(request);
+      fail("Expected " + SocketTimeoutException.class.getName());
+    } catch (SocketTimeoutException e) {
+      // the deadline is passed
+    }
+    assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(1500));
+    assertEquals(200, transport.execute(get("/")).getStatusCode());
+    assertEquals(1, server.getConnections());
+  }
+
+  /**
+   * Tests a cancelled request fails right away, and the transport keeps serving the next requests.
+   *
+   * @throws Exception the test exception
+   */
+  @Test
+  public void executeTestCancel() throws Exception {
+    server = new Http2LoopbackServer(new Http2LoopbackServer.Handler() {
+      @Override
+      public HttpTransport.Response handle(Map<String, String> headers, byte[] body) throws Exception {
+        if ("/slow".equals(headers.get(":path"))) {
+          Thread.sleep(2000);
+        }
+        return Http2LoopbackServer.response(200, "{}");
+      }
+    }, 0, 0);
+    transport = new Http2Transport();
+    HttpTransport.Request request = get("/slow");
+    cancelAfter(request, 200);
+    long start = System.nanoTime();
+    try {
+      transport.execute(request);
+      fail("Expected " + InterruptedIOException.class.getName());
+    } catch (InterruptedIOException e) {
+      assertTrue(request.isCancelled());
+    }
+    assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(1500));
+    assertEquals(200, transport.execute(get("/")).getStatusCode());
+    // the stream is reset, the connection goes on
+    assertEquals(1, server.getConnections());
+  }
+
+  private HttpTransport.Request get(String path) throws Exception {
+    return new HttpTransport.Request(HttpMethod.GET, server.url(path),
+        Collections.<String, String>emptyMap(), null);
+  }
+
+  private static void cancelAfter(final HttpTransport.Request request, final long delayMs) {
+    Thread thread = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          Thread.sleep(delayMs);
+        } catch (InterruptedException e) {
+          return;
+        }
+        request.cancel();
+      }
+    });
+    thread.setDaemon(true);
+    thread.start();
+  }
+}
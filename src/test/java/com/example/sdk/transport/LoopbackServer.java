@@ -0,0 +1,228 @@
+package com.example.sdk.transport;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A HTTP/1.1 server on the loopback interface which answers every request
+ * with the raw bytes produced by a {@link Handler}.
+ *
+ * @author Feng Zheng
+ * @version 1.0
+ * @since 1.0
+ */
+class LoopbackServer {
+  private final ServerSocket serverSocket;
+  private final ExecutorService workers = Executors.newCachedThreadPool();
+  private final AtomicInteger connections = new AtomicInteger();
+  private final AtomicInteger requests = new AtomicInteger();
+  private final List<Socket> sockets = new ArrayList<>();
+  private final Handler handler;
+  private final boolean closeAfterResponse;
+
+  /**
+   * The handler producing the raw response to a request.
+   */
+  interface Handler {
+    /**
+     * Produces the raw response.
+     *
+     * @param requestHead the request line and the headers
+     * @param body        the request body
+     * @return the raw response
+     * @throws Exception the handler exception
+     */
+    byte[] handle(String requestHead, byte[] body) throws Exception;
+  }
+
+  /**
+   * Starts a new loopback server on a free port.
+   *
+   * @param handler the response handler
+   * @throws IOException the I/O exception
+   */
+  LoopbackServer(Handler handler) throws IOException {
+    this(handler, false);
+  }
+
+  /**
+   * Starts a new loopback server on a free port.
+   *
+   * @param handler            the response handler
+   * @param closeAfterResponse whether the connection is closed after every response
+   * @throws IOException the I/O exception
+   */
+  LoopbackServer(Handler handler, boolean closeAfterResponse) throws IOException {
+    this.handler = handler;
+    this.closeAfterResponse = closeAfterResponse;
+    this.serverSocket = new ServerSocket(0, 1024, InetAddress.getLoopbackAddress());
+    workers.execute(new Runnable() {
+      @Override
+      public void run() {
+        accept();
+      }
+    });
+  }
+
+  /**
+   * Builds a raw response with a content length.
+   *
+   * @param status the status code
+   * @param body   the body
+   * @return the raw response
+   */
+  static byte[] response(int status, String body) {
+    return bytes("HTTP/1.1 " + status + " Status\r\nContent-Type: application/json\r\n"
+        + "Content-Length: " + bytes(body).length + "\r\n\r\n" + body);
+  }
+
+  /**
+   * Encodes the string in UTF-8.
+   *
+   * @param value the string
+   * @return the UTF-8 bytes
+   */
+  static byte[] bytes(String value) {
+    try {
+      return value.getBytes("UTF-8");
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Gets the URL of the path on the server.
+   *
+   * @param path the path
+   * @return the URL
+   * @throws IOException the I/O exception
+   */
+  URL url(String path) throws IOException {
+    return new URL("http://127.0.0.1:" + serverSocket.getLocalPort() + path);
+  }
+
+  /**
+   * Gets the number of accepted connections.
+   *
+   * @return the number of accepted connections
+   */
+  int getConnections() {
+    return connections.get();
+  }
+
+  /**
+   * Gets the number of served requests.
+   *
+   * @return the number of served requests
+   */
+  int getRequests() {
+    return requests.get();
+  }
+
+  /**
+   * Closes the server and all its connections.
+   *
+   * @throws IOException the I/O exception
+   */
+  void close() throws IOException {
+    serverSocket.close();
+    synchronized (sockets) {
+      for (Socket socket : sockets) {
+        socket.close();
+      }
+    }
+    workers.shutdownNow();
+  }
+
+  private void accept() {
+    while (!serverSocket.isClosed()) {
+      try {
+        final Socket socket = serverSocket.accept();
+        connections.incrementAndGet();
+        synchronized (sockets) {
+          sockets.add(socket);
+        }
+        workers.execute(new Runnable() {
+          @Override
+          public void run() {
+            serve(socket);
+          }
+        });
+      } catch (IOException e) {
+        return;
+      }
+    }
+  }
+
+  private void serve(Socket socket) {
+    try {
+      InputStream in = socket.getInputStream();
+      OutputStream out = socket.getOutputStream();
+      String head;
+      while ((head = readHead(in)) != null) {
+        int length = 0;
+        for (String line : head.split("\r\n")) {
+          if (line.toLowerCase(Locale.ENGLISH).startsWith("content-length:")) {
+            length = Integer.parseInt(line.substring(15).trim());
+          }
+        }
+        byte[] body = new byte[length];
+        int read = 0;
+        while (read < length) {
+          int n = in.read(body, read, length - read);
+          if (n < 0) {
+            return;
+          }
+          read += n;
+        }
+        requests.incrementAndGet();
+        byte[] response = handler.handle(head, body);
+        if (response == null) {
+          break;
+        }
+        out.write(response);
+        out.flush();
+        if (closeAfterResponse || head.toLowerCase(Locale.ENGLISH).contains("connection: close")) {
+          break;
+        }
+      }
+    } catch (SocketException e) {
+      // closed by the client
+    } catch (Exception e) {
+      e.printStackTrace();
+    } finally {
+      try {
+        socket.close();
+      } catch (IOException e) {
+        // ignored
+      }
+    }
+  }
+
+  private static String readHead(InputStream in) throws IOException {
+    ByteArrayOutputStream head = new ByteArrayOutputStream();
+    int matched = 0;
+    int c;
+    while ((c = in.read()) != -1) {
+      head.write(c);
+      matched = (c == (matched % 2 == 0 ? '\r' : '\n')) ? matched + 1 : (c == '\r' ? 1 : 0);
+      if (matched == 4) {
+        return head.toString("ISO-8859-1");
+      }
+    }
+    return null;
+  }
+}
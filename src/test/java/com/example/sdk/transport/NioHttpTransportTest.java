@@ -0,0 +1,301 @@
+package com.example.sdk.transport;
+
+import com.example.sdk.Deadline;
+import com.example.sdk.types.HttpMethod;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.util.Collections;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * The test suite for {@link NioHttpTransport}.
+ *
+ * @author Feng Zheng
+ * @version 1.0
+ * @since 1.0
+ */
+public class NioHttpTransportTest {
+  private LoopbackServer server;
+  private NioHttpTransport transport;
+
+  @After
+  public void tearDown() throws Exception {
+    if (transport != null) {
+      transport.close();
+    }
+    if (server != null) {
+      server.close();
+    }
+  }
+
+  /**
+   * Tests that {@link NioHttpTransport#execute(HttpTransport.Request)} reuses the connection.
+   *
+   * @throws Exception the test exception
+   */
+  @Test
+  public void executeTestReusesConnection() throws Exception {
+    server = new LoopbackServer(new LoopbackServer.Handler() {
+      @Override
+      public byte[] handle(String requestHead, byte[] body) {
+        return LoopbackServer.response(200, "{\"id\":\"1\"}");
+      }
+    });
+    transport = new NioHttpTransport();
+    for (int i = 0; i < 10; ++i) {
+      HttpTransport.Response response = transport.execute(get("/entities/1"));
+      assertEquals(200, response.getStatusCode());
+      assertEquals("{\"id\":\"1\"}", response.getBodyAsString());
+    }
+    assertEquals(10, server.getRequests());
+    assertEquals(1, server.getConnections());
+  }
+
+  /**
+   * Tests the request body is sent and chunked responses are decoded.
+   *
+   * @throws Exception the test exception
+   */
+  @Test
+  public void executeTestPostBodyAndChunkedResponse() throws Exception {
+    server = new LoopbackServer(new LoopbackServer.Handler() {
+      @Override
+      public byte[] handle(String requestHead, byte[] body) {
+        assertTrue(requestHead.startsWith("PUT /entities/1 HTTP/1.1\r\n"));
+        return LoopbackServer.bytes("HTTP/1.1 201 Created\r\nTransfer-Encoding: chunked\r\n\r\n"
+            + Integer.toHexString(body.length) + "\r\n" + new String(body) + "\r\n0\r\n\r\n");
+      }
+    });
+    transport = new NioHttpTransport();
+    HttpTransport.Request request = new HttpTransport.Request(HttpMethod.PUT, server.url("/entities/1"),
+        Collections.<String, String>emptyMap(), LoopbackServer.bytes("{\"name\":\"x\"}"));
+    HttpTransport.Response response = transport.execute(request);
+    assertEquals(201, response.getStatusCode());
+    assertEquals("{\"name\":\"x\"}", response.getBodyAsString());
+  }
+
+  /**
+   * Tests a pooled connection closed by the server is replaced transparently.
+   *
+   * @throws Exception the test exception
+   */
+  @Test
+  public void executeTestStaleConnection() throws Exception {
+    server = new LoopbackServer(new LoopbackServer.Handler() {
+      @Override
+      public byte[] handle(String requestHead, byte[] body) {
+        return LoopbackServer.response(200, "{}");
+      }
+    }, true);
+    transport = new NioHttpTransport();
+    for (int i = 0; i < 3; ++i) {
+      assertEquals("{}", transport.execute(get("/")).getBodyAsString());
+    }
+    assertEquals(3, server.getConnections());
+  }
+
+  /**
+   * Tests a POST request is not sent again when its reused connection is closed before the response.
+   *
+   * @throws Exception the test exception
+   */
+  @Test
+  public void executeTestStaleConnectionPost() throws Exception {
+    server = new LoopbackServer(new LoopbackServer.Handler() {
+      @Override
+      public byte[] handle(String requestHead, byte[] body) {
+        // closes the connection without responding to the POST request
+        return requestHead.startsWith("POST") ? null : LoopbackServer.response(200, "{}");
+      }
+    });
+    transport = new NioHttpTransport();
+    assertEquals("{}", transport.execute(get("/")).getBodyAsString());
+    HttpTransport.Request request = new HttpTransport.Request(HttpMethod.POST, server.url("/entities"),
+        Collections.<String, String>emptyMap(), LoopbackServer.bytes("{}"));
+    try {
+      transport.execute(request);
+      fail("Expected " + IOException.class.getName());
+    } catch (IOException e) {
+      // the server may have processed the request
+    }
+    assertEquals(2, server.getRequests());
+  }
+
+  /**
+   * Tests many concurrent requests are multiplexed over a bounded number of connections.
+   *
+   * @throws Exception the test exception
+   */
+  @Test
+  public void executeAsyncTestBoundedConnections() throws Exception {
+    server = new LoopbackServer(new LoopbackServer.Handler() {
+      @Override
+      public byte[] handle(String requestHead, byte[] body) throws Exception {
+        Thread.sleep(1);
+        return LoopbackServer.response(200, "{}");
+      }
+    });
+    transport = new NioHttpTransport(2, 4, 60000);
+    final int count = 500;
+    final CountDownLatch done = new CountDownLatch(count);
+    final AtomicInteger succeeded = new AtomicInteger();
+    final Queue<IOException> failures = new ConcurrentLinkedQueue<>();
+    for (int i = 0; i < count; ++i) {
+      transport.executeAsync(get("/"), new AsyncHttpTransport.Callback() {
+        @Override
+        public void onResponse(HttpTransport.Response response) {
+          if (response.getStatusCode() == 200) {
+            succeeded.incrementAndGet();
+          }
+          done.countDown();
+        }
+
+        @Override
+        public void onFailure(IOException e) {
+          failures.add(e);
+          done.countDown();
+        }
+      });
+    }
+    assertTrue(done.await(30, TimeUnit.SECONDS));
+    assertTrue(failures.isEmpty());
+    assertEquals(count, succeeded.get());
+    assertTrue(server.getConnections() <= 4);
+  }
+
+  /**
+   * Tests the failures are reported to the callback.
+   *
+   * @throws Exception the test exception
+   */
+  @Test
+  public void executeAsyncTestConnectionRefused() throws Exception {
+    server = new LoopbackServer(new LoopbackServer.Handler() {
+      @Override
+      public byte[] handle(String requestHead, byte[] body) {
+        return LoopbackServer.response(200, "{}");
+      }
+    });
+    HttpTransport.Request request = get("/");
+    server.close();
+    transport = new NioHttpTransport();
+    try {
+      transport.execute(request);
+      fail("Expected IOException");
+    } catch (IOException e) {
+      // expected
+    }
+  }
+
+  /**
+   * Tests idle connections are evicted after the idle timeout.
+   *
+   * @throws Exception the test exception
+   */
+  @Test
+  public void evictIdleConnectionsTest() throws Exception {
+    server = new LoopbackServer(new LoopbackServer.Handler() {
+      @Override
+      public byte[] handle(String requestHead, byte[] body) {
+        return LoopbackServer.response(200, "{}");
+      }
+    });
+    transport = new NioHttpTransport(1, 4, 50);
+    transport.execute(get("/"));
+    Thread.sleep(300);
+    transport.execute(get("/"));
+    assertEquals(2, server.getConnections());
+  }
+
+  /**
+   * Tests a response slower than the deadline of its request fails in time, and the transport
+   * keeps serving the next requests.
+   *
+   * @throws Exception the test exception
+   */
+  @Test
+  public void executeTestDeadline() throws Exception {
+    server = new LoopbackServer(new LoopbackServer.Handler() {
+      @Override
+      public byte[] handle(String requestHead, byte[] body) throws Exception {
+        if (requestHead.startsWith("GET /slow ")) {
+          Thread.sleep(2000);
+        }
+        return LoopbackServer.response(200, "{}");
+      }
+    });
+    transport = new NioHttpTransport();
+    HttpTransport.Request request = new HttpTransport.Request(HttpMethod.GET, server.url("/slow"),
+        Collections.<String, String>emptyMap(), null, 1000, Deadline.after(200));
+    long start = System.nanoTime();
+    try {
+      transport.execute(request);
+      fail("Expected " + SocketTimeoutException.class.getName());
+    } catch (SocketTimeoutException e) {
+      // the deadline is passed
+    }
+    assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(1500));
+    assertEquals(200, transport.execute(get("/")).getStatusCode());
+  }
+
+  /**
+   * Tests a cancelled request fails right away, and the transport keeps serving the next requests.
+   *
+   * @throws Exception the test exception
+   */
+  @Test
+  public void executeTestCancel() throws Exception {
+    server = new LoopbackServer(new LoopbackServer.Handler() {
+      @Override
+      public byte[] handle(String requestHead, byte[] body) throws Exception {
+        if (requestHead.startsWith("GET /slow ")) {
+          Thread.sleep(2000);
+        }
+        return LoopbackServer.response(200, "{}");
+      }
+    });
+    transport = new NioHttpTransport();
+    HttpTransport.Request request = get("/slow");
+    cancelAfter(request, 200);
+    long start = System.nanoTime();
+    try {
+      transport.execute(request);
+      fail("Expected " + InterruptedIOException.class.getName());
+    } catch (InterruptedIOException e) {
+      assertTrue(request.isCancelled());
+    }
+    assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(1500));
+    assertEquals(200, transport.execute(get("/")).getStatusCode());
+  }
+
+  private HttpTransport.Request get(String path) throws Exception {
+    return new HttpTransport.Request(HttpMethod.GET, server.url(path),
+        Collections.<String, String>emptyMap(), null);
+  }
+
+  private static void cancelAfter(final HttpTransport.Request request, final long delayMs) {
+    Thread thread = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          Thread.sleep(delayMs);
+        } catch (InterruptedException e) {
+          return;
+        }
+        request.cancel();
+      }
+    });
+    thread.setDaemon(true);
+    thread.start();
+  }
+}
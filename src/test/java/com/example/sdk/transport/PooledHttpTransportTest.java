@@ -0,0 +1,391 @@
+package com.example.sdk.transport;
+
+import com.example.sdk.Deadline;
+import com.example.sdk.types.HttpMethod;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * The test suite for {@link PooledHttpTransport}.
+ *
+ * @author Feng Zheng
+ * @version 1.0
+ * @since 1.0
+ */
+public class PooledHttpTransportTest {
+  private LoopbackServer server;
+  private PooledHttpTransport transport;
+
+  @After
+  public void tearDown() throws Exception {
+    if (transport != null) {
+      transport.close();
+    }
+    if (server != null) {
+      server.close();
+    }
+  }
+
+  /**
+   * Tests that {@link PooledHttpTransport#execute(HttpTransport.Request)} reuses the connection.
+   *
+   * @throws Exception the test exception
+   */
+  @Test
+  public void executeTestReusesConnection() throws Exception {
+    server = new LoopbackServer(new LoopbackServer.Handler() {
+      @Override
+      public byte[] handle(String requestHead, byte[] body) {
+        return LoopbackServer.response(200, "{\"id\":\"1\"}");
+      }
+    });
+    transport = new PooledHttpTransport();
+    for (int i = 0; i < 10; ++i) {
+      HttpTransport.Response response = transport.execute(get("/entities/1"));
+      assertEquals(200, response.getStatusCode());
+      assertEquals("{\"id\":\"1\"}", response.getBodyAsString());
+      assertEquals("application/json", response.getHeader("content-type"));
+    }
+    assertEquals(10, server.getRequests());
+    assertEquals(1, server.getConnections());
+  }
+
+  /**
+   * Tests the request body is sent and the error responses are returned.
+   *
+   * @throws Exception the test exception
+   */
+  @Test
+  public void executeTestPostBodyAndErrorStatus() throws Exception {
+    server = new LoopbackServer(new LoopbackServer.Handler() {
+      @Override
+      public byte[] handle(String requestHead, byte[] body) {
+        assertTrue(requestHead.startsWith("POST /entities HTTP/1.1\r\n"));
+        assertTrue(requestHead.contains("Authorization: token\r\n"));
+        return LoopbackServer.response(422, new String(body));
+      }
+    });
+    transport = new PooledHttpTransport();
+    HttpTransport.Request request = new HttpTransport.Request(HttpMethod.POST, server.url("/entities"),
+        Collections.singletonMap("Authorization", "token"), LoopbackServer.bytes("{\"name\":\"x\"}"));
+    HttpTransport.Response response = transport.execute(request);
+    assertEquals(422, response.getStatusCode());
+    assertEquals("{\"name\":\"x\"}", response.getBodyAsString());
+  }
+
+  /**
+   * Tests chunked responses.
+   *
+   * @throws Exception the test exception
+   */
+  @Test
+  public void executeTestChunkedResponse() throws Exception {
+    server = new LoopbackServer(new LoopbackServer.Handler() {
+      @Override
+      public byte[] handle(String requestHead, byte[] body) {
+        return LoopbackServer.bytes("HTTP/1.1 200 OK\r\nTransfer-Encoding: chunked\r\n\r\n"
+            + "5;ext=1\r\n{\"id\"\r\n6\r\n:\"abc\"\r\n1\r\n}\r\n0\r\nTrailer: x\r\n\r\n");
+      }
+    });
+    transport = new PooledHttpTransport();
+    for (int i = 0; i < 3; ++i) {
+      assertEquals("{\"id\":\"abc\"}", transport.execute(get("/")).getBodyAsString());
+    }
+    assertEquals(1, server.getConnections());
+  }
+
+  /**
+   * Tests responses delimited by the end of the connection.
+   *
+   * @throws Exception the test exception
+   */
+  @Test
+  public void executeTestCloseDelimitedResponse() throws Exception {
+    server = new LoopbackServer(new LoopbackServer.Handler() {
+      @Override
+      public byte[] handle(String requestHead, byte[] body) {
+        return LoopbackServer.bytes("HTTP/1.0 200 OK\r\n\r\n[1,2,3]");
+      }
+    }, true);
+    transport = new PooledHttpTransport();
+    assertEquals("[1,2,3]", transport.execute(get("/")).getBodyAsString());
+    assertEquals("[1,2,3]", transport.execute(get("/")).getBodyAsString());
+    assertEquals(2, server.getConnections());
+  }
+
+  /**
+   * Tests the body buffer is not allocated from the length declared by the server.
+   *
+   * @throws Exception the test exception
+   */
+  @Test
+  public void executeTestDeclaredLengthNotAllocated() throws Exception {
+    server = new LoopbackServer(new LoopbackServer.Handler() {
+      @Override
+      public byte[] handle(String requestHead, byte[] body) {
+        return LoopbackServer.bytes("HTTP/1.1 200 OK\r\nContent-Length: 2000000000\r\n\r\n{}");
+      }
+    }, true);
+    transport = new PooledHttpTransport();
+    try {
+      transport.execute(get("/"));
+      fail("Expected " + EOFException.class.getName());
+    } catch (EOFException e) {
+      // the response ended before the declared length
+    }
+  }
+
+  /**
+   * Tests a pooled connection closed by the server is replaced transparently.
+   *
+   * @throws Exception the test exception
+   */
+  @Test
+  public void executeTestStaleConnection() throws Exception {
+    server = new LoopbackServer(new LoopbackServer.Handler() {
+      @Override
+      public byte[] handle(String requestHead, byte[] body) {
+        return LoopbackServer.response(200, "{}");
+      }
+    }, true);
+    transport = new PooledHttpTransport();
+    for (int i = 0; i < 3; ++i) {
+      assertEquals("{}", transport.execute(get("/")).getBodyAsString());
+    }
+    assertEquals(3, server.getConnections());
+  }
+
+  /**
+   * Tests a POST request does not reuse a pooled connection closed by the server.
+   *
+   * @throws Exception the test exception
+   */
+  @Test
+  public void executeTestStaleConnectionPost() throws Exception {
+    server = new LoopbackServer(new LoopbackServer.Handler() {
+      @Override
+      public byte[] handle(String requestHead, byte[] body) {
+        return LoopbackServer.response(200, "{}");
+      }
+    }, true);
+    transport = new PooledHttpTransport();
+    assertEquals("{}", transport.execute(get("/")).getBodyAsString());
+    assertEquals("{}", transport.execute(post("/entities")).getBodyAsString());
+    assertEquals(2, server.getRequests());
+    assertEquals(2, server.getConnections());
+  }
+
+  /**
+   * Tests a POST request is not sent again when its reused connection is closed before the response.
+   *
+   * @throws Exception the test exception
+   */
+  @Test
+  public void executeTestPostNotResent() throws Exception {
+    server = new LoopbackServer(new LoopbackServer.Handler() {
+      @Override
+      public byte[] handle(String requestHead, byte[] body) {
+        // closes the connection without responding to the POST request
+        return requestHead.startsWith("POST") ? null : LoopbackServer.response(200, "{}");
+      }
+    });
+    transport = new PooledHttpTransport();
+    assertEquals("{}", transport.execute(get("/")).getBodyAsString());
+    try {
+      transport.execute(post("/entities"));
+      fail("Expected " + IOException.class.getName());
+    } catch (IOException e) {
+      // the server may have processed the request
+    }
+    assertEquals(2, server.getRequests());
+    assertEquals(1, server.getConnections());
+  }
+
+  /**
+   * Tests the number of connections per host is bounded.
+   *
+   * @throws Exception the test exception
+   */
+  @Test
+  public void executeTestBoundedConnections() throws Exception {
+    final AtomicInteger inFlight = new AtomicInteger();
+    final AtomicInteger maxInFlight = new AtomicInteger();
+    server = new LoopbackServer(new LoopbackServer.Handler() {
+      @Override
+      public byte[] handle(String requestHead, byte[] body) throws Exception {
+        int current = inFlight.incrementAndGet();
+        while (true) {
+          int max = maxInFlight.get();
+          if (current <= max || maxInFlight.compareAndSet(max, current)) {
+            break;
+          }
+        }
+        Thread.sleep(20);
+        inFlight.decrementAndGet();
+        return LoopbackServer.response(200, "{}");
+      }
+    });
+    transport = new PooledHttpTransport(2, 60000, true);
+    ExecutorService threads = Executors.newFixedThreadPool(8);
+    List<Future<HttpTransport.Response>> futures = new ArrayList<>();
+    for (int i = 0; i < 32; ++i) {
+      futures.add(threads.submit(new Callable<HttpTransport.Response>() {
+        @Override
+        public HttpTransport.Response call() throws Exception {
+          return transport.execute(get("/"));
+        }
+      }));
+    }
+    for (Future<HttpTransport.Response> future : futures) {
+      assertEquals(200, future.get().getStatusCode());
+    }
+    threads.shutdown();
+    assertEquals(32, server.getRequests());
+    assertTrue(server.getConnections() <= 2);
+    assertTrue(maxInFlight.get() <= 2);
+  }
+
+  /**
+   * Tests idle connections are evicted after the idle timeout.
+   *
+   * @throws Exception the test exception
+   */
+  @Test
+  public void evictIdleConnectionsTest() throws Exception {
+    server = new LoopbackServer(new LoopbackServer.Handler() {
+      @Override
+      public byte[] handle(String requestHead, byte[] body) {
+        return LoopbackServer.response(200, "{}");
+      }
+    });
+    transport = new PooledHttpTransport(4, 50, true);
+    transport.execute(get("/"));
+    Thread.sleep(200);
+    transport.evictIdleConnections();
+    transport.execute(get("/"));
+    assertEquals(2, server.getConnections());
+  }
+
+  /**
+   * Tests connections are not reused when keep-alive is disabled.
+   *
+   * @throws Exception the test exception
+   */
+  @Test
+  public void executeTestWithoutKeepAlive() throws Exception {
+    server = new LoopbackServer(new LoopbackServer.Handler() {
+      @Override
+      public byte[] handle(String requestHead, byte[] body) {
+        assertTrue(requestHead.contains("Connection: close\r\n"));
+        return LoopbackServer.response(200, "{}");
+      }
+    });
+    transport = new PooledHttpTransport(4, 60000, false);
+    transport.execute(get("/"));
+    transport.execute(get("/"));
+    assertEquals(2, server.getConnections());
+  }
+
+  /**
+   * Tests a response slower than the deadline of its request fails in time, and the transport
+   * keeps serving the next requests.
+   *
+   * @throws Exception the test exception
+   */
+  @Test
+  public void executeTestDeadline() throws Exception {
+    server = new LoopbackServer(new LoopbackServer.Handler() {
+      @Override
+      public byte[] handle(String requestHead, byte[] body) throws Exception {
+        if (requestHead.startsWith("GET /slow ")) {
+          Thread.sleep(2000);
+        }
+        return LoopbackServer.response(200, "{}");
+      }
+    });
+    transport = new PooledHttpTransport();
+    HttpTransport.Request request = new HttpTransport.Request(HttpMethod.GET, server.url("/slow"),
+        Collections.<String, String>emptyMap(), null, 1000, Deadline.after(200));
+    long start = System.nanoTime();
+    try {
+      transport.execute(request);
+      fail("Expected " + SocketTimeoutException.class.getName());
+    } catch (SocketTimeoutException e) {
+      // the deadline is passed
+    }
+    assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(1500));
+    assertEquals(200, transport.execute(get("/")).getStatusCode());
+  }
+
+  /**
+   * Tests a cancelled request fails right away, and the transport keeps serving the next requests.
+   *
+   * @throws Exception the test exception
+   */
+  @Test
+  public void executeTestCancel() throws Exception {
+    server = new LoopbackServer(new LoopbackServer.Handler() {
+      @Override
+      public byte[] handle(String requestHead, byte[] body) throws Exception {
+        if (requestHead.startsWith("GET /slow ")) {
+          Thread.sleep(2000);
+        }
+        return LoopbackServer.response(200, "{}");
+      }
+    });
+    transport = new PooledHttpTransport();
+    HttpTransport.Request request = get("/slow");
+    cancelAfter(request, 200);
+    long start = System.nanoTime();
+    try {
+      transport.execute(request);
+      fail("Expected " + InterruptedIOException.class.getName());
+    } catch (InterruptedIOException e) {
+      assertTrue(request.isCancelled());
+    }
+    assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(1500));
+    assertEquals(200, transport.execute(get("/")).getStatusCode());
+  }
+
+  private HttpTransport.Request get(String path) throws Exception {
+    return new HttpTransport.Request(HttpMethod.GET, server.url(path),
+        Collections.<String, String>emptyMap(), null);
+  }
+
+  private HttpTransport.Request post(String path) throws Exception {
+    return new HttpTransport.Request(HttpMethod.POST, server.url(path),
+        Collections.<String, String>emptyMap(), LoopbackServer.bytes("{}"));
+  }
+
+  private static void cancelAfter(final HttpTransport.Request request, final long delayMs) {
+    Thread thread = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          Thread.sleep(delayMs);
+        } catch (InterruptedException e) {
+          return;
+        }
+        request.cancel();
+      }
+    });
+    thread.setDaemon(true);
+    thread.start();
+  }
+}